@@ -0,0 +1,38 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.stage.inprocess;
+
+import org.apache.hadoop.mapreduce.Job;
+
+/**
+ * Predicts the elapsed time of stages in each execution mode.
+ * Implementations must have a public constructor without any parameters.
+ * @since 0.10.5
+ * @see InProcessStageConfigurator#KEY_MODEL
+ */
+@FunctionalInterface
+public interface InProcessDecisionModel {
+
+    /**
+     * Predicts the elapsed time of the target job.
+     * @param job the target job
+     * @param mode the execution mode
+     * @param inputSize the estimated input data size in bytes, or {@code -1} if it is unknown
+     * @param statistics the recorded statistics of the target stage
+     * @return the predicted elapsed time in milliseconds, or {@code -1} if it is not predictable
+     */
+    long predict(Job job, StageStatistics.Mode mode, long inputSize, StageStatistics statistics);
+}
@@ -23,7 +23,9 @@ import java.util.regex.Pattern;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.util.ReflectionUtils;
 
 import com.asakusafw.runtime.mapreduce.simple.SimpleJobRunner;
 import com.asakusafw.runtime.stage.StageConfigurator;
@@ -35,7 +37,19 @@ import com.asakusafw.runtime.stage.resource.StageResourceDriver;
 
 /**
  * Configures {@link SimpleJobRunner}.
+ * <p>
+ * If {@link #KEY_STATISTICS} is set, this records {@link StageStatistics} of each stage, and decides whether
+ * in-process execution is enabled or not by comparing the elapsed time predicted by {@link InProcessDecisionModel}.
+ * If the elapsed time is not predictable, this falls back to the {@link #KEY_LIMIT input data size limit}.
+ * Note that the statistics are neither recorded nor used unless {@link #KEY_LIMIT} is set.
+ * </p>
+ * <p>
+ * To keep the statistics of both modes up to date, this sometimes executes the stage in the mode which is not
+ * preferred by the model: if the mode has never been recorded, or every {@link #KEY_EXPLORE} executions.
+ * In-process execution is explored only if the input data size does not exceed {@link #KEY_LIMIT}.
+ * </p>
  * @since 0.7.1
+ * @version 0.10.5
  */
 public class InProcessStageConfigurator extends StageConfigurator {
 
@@ -53,6 +67,28 @@ public class InProcessStageConfigurator extends StageConfigurator {
      */
     public static final String KEY_FORCE = KEY_PREFIX + "force"; //$NON-NLS-1$
 
+    /**
+     * Hadoop property key of the base path of recorded stage statistics.
+     * This is only effective if {@link #KEY_LIMIT} is also set.
+     * @since 0.10.5
+     */
+    public static final String KEY_STATISTICS = KEY_PREFIX + "statistics"; //$NON-NLS-1$
+
+    /**
+     * Hadoop property key of the {@link InProcessDecisionModel} implementation class name.
+     * @since 0.10.5
+     */
+    public static final String KEY_MODEL = KEY_PREFIX + "model"; //$NON-NLS-1$
+
+    /**
+     * Hadoop property key of the interval of executions to explore the execution mode which is not preferred by
+     * the statistics, or {@code 0} to explore only the modes which have never been recorded.
+     * @since 0.10.5
+     */
+    public static final String KEY_EXPLORE = KEY_PREFIX + "explore"; //$NON-NLS-1$
+
+    static final int DEFAULT_EXPLORE = 10;
+
     /**
      * Activates trailing Hadoop property only if in-process job execution is enabled.
      */
@@ -97,17 +133,126 @@ public class InProcessStageConfigurator extends StageConfigurator {
                     limit,
                     estimated));
         }
-        if (estimated < 0L || estimated > limit) {
-            return;
+        boolean enable = estimated >= 0L && estimated <= limit;
+        Path statistics = getStatisticsPath(job);
+        if (statistics != null) {
+            Boolean decision = decide(job, statistics, estimated, enable);
+            if (decision != null) {
+                enable = decision;
+            }
+        }
+        if (enable) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info(MessageFormat.format(
+                        "enable in-process execution: job={0}, limit={1}, estimated={2}",
+                        job.getJobName(),
+                        limit,
+                        estimated));
+            }
+            install(job);
+        }
+        if (statistics != null) {
+            StatisticsJobRunner.install(job, statistics,
+                    enable ? StageStatistics.Mode.IN_PROCESS : StageStatistics.Mode.CLUSTER,
+                    estimated);
+        }
+    }
+
+    private Path getStatisticsPath(Job job) {
+        Configuration conf = job.getConfiguration();
+        String base = conf.get(KEY_STATISTICS);
+        if (base == null || base.isEmpty()) {
+            return null;
+        }
+        String batchId = conf.get(StageConstants.PROP_BATCH_ID);
+        String flowId = conf.get(StageConstants.PROP_FLOW_ID);
+        String stageId = job.getJobName();
+        if (batchId == null || flowId == null || stageId == null) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(MessageFormat.format(
+                        "stage statistics are not available: batchId={0}, flowId={1}, stageId={2}", //$NON-NLS-1$
+                        batchId,
+                        flowId,
+                        stageId));
+            }
+            return null;
+        }
+        return new Path(new Path(new Path(base, batchId), flowId), stageId + ".properties"); //$NON-NLS-1$
+    }
+
+    private Boolean decide(Job job, Path path, long estimated, boolean acceptable) throws IOException {
+        StageStatistics statistics;
+        try {
+            statistics = StageStatistics.load(job.getConfiguration(), path);
+        } catch (IOException e) {
+            LOG.warn(MessageFormat.format(
+                    "failed to load stage statistics: job={0}, path={1}",
+                    job.getJobName(),
+                    path), e);
+            return null;
+        }
+        long inProcessCount = statistics.getCount(StageStatistics.Mode.IN_PROCESS);
+        long clusterCount = statistics.getCount(StageStatistics.Mode.CLUSTER);
+        if (inProcessCount <= 0L && clusterCount <= 0L) {
+            return null;
         }
+        if (inProcessCount <= 0L) {
+            return acceptable ? explore(job, true) : null;
+        }
+        if (clusterCount <= 0L) {
+            return explore(job, false);
+        }
+        InProcessDecisionModel model = getModel(job);
+        long inProcess = model.predict(job, StageStatistics.Mode.IN_PROCESS, estimated, statistics);
+        long cluster = model.predict(job, StageStatistics.Mode.CLUSTER, estimated, statistics);
         if (LOG.isInfoEnabled()) {
             LOG.info(MessageFormat.format(
-                    "enable in-process execution: job={0}, limit={1}, estimated={2}",
+                    "predicted elapsed time: job={0}, in-process={1}ms, cluster={2}ms, estimated={3}",
                     job.getJobName(),
-                    limit,
+                    String.valueOf(inProcess),
+                    String.valueOf(cluster),
                     estimated));
         }
-        install(job);
+        if (inProcess < 0L || cluster < 0L) {
+            return null;
+        }
+        boolean prefer = inProcess <= cluster;
+        int interval = Math.max(job.getConfiguration().getInt(KEY_EXPLORE, DEFAULT_EXPLORE), 0);
+        if (interval > 0 && (inProcessCount + clusterCount) % interval == 0) {
+            if (prefer) {
+                return explore(job, false);
+            } else if (acceptable) {
+                return explore(job, true);
+            }
+        }
+        return prefer;
+    }
+
+    private static boolean explore(Job job, boolean inProcess) {
+        if (LOG.isInfoEnabled()) {
+            LOG.info(MessageFormat.format(
+                    "exploring execution mode: job={0}, mode={1}",
+                    job.getJobName(),
+                    inProcess ? StageStatistics.Mode.IN_PROCESS : StageStatistics.Mode.CLUSTER));
+        }
+        return inProcess;
+    }
+
+    private InProcessDecisionModel getModel(Job job) throws IOException {
+        Configuration conf = job.getConfiguration();
+        String className = conf.get(KEY_MODEL);
+        if (className == null || className.isEmpty()) {
+            return new StatisticsDecisionModel();
+        }
+        try {
+            Class<?> aClass = conf.getClassByName(className);
+            return (InProcessDecisionModel) ReflectionUtils.newInstance(aClass, conf);
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException(MessageFormat.format(
+                    "invalid in-process decision model: {0}={1}",
+                    KEY_MODEL,
+                    className), e);
+        }
     }
 
     private boolean hasCustomJobRunner(Job job) {
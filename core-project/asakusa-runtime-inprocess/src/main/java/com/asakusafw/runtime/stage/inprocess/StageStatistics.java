@@ -0,0 +1,433 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.stage.inprocess;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.MessageFormat;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Recorded statistics of individual stages.
+ * <p>
+ * Each execution is recorded with its input data size, the number of input records, the shuffle data size,
+ * and the elapsed time.
+ * The amount of work of an execution is represented as the total of the input data size, the shuffle data size,
+ * and the {@link #RECORD_BYTES per-record cost} of the input records, so that the shuffle fan-out and the record
+ * granularity of the stage are also reflected to the elapsed time per work.
+ * </p>
+ * @since 0.10.5
+ */
+public class StageStatistics {
+
+    static final double DECAY = 0.3;
+
+    /**
+     * The processing cost of each record in bytes, which stands for the per-record overhead like as
+     * creating objects and calling operators.
+     */
+    static final long RECORD_BYTES = 64;
+
+    private static final String KEY_INPUT_BYTES = "input.bytes"; //$NON-NLS-1$
+
+    private static final String KEY_INPUT_RECORDS = "input.records"; //$NON-NLS-1$
+
+    private static final String KEY_SHUFFLE_BYTES = "shuffle.bytes"; //$NON-NLS-1$
+
+    private static final String KEY_COUNT = "count"; //$NON-NLS-1$
+
+    private static final String KEY_ELAPSED = "elapsed"; //$NON-NLS-1$
+
+    private static final String KEY_INPUT = "input"; //$NON-NLS-1$
+
+    private static final String KEY_RECORDS = "records"; //$NON-NLS-1$
+
+    private static final String KEY_SHUFFLE = "shuffle"; //$NON-NLS-1$
+
+    private static final String KEY_WORK = "work"; //$NON-NLS-1$
+
+    private static final String KEY_WORK_SQUARE = "work2"; //$NON-NLS-1$
+
+    private static final String KEY_PRODUCT = "product"; //$NON-NLS-1$
+
+    // only for reading statistics which were recorded without the amount of work
+    private static final String KEY_INPUT_SQUARE = "input2"; //$NON-NLS-1$
+
+    private static final double MIN_RELATIVE_DEVIATION = 0.05;
+
+    private long inputBytes = -1L;
+
+    private long inputRecords = -1L;
+
+    private long shuffleBytes = -1L;
+
+    private final Map<Mode, Entry> entries = new EnumMap<>(Mode.class);
+
+    /**
+     * Returns the last input data size.
+     * @return the last input data size in bytes, or {@code -1} if it is not recorded
+     */
+    public long getInputBytes() {
+        return inputBytes;
+    }
+
+    /**
+     * Returns the last number of input records.
+     * @return the last number of input records, or {@code -1} if it is not recorded
+     */
+    public long getInputRecords() {
+        return inputRecords;
+    }
+
+    /**
+     * Returns the last shuffle data size.
+     * @return the last shuffle data size in bytes, or {@code -1} if it is not recorded
+     */
+    public long getShuffleBytes() {
+        return shuffleBytes;
+    }
+
+    /**
+     * Returns the amount of work per input byte in the last execution.
+     * This reflects the current shuffle fan-out and record granularity of the stage.
+     * @return the amount of work per input byte, or {@code 1.0} if it is not recorded
+     * @see #getWorkSize(Mode)
+     */
+    public double getWorkPerInputByte() {
+        if (inputBytes <= 0L) {
+            return 1.0;
+        }
+        return (double) work(inputBytes, inputRecords, shuffleBytes) / inputBytes;
+    }
+
+    /**
+     * Returns the number of recorded executions in the given mode.
+     * @param mode the target execution mode
+     * @return the number of recorded executions
+     */
+    public long getCount(Mode mode) {
+        Entry entry = entries.get(mode);
+        return entry == null ? 0L : entry.count;
+    }
+
+    /**
+     * Returns the average elapsed time in the given mode.
+     * @param mode the target execution mode
+     * @return the average elapsed time in milliseconds, or {@code -1} if it is not recorded
+     */
+    public double getElapsedTime(Mode mode) {
+        Entry entry = entries.get(mode);
+        return entry == null ? -1.0 : entry.elapsed;
+    }
+
+    /**
+     * Returns the average input data size in the given mode.
+     * @param mode the target execution mode
+     * @return the average input data size in bytes, or {@code -1} if it is not recorded
+     */
+    public double getInputSize(Mode mode) {
+        Entry entry = entries.get(mode);
+        return entry == null ? -1.0 : entry.input;
+    }
+
+    /**
+     * Returns the average number of input records in the given mode.
+     * @param mode the target execution mode
+     * @return the average number of input records, or {@code -1} if it is not recorded
+     */
+    public double getInputRecords(Mode mode) {
+        Entry entry = entries.get(mode);
+        return entry == null ? -1.0 : entry.records;
+    }
+
+    /**
+     * Returns the average shuffle data size in the given mode.
+     * @param mode the target execution mode
+     * @return the average shuffle data size in bytes, or {@code -1} if it is not recorded
+     */
+    public double getShuffleBytes(Mode mode) {
+        Entry entry = entries.get(mode);
+        return entry == null ? -1.0 : entry.shuffle;
+    }
+
+    /**
+     * Returns the average amount of work in the given mode.
+     * The amount of work is the total of the input data size, the shuffle data size, and {@link #RECORD_BYTES}
+     * for each input record.
+     * @param mode the target execution mode
+     * @return the average amount of work in bytes, or {@code -1} if it is not recorded
+     */
+    public double getWorkSize(Mode mode) {
+        Entry entry = entries.get(mode);
+        return entry == null ? -1.0 : entry.work;
+    }
+
+    /**
+     * Returns the elapsed time per {@link #getWorkSize(Mode) amount of work} in the given mode.
+     * This is estimated from the recorded executions by the weighted least squares method, and it is available
+     * only if the executions were recorded with sufficiently different amounts of work.
+     * @param mode the target execution mode
+     * @return the elapsed time per byte of work in milliseconds, or {@code -1} if it is not available
+     */
+    public double getTimePerWork(Mode mode) {
+        Entry entry = entries.get(mode);
+        if (entry == null || entry.count < 2) {
+            return -1.0;
+        }
+        double variance = entry.workSquare - entry.work * entry.work;
+        double deviation = entry.work * MIN_RELATIVE_DEVIATION;
+        if (variance <= 0.0 || variance < deviation * deviation) {
+            return -1.0;
+        }
+        double slope = (entry.product - entry.work * entry.elapsed) / variance;
+        return slope < 0.0 ? -1.0 : slope;
+    }
+
+    /**
+     * Records an execution without its input records and shuffle data size.
+     * Averages are weighted toward recent executions.
+     * @param mode the execution mode
+     * @param input the input data size in bytes, or {@code -1} if it is unknown
+     * @param elapsed the elapsed time in milliseconds
+     */
+    public void record(Mode mode, long input, long elapsed) {
+        record(mode, input, -1L, -1L, elapsed);
+    }
+
+    /**
+     * Records an execution.
+     * Averages are weighted toward recent executions.
+     * @param mode the execution mode
+     * @param input the input data size in bytes, or {@code -1} if it is unknown
+     * @param records the number of input records, or {@code -1} if it is unknown
+     * @param shuffle the shuffle data size in bytes, or {@code -1} if it is unknown
+     * @param elapsed the elapsed time in milliseconds
+     */
+    public void record(Mode mode, long input, long records, long shuffle, long elapsed) {
+        if (input >= 0) {
+            this.inputBytes = input;
+            this.inputRecords = records;
+            this.shuffleBytes = shuffle;
+        }
+        double work = work(input, records, shuffle);
+        Entry entry = entries.get(mode);
+        if (entry == null) {
+            entry = new Entry();
+            entry.elapsed = elapsed;
+            entry.input = Math.max(input, 0L);
+            entry.records = records < 0 ? -1.0 : records;
+            entry.shuffle = shuffle < 0 ? -1.0 : shuffle;
+            entry.work = work;
+            entry.workSquare = work * work;
+            entry.product = work * elapsed;
+            entries.put(mode, entry);
+        } else {
+            entry.elapsed = decay(entry.elapsed, elapsed);
+            if (input >= 0) {
+                entry.input = decay(entry.input, input);
+                entry.records = decayIfKnown(entry.records, records);
+                entry.shuffle = decayIfKnown(entry.shuffle, shuffle);
+                entry.work = decay(entry.work, work);
+                entry.workSquare = decay(entry.workSquare, work * work);
+                entry.product = decay(entry.product, work * elapsed);
+            }
+        }
+        entry.count++;
+    }
+
+    private static long work(long input, long records, long shuffle) {
+        return Math.max(input, 0L) + Math.max(shuffle, 0L) + Math.max(records, 0L) * RECORD_BYTES;
+    }
+
+    private static double decay(double average, double value) {
+        return average * (1.0 - DECAY) + value * DECAY;
+    }
+
+    private static double decayIfKnown(double average, long value) {
+        if (value < 0) {
+            return average;
+        } else if (average < 0.0) {
+            return value;
+        }
+        return decay(average, value);
+    }
+
+    /**
+     * Loads statistics from the given path.
+     * @param conf the current configuration
+     * @param path the statistics file path
+     * @return the loaded statistics, or empty statistics if the file does not exist
+     * @throws IOException if failed to load the statistics
+     */
+    public static StageStatistics load(Configuration conf, Path path) throws IOException {
+        StageStatistics result = new StageStatistics();
+        FileSystem fs = path.getFileSystem(conf);
+        Properties properties = new Properties();
+        try (InputStream in = fs.open(path)) {
+            properties.load(in);
+        } catch (FileNotFoundException e) {
+            return result;
+        }
+        try {
+            result.inputBytes = getLong(properties, KEY_INPUT_BYTES);
+            result.inputRecords = getLong(properties, KEY_INPUT_RECORDS);
+            result.shuffleBytes = getLong(properties, KEY_SHUFFLE_BYTES);
+            for (Mode mode : Mode.values()) {
+                long count = getLong(properties, key(mode, KEY_COUNT));
+                if (count <= 0) {
+                    continue;
+                }
+                Entry entry = new Entry();
+                entry.count = count;
+                entry.elapsed = getDouble(properties, key(mode, KEY_ELAPSED), 0.0);
+                entry.input = getDouble(properties, key(mode, KEY_INPUT), 0.0);
+                entry.records = getDouble(properties, key(mode, KEY_RECORDS), -1.0);
+                entry.shuffle = getDouble(properties, key(mode, KEY_SHUFFLE), -1.0);
+                entry.work = getDouble(properties, key(mode, KEY_WORK), entry.input);
+                entry.workSquare = getDouble(properties, key(mode, KEY_WORK_SQUARE),
+                        getDouble(properties, key(mode, KEY_INPUT_SQUARE), entry.work * entry.work));
+                entry.product = getDouble(properties, key(mode, KEY_PRODUCT), entry.work * entry.elapsed);
+                result.entries.put(mode, entry);
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException(MessageFormat.format(
+                    "invalid stage statistics: {0}",
+                    path), e);
+        }
+        return result;
+    }
+
+    /**
+     * Stores this statistics into the given path.
+     * @param conf the current configuration
+     * @param path the statistics file path
+     * @throws IOException if failed to store the statistics
+     */
+    public void store(Configuration conf, Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(KEY_INPUT_BYTES, String.valueOf(inputBytes));
+        properties.setProperty(KEY_INPUT_RECORDS, String.valueOf(inputRecords));
+        properties.setProperty(KEY_SHUFFLE_BYTES, String.valueOf(shuffleBytes));
+        for (Map.Entry<Mode, Entry> entry : entries.entrySet()) {
+            Mode mode = entry.getKey();
+            properties.setProperty(key(mode, KEY_COUNT), String.valueOf(entry.getValue().count));
+            properties.setProperty(key(mode, KEY_ELAPSED), String.valueOf(entry.getValue().elapsed));
+            properties.setProperty(key(mode, KEY_INPUT), String.valueOf(entry.getValue().input));
+            properties.setProperty(key(mode, KEY_RECORDS), String.valueOf(entry.getValue().records));
+            properties.setProperty(key(mode, KEY_SHUFFLE), String.valueOf(entry.getValue().shuffle));
+            properties.setProperty(key(mode, KEY_WORK), String.valueOf(entry.getValue().work));
+            properties.setProperty(key(mode, KEY_WORK_SQUARE), String.valueOf(entry.getValue().workSquare));
+            properties.setProperty(key(mode, KEY_PRODUCT), String.valueOf(entry.getValue().product));
+        }
+        FileSystem fs = path.getFileSystem(conf);
+        try (OutputStream out = fs.create(path, true)) {
+            properties.store(out, null);
+        }
+    }
+
+    private static String key(Mode mode, String name) {
+        return mode.getSymbol() + '.' + name;
+    }
+
+    private static long getLong(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return -1L;
+        }
+        return Long.parseLong(value);
+    }
+
+    private static double getDouble(Properties properties, String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        return Double.parseDouble(value);
+    }
+
+    @Override
+    public String toString() {
+        return MessageFormat.format(
+                "StageStatistics(input={0}, records={1}, shuffle={2}, modes={3})", //$NON-NLS-1$
+                inputBytes,
+                inputRecords,
+                shuffleBytes,
+                entries.keySet());
+    }
+
+    /**
+     * Represents a job execution mode.
+     * @since 0.10.5
+     */
+    public enum Mode {
+
+        /**
+         * Executes jobs in the current process.
+         */
+        IN_PROCESS("inprocess"), //$NON-NLS-1$
+
+        /**
+         * Executes jobs on the cluster.
+         */
+        CLUSTER("cluster"), //$NON-NLS-1$
+        ;
+
+        private final String symbol;
+
+        Mode(String symbol) {
+            this.symbol = symbol;
+        }
+
+        /**
+         * Returns the symbol of this mode.
+         * @return the symbol
+         */
+        public String getSymbol() {
+            return symbol;
+        }
+    }
+
+    private static final class Entry {
+
+        long count;
+
+        double elapsed;
+
+        double input;
+
+        double records;
+
+        double shuffle;
+
+        double work;
+
+        double workSquare;
+
+        double product;
+
+        Entry() {
+            return;
+        }
+    }
+}
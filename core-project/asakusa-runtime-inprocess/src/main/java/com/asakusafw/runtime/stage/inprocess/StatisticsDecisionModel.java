@@ -0,0 +1,89 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.stage.inprocess;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Job;
+
+/**
+ * A default implementation of {@link InProcessDecisionModel}, which predicts the elapsed time of each mode
+ * from the recorded executions of the stage.
+ * <p>
+ * The elapsed time of each mode is split into a fixed part (e.g. job submission and queue waiting) and a part
+ * which is proportional to the {@link StageStatistics#getWorkSize(StageStatistics.Mode) amount of work}, that is
+ * derived from the input data size, the number of input records, and the shuffle data size.
+ * The amount of work of the next execution is estimated from its input data size and the
+ * {@link StageStatistics#getWorkPerInputByte() shuffle fan-out and record granularity} of the last execution.
+ * If the stage has been executed with different amounts of work, both parts are
+ * {@link StageStatistics#getTimePerWork(StageStatistics.Mode) estimated} from the recorded executions, so that
+ * the queue waiting time of the cluster and the operator cost of the individual stage are reflected.
+ * Otherwise, the recorded elapsed time is split by the fixed part ratio, which can be configured by
+ * {@link #KEY_FIXED_RATIO_PREFIX} + {@link StageStatistics.Mode#getSymbol() mode symbol}.
+ * </p>
+ * <p>
+ * Note that this model is only used if {@link InProcessStageConfigurator#KEY_LIMIT} is also set, and the limit
+ * still bounds exploring in-process execution.
+ * </p>
+ * @since 0.10.5
+ */
+public class StatisticsDecisionModel implements InProcessDecisionModel {
+
+    /**
+     * The Hadoop property key prefix of the fixed part ratio of each execution mode.
+     */
+    public static final String KEY_FIXED_RATIO_PREFIX = "com.asakusafw.inprocess.model.fixed."; //$NON-NLS-1$
+
+    static final double DEFAULT_FIXED_RATIO_IN_PROCESS = 0.1;
+
+    static final double DEFAULT_FIXED_RATIO_CLUSTER = 0.5;
+
+    @Override
+    public long predict(Job job, StageStatistics.Mode mode, long inputSize, StageStatistics statistics) {
+        if (inputSize < 0L || statistics.getCount(mode) <= 0L) {
+            return -1L;
+        }
+        double elapsed = statistics.getElapsedTime(mode);
+        double recordedWork = statistics.getWorkSize(mode);
+        double work = inputSize * statistics.getWorkPerInputByte();
+        double timePerWork = statistics.getTimePerWork(mode);
+        if (timePerWork >= 0.0) {
+            double fixed = Math.max(elapsed - timePerWork * recordedWork, 0.0);
+            return (long) (fixed + timePerWork * work);
+        }
+        if (recordedWork <= 0.0) {
+            return (long) elapsed;
+        }
+        double fixed = getFixedRatio(job.getConfiguration(), mode);
+        double ratio = work / recordedWork;
+        return (long) (elapsed * (fixed + (1.0 - fixed) * ratio));
+    }
+
+    private static double getFixedRatio(Configuration conf, StageStatistics.Mode mode) {
+        double defaultValue;
+        switch (mode) {
+        case IN_PROCESS:
+            defaultValue = DEFAULT_FIXED_RATIO_IN_PROCESS;
+            break;
+        case CLUSTER:
+            defaultValue = DEFAULT_FIXED_RATIO_CLUSTER;
+            break;
+        default:
+            throw new AssertionError(mode);
+        }
+        double value = conf.getDouble(KEY_FIXED_RATIO_PREFIX + mode.getSymbol(), defaultValue);
+        return Math.max(0.0, Math.min(1.0, value));
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.stage.inprocess;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.TaskCounter;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import com.asakusafw.runtime.stage.JobRunner;
+import com.asakusafw.runtime.stage.StageConstants;
+
+/**
+ * A {@link JobRunner} which records {@link StageStatistics} of the executed jobs.
+ * The recorded elapsed time includes job submission and waiting in the cluster queue.
+ * The number of input records and the shuffle data size are obtained from the job counters of the delegate runner.
+ * @since 0.10.5
+ */
+public class StatisticsJobRunner implements JobRunner {
+
+    static final Log LOG = LogFactory.getLog(StatisticsJobRunner.class);
+
+    private static final String KEY_PREFIX = "com.asakusafw.inprocess.statistics."; //$NON-NLS-1$
+
+    static final String KEY_DELEGATE = KEY_PREFIX + "delegate"; //$NON-NLS-1$
+
+    static final String KEY_PATH = KEY_PREFIX + "path"; //$NON-NLS-1$
+
+    static final String KEY_MODE = KEY_PREFIX + "mode"; //$NON-NLS-1$
+
+    static final String KEY_INPUT_SIZE = KEY_PREFIX + "input"; //$NON-NLS-1$
+
+    private JobRunner delegate;
+
+    /**
+     * Installs this runner into the given job.
+     * The current job runner of the job will be used for executing the job.
+     * @param job the target job
+     * @param path the statistics file path
+     * @param mode the current execution mode
+     * @param inputSize the estimated input data size in bytes, or {@code -1} if it is unknown
+     */
+    static void install(Job job, Path path, StageStatistics.Mode mode, long inputSize) {
+        Configuration conf = job.getConfiguration();
+        String delegate = conf.get(StageConstants.PROP_JOB_RUNNER);
+        if (delegate != null) {
+            conf.set(KEY_DELEGATE, delegate);
+        }
+        conf.set(KEY_PATH, path.toString());
+        conf.set(KEY_MODE, mode.name());
+        conf.setLong(KEY_INPUT_SIZE, inputSize);
+        conf.set(StageConstants.PROP_JOB_RUNNER, StatisticsJobRunner.class.getName());
+    }
+
+    @Override
+    public boolean run(Job job) throws IOException, InterruptedException, ClassNotFoundException {
+        long start = System.currentTimeMillis();
+        boolean succeed = runDelegate(job);
+        long elapsed = System.currentTimeMillis() - start;
+        if (succeed) {
+            record(job, elapsed);
+        }
+        return succeed;
+    }
+
+    private boolean runDelegate(Job job) throws IOException, InterruptedException, ClassNotFoundException {
+        Configuration conf = job.getConfiguration();
+        String delegateName = conf.get(KEY_DELEGATE);
+        if (delegateName == null) {
+            job.submit();
+            LOG.info(MessageFormat.format(
+                    "starting job using {0}: {1} ({2})",
+                    this,
+                    job.getJobID(),
+                    job.getJobName()));
+            return job.waitForCompletion(true);
+        }
+        Class<?> delegateClass = conf.getClassByName(delegateName);
+        JobRunner runner = (JobRunner) ReflectionUtils.newInstance(delegateClass, conf);
+        synchronized (this) {
+            delegate = runner;
+        }
+        return runner.run(job);
+    }
+
+    @Override
+    public Counters getCounters(Job job) throws IOException, InterruptedException {
+        JobRunner runner;
+        synchronized (this) {
+            runner = delegate;
+        }
+        if (runner == null) {
+            return job.getCounters();
+        }
+        return runner.getCounters(job);
+    }
+
+    private void record(Job job, long elapsed) {
+        Configuration conf = job.getConfiguration();
+        String pathString = conf.get(KEY_PATH);
+        String modeName = conf.get(KEY_MODE);
+        if (pathString == null || modeName == null) {
+            return;
+        }
+        Path path = new Path(pathString);
+        try {
+            StageStatistics.Mode mode = StageStatistics.Mode.valueOf(modeName);
+            long records = -1L;
+            long shuffle = -1L;
+            Counters counters = getCountersSafely(job);
+            if (counters != null) {
+                records = counters.findCounter(TaskCounter.MAP_INPUT_RECORDS).getValue();
+                shuffle = job.getNumReduceTasks() == 0
+                        ? 0L
+                        : counters.findCounter(TaskCounter.REDUCE_SHUFFLE_BYTES).getValue();
+            }
+            StageStatistics statistics = StageStatistics.load(conf, path);
+            statistics.record(mode, conf.getLong(KEY_INPUT_SIZE, -1L), records, shuffle, elapsed);
+            statistics.store(conf, path);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(MessageFormat.format(
+                        "recorded stage statistics: job={0}, mode={1}, elapsed={2}ms, " //$NON-NLS-1$
+                        + "records={3}, shuffle={4}, path={5}", //$NON-NLS-1$
+                        job.getJobName(),
+                        mode,
+                        elapsed,
+                        records,
+                        shuffle,
+                        path));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn(MessageFormat.format(
+                    "failed to record stage statistics: job={0}, path={1}",
+                    job.getJobName(),
+                    path), e);
+        }
+    }
+
+    private Counters getCountersSafely(Job job) {
+        try {
+            return getCounters(job);
+        } catch (IOException | RuntimeException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(MessageFormat.format(
+                        "failed to obtain job counters: {0}", //$NON-NLS-1$
+                        job.getJobName()), e);
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Hadoop job runner with recording statistics"; //$NON-NLS-1$
+    }
+}
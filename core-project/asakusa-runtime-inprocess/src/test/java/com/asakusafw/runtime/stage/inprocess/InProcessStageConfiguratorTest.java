@@ -23,10 +23,17 @@ import java.io.IOException;
 import java.util.ServiceLoader;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Counters;
 import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.TaskCounter;
 import org.junit.Assume;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import com.asakusafw.runtime.mapreduce.simple.SimpleJobRunner;
+import com.asakusafw.runtime.stage.JobRunner;
 import com.asakusafw.runtime.stage.StageConfigurator;
 import com.asakusafw.runtime.stage.StageConstants;
 import com.asakusafw.runtime.stage.input.ExtremeSplitCombiner;
@@ -40,6 +47,12 @@ import com.asakusafw.runtime.util.hadoop.ConfigurationProvider;
  */
 public class InProcessStageConfiguratorTest {
 
+    /**
+     * temporary folder.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
     /**
      * simple case.
      * @throws Exception if failed
@@ -120,6 +133,261 @@ public class InProcessStageConfiguratorTest {
         assertThat(conf.get("com.example.testing"), is(not("YES!")));
     }
 
+    /**
+     * prefers in-process execution by statistics even if input size is exceeded.
+     * @throws Exception if failed
+     */
+    @Test
+    public void statistics_in_process() throws Exception {
+        Job job = newJob();
+        Configuration conf = job.getConfiguration();
+
+        conf.setLong(KEY_LIMIT, 100);
+        Path path = statistics(job);
+        StageStatistics statistics = new StageStatistics();
+        statistics.record(StageStatistics.Mode.IN_PROCESS, 1000, 100);
+        statistics.record(StageStatistics.Mode.CLUSTER, 1000, 10000);
+        statistics.store(conf, path);
+
+        new Mock(1000).configure(job);
+        assertThat(conf.get(StageConstants.PROP_JOB_RUNNER), is(StatisticsJobRunner.class.getName()));
+        assertThat(conf.get(StatisticsJobRunner.KEY_DELEGATE), is(SimpleJobRunner.class.getName()));
+        assertThat(conf.get(StatisticsJobRunner.KEY_MODE), is(StageStatistics.Mode.IN_PROCESS.name()));
+        assertThat(StageResourceDriver.getAccessMode(job), is(StageResourceDriver.AccessMode.DIRECT));
+    }
+
+    /**
+     * prefers cluster execution by statistics even if input size is small.
+     * @throws Exception if failed
+     */
+    @Test
+    public void statistics_cluster() throws Exception {
+        Job job = newJob();
+        Configuration conf = job.getConfiguration();
+
+        conf.setLong(KEY_LIMIT, 100);
+        Path path = statistics(job);
+        StageStatistics statistics = new StageStatistics();
+        statistics.record(StageStatistics.Mode.IN_PROCESS, 10, 10000);
+        statistics.record(StageStatistics.Mode.CLUSTER, 10, 100);
+        statistics.store(conf, path);
+
+        new Mock(10).configure(job);
+        assertThat(conf.get(StageConstants.PROP_JOB_RUNNER), is(StatisticsJobRunner.class.getName()));
+        assertThat(conf.get(StatisticsJobRunner.KEY_DELEGATE), is(nullValue()));
+        assertThat(conf.get(StatisticsJobRunner.KEY_MODE), is(StageStatistics.Mode.CLUSTER.name()));
+        assertThat(StageResourceDriver.getAccessMode(job), is(not(StageResourceDriver.AccessMode.DIRECT)));
+    }
+
+    /**
+     * falls back to input size limit if statistics are not recorded.
+     * @throws Exception if failed
+     */
+    @Test
+    public void statistics_missing() throws Exception {
+        Job job = newJob();
+        Configuration conf = job.getConfiguration();
+
+        conf.setLong(KEY_LIMIT, 100);
+        statistics(job);
+
+        new Mock(100).configure(job);
+        assertThat(conf.get(StatisticsJobRunner.KEY_DELEGATE), is(SimpleJobRunner.class.getName()));
+        assertThat(conf.get(StatisticsJobRunner.KEY_MODE), is(StageStatistics.Mode.IN_PROCESS.name()));
+    }
+
+    /**
+     * explores cluster execution if it has never been recorded.
+     * @throws Exception if failed
+     */
+    @Test
+    public void statistics_explore_cluster() throws Exception {
+        Job job = newJob();
+        Configuration conf = job.getConfiguration();
+
+        conf.setLong(KEY_LIMIT, 100);
+        Path path = statistics(job);
+        StageStatistics statistics = new StageStatistics();
+        statistics.record(StageStatistics.Mode.IN_PROCESS, 10, 100);
+        statistics.store(conf, path);
+
+        new Mock(10).configure(job);
+        assertThat(conf.get(StatisticsJobRunner.KEY_MODE), is(StageStatistics.Mode.CLUSTER.name()));
+    }
+
+    /**
+     * explores in-process execution if it has never been recorded.
+     * @throws Exception if failed
+     */
+    @Test
+    public void statistics_explore_in_process() throws Exception {
+        Job job = newJob();
+        Configuration conf = job.getConfiguration();
+
+        conf.setLong(KEY_LIMIT, 100);
+        Path path = statistics(job);
+        StageStatistics statistics = new StageStatistics();
+        statistics.record(StageStatistics.Mode.CLUSTER, 10, 100);
+        statistics.store(conf, path);
+
+        new Mock(10).configure(job);
+        assertThat(conf.get(StatisticsJobRunner.KEY_MODE), is(StageStatistics.Mode.IN_PROCESS.name()));
+    }
+
+    /**
+     * does not explore in-process execution if input size is exceeded.
+     * @throws Exception if failed
+     */
+    @Test
+    public void statistics_explore_in_process_limit() throws Exception {
+        Job job = newJob();
+        Configuration conf = job.getConfiguration();
+
+        conf.setLong(KEY_LIMIT, 100);
+        Path path = statistics(job);
+        StageStatistics statistics = new StageStatistics();
+        statistics.record(StageStatistics.Mode.CLUSTER, 1000, 100);
+        statistics.store(conf, path);
+
+        new Mock(1000).configure(job);
+        assertThat(conf.get(StatisticsJobRunner.KEY_MODE), is(StageStatistics.Mode.CLUSTER.name()));
+    }
+
+    /**
+     * periodically explores the execution mode which is not preferred.
+     * @throws Exception if failed
+     */
+    @Test
+    public void statistics_explore_periodic() throws Exception {
+        Job job = newJob();
+        Configuration conf = job.getConfiguration();
+
+        conf.setLong(KEY_LIMIT, 100);
+        conf.setInt(KEY_EXPLORE, 3);
+        Path path = statistics(job);
+        StageStatistics statistics = new StageStatistics();
+        statistics.record(StageStatistics.Mode.IN_PROCESS, 10, 100);
+        statistics.record(StageStatistics.Mode.IN_PROCESS, 10, 100);
+        statistics.record(StageStatistics.Mode.CLUSTER, 10, 10000);
+        statistics.store(conf, path);
+
+        new Mock(10).configure(job);
+        assertThat(conf.get(StatisticsJobRunner.KEY_MODE), is(StageStatistics.Mode.CLUSTER.name()));
+    }
+
+    /**
+     * explores nothing if disabled.
+     * @throws Exception if failed
+     */
+    @Test
+    public void statistics_explore_disabled() throws Exception {
+        Job job = newJob();
+        Configuration conf = job.getConfiguration();
+
+        conf.setLong(KEY_LIMIT, 100);
+        conf.setInt(KEY_EXPLORE, 0);
+        Path path = statistics(job);
+        StageStatistics statistics = new StageStatistics();
+        statistics.record(StageStatistics.Mode.IN_PROCESS, 10, 100);
+        statistics.record(StageStatistics.Mode.IN_PROCESS, 10, 100);
+        statistics.record(StageStatistics.Mode.CLUSTER, 10, 10000);
+        statistics.store(conf, path);
+
+        new Mock(10).configure(job);
+        assertThat(conf.get(StatisticsJobRunner.KEY_MODE), is(StageStatistics.Mode.IN_PROCESS.name()));
+    }
+
+    /**
+     * predicts elapsed time from the fixed part and the proportional part of the recorded executions.
+     * @throws Exception if failed
+     */
+    @Test
+    public void statistics_model_fit() throws Exception {
+        Job job = newJob();
+        StageStatistics statistics = new StageStatistics();
+        statistics.record(StageStatistics.Mode.CLUSTER, 1000, 30000 + 1000);
+        statistics.record(StageStatistics.Mode.CLUSTER, 3000, 30000 + 3000);
+        statistics.record(StageStatistics.Mode.CLUSTER, 2000, 30000 + 2000);
+        assertThat(statistics.getTimePerWork(StageStatistics.Mode.CLUSTER), closeTo(1.0, 0.01));
+
+        StatisticsDecisionModel model = new StatisticsDecisionModel();
+        long predicted = model.predict(job, StageStatistics.Mode.CLUSTER, 10000, statistics);
+        assertThat((double) predicted, closeTo(40000.0, 10.0));
+    }
+
+    /**
+     * predicts elapsed time from the amount of work, which reflects input records and shuffle fan-out.
+     * @throws Exception if failed
+     */
+    @Test
+    public void statistics_model_work() throws Exception {
+        Job job = newJob();
+        long r = StageStatistics.RECORD_BYTES;
+        StageStatistics statistics = new StageStatistics();
+        // work = input + shuffle + records * RECORD_BYTES = 2 * input
+        statistics.record(StageStatistics.Mode.CLUSTER, 1000 * r, 500, 500 * r, 30000 + 2000 * r);
+        statistics.record(StageStatistics.Mode.CLUSTER, 3000 * r, 1500, 1500 * r, 30000 + 6000 * r);
+        statistics.record(StageStatistics.Mode.CLUSTER, 2000 * r, 1000, 1000 * r, 30000 + 4000 * r);
+        assertThat(statistics.getTimePerWork(StageStatistics.Mode.CLUSTER), closeTo(1.0, 0.01));
+        assertThat(statistics.getWorkPerInputByte(), closeTo(2.0, 0.01));
+
+        StatisticsDecisionModel model = new StatisticsDecisionModel();
+        long predicted = model.predict(job, StageStatistics.Mode.CLUSTER, 10000 * r, statistics);
+        assertThat((double) predicted, closeTo(30000.0 + 20000 * r, 10.0));
+
+        // the shuffle fan-out becomes larger: work = 3 * input
+        statistics.record(StageStatistics.Mode.IN_PROCESS, 1000 * r, 500, 1500 * r, 1000);
+        assertThat(statistics.getWorkPerInputByte(), closeTo(3.0, 0.01));
+        long fanout = model.predict(job, StageStatistics.Mode.CLUSTER, 10000 * r, statistics);
+        assertThat((double) fanout, closeTo(30000.0 + 30000 * r, 10.0));
+    }
+
+    /**
+     * falls back to the fixed part ratio if the recorded input sizes are not different.
+     * @throws Exception if failed
+     */
+    @Test
+    public void statistics_model_ratio() throws Exception {
+        Job job = newJob();
+        job.getConfiguration().setDouble(StatisticsDecisionModel.KEY_FIXED_RATIO_PREFIX + "cluster", 0.5);
+        StageStatistics statistics = new StageStatistics();
+        statistics.record(StageStatistics.Mode.CLUSTER, 1000, 1000);
+        statistics.record(StageStatistics.Mode.CLUSTER, 1000, 1000);
+        assertThat(statistics.getTimePerWork(StageStatistics.Mode.CLUSTER), is(-1.0));
+
+        StatisticsDecisionModel model = new StatisticsDecisionModel();
+        assertThat(model.predict(job, StageStatistics.Mode.CLUSTER, 3000, statistics), is(2000L));
+    }
+
+    /**
+     * records statistics.
+     * @throws Exception if failed
+     */
+    @Test
+    public void statistics_record() throws Exception {
+        Job job = newJob();
+        Configuration conf = job.getConfiguration();
+
+        conf.setLong(KEY_LIMIT, 100);
+        Path path = statistics(job);
+        conf.set(StageConstants.PROP_JOB_RUNNER, MockRunner.class.getName());
+        StatisticsJobRunner.install(job, path, StageStatistics.Mode.IN_PROCESS, 50);
+        assertThat(new StatisticsJobRunner().run(job), is(true));
+        assertThat(new StatisticsJobRunner().run(job), is(true));
+
+        StageStatistics statistics = StageStatistics.load(conf, path);
+        assertThat(statistics.getCount(StageStatistics.Mode.IN_PROCESS), is(2L));
+        assertThat(statistics.getCount(StageStatistics.Mode.CLUSTER), is(0L));
+        assertThat(statistics.getInputBytes(), is(50L));
+        assertThat(statistics.getInputRecords(), is(5L));
+        assertThat(statistics.getShuffleBytes(), is(100L));
+        assertThat(statistics.getInputSize(StageStatistics.Mode.IN_PROCESS), closeTo(50.0, 0.01));
+        assertThat(statistics.getInputRecords(StageStatistics.Mode.IN_PROCESS), closeTo(5.0, 0.01));
+        assertThat(statistics.getShuffleBytes(StageStatistics.Mode.IN_PROCESS), closeTo(100.0, 0.01));
+        assertThat(statistics.getElapsedTime(StageStatistics.Mode.IN_PROCESS), greaterThanOrEqualTo(0.0));
+        assertThat(statistics.getTimePerWork(StageStatistics.Mode.IN_PROCESS), is(-1.0));
+    }
+
     /**
      * SPI test.
      */
@@ -147,6 +415,33 @@ public class InProcessStageConfiguratorTest {
         }
     }
 
+    private Path statistics(Job job) {
+        Configuration conf = job.getConfiguration();
+        conf.set(KEY_STATISTICS, folder.getRoot().toURI().toString());
+        conf.set(StageConstants.PROP_BATCH_ID, "b");
+        conf.set(StageConstants.PROP_FLOW_ID, "f");
+        return new Path(folder.getRoot().toURI().toString() + "/b/f/testing.properties");
+    }
+
+    /**
+     * Mock {@link JobRunner}.
+     */
+    public static final class MockRunner implements JobRunner {
+
+        @Override
+        public boolean run(Job job) {
+            return true;
+        }
+
+        @Override
+        public Counters getCounters(Job job) {
+            Counters counters = new Counters();
+            counters.findCounter(TaskCounter.MAP_INPUT_RECORDS).setValue(5);
+            counters.findCounter(TaskCounter.REDUCE_SHUFFLE_BYTES).setValue(100);
+            return counters;
+        }
+    }
+
     private static final class Mock extends InProcessStageConfigurator {
 
         private final long size;
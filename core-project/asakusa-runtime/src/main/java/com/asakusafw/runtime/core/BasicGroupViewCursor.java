@@ -0,0 +1,133 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * A basic implementation of {@link GroupView.Cursor}, which is built on {@link GroupView#find(Object...)}.
+ * This reuses key element arrays for the fixed-arity lookup methods.
+ * @param <T> the data type
+ * @since 0.10.5
+ */
+class BasicGroupViewCursor<T> implements GroupView.Cursor<T> {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private final GroupView<T> view;
+
+    private final Object[][] buffers = new Object[5][];
+
+    private List<T> group = Collections.emptyList();
+
+    private int index;
+
+    /**
+     * Creates a new instance.
+     * @param view the target view
+     */
+    BasicGroupViewCursor(GroupView<T> view) {
+        this.view = view;
+        this.buffers[0] = EMPTY;
+    }
+
+    @Override
+    public GroupView.Cursor<T> find() {
+        return bind(buffers[0]);
+    }
+
+    @Override
+    public GroupView.Cursor<T> find(Object key) {
+        Object[] buffer = buffer(1);
+        buffer[0] = key;
+        return bind(buffer);
+    }
+
+    @Override
+    public GroupView.Cursor<T> find(Object a, Object b) {
+        Object[] buffer = buffer(2);
+        buffer[0] = a;
+        buffer[1] = b;
+        return bind(buffer);
+    }
+
+    @Override
+    public GroupView.Cursor<T> find(Object a, Object b, Object c) {
+        Object[] buffer = buffer(3);
+        buffer[0] = a;
+        buffer[1] = b;
+        buffer[2] = c;
+        return bind(buffer);
+    }
+
+    @Override
+    public GroupView.Cursor<T> find(Object a, Object b, Object c, Object d) {
+        Object[] buffer = buffer(4);
+        buffer[0] = a;
+        buffer[1] = b;
+        buffer[2] = c;
+        buffer[3] = d;
+        return bind(buffer);
+    }
+
+    @Override
+    public GroupView.Cursor<T> find(Object... elements) {
+        return bind(elements);
+    }
+
+    private Object[] buffer(int arity) {
+        Object[] buffer = buffers[arity];
+        if (buffer == null) {
+            buffer = new Object[arity];
+            buffers[arity] = buffer;
+        }
+        return buffer;
+    }
+
+    private GroupView.Cursor<T> bind(Object[] elements) {
+        List<T> found = view.find(elements);
+        group = found instanceof RandomAccess ? found : new ArrayList<>(found);
+        index = -1;
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return group.size();
+    }
+
+    @Override
+    public boolean next() {
+        if (index + 1 < group.size()) {
+            index++;
+            return true;
+        }
+        index = group.size();
+        return false;
+    }
+
+    @Override
+    public T get() {
+        if (index < 0 || index >= group.size()) {
+            throw new NoSuchElementException();
+        }
+        return group.get(index);
+    }
+}
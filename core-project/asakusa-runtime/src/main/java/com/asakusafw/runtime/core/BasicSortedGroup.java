@@ -0,0 +1,121 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.core;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A basic implementation of {@link SortedGroupView.Group}, which performs binary searches over sorted lists.
+ * @param <T> the data type
+ * @since 0.10.5
+ */
+public class BasicSortedGroup<T> implements SortedGroupView.Group<T> {
+
+    private static final BasicSortedGroup<?> EMPTY = new BasicSortedGroup<>(
+            Collections.emptyList(), Collections.emptyList(), Function.identity());
+
+    private final List<T> elements;
+
+    private final List<?> keys;
+
+    private final Function<Object, ?> resolver;
+
+    /**
+     * Creates a new instance.
+     * Each key must be {@link Comparable} with each other, or {@code null} which is less than any other keys.
+     * @param elements the entries, must be sorted by their sort key in ascendant order
+     * @param keys the sort keys of the individual entries
+     * @param resolver converts sort key arguments into comparable keys
+     */
+    public BasicSortedGroup(List<T> elements, List<?> keys, Function<Object, ?> resolver) {
+        if (elements.size() != keys.size()) {
+            throw new IllegalArgumentException();
+        }
+        this.elements = elements;
+        this.keys = keys;
+        this.resolver = resolver;
+    }
+
+    /**
+     * Returns an empty group.
+     * @param <T> the data type
+     * @return an empty group
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BasicSortedGroup<T> empty() {
+        return (BasicSortedGroup<T>) EMPTY;
+    }
+
+    @Override
+    public List<T> all() {
+        return elements;
+    }
+
+    @Override
+    public T floor(Object key) {
+        int index = search(resolver.apply(key), false) - 1;
+        return index >= 0 ? elements.get(index) : null;
+    }
+
+    @Override
+    public T ceiling(Object key) {
+        int index = search(resolver.apply(key), true);
+        return index < elements.size() ? elements.get(index) : null;
+    }
+
+    @Override
+    public List<T> range(Object from, boolean fromInclusive, Object to, boolean toInclusive) {
+        int begin = from == null ? 0 : search(resolver.apply(from), fromInclusive);
+        int end = to == null ? elements.size() : search(resolver.apply(to), toInclusive == false);
+        if (begin >= end) {
+            return Collections.emptyList();
+        }
+        return elements.subList(begin, end);
+    }
+
+    /**
+     * Returns the first index whose key is greater than (or equal to) the given key.
+     * @param key the search key
+     * @param inclusive {@code true} to include the equivalent keys
+     * @return the found index, or the number of elements if there are no such keys
+     */
+    private int search(Object key, boolean inclusive) {
+        int low = 0;
+        int high = keys.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int diff = compare(keys.get(mid), key);
+            if (diff < 0 || (diff == 0 && inclusive == false)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object a, Object b) {
+        if (a == null) {
+            return b == null ? 0 : -1;
+        } else if (b == null) {
+            return +1;
+        }
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+}
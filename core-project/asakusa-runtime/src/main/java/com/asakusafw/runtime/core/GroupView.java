@@ -22,6 +22,7 @@ import java.util.List;
  * Application developers <em>MUST NOT</em> change the returned lists and their elements.
  * @param <T> the data type
  * @since 0.9.1
+ * @version 0.10.5
  */
 public interface GroupView<T> extends View<T> {
 
@@ -87,4 +88,110 @@ public interface GroupView<T> extends View<T> {
      * @throws IllegalArgumentException if the key structure is not compatible for this view (optional behavior)
      */
     List<T> find(Object... elements);
+
+    /**
+     * Returns a new reusable lookup cursor for this view.
+     * <p>
+     * The returned cursor can be used many times for individual lookups, and it does not create any arrays or lists
+     * for each lookup as long as the key elements are specified via the fixed-arity methods.
+     * Each cursor is not thread-safe.
+     * </p>
+<pre><code>
+GroupView.Cursor&lt;Hoge&gt; cursor = view.newCursor();
+...
+cursor.find(a.getKeyOption());
+while (cursor.next()) {
+    Hoge hoge = cursor.get();
+    ...
+}
+</code></pre>
+     * @return the created cursor
+     * @since 0.10.5
+     */
+    default Cursor<T> newCursor() {
+        return new BasicGroupViewCursor<>(this);
+    }
+
+    /**
+     * A reusable lookup cursor of {@link GroupView}.
+     * Each {@code find(...)} method rebinds the key elements, and then moves this cursor before the first entry
+     * of the corresponding group.
+     * Application developers <em>MUST NOT</em> change the returned objects.
+     * @param <T> the data type
+     * @since 0.10.5
+     */
+    interface Cursor<T> {
+
+        /**
+         * Rebinds this cursor to the group for the empty key.
+         * @return this
+         * @throws IllegalArgumentException if the key structure is not compatible for this view (optional behavior)
+         */
+        Cursor<T> find();
+
+        /**
+         * Rebinds this cursor to the group for the key.
+         * @param key the search key element
+         * @return this
+         * @throws IllegalArgumentException if the key structure is not compatible for this view (optional behavior)
+         */
+        Cursor<T> find(Object key);
+
+        /**
+         * Rebinds this cursor to the group for the key elements.
+         * @param a the first key element
+         * @param b the second key element
+         * @return this
+         * @throws IllegalArgumentException if the key structure is not compatible for this view (optional behavior)
+         */
+        Cursor<T> find(Object a, Object b);
+
+        /**
+         * Rebinds this cursor to the group for the key elements.
+         * @param a the first key element
+         * @param b the second key element
+         * @param c the third key element
+         * @return this
+         * @throws IllegalArgumentException if the key structure is not compatible for this view (optional behavior)
+         */
+        Cursor<T> find(Object a, Object b, Object c);
+
+        /**
+         * Rebinds this cursor to the group for the key elements.
+         * @param a the first key element
+         * @param b the second key element
+         * @param c the third key element
+         * @param d the fourth key element
+         * @return this
+         * @throws IllegalArgumentException if the key structure is not compatible for this view (optional behavior)
+         */
+        Cursor<T> find(Object a, Object b, Object c, Object d);
+
+        /**
+         * Rebinds this cursor to the group for the key elements.
+         * @param elements the key elements
+         * @return this
+         * @throws IllegalArgumentException if the key structure is not compatible for this view (optional behavior)
+         */
+        Cursor<T> find(Object... elements);
+
+        /**
+         * Returns the number of entries in the current group.
+         * @return the number of entries, or {@code 0} if this cursor is not bound to any groups
+         */
+        int size();
+
+        /**
+         * Advances this cursor to the next entry in the current group.
+         * @return {@code true} if the next entry exists, otherwise {@code false}
+         */
+        boolean next();
+
+        /**
+         * Returns the current entry.
+         * @return the current entry
+         * @throws java.util.NoSuchElementException if this cursor is not on any entries
+         */
+        T get();
+    }
 }
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.core;
+
+import java.util.List;
+
+/**
+ * Represents a data-flow view, which partitioned by each group and sorted by its sort key in each group.
+ * <p>
+ * The sort key is the first ordering term of the view, and it must be ascendant.
+ * Each {@link Group} provides range queries over the sort key, and they only require {@code O(log n)} time
+ * for each probe.
+ * Implementations should provide the fixed-arity {@code group(...)} methods without allocating key arrays.
+ * Application developers <em>MUST NOT</em> change the returned lists and their elements.
+ * </p>
+ * @param <T> the data type
+ * @since 0.10.5
+ */
+public interface SortedGroupView<T> extends GroupView<T> {
+
+    /**
+     * Returns a sorted group for the empty key.
+     * @return the sorted group for the empty key
+     * @throws IllegalArgumentException if the key structure is not compatible for this view (optional behavior)
+     */
+    Group<T> group();
+
+    /**
+     * Returns a sorted group for the key.
+     * @param key the search key element
+     * @return the sorted group for the key
+     * @throws IllegalArgumentException if the key structure is not compatible for this view (optional behavior)
+     */
+    Group<T> group(Object key);
+
+    /**
+     * Returns a sorted group for the key elements.
+     * @param a the first key element
+     * @param b the second key element
+     * @return the sorted group for the key
+     * @throws IllegalArgumentException if the key structure is not compatible for this view (optional behavior)
+     */
+    Group<T> group(Object a, Object b);
+
+    /**
+     * Returns a sorted group for the key elements.
+     * @param a the first key element
+     * @param b the second key element
+     * @param c the third key element
+     * @return the sorted group for the key
+     * @throws IllegalArgumentException if the key structure is not compatible for this view (optional behavior)
+     */
+    Group<T> group(Object a, Object b, Object c);
+
+    /**
+     * Returns a sorted group for the key elements.
+     * @param a the first key element
+     * @param b the second key element
+     * @param c the third key element
+     * @param d the fourth key element
+     * @return the sorted group for the key
+     * @throws IllegalArgumentException if the key structure is not compatible for this view (optional behavior)
+     */
+    Group<T> group(Object a, Object b, Object c, Object d);
+
+    /**
+     * Returns a sorted group for the key elements.
+     * @param elements the key elements
+     * @return the sorted group for the key, or an empty group if there are no such entries for the key
+     * @throws IllegalArgumentException if the key structure is not compatible for this view (optional behavior)
+     */
+    Group<T> group(Object... elements);
+
+    @Override
+    default List<T> find(Object... elements) {
+        return group(elements).all();
+    }
+
+    /**
+     * A group of {@link SortedGroupView}, which provides range queries over its sort key.
+     * Each sort key argument must be compatible with the sort key property.
+     * @param <T> the data type
+     * @since 0.10.5
+     */
+    interface Group<T> {
+
+        /**
+         * Returns all entries in this group.
+         * @return all entries, ordered by their sort key
+         */
+        List<T> all();
+
+        /**
+         * Returns the last entry whose sort key is less than or equal to the given key.
+         * @param key the sort key
+         * @return the found entry, or {@code null} if there is no such an entry
+         * @throws IllegalArgumentException if the sort key is not compatible for this view (optional behavior)
+         */
+        T floor(Object key);
+
+        /**
+         * Returns the first entry whose sort key is greater than or equal to the given key.
+         * @param key the sort key
+         * @return the found entry, or {@code null} if there is no such an entry
+         * @throws IllegalArgumentException if the sort key is not compatible for this view (optional behavior)
+         */
+        T ceiling(Object key);
+
+        /**
+         * Returns entries whose sort key is in {@code [from, to)}.
+         * @param from the lower bound (inclusive), or {@code null} if it is unbounded
+         * @param to the upper bound (exclusive), or {@code null} if it is unbounded
+         * @return the entries in the range, ordered by their sort key
+         * @throws IllegalArgumentException if the sort key is not compatible for this view (optional behavior)
+         */
+        default List<T> range(Object from, Object to) {
+            return range(from, true, to, false);
+        }
+
+        /**
+         * Returns entries whose sort key is in the given range.
+         * @param from the lower bound, or {@code null} if it is unbounded
+         * @param fromInclusive {@code true} if the lower bound is inclusive, otherwise {@code false}
+         * @param to the upper bound, or {@code null} if it is unbounded
+         * @param toInclusive {@code true} if the upper bound is inclusive, otherwise {@code false}
+         * @return the entries in the range, ordered by their sort key
+         * @throws IllegalArgumentException if the sort key is not compatible for this view (optional behavior)
+         */
+        List<T> range(Object from, boolean fromInclusive, Object to, boolean toInclusive);
+    }
+}
@@ -23,11 +23,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
-import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.text.MessageFormat;
-import java.util.AbstractList;
 import java.util.Arrays;
 
 import org.apache.hadoop.io.Writable;
@@ -40,30 +36,18 @@ import com.asakusafw.runtime.io.util.DataIoUtils;
  * An implementation of {@link ListBuffer} which may spill contents into backing temporary files.
  * @param <E> the element type
  * @since 0.1.0
- * @version 0.9.1
+ * @version 0.10.5
  */
-public class FileMapListBuffer<E extends Writable> extends AbstractList<E> implements ListBuffer<E> {
+public class FileMapListBuffer<E extends Writable> extends PagedListBuffer<E> {
 
     private static final int DEFAULT_BUFFER_SIZE = 256;
 
-    private static final int MINIMUM_BUFFER_SIZE = 32;
-
     private static final int DEFAULT_BUFFER_SOFT_LIMIT = 1 * 1024 * 1024;
 
     static final Logger LOG = LoggerFactory.getLogger(FileMapListBuffer.class);
 
     private final Store<E> store;
 
-    private final E[] elements;
-
-    private int currentPageIndex;
-
-    private int sizeInList;
-
-    private int elementsHighWaterMark;
-
-    private int advanceCursorInPage;
-
     /**
      * Creates a new instance.
      */
@@ -85,86 +69,24 @@ public class FileMapListBuffer<E extends Writable> extends AbstractList<E> imple
      * @param bufferSoftLimit the buffer size soft limit in bytes
      * @since 0.9.1
      */
-    @SuppressWarnings("unchecked")
     public FileMapListBuffer(int cacheSize, int bufferSoftLimit) {
+        super(cacheSize);
         this.store = new Store<>(bufferSoftLimit);
-        this.elements = (E[]) new Writable[Math.max(cacheSize, MINIMUM_BUFFER_SIZE)];
-        this.sizeInList = 0;
-        this.currentPageIndex = 0;
-        this.advanceCursorInPage = -1;
     }
 
     @Override
-    public void begin() {
+    void resetPages() {
         store.reset();
-        sizeInList = -1;
-        currentPageIndex = 0;
-        advanceCursorInPage = 0;
-    }
-
-    @Override
-    public void end() {
-        if (advanceCursorInPage < 0) {
-            return;
-        }
-        if (advanceCursorInPage > 0 && currentPageIndex > 0) {
-            try {
-                store.putPage(currentPageIndex, elements, advanceCursorInPage);
-            } catch (IOException e) {
-                throw new BufferException("failed to save a page", e);
-            }
-        }
-        sizeInList = advanceCursorInPage + currentPageIndex * elements.length;
-        advanceCursorInPage = -1;
-    }
-
-    @Override
-    public boolean isExpandRequired() {
-        int index = advanceCursorInPage % elements.length;
-        return index >= elementsHighWaterMark;
     }
 
     @Override
-    public void expand(E value) {
-        elements[elementsHighWaterMark++] = value;
+    void putPage(int index, E[] page, int count) throws IOException {
+        store.putPage(index, page, count);
     }
 
     @Override
-    public E advance() {
-        if (advanceCursorInPage == elements.length) {
-            try {
-                store.putPage(currentPageIndex++, elements, advanceCursorInPage);
-            } catch (IOException e) {
-                throw new BufferException("failed to save a page", e);
-            }
-            advanceCursorInPage = 0;
-        }
-        return elements[advanceCursorInPage++];
-    }
-
-    @Override
-    public E get(int index) {
-        if (index < 0 || index >= sizeInList) {
-            throw new IndexOutOfBoundsException();
-        }
-        int windowSize = elements.length;
-        int pageIndex = index / windowSize;
-        int offsetInPage = index % windowSize;
-        if (currentPageIndex != pageIndex) {
-            int count = Math.min(sizeInList - pageIndex * windowSize, windowSize);
-            try {
-                store.getPage(pageIndex, elements, count);
-            } catch (IOException e) {
-                throw new IllegalStateException(e);
-            }
-            currentPageIndex = pageIndex;
-        }
-        return elements[offsetInPage];
-    }
-
-    @Override
-    public int size() {
-        return sizeInList;
+    void getPage(int index, E[] page, int count) throws IOException {
+        store.getPage(index, page, count);
     }
 
     @Override
@@ -178,10 +100,6 @@ public class FileMapListBuffer<E extends Writable> extends AbstractList<E> imple
 
     private static class Store<T extends Writable> implements Closeable {
 
-        private static final LinkOption[] LINK_OPTS = {
-                LinkOption.NOFOLLOW_LINKS,
-        };
-
         private static final int[] EMPTY_INTS = new int[0];
 
         private static final long[] EMPTY_LONGS = new long[0];
@@ -213,12 +131,7 @@ public class FileMapListBuffer<E extends Writable> extends AbstractList<E> imple
         void putPage(int index, T[] elements, int count) throws IOException {
             if (path == null) {
                 path = Files.createTempFile("spill-", ".bin");
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("generating list spill: {}", path);
-                }
-                channel = FileChannel.open(path,
-                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
-                        StandardOpenOption.DELETE_ON_CLOSE);
+                channel = openSpill(path);
                 offsets = new long[256];
             }
             if (index >= offsets.length) {
@@ -338,15 +251,8 @@ public class FileMapListBuffer<E extends Writable> extends AbstractList<E> imple
         @Override
         public void close() throws IOException {
             if (channel != null) {
-                channel.close(); // DELETE_ON_CLOSE
+                closeSpill(path, channel);
                 channel = null;
-                if (Files.exists(path, LINK_OPTS)
-                        && Files.deleteIfExists(path) == false
-                        && Files.exists(path, LINK_OPTS)) {
-                    LOG.warn(MessageFormat.format(
-                            "failed to delete a temporary file: {0}",
-                            path));
-                }
                 path = null;
             }
         }
@@ -0,0 +1,500 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.flow;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+
+import com.asakusafw.runtime.io.util.DataBuffer;
+
+/**
+ * A hash table for map-side partial aggregation.
+ * <p>
+ * This table aggregates values whose keys are equivalent in their serialized form,
+ * so that the succeeding shuffle and sort phases only receive partially aggregated values.
+ * The keys are kept in a serialized form in an open-addressing table, and the aggregated values are
+ * kept as reusable objects.
+ * This table grows up to its number of entries and key bytes limits while the {@link MemoryPressure} is low.
+ * If it reaches the limits, or the memory pressure is high when it must grow, this flushes all entries into
+ * the {@link Sink}, and then continues aggregating with the emptied table, which reuses the current buffers.
+ * </p>
+ * <p>
+ * This is designed for operators with {@code PartialAggregation.PARTIAL}, like as {@code Summarize} and
+ * {@code Fold}, and is used from {@link MapperWithPartialAggregation}.
+ * </p>
+ * @param <K> the key type
+ * @param <V> the value type
+ * @since 0.10.5
+ */
+public class HashAggregationTable<K extends Writable, V extends Writable> {
+
+    /**
+     * The counter group name of partial aggregations.
+     */
+    public static final String COUNTER_GROUP = "com.asakusafw.flow.PartialAggregation"; //$NON-NLS-1$
+
+    /**
+     * The counter name suffix of hit count.
+     */
+    public static final String SUFFIX_HIT_COUNT = ".hit"; //$NON-NLS-1$
+
+    /**
+     * The counter name suffix of miss count.
+     */
+    public static final String SUFFIX_MISS_COUNT = ".miss"; //$NON-NLS-1$
+
+    /**
+     * The counter name suffix of flush count.
+     */
+    public static final String SUFFIX_FLUSH_COUNT = ".flush"; //$NON-NLS-1$
+
+    /**
+     * The counter name suffix of output record count.
+     */
+    public static final String SUFFIX_OUTPUT_COUNT = ".output"; //$NON-NLS-1$
+
+    /**
+     * The default max number of entries.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 16 * 1024;
+
+    /**
+     * The default max total bytes of serialized keys.
+     */
+    public static final int DEFAULT_MAX_KEY_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * The default minimum ratio of free heap memory, which is used to detect memory pressure.
+     */
+    public static final double DEFAULT_MIN_FREE_HEAP_RATIO = 0.3;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final int MAX_CAPACITY = 1 << 29;
+
+    private static final int MAX_KEY_BYTES = Integer.MAX_VALUE - 8;
+
+    private static final int EMPTY = -1;
+
+    private static final int FNV_OFFSET_BASIS = 0x811c9dc5;
+
+    private static final int FNV_PRIME = 0x01000193;
+
+    private final K keyObject;
+
+    private final Aggregator<V> aggregator;
+
+    private final Sink<? super K, ? super V> sink;
+
+    private final int maxEntries;
+
+    private final int maxKeyBytes;
+
+    private final MemoryPressure pressure;
+
+    private int[] slots;
+
+    private int slotMask;
+
+    private int[] entryHashes;
+
+    private int[] entryKeyOffsets;
+
+    private int[] entryKeyLengths;
+
+    private V[] entryValues;
+
+    private int entryCount;
+
+    private byte[] keyBytes;
+
+    private int keyBytesLimit;
+
+    private final DataBuffer keyBuffer = new DataBuffer();
+
+    private final DataBuffer keyReader = new DataBuffer();
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long flushCount;
+
+    private long outputCount;
+
+    /**
+     * Creates a new instance with the default limits, which detects memory pressure from the current heap usage.
+     * @param keyObject the reusable key object, which is used for restoring the serialized keys
+     * @param aggregator the value aggregator
+     * @param sink the destination of partially aggregated results
+     * @see #heap(double)
+     */
+    public HashAggregationTable(K keyObject, Aggregator<V> aggregator, Sink<? super K, ? super V> sink) {
+        this(keyObject, aggregator, sink, heap(DEFAULT_MIN_FREE_HEAP_RATIO));
+    }
+
+    /**
+     * Creates a new instance with the default limits.
+     * @param keyObject the reusable key object, which is used for restoring the serialized keys
+     * @param aggregator the value aggregator
+     * @param sink the destination of partially aggregated results
+     * @param pressure the memory pressure detector, which is checked before growing the table
+     */
+    public HashAggregationTable(
+            K keyObject, Aggregator<V> aggregator, Sink<? super K, ? super V> sink,
+            MemoryPressure pressure) {
+        this(keyObject, aggregator, sink, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_KEY_BYTES, pressure);
+    }
+
+    /**
+     * Creates a new instance.
+     * @param keyObject the reusable key object, which is used for restoring the serialized keys
+     * @param aggregator the value aggregator
+     * @param sink the destination of partially aggregated results
+     * @param maxEntries the max number of entries in this table
+     * @param maxKeyBytes the max total bytes of serialized keys in this table
+     * @param pressure the memory pressure detector, which is checked before growing the table
+     */
+    public HashAggregationTable(
+            K keyObject, Aggregator<V> aggregator, Sink<? super K, ? super V> sink,
+            int maxEntries, int maxKeyBytes,
+            MemoryPressure pressure) {
+        if (maxEntries <= 0 || maxEntries > MAX_CAPACITY) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "max entries must be in [1, {1}]: {0}", //$NON-NLS-1$
+                    maxEntries,
+                    MAX_CAPACITY));
+        }
+        if (maxKeyBytes <= 0 || maxKeyBytes > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "max key bytes must be in [1, {1}]: {0}", //$NON-NLS-1$
+                    maxKeyBytes,
+                    MAX_KEY_BYTES));
+        }
+        this.keyObject = keyObject;
+        this.aggregator = aggregator;
+        this.sink = sink;
+        this.maxEntries = maxEntries;
+        this.maxKeyBytes = maxKeyBytes;
+        this.pressure = pressure;
+        allocate(Math.min(INITIAL_CAPACITY, maxEntries));
+    }
+
+    /**
+     * Returns a {@link MemoryPressure} which becomes high if the free heap memory is less than the given ratio.
+     * @param minFreeRatio the minimum ratio of free heap memory, between {@code 0.0} and {@code 1.0}
+     * @return the memory pressure detector
+     */
+    public static MemoryPressure heap(double minFreeRatio) {
+        Runtime runtime = Runtime.getRuntime();
+        return () -> {
+            long max = runtime.maxMemory();
+            long used = runtime.totalMemory() - runtime.freeMemory();
+            return max - used < max * minFreeRatio;
+        };
+    }
+
+    /**
+     * Aggregates the given key-value pair into this table.
+     * This may flush the current entries into the sink if the memory pressure is high.
+     * @param key the key
+     * @param value the value, which will not be retained in this table
+     * @throws IOException if error occurred while serializing the key or flushing the entries
+     * @throws InterruptedException if interrupted while flushing the entries
+     */
+    public void aggregate(K key, V value) throws IOException, InterruptedException {
+        DataBuffer buffer = keyBuffer;
+        buffer.reset(0, 0);
+        key.write(buffer);
+        byte[] bytes = buffer.getData();
+        int length = buffer.getWritePosition();
+        int hash = hash(bytes, length);
+        int slot = find(hash, bytes, length);
+        int entry = slots[slot];
+        if (entry != EMPTY) {
+            hitCount++;
+            aggregator.combine(entryValues[entry], value);
+            return;
+        }
+        missCount++;
+        if (entryCount > 0 && keyBytesLimit > maxKeyBytes - length) {
+            flush();
+            slot = find(hash, bytes, length);
+        } else if (entryCount >= entryValues.length) {
+            if (entryValues.length >= maxEntries || pressure.isHigh()) {
+                flush();
+            } else {
+                grow();
+            }
+            slot = find(hash, bytes, length);
+        }
+        entry = entryCount++;
+        slots[slot] = entry;
+        entryHashes[entry] = hash;
+        entryKeyOffsets[entry] = keyBytesLimit;
+        entryKeyLengths[entry] = length;
+        appendKey(bytes, length);
+        V target = entryValues[entry];
+        if (target == null) {
+            target = aggregator.newObject();
+            entryValues[entry] = target;
+        }
+        aggregator.copy(target, value);
+    }
+
+    /**
+     * Flushes all entries in this table into the sink, and then clears this table.
+     * The table buffers and the aggregated value objects will be reused after this operation.
+     * @throws IOException if error occurred while flushing the entries
+     * @throws InterruptedException if interrupted while flushing the entries
+     */
+    public void flush() throws IOException, InterruptedException {
+        if (entryCount == 0) {
+            return;
+        }
+        DataBuffer buffer = keyReader;
+        for (int i = 0, n = entryCount; i < n; i++) {
+            buffer.reset(keyBytes, entryKeyOffsets[i], entryKeyLengths[i]);
+            keyObject.readFields(buffer);
+            sink.emit(keyObject, entryValues[i]);
+        }
+        flushCount++;
+        outputCount += entryCount;
+        Arrays.fill(slots, EMPTY);
+        entryCount = 0;
+        keyBytesLimit = 0;
+    }
+
+    /**
+     * Returns the number of entries in this table.
+     * @return the number of entries
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the max number of entries in this table without growing it.
+     * @return the current capacity
+     */
+    int capacity() {
+        return entryValues.length;
+    }
+
+    /**
+     * Returns the number of input records which were aggregated into the existing entries.
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of input records which created new entries.
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the hit rate of this table.
+     * @return the hit rate between {@code 0.0} and {@code 1.0}, or {@code 0.0} if there are no inputs
+     */
+    public double getHitRate() {
+        long total = hitCount + missCount;
+        if (total == 0) {
+            return 0.0;
+        }
+        return (double) hitCount / total;
+    }
+
+    /**
+     * Returns the number of flush operations which emitted at least one entry.
+     * @return the flush count
+     */
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    /**
+     * Returns the number of records which were emitted into the sink.
+     * @return the output count
+     */
+    public long getOutputCount() {
+        return outputCount;
+    }
+
+    /**
+     * Adds the current statistics into the task counters, and then resets them.
+     * @param context the current task context
+     * @param name the counter name prefix (e.g. the target operator name)
+     */
+    public void reportCounters(TaskInputOutputContext<?, ?, ?, ?> context, String name) {
+        context.getCounter(COUNTER_GROUP, name + SUFFIX_HIT_COUNT).increment(hitCount);
+        context.getCounter(COUNTER_GROUP, name + SUFFIX_MISS_COUNT).increment(missCount);
+        context.getCounter(COUNTER_GROUP, name + SUFFIX_FLUSH_COUNT).increment(flushCount);
+        context.getCounter(COUNTER_GROUP, name + SUFFIX_OUTPUT_COUNT).increment(outputCount);
+        hitCount = 0;
+        missCount = 0;
+        flushCount = 0;
+        outputCount = 0;
+    }
+
+    private int find(int hash, byte[] bytes, int length) {
+        int mask = slotMask;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == EMPTY) {
+                return slot;
+            }
+            if (entryHashes[entry] == hash
+                    && entryKeyLengths[entry] == length
+                    && WritableComparator.compareBytes(
+                            keyBytes, entryKeyOffsets[entry], length,
+                            bytes, 0, length) == 0) {
+                return slot;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        int tableSize = tableSize(capacity);
+        this.slots = new int[tableSize];
+        this.slotMask = tableSize - 1;
+        Arrays.fill(slots, EMPTY);
+        this.entryHashes = new int[capacity];
+        this.entryKeyOffsets = new int[capacity];
+        this.entryKeyLengths = new int[capacity];
+        this.entryValues = (V[]) new Writable[capacity];
+        this.keyBytes = new byte[Math.min(capacity * 8, maxKeyBytes)];
+        this.entryCount = 0;
+        this.keyBytesLimit = 0;
+    }
+
+    private void grow() {
+        int capacity = (int) Math.min(entryValues.length * 2L, maxEntries);
+        int tableSize = tableSize(capacity);
+        this.slots = new int[tableSize];
+        this.slotMask = tableSize - 1;
+        Arrays.fill(slots, EMPTY);
+        this.entryHashes = Arrays.copyOf(entryHashes, capacity);
+        this.entryKeyOffsets = Arrays.copyOf(entryKeyOffsets, capacity);
+        this.entryKeyLengths = Arrays.copyOf(entryKeyLengths, capacity);
+        this.entryValues = Arrays.copyOf(entryValues, capacity);
+        int mask = slotMask;
+        for (int entry = 0, n = entryCount; entry < n; entry++) {
+            int slot = entryHashes[entry] & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry;
+        }
+    }
+
+    private void appendKey(byte[] bytes, int length) {
+        int required = keyBytesLimit + length;
+        if (required > keyBytes.length) {
+            // a single key may exceed the limit if the table is empty
+            long limit = Math.max(required, maxKeyBytes);
+            keyBytes = Arrays.copyOf(keyBytes, (int) Math.min(Math.max(required, keyBytes.length * 2L), limit));
+        }
+        System.arraycopy(bytes, 0, keyBytes, keyBytesLimit, length);
+        keyBytesLimit = required;
+    }
+
+    private static int tableSize(int capacity) {
+        // the smallest power of 2, which is at least twice of the capacity
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    private static int hash(byte[] bytes, int length) {
+        // FNV-1a: WritableComparator.hashBytes() often collides for keys which differ only in a few bytes
+        int h = FNV_OFFSET_BASIS;
+        for (int i = 0; i < length; i++) {
+            h = (h ^ (bytes[i] & 0xff)) * FNV_PRIME;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Detects memory pressure for {@link HashAggregationTable}.
+     * @since 0.10.5
+     */
+    @FunctionalInterface
+    public interface MemoryPressure {
+
+        /**
+         * Returns whether or not the current memory pressure is high.
+         * @return {@code true} if the table should be flushed, otherwise {@code false}
+         */
+        boolean isHigh();
+    }
+
+    /**
+     * Aggregates values in {@link HashAggregationTable}.
+     * @param <V> the value type
+     * @since 0.10.5
+     */
+    public interface Aggregator<V> {
+
+        /**
+         * Returns a new value object.
+         * @return the created object
+         */
+        V newObject();
+
+        /**
+         * Copies the value into the destination object.
+         * @param destination the destination object, which is created by {@link #newObject()}
+         * @param source the source value
+         */
+        void copy(V destination, V source);
+
+        /**
+         * Aggregates the value into the destination object.
+         * @param destination the destination object, which holds the current aggregation result
+         * @param source the value to be aggregated
+         */
+        void combine(V destination, V source);
+    }
+
+    /**
+     * Receives partially aggregated results from {@link HashAggregationTable}.
+     * @param <K> the key type
+     * @param <V> the value type
+     * @since 0.10.5
+     */
+    @FunctionalInterface
+    public interface Sink<K, V> {
+
+        /**
+         * Emits a partially aggregated result.
+         * Clients must not retain the given objects because they will be reused.
+         * @param key the key
+         * @param value the aggregated value
+         * @throws IOException if error occurred while emitting the result
+         * @throws InterruptedException if interrupted while emitting the result
+         */
+        void emit(K key, V value) throws IOException, InterruptedException;
+    }
+}
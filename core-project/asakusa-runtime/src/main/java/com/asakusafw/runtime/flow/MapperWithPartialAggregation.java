@@ -0,0 +1,144 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.flow;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.util.ReflectionUtils;
+
+/**
+ * An abstract super class of a mapper which partially aggregates its output in {@link HashAggregationTable}.
+ * <p>
+ * Sub-classes must emit the shuffle output via {@link #emit(SegmentedWritable, SegmentedWritable)} instead of
+ * writing it into the context directly.
+ * The output for segments with {@link #getAggregator(int) an aggregator} is partially aggregated in the mapper,
+ * and the table is flushed into the context if it reaches its limits, the heap memory pressure is high when
+ * it must grow, or all inputs were processed.
+ * Other output is written into the context as is.
+ * </p>
+ * <p>
+ * The aggregation statistics are reported as task counters in {@link HashAggregationTable#COUNTER_GROUP}.
+ * </p>
+ * @param <KEYIN> input key type
+ * @param <VALUEIN> input value type
+ * @param <KEY> the shuffle key type
+ * @param <VALUE> the shuffle value type
+ * @since 0.10.5
+ */
+public abstract class MapperWithPartialAggregation<
+        KEYIN, VALUEIN,
+        KEY extends SegmentedWritable,
+        VALUE extends SegmentedWritable>
+        extends MapperWithRuntimeResource<KEYIN, VALUEIN, KEY, VALUE> {
+
+    /**
+     * The method name of {@link #getAggregator(int)}.
+     */
+    public static final String GET_AGGREGATOR = "getAggregator"; //$NON-NLS-1$
+
+    /**
+     * The configuration key of the max number of entries in the partial aggregation table.
+     */
+    public static final String KEY_MAX_ENTRIES = "com.asakusafw.runtime.flow.partial.entries"; //$NON-NLS-1$
+
+    /**
+     * The configuration key of the max total bytes of serialized keys in the partial aggregation table.
+     */
+    public static final String KEY_MAX_KEY_BYTES = "com.asakusafw.runtime.flow.partial.keyBytes"; //$NON-NLS-1$
+
+    /**
+     * The configuration key of the minimum ratio of free heap memory.
+     * If the free heap memory is less than it when the partial aggregation table must grow,
+     * the mapper flushes the partially aggregated results instead.
+     */
+    public static final String KEY_MIN_FREE_HEAP_RATIO =
+            "com.asakusafw.runtime.flow.partial.heap.ratio"; //$NON-NLS-1$
+
+    private Context currentContext;
+
+    private HashAggregationTable<KEY, VALUE> table;
+
+    /**
+     * Returns the {@link HashAggregationTable.Aggregator} object for the target segment.
+     * @param segmentId the target segment ID
+     * @return the corresponded aggregator, or {@code null} if the segment does not support partial aggregation
+     */
+    protected abstract HashAggregationTable.Aggregator<VALUE> getAggregator(int segmentId);
+
+    /**
+     * Emits a shuffle output.
+     * @param key the shuffle key
+     * @param value the shuffle value, which will not be retained in this mapper
+     * @throws IOException if error occurred while emitting the output
+     * @throws InterruptedException if interrupted while emitting the output
+     */
+    protected final void emit(KEY key, VALUE value) throws IOException, InterruptedException {
+        if (getAggregator(key.getSegmentId()) == null) {
+            currentContext.write(key, value);
+        } else {
+            table.aggregate(key, value);
+        }
+    }
+
+    @Override
+    protected void runInternal(Context context) throws IOException, InterruptedException {
+        this.currentContext = context;
+        this.table = createTable(context);
+        try {
+            setup(context);
+            try {
+                while (context.nextKeyValue()) {
+                    map(context.getCurrentKey(), context.getCurrentValue(), context);
+                }
+                table.flush();
+            } finally {
+                cleanup(context);
+            }
+            table.reportCounters(context, getClass().getSimpleName());
+        } finally {
+            this.currentContext = null;
+            this.table = null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private HashAggregationTable<KEY, VALUE> createTable(Context context) {
+        Configuration conf = context.getConfiguration();
+        KEY key = (KEY) ReflectionUtils.newInstance(context.getMapOutputKeyClass(), conf);
+        Class<VALUE> valueClass = (Class<VALUE>) context.getMapOutputValueClass();
+        HashAggregationTable.Aggregator<VALUE> aggregator = new HashAggregationTable.Aggregator<VALUE>() {
+            @Override
+            public VALUE newObject() {
+                return ReflectionUtils.newInstance(valueClass, conf);
+            }
+            @Override
+            public void copy(VALUE destination, VALUE source) {
+                getAggregator(source.getSegmentId()).copy(destination, source);
+            }
+            @Override
+            public void combine(VALUE destination, VALUE source) {
+                getAggregator(source.getSegmentId()).combine(destination, source);
+            }
+        };
+        int maxEntries = conf.getInt(KEY_MAX_ENTRIES, HashAggregationTable.DEFAULT_MAX_ENTRIES);
+        int maxKeyBytes = conf.getInt(KEY_MAX_KEY_BYTES, HashAggregationTable.DEFAULT_MAX_KEY_BYTES);
+        double ratio = conf.getDouble(KEY_MIN_FREE_HEAP_RATIO, HashAggregationTable.DEFAULT_MIN_FREE_HEAP_RATIO);
+        return new HashAggregationTable<>(
+                key, aggregator, context::write,
+                maxEntries, maxKeyBytes, HashAggregationTable.heap(ratio));
+    }
+}
@@ -0,0 +1,440 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.flow;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.hadoop.io.Writable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.asakusafw.runtime.io.util.DataBuffer;
+
+/**
+ * An implementation of {@link ListBuffer} which keeps serialized contents in off-heap memory segments.
+ * <p>
+ * This keeps only a small window of element objects on the Java heap, like as {@link FileMapListBuffer}.
+ * The other elements are serialized into direct memory segments, and they are spilled into a backing temporary
+ * file only if no more segments are available in the {@link MemoryBudget off-heap memory budget}.
+ * Obtaining elements from this list may change the previously obtained objects.
+ * </p>
+ * <p>
+ * By default, all buffers share the same off-heap memory budget in the JVM, and its size can be configured via
+ * the system property {@code "com.asakusafw.runtime.flow.offheap.limit"} (in bytes).
+ * Each buffer returns its unused segments to the budget on {@link #end()}, and all segments on {@link #shrink()}.
+ * The budget keeps the returned segments and passes them to the succeeding requests instead of allocating new ones,
+ * so that the allocated off-heap memory stays at the high-water mark of its usage, up to the budget limit.
+ * </p>
+ * @param <E> the element type
+ * @since 0.10.5
+ */
+public class OffHeapListBuffer<E extends Writable> extends PagedListBuffer<E> {
+
+    /**
+     * The system property key of the default off-heap memory budget in bytes.
+     */
+    public static final String KEY_MEMORY_LIMIT = "com.asakusafw.runtime.flow.offheap.limit"; //$NON-NLS-1$
+
+    private static final int DEFAULT_BUFFER_SIZE = 256;
+
+    private static final long DEFAULT_MEMORY_LIMIT = 64L * 1024 * 1024;
+
+    private static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+
+    static final Logger LOG = LoggerFactory.getLogger(OffHeapListBuffer.class);
+
+    private final Store store;
+
+    /**
+     * Creates a new instance.
+     */
+    public OffHeapListBuffer() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     * @param cacheSize the number of objects should be cached on Java heap
+     */
+    public OffHeapListBuffer(int cacheSize) {
+        this(cacheSize, MemoryBudget.getDefault(), DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     * @param cacheSize the number of objects should be cached on Java heap
+     * @param budget the off-heap memory budget
+     * @param segmentSize the size of each off-heap memory segment in bytes
+     */
+    public OffHeapListBuffer(int cacheSize, MemoryBudget budget, int segmentSize) {
+        super(cacheSize);
+        if (budget == null) {
+            throw new IllegalArgumentException("budget must not be null"); //$NON-NLS-1$
+        }
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "segment size must be > 0: {0}", //$NON-NLS-1$
+                    segmentSize));
+        }
+        this.store = new Store(budget, segmentSize);
+    }
+
+    @Override
+    void resetPages() {
+        store.reset();
+    }
+
+    @Override
+    void putPage(int index, E[] page, int count) throws IOException {
+        store.putPage(index, page, count);
+    }
+
+    @Override
+    void getPage(int index, E[] page, int count) throws IOException {
+        store.getPage(index, page, count);
+    }
+
+    @Override
+    void endPages() {
+        store.trim();
+    }
+
+    @Override
+    public void shrink() {
+        try {
+            store.close();
+        } catch (IOException e) {
+            LOG.warn("failed to shrink the backing store", e);
+        }
+    }
+
+    /**
+     * Returns the number of bytes which are currently stored in the off-heap memory.
+     * @return the number of bytes in the off-heap memory
+     */
+    long getMemoryUsage() {
+        return Math.min(store.limit, store.capacity);
+    }
+
+    /**
+     * Returns the number of bytes which are currently spilled into the backing file.
+     * @return the number of bytes in the backing file
+     */
+    long getSpillUsage() {
+        return Math.max(store.limit - store.capacity, 0L);
+    }
+
+    /**
+     * A budget of off-heap memory segments, which can be shared between multiple buffers.
+     * @since 0.10.5
+     */
+    public static final class MemoryBudget {
+
+        private static final MemoryBudget DEFAULT = new MemoryBudget(getDefaultMemoryLimit());
+
+        private final long limit;
+
+        private final Deque<ByteBuffer> pool = new ArrayDeque<>();
+
+        private long usage;
+
+        private long pooled;
+
+        /**
+         * Creates a new instance.
+         * @param limit the max off-heap memory size in bytes
+         */
+        public MemoryBudget(long limit) {
+            this.limit = Math.max(limit, 0L);
+        }
+
+        /**
+         * Returns the default budget, which is shared in the current JVM.
+         * @return the default budget
+         */
+        public static MemoryBudget getDefault() {
+            return DEFAULT;
+        }
+
+        private static long getDefaultMemoryLimit() {
+            String value = System.getProperty(KEY_MEMORY_LIMIT);
+            if (value != null) {
+                try {
+                    return Long.parseLong(value.trim());
+                } catch (NumberFormatException e) {
+                    LOG.warn(MessageFormat.format(
+                            "invalid off-heap memory limit: {0}={1}",
+                            KEY_MEMORY_LIMIT,
+                            value), e);
+                }
+            }
+            return DEFAULT_MEMORY_LIMIT;
+        }
+
+        /**
+         * Returns the max off-heap memory size.
+         * @return the max off-heap memory size in bytes
+         */
+        public long getLimit() {
+            return limit;
+        }
+
+        /**
+         * Returns the off-heap memory size which is currently acquired.
+         * @return the acquired off-heap memory size in bytes
+         */
+        public synchronized long getUsage() {
+            return usage;
+        }
+
+        /**
+         * Returns the off-heap memory size which was released, and is kept for the succeeding requests.
+         * @return the kept off-heap memory size in bytes
+         */
+        public synchronized long getPooled() {
+            return pooled;
+        }
+
+        ByteBuffer acquire(int bytes) {
+            synchronized (this) {
+                if (usage + bytes > limit) {
+                    return null;
+                }
+                usage += bytes;
+                ByteBuffer segment = poll(bytes);
+                if (segment != null) {
+                    return segment;
+                }
+                // discards the kept segments which have different sizes
+                while (usage + pooled > limit && pool.isEmpty() == false) {
+                    pooled -= pool.removeLast().capacity();
+                }
+            }
+            boolean success = false;
+            try {
+                ByteBuffer segment = ByteBuffer.allocateDirect(bytes);
+                success = true;
+                return segment;
+            } finally {
+                if (success == false) {
+                    synchronized (this) {
+                        usage -= bytes;
+                    }
+                }
+            }
+        }
+
+        synchronized void release(ByteBuffer segment) {
+            int bytes = segment.capacity();
+            assert usage >= bytes;
+            usage -= bytes;
+            pooled += bytes;
+            pool.addFirst(segment);
+        }
+
+        private ByteBuffer poll(int bytes) {
+            for (Iterator<ByteBuffer> iter = pool.iterator(); iter.hasNext();) {
+                ByteBuffer segment = iter.next();
+                if (segment.capacity() == bytes) {
+                    iter.remove();
+                    pooled -= bytes;
+                    return segment;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A byte store which consists of off-heap memory segments and a backing temporary file.
+     * Each position less than {@code capacity} is on the memory segments, and others are on the file.
+     * New segments are only acquired while no contents are on the file.
+     */
+    private static final class Store implements Closeable {
+
+        private static final long[] EMPTY_LONGS = new long[0];
+
+        private final MemoryBudget budget;
+
+        private final int segmentSize;
+
+        private final List<ByteBuffer> segments = new ArrayList<>();
+
+        private final DataBuffer buffer = new DataBuffer();
+
+        private long[] offsets = EMPTY_LONGS;
+
+        long capacity;
+
+        long limit;
+
+        private Path path;
+
+        private FileChannel channel;
+
+        Store(MemoryBudget budget, int segmentSize) {
+            this.budget = budget;
+            this.segmentSize = segmentSize;
+        }
+
+        void reset() {
+            limit = 0L;
+        }
+
+        void putPage(int index, Writable[] elements, int count) throws IOException {
+            if (index >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.max(offsets.length * 2, 256));
+            }
+            DataBuffer buf = buffer;
+            for (int i = 0; i < count; i++) {
+                buf.reset(0, 0);
+                elements[i].write(buf);
+                append(buf.getData(), 0, buf.getWritePosition());
+            }
+            offsets[index] = limit;
+        }
+
+        void getPage(int index, Writable[] elements, int count) throws IOException {
+            long begin = index == 0 ? 0L : offsets[index - 1];
+            long end = offsets[index];
+            int length = (int) (end - begin);
+            DataBuffer buf = buffer;
+            buf.reset(0, 0);
+            if (buf.getData().length < length) {
+                buf.ensureCapacity(length);
+            }
+            read(begin, buf.getData(), 0, length);
+            buf.reset(0, length);
+            for (int i = 0; i < count; i++) {
+                elements[i].readFields(buf);
+            }
+        }
+
+        void trim() {
+            int required = (int) ((Math.min(limit, capacity) + segmentSize - 1) / segmentSize);
+            while (segments.size() > required) {
+                releaseSegment();
+            }
+        }
+
+        private void append(byte[] bytes, int offset, int length) throws IOException {
+            int current = offset;
+            int rest = length;
+            while (rest > 0) {
+                if (limit >= capacity && (limit > capacity || acquireSegment() == false)) {
+                    break;
+                }
+                ByteBuffer segment = segments.get((int) (limit / segmentSize));
+                int segmentOffset = (int) (limit % segmentSize);
+                int chunk = Math.min(rest, segmentSize - segmentOffset);
+                segment.clear().position(segmentOffset);
+                segment.put(bytes, current, chunk);
+                current += chunk;
+                rest -= chunk;
+                limit += chunk;
+            }
+            if (rest > 0) {
+                FileChannel ch = prepareChannel();
+                ByteBuffer wrapped = ByteBuffer.wrap(bytes, current, rest);
+                long fileOffset = limit - capacity;
+                while (wrapped.hasRemaining()) {
+                    fileOffset += ch.write(wrapped, fileOffset);
+                }
+                limit += rest;
+            }
+        }
+
+        private void read(long position, byte[] bytes, int offset, int length) throws IOException {
+            long current = position;
+            int destination = offset;
+            int rest = length;
+            while (rest > 0 && current < capacity) {
+                ByteBuffer segment = segments.get((int) (current / segmentSize));
+                int segmentOffset = (int) (current % segmentSize);
+                int chunk = (int) Math.min(Math.min(rest, segmentSize - segmentOffset), capacity - current);
+                segment.clear().position(segmentOffset);
+                segment.get(bytes, destination, chunk);
+                current += chunk;
+                destination += chunk;
+                rest -= chunk;
+            }
+            if (rest > 0) {
+                ByteBuffer wrapped = ByteBuffer.wrap(bytes, destination, rest);
+                long fileOffset = current - capacity;
+                while (wrapped.hasRemaining()) {
+                    int read = channel.read(wrapped, fileOffset);
+                    if (read < 0) {
+                        throw new IllegalStateException();
+                    }
+                    fileOffset += read;
+                }
+            }
+        }
+
+        private boolean acquireSegment() {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("acquiring off-heap segment: #{}", segments.size()); //$NON-NLS-1$
+            }
+            ByteBuffer segment = budget.acquire(segmentSize);
+            if (segment == null) {
+                return false;
+            }
+            segments.add(segment);
+            capacity += segmentSize;
+            return true;
+        }
+
+        private void releaseSegment() {
+            assert segments.isEmpty() == false;
+            ByteBuffer segment = segments.remove(segments.size() - 1);
+            capacity -= segmentSize;
+            budget.release(segment);
+        }
+
+        private FileChannel prepareChannel() throws IOException {
+            if (channel == null) {
+                path = Files.createTempFile("spill-", ".bin"); //$NON-NLS-1$ //$NON-NLS-2$
+                channel = openSpill(path);
+            }
+            return channel;
+        }
+
+        @Override
+        public void close() throws IOException {
+            while (segments.isEmpty() == false) {
+                releaseSegment();
+            }
+            limit = 0L;
+            if (channel != null) {
+                closeSpill(path, channel);
+                channel = null;
+                path = null;
+            }
+        }
+    }
+}
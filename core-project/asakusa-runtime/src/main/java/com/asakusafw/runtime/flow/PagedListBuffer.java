@@ -0,0 +1,206 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.flow;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.AbstractList;
+
+import org.apache.hadoop.io.Writable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An abstract implementation of {@link ListBuffer} which keeps only a window of element objects on the Java heap,
+ * and saves the other elements into the backing store page by page.
+ * @param <E> the element type
+ * @since 0.10.5
+ */
+abstract class PagedListBuffer<E extends Writable> extends AbstractList<E> implements ListBuffer<E> {
+
+    static final Logger LOG = LoggerFactory.getLogger(PagedListBuffer.class);
+
+    private static final int MINIMUM_BUFFER_SIZE = 32;
+
+    private static final LinkOption[] LINK_OPTS = {
+            LinkOption.NOFOLLOW_LINKS,
+    };
+
+    private final E[] elements;
+
+    private int currentPageIndex;
+
+    private int sizeInList;
+
+    private int elementsHighWaterMark;
+
+    private int advanceCursorInPage;
+
+    /**
+     * Creates a new instance.
+     * @param cacheSize the number of objects should be cached on Java heap
+     */
+    @SuppressWarnings("unchecked")
+    PagedListBuffer(int cacheSize) {
+        this.elements = (E[]) new Writable[Math.max(cacheSize, MINIMUM_BUFFER_SIZE)];
+        this.sizeInList = 0;
+        this.currentPageIndex = 0;
+        this.advanceCursorInPage = -1;
+    }
+
+    /**
+     * Resets the backing store.
+     */
+    abstract void resetPages();
+
+    /**
+     * Saves a page into the backing store.
+     * @param index the page index
+     * @param page the page contents
+     * @param count the number of available elements in the page
+     * @throws IOException if I/O error was occurred while saving the page
+     */
+    abstract void putPage(int index, E[] page, int count) throws IOException;
+
+    /**
+     * Restores a page from the backing store.
+     * @param index the page index
+     * @param page the destination page
+     * @param count the number of available elements in the page
+     * @throws IOException if I/O error was occurred while restoring the page
+     */
+    abstract void getPage(int index, E[] page, int count) throws IOException;
+
+    /**
+     * Notifies that all pages have been saved into the backing store.
+     * @throws IOException if I/O error was occurred while finishing the backing store
+     */
+    void endPages() throws IOException {
+        return;
+    }
+
+    @Override
+    public void begin() {
+        resetPages();
+        sizeInList = -1;
+        currentPageIndex = 0;
+        advanceCursorInPage = 0;
+    }
+
+    @Override
+    public void end() {
+        if (advanceCursorInPage < 0) {
+            return;
+        }
+        try {
+            if (advanceCursorInPage > 0 && currentPageIndex > 0) {
+                putPage(currentPageIndex, elements, advanceCursorInPage);
+            }
+            endPages();
+        } catch (IOException e) {
+            throw new BufferException("failed to save a page", e);
+        }
+        sizeInList = advanceCursorInPage + currentPageIndex * elements.length;
+        advanceCursorInPage = -1;
+    }
+
+    @Override
+    public boolean isExpandRequired() {
+        int index = advanceCursorInPage % elements.length;
+        return index >= elementsHighWaterMark;
+    }
+
+    @Override
+    public void expand(E value) {
+        elements[elementsHighWaterMark++] = value;
+    }
+
+    @Override
+    public E advance() {
+        if (advanceCursorInPage == elements.length) {
+            try {
+                putPage(currentPageIndex++, elements, advanceCursorInPage);
+            } catch (IOException e) {
+                throw new BufferException("failed to save a page", e);
+            }
+            advanceCursorInPage = 0;
+        }
+        return elements[advanceCursorInPage++];
+    }
+
+    @Override
+    public E get(int index) {
+        if (index < 0 || index >= sizeInList) {
+            throw new IndexOutOfBoundsException();
+        }
+        int windowSize = elements.length;
+        int pageIndex = index / windowSize;
+        int offsetInPage = index % windowSize;
+        if (currentPageIndex != pageIndex) {
+            int count = Math.min(sizeInList - pageIndex * windowSize, windowSize);
+            try {
+                getPage(pageIndex, elements, count);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            currentPageIndex = pageIndex;
+        }
+        return elements[offsetInPage];
+    }
+
+    @Override
+    public int size() {
+        return sizeInList;
+    }
+
+    /**
+     * Creates a new temporary file for spilling pages.
+     * The file will be deleted after the returned channel is closed.
+     * @param path the temporary file path
+     * @return the channel for the created file
+     * @throws IOException if failed to open the file
+     */
+    static FileChannel openSpill(Path path) throws IOException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("generating list spill: {}", path); //$NON-NLS-1$
+        }
+        return FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    /**
+     * Closes the channel of a temporary file for spilling pages, and then deletes the file.
+     * @param path the temporary file path
+     * @param channel the channel for the file
+     * @throws IOException if failed to close the channel
+     */
+    static void closeSpill(Path path, FileChannel channel) throws IOException {
+        channel.close(); // DELETE_ON_CLOSE
+        if (Files.exists(path, LINK_OPTS)
+                && Files.deleteIfExists(path) == false
+                && Files.exists(path, LINK_OPTS)) {
+            LOG.warn(MessageFormat.format(
+                    "failed to delete a temporary file: {0}",
+                    path));
+        }
+    }
+}
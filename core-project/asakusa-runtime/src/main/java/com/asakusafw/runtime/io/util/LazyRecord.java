@@ -0,0 +1,170 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.io.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.DataInputBuffer;
+
+/**
+ * Keeps a serialized record and deserializes its properties on demand.
+ * <p>
+ * If the record is read from {@link DataInputBuffer} or {@link DataBuffer}, this only copies the record bytes
+ * and computes the offset of each property, and then deserializes individual properties on
+ * {@link #load(int) their first access}. Untouched properties are written back by copying their serialized bytes.
+ * Otherwise, this deserializes all properties eagerly.
+ * </p>
+ * @since 0.10.5
+ */
+public class LazyRecord {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final WritableRawComparable[] properties;
+
+    private final int[] offsets;
+
+    private final boolean[] loaded;
+
+    private final DataBuffer input = new DataBuffer(0);
+
+    private byte[] bytes = EMPTY;
+
+    /**
+     * Creates a new instance.
+     * @param properties the properties of the record, in serialization order
+     */
+    public LazyRecord(WritableRawComparable... properties) {
+        this.properties = properties;
+        this.offsets = new int[properties.length + 1];
+        this.loaded = new boolean[properties.length];
+        Arrays.fill(loaded, true);
+    }
+
+    /**
+     * Reads the record.
+     * @param in the source input
+     * @throws IOException if failed to read the record
+     */
+    public void readFields(DataInput in) throws IOException {
+        byte[] data;
+        int start;
+        int limit;
+        if (in instanceof DataInputBuffer) {
+            DataInputBuffer buffer = (DataInputBuffer) in;
+            data = buffer.getData();
+            start = buffer.getPosition();
+            limit = buffer.getLength();
+        } else if (in instanceof DataBuffer) {
+            DataBuffer buffer = (DataBuffer) in;
+            data = buffer.getData();
+            start = buffer.getReadPosition();
+            limit = buffer.getReadLimit();
+        } else {
+            for (WritableRawComparable property : properties) {
+                property.readFields(in);
+            }
+            Arrays.fill(loaded, true);
+            return;
+        }
+        int offset = start;
+        for (int i = 0; i < properties.length; i++) {
+            offsets[i] = offset - start;
+            offset += properties[i].getSizeInBytes(data, offset);
+        }
+        if (offset > limit) {
+            throw new EOFException(MessageFormat.format(
+                    "record is truncated: required={0}, available={1}",
+                    offset - start,
+                    limit - start));
+        }
+        int size = offset - start;
+        offsets[properties.length] = size;
+        if (bytes.length < size) {
+            bytes = new byte[Math.max(size, (int) Math.min(Integer.MAX_VALUE - 8, bytes.length * 2L))];
+        }
+        System.arraycopy(data, start, bytes, 0, size);
+        if (in.skipBytes(size) != size) {
+            throw new EOFException();
+        }
+        Arrays.fill(loaded, false);
+    }
+
+    /**
+     * Writes the record.
+     * @param out the destination output
+     * @throws IOException if failed to write the record
+     */
+    public void write(DataOutput out) throws IOException {
+        WritableRawComparable[] ps = properties;
+        for (int i = 0; i < ps.length; i++) {
+            if (loaded[i]) {
+                ps[i].write(out);
+            } else {
+                out.write(bytes, offsets[i], offsets[i + 1] - offsets[i]);
+            }
+        }
+    }
+
+    /**
+     * Deserializes the target property if it is not yet.
+     * @param index the property index
+     * @throws IllegalStateException if the kept record is broken
+     */
+    public void load(int index) {
+        if (loaded[index] == false) {
+            doLoad(index);
+        }
+    }
+
+    /**
+     * Deserializes all properties which are not yet.
+     * @throws IllegalStateException if the kept record is broken
+     */
+    public void loadAll() {
+        for (int i = 0; i < loaded.length; i++) {
+            if (loaded[i] == false) {
+                doLoad(i);
+            }
+        }
+    }
+
+    /**
+     * Discards the kept record.
+     * Clients must call this after all properties are overwritten.
+     */
+    public void discard() {
+        Arrays.fill(loaded, true);
+    }
+
+    private void doLoad(int index) {
+        int offset = offsets[index];
+        input.reset(bytes, offset, offsets[index + 1] - offset);
+        try {
+            properties[index].readFields(input);
+        } catch (IOException e) {
+            throw new IllegalStateException(MessageFormat.format(
+                    "failed to deserialize property: index={0}",
+                    index), e);
+        }
+        loaded[index] = true;
+    }
+}
@@ -54,7 +54,7 @@ import com.asakusafw.runtime.util.VariableTable.RedefineStrategy;
 /**
  * An abstract implementation of Hadoop MapReduce stage client class.
  * @since 0.1.0
- * @version 0.7.1
+ * @version 0.10.5
  */
 public abstract class AbstractStageClient extends BaseStageClient {
 
@@ -279,6 +279,9 @@ public abstract class AbstractStageClient extends BaseStageClient {
             succeed = true;
         } else {
             succeed = runner.run(job);
+            if (succeed) {
+                JobCounterReporter.report(job, runner);
+            }
         }
         long end = System.currentTimeMillis();
         LOG.info(MessageFormat.format(
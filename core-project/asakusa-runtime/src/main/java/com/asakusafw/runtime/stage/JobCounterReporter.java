@@ -0,0 +1,118 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.stage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.MessageFormat;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.CounterGroup;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Job;
+
+/**
+ * Records counters of finished jobs into the local file specified in {@link StageConstants#PROP_COUNTER_REPORT}.
+ * <p>
+ * Each counter is stored as a property {@code <group-name>/<counter-name>=<value>}.
+ * If the file already exists, counter values are added to the existing ones.
+ * </p>
+ * @since 0.10.5
+ */
+final class JobCounterReporter {
+
+    static final Log LOG = LogFactory.getLog(JobCounterReporter.class);
+
+    static final char SEPARATOR = '/';
+
+    private JobCounterReporter() {
+        return;
+    }
+
+    /**
+     * Records the counters of the given finished job, only if the counter report is enabled.
+     * @param job the finished job
+     * @param runner the runner which executed the job
+     */
+    static void report(Job job, JobRunner runner) {
+        String location = job.getConfiguration().get(StageConstants.PROP_COUNTER_REPORT);
+        if (location == null || location.trim().isEmpty()) {
+            return;
+        }
+        Path path = Paths.get(location.trim());
+        try {
+            Counters counters = runner.getCounters(job);
+            if (counters == null) {
+                LOG.debug(MessageFormat.format(
+                        "job counters are not available: {0}", //$NON-NLS-1$
+                        job.getJobName()));
+                return;
+            }
+            Properties properties = new Properties();
+            if (Files.isRegularFile(path)) {
+                try (InputStream in = Files.newInputStream(path)) {
+                    properties.load(in);
+                }
+            }
+            merge(properties, counters);
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (OutputStream out = Files.newOutputStream(path)) {
+                properties.store(out, job.getJobName());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn(MessageFormat.format(
+                    "interrupted while recording job counters: job={0}, path={1}",
+                    job.getJobName(),
+                    path), e);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn(MessageFormat.format(
+                    "failed to record job counters: job={0}, path={1}",
+                    job.getJobName(),
+                    path), e);
+        }
+    }
+
+    static void merge(Properties properties, Counters counters) {
+        for (CounterGroup group : counters) {
+            for (Counter counter : group) {
+                String key = group.getName() + SEPARATOR + counter.getName();
+                long value = counter.getValue();
+                String current = properties.getProperty(key);
+                if (current != null) {
+                    try {
+                        value += Long.parseLong(current);
+                    } catch (NumberFormatException e) {
+                        LOG.debug(MessageFormat.format(
+                                "ignored invalid counter value: {0}={1}", //$NON-NLS-1$
+                                key, current), e);
+                    }
+                }
+                properties.setProperty(key, String.valueOf(value));
+            }
+        }
+    }
+}
@@ -17,11 +17,13 @@ package com.asakusafw.runtime.stage;
 
 import java.io.IOException;
 
+import org.apache.hadoop.mapreduce.Counters;
 import org.apache.hadoop.mapreduce.Job;
 
 /**
  * Executes jobs.
  * @since 0.7.1
+ * @version 0.10.5
  */
 @FunctionalInterface
 public interface JobRunner {
@@ -35,4 +37,16 @@ public interface JobRunner {
      * @throws ClassNotFoundException if failed to load related classes
      */
     boolean run(Job job) throws IOException, InterruptedException, ClassNotFoundException;
+
+    /**
+     * Returns the counters of the job which was executed by {@link #run(Job)} on this runner.
+     * @param job the finished job
+     * @return the job counters, or {@code null} if they are not available
+     * @throws IOException if failed to obtain the counters by I/O error
+     * @throws InterruptedException if interrupted while obtaining the counters
+     * @since 0.10.5
+     */
+    default Counters getCounters(Job job) throws IOException, InterruptedException {
+        return job.getCounters();
+    }
 }
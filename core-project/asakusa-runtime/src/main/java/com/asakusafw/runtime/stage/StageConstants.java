@@ -22,7 +22,7 @@ import com.asakusafw.runtime.util.VariableTable;
 /**
  * Constants for each stage.
  * @since 0.2.5
- * @version 0.7.1
+ * @version 0.10.5
  */
 public final class StageConstants {
 
@@ -69,6 +69,12 @@ public final class StageConstants {
      */
     public static final String PROP_JOB_RUNNER = "com.asakusafw.jobRunner"; //$NON-NLS-1$
 
+    /**
+     * The property key name of the local file path where the counters of finished jobs are recorded.
+     * @since 0.10.5
+     */
+    public static final String PROP_COUNTER_REPORT = "com.asakusafw.counterReport"; //$NON-NLS-1$
+
     /**
      * The variable name of the user name.
      * @see #PROP_USER
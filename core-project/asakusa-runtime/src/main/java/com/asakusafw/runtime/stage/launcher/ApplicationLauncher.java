@@ -34,7 +34,7 @@ import org.apache.hadoop.util.ToolRunner;
 /**W
  * The Asakusa application launcher.
  * @since 0.7.0
- * @version 0.7.1
+ * @version 0.10.5
  */
 public final class ApplicationLauncher {
 
@@ -143,7 +143,9 @@ public final class ApplicationLauncher {
                 return CLIENT_ERROR;
             }
         } finally {
-            disposeClassLoader(options.getApplicationClassLoader());
+            if (options.isApplicationClassLoaderShared() == false) {
+                disposeClassLoader(options.getApplicationClassLoader());
+            }
             for (File file : options.getApplicationCacheDirectories()) {
                 if (delete(file) == false) {
                     LOG.warn(MessageFormat.format(
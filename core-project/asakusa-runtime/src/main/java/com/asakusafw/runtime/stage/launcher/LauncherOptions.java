@@ -25,6 +25,8 @@ import org.apache.hadoop.util.Tool;
 
 /**
  * Options for application launcher.
+ * @since 0.7.0
+ * @version 0.10.5
  */
 public class LauncherOptions {
 
@@ -38,6 +40,8 @@ public class LauncherOptions {
 
     private final Set<File> applicationCacheDirectories;
 
+    private final boolean applicationClassLoaderShared;
+
     /**
      * Creates a new instance.
      * @param configuration the current configuration
@@ -52,11 +56,34 @@ public class LauncherOptions {
             List<String> applicationArguments,
             URLClassLoader applicationClassLoader,
             Set<File> applicationCacheDirectories) {
+        this(configuration, applicationClass, applicationArguments,
+                applicationClassLoader, applicationCacheDirectories, false);
+    }
+
+    /**
+     * Creates a new instance.
+     * @param configuration the current configuration
+     * @param applicationClass the application class
+     * @param applicationArguments the application arguments
+     * @param applicationClassLoader the application class loader
+     * @param applicationCacheDirectories the application cache directories (may not exist)
+     * @param applicationClassLoaderShared {@code true} if the application class loader is shared with the other
+     *     applications, otherwise {@code false}
+     * @since 0.10.5
+     */
+    public LauncherOptions(
+            Configuration configuration,
+            Class<? extends Tool> applicationClass,
+            List<String> applicationArguments,
+            URLClassLoader applicationClassLoader,
+            Set<File> applicationCacheDirectories,
+            boolean applicationClassLoaderShared) {
         this.configuration = configuration;
         this.applicationClass = applicationClass;
         this.applicationArguments = applicationArguments;
         this.applicationClassLoader = applicationClassLoader;
         this.applicationCacheDirectories = applicationCacheDirectories;
+        this.applicationClassLoaderShared = applicationClassLoaderShared;
     }
 
     /**
@@ -93,13 +120,23 @@ public class LauncherOptions {
 
     /**
      * Returns the application class loader.
-     * This can be disposed after application was finished.
+     * This can be disposed after application was finished, unless it is
+     * {@link #isApplicationClassLoaderShared() shared}.
      * @return the application class loader
      */
     public URLClassLoader getApplicationClassLoader() {
         return applicationClassLoader;
     }
 
+    /**
+     * Returns whether the application class loader is shared with the other applications or not.
+     * @return {@code true} if it is shared and must not be disposed, otherwise {@code false}
+     * @since 0.10.5
+     */
+    public boolean isApplicationClassLoaderShared() {
+        return applicationClassLoaderShared;
+    }
+
     /**
      * Returns the application cache directory.
      * This can be deleted after application was finished.
@@ -61,6 +61,7 @@ import com.asakusafw.runtime.util.lock.LocalFileLockProvider;
 /**
  * Converts application arguments into {@link LauncherOptions}.
  * @since 0.7.0
+ * @version 0.10.5
  */
 public final class LauncherOptionsParser {
 
@@ -122,6 +123,15 @@ public final class LauncherOptionsParser {
      */
     public static final String KEY_CACHE_JOBJAR = "com.asakusafw.launcher.cache.jobjar"; //$NON-NLS-1$
 
+    /**
+     * The configuration key of whether the {@link Configuration#getClassLoader() configuration class loader}
+     * already provides the application libraries or not.
+     * If this is {@code true}, the launcher reuses the class loader instead of creating a new one for
+     * {@code -libjars}, and never disposes it.
+     * @since 0.10.5
+     */
+    public static final String KEY_SHARED_CLASS_LOADER = "com.asakusafw.launcher.classloader.shared"; //$NON-NLS-1$
+
     static final String PATH_LOCK_DIRECTORY = "lock"; //$NON-NLS-1$
 
     static final boolean DEFAULT_CACHE_ENABLED = true;
@@ -144,6 +154,8 @@ public final class LauncherOptionsParser {
 
     private final Set<File> applicationCacheFiles = new HashSet<>();
 
+    private boolean applicationClassLoaderShared;
+
     private LauncherOptionsParser(Configuration configuration, String[] args) {
         this.configuration = configuration;
         this.arguments = Arrays.asList(args);
@@ -185,7 +197,8 @@ public final class LauncherOptionsParser {
                 applicationClass,
                 Arrays.asList(genericOptions.getRemainingArgs()),
                 applicationClassLoader,
-                applicationCacheFiles);
+                applicationCacheFiles,
+                applicationClassLoaderShared);
     }
 
     private String consumeApplicationClassName(LinkedList<String> rest) {
@@ -250,6 +263,15 @@ public final class LauncherOptionsParser {
             String applicationClassName) throws IOException, InterruptedException {
         List<URL> libraries = processLibraries(libraryPaths, applicationClassName);
         ClassLoader parent = configuration.getClassLoader();
+        if (configuration.getBoolean(KEY_SHARED_CLASS_LOADER, false) && parent instanceof URLClassLoader) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(MessageFormat.format(
+                        "reusing shared application class loader: {0}", //$NON-NLS-1$
+                        parent));
+            }
+            this.applicationClassLoaderShared = true;
+            return (URLClassLoader) parent;
+        }
         URLClassLoader application = AccessController.doPrivileged((PrivilegedAction<URLClassLoader>) () ->
                 new URLClassLoader(libraries.toArray(new URL[libraries.size()]), parent));
         this.applicationResources.add(application);
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.core;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import com.asakusafw.runtime.value.LongOption;
+
+/**
+ * Test for {@link BasicSortedGroup}.
+ */
+public class BasicSortedGroupTest {
+
+    /**
+     * floor.
+     */
+    @Test
+    public void floor() {
+        BasicSortedGroup<String> group = group();
+        assertThat(group.floor(0L), is(nullValue()));
+        assertThat(group.floor(1L), is("a"));
+        assertThat(group.floor(2L), is("a"));
+        assertThat(group.floor(3L), is("d"));
+        assertThat(group.floor(9L), is("e"));
+    }
+
+    /**
+     * ceiling.
+     */
+    @Test
+    public void ceiling() {
+        BasicSortedGroup<String> group = group();
+        assertThat(group.ceiling(0L), is("a"));
+        assertThat(group.ceiling(2L), is("b"));
+        assertThat(group.ceiling(3L), is("b"));
+        assertThat(group.ceiling(5L), is("e"));
+        assertThat(group.ceiling(6L), is(nullValue()));
+    }
+
+    /**
+     * range.
+     */
+    @Test
+    public void range() {
+        BasicSortedGroup<String> group = group();
+        assertThat(group.range(1L, 3L), contains("a"));
+        assertThat(group.range(1L, true, 3L, true), contains("a", "b", "c", "d"));
+        assertThat(group.range(1L, false, 5L, false), contains("b", "c", "d"));
+        assertThat(group.range(null, 3L), contains("a"));
+        assertThat(group.range(3L, null), contains("b", "c", "d", "e"));
+        assertThat(group.range(4L, 3L), hasSize(0));
+        assertThat(group.range(null, null), hasSize(5));
+    }
+
+    /**
+     * w/ value options.
+     */
+    @Test
+    public void options() {
+        List<LongOption> keys = Arrays.asList(new LongOption(1), new LongOption(3), new LongOption(5));
+        BasicSortedGroup<String> group = new BasicSortedGroup<>(
+                Arrays.asList("a", "b", "c"), keys, Function.identity());
+        assertThat(group.floor(new LongOption(4)), is("b"));
+        assertThat(group.ceiling(new LongOption(4)), is("c"));
+        assertThat(group.range(new LongOption(1), new LongOption(5)), contains("a", "b"));
+    }
+
+    /**
+     * empty group.
+     */
+    @Test
+    public void empty() {
+        BasicSortedGroup<String> group = BasicSortedGroup.empty();
+        assertThat(group.all(), hasSize(0));
+        assertThat(group.floor(1L), is(nullValue()));
+        assertThat(group.ceiling(1L), is(nullValue()));
+        assertThat(group.range(0L, 1L), hasSize(0));
+    }
+
+    private static BasicSortedGroup<String> group() {
+        return new BasicSortedGroup<>(
+                Arrays.asList("a", "b", "c", "d", "e"),
+                Arrays.asList(1L, 3L, 3L, 3L, 5L),
+                Function.identity());
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.core;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link GroupView.Cursor}.
+ */
+public class GroupViewTest {
+
+    /**
+     * default cursor.
+     */
+    @Test
+    public void cursor() {
+        MockView view = new MockView();
+        view.put(Arrays.asList("a"), "A1", "A2");
+        view.put(Arrays.asList("b"), "B1");
+        GroupView.Cursor<String> cursor = view.newCursor();
+
+        assertThat(collect(cursor.find("a")), contains("A1", "A2"));
+        assertThat(cursor.size(), is(2));
+        assertThat(collect(cursor.find("b")), contains("B1"));
+        assertThat(collect(cursor.find("c")), hasSize(0));
+        assertThat(collect(cursor.find(new Object[] { "a" })), contains("A1", "A2"));
+    }
+
+    /**
+     * default cursor with multiple key elements.
+     */
+    @Test
+    public void cursor_multiple() {
+        MockView view = new MockView();
+        view.put(Arrays.asList(), "E");
+        view.put(Arrays.asList("a", "b"), "AB");
+        view.put(Arrays.asList("a", "b", "c"), "ABC");
+        view.put(Arrays.asList("a", "b", "c", "d"), "ABCD");
+        GroupView.Cursor<String> cursor = view.newCursor();
+
+        assertThat(collect(cursor.find()), contains("E"));
+        assertThat(collect(cursor.find("a", "b")), contains("AB"));
+        assertThat(collect(cursor.find("a", "b", "c")), contains("ABC"));
+        assertThat(collect(cursor.find("a", "b", "c", "d")), contains("ABCD"));
+    }
+
+    /**
+     * default cursor - access out of the group.
+     */
+    @Test(expected = NoSuchElementException.class)
+    public void cursor_get_invalid() {
+        MockView view = new MockView();
+        view.put(Arrays.asList("a"), "A");
+        GroupView.Cursor<String> cursor = view.newCursor().find("a");
+        cursor.get();
+    }
+
+    private static List<String> collect(GroupView.Cursor<String> cursor) {
+        List<String> results = new ArrayList<>();
+        while (cursor.next()) {
+            results.add(cursor.get());
+        }
+        assertThat(cursor.next(), is(false));
+        return results;
+    }
+
+    private static class MockView implements GroupView<String> {
+
+        private final Map<List<Object>, List<String>> entries = new HashMap<>();
+
+        MockView() {
+            return;
+        }
+
+        void put(List<Object> key, String... values) {
+            entries.put(key, Arrays.asList(values));
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            List<String> results = new ArrayList<>();
+            entries.values().forEach(results::addAll);
+            return results.iterator();
+        }
+
+        @Override
+        public List<String> find(Object... elements) {
+            return entries.getOrDefault(Arrays.asList(elements), Collections.emptyList());
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.flow;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.asakusafw.runtime.value.IntOption;
+import com.asakusafw.runtime.value.LongOption;
+
+/**
+ * Test for {@link HashAggregationTable}.
+ */
+public class HashAggregationTableTest {
+
+    private final Map<Integer, Long> results = new LinkedHashMap<>();
+
+    private final HashAggregationTable.Sink<IntOption, LongOption> sink =
+            (k, v) -> results.merge(k.get(), v.get(), Long::sum);
+
+    /**
+     * simple case.
+     * @throws Exception if failed
+     */
+    @Test
+    public void simple() throws Exception {
+        HashAggregationTable<IntOption, LongOption> table = new HashAggregationTable<>(
+                new IntOption(), new Sum(), sink);
+        table.aggregate(new IntOption(1), new LongOption(10));
+        table.aggregate(new IntOption(2), new LongOption(20));
+        table.aggregate(new IntOption(1), new LongOption(30));
+        assertThat(table.size(), is(2));
+        assertThat(results.size(), is(0));
+
+        table.flush();
+        assertThat(table.size(), is(0));
+        assertThat(results, hasEntry(1, 40L));
+        assertThat(results, hasEntry(2, 20L));
+        assertThat(results.size(), is(2));
+
+        assertThat(table.getHitCount(), is(1L));
+        assertThat(table.getMissCount(), is(2L));
+        assertThat(table.getFlushCount(), is(1L));
+        assertThat(table.getOutputCount(), is(2L));
+        assertThat(table.getHitRate(), closeTo(1.0 / 3, 0.0001));
+    }
+
+    /**
+     * flush if the table reaches the max entries.
+     * @throws Exception if failed
+     */
+    @Test
+    public void flush_max_entries() throws Exception {
+        HashAggregationTable<IntOption, LongOption> table = new HashAggregationTable<>(
+                new IntOption(), new Sum(), sink, 10, Integer.MAX_VALUE - 8, () -> false);
+        for (int i = 0; i < 1000; i++) {
+            table.aggregate(new IntOption(i % 25), new LongOption(1));
+            assertThat(table.size(), is(lessThanOrEqualTo(10)));
+        }
+        table.flush();
+        assertThat(results.size(), is(25));
+        for (int i = 0; i < 25; i++) {
+            assertThat(results, hasEntry(i, 40L));
+        }
+        assertThat(table.capacity(), is(10));
+        assertThat(table.getFlushCount(), is(greaterThan(1L)));
+        assertThat(table.getOutputCount(), is(greaterThan(25L)));
+    }
+
+    /**
+     * flush if the table reaches the max key bytes.
+     * @throws Exception if failed
+     */
+    @Test
+    public void flush_max_key_bytes() throws Exception {
+        // IntOption is serialized into 5 bytes
+        HashAggregationTable<IntOption, LongOption> table = new HashAggregationTable<>(
+                new IntOption(), new Sum(), sink, 1000, 5 * 3, () -> false);
+        for (int i = 0; i < 100; i++) {
+            table.aggregate(new IntOption(i % 5), new LongOption(1));
+            assertThat(table.size(), is(lessThanOrEqualTo(3)));
+        }
+        table.flush();
+        assertThat(results.size(), is(5));
+        for (int i = 0; i < 5; i++) {
+            assertThat(results, hasEntry(i, 20L));
+        }
+        assertThat(table.getFlushCount(), is(greaterThan(1L)));
+    }
+
+    /**
+     * flush instead of growing the table on memory pressure.
+     * @throws Exception if failed
+     */
+    @Test
+    public void flush_pressure() throws Exception {
+        boolean[] high = new boolean[1];
+        HashAggregationTable<IntOption, LongOption> table = new HashAggregationTable<>(
+                new IntOption(), new Sum(), sink, () -> high[0]);
+        int initial = table.capacity();
+        for (int i = 0; i < initial * 4; i++) {
+            table.aggregate(new IntOption(i), new LongOption(1));
+        }
+        int grown = table.capacity();
+        assertThat(grown, is(greaterThan(initial)));
+        assertThat(table.getFlushCount(), is(0L));
+
+        high[0] = true;
+        for (int i = initial * 4; i < grown * 3; i++) {
+            table.aggregate(new IntOption(i), new LongOption(1));
+        }
+        assertThat(table.capacity(), is(grown));
+        assertThat(table.getFlushCount(), is(greaterThan(0L)));
+        table.flush();
+        assertThat(results.size(), is(grown * 3));
+    }
+
+    /**
+     * reuses the grown table after flush.
+     * @throws Exception if failed
+     */
+    @Test
+    public void flush_reuse() throws Exception {
+        HashAggregationTable<IntOption, LongOption> table = new HashAggregationTable<>(
+                new IntOption(), new Sum(), sink, () -> false);
+        int initial = table.capacity();
+        for (int i = 0; i < initial * 4; i++) {
+            table.aggregate(new IntOption(i), new LongOption(1));
+        }
+        int grown = table.capacity();
+        table.flush();
+        assertThat(table.size(), is(0));
+        assertThat(table.capacity(), is(grown));
+
+        for (int i = 0; i < initial * 4; i++) {
+            table.aggregate(new IntOption(i), new LongOption(1));
+        }
+        table.flush();
+        assertThat(table.capacity(), is(grown));
+        assertThat(results.size(), is(initial * 4));
+        for (int i = 0; i < initial * 4; i++) {
+            assertThat(results.get(i), is(2L));
+        }
+    }
+
+    /**
+     * grows the table while memory pressure is low.
+     * @throws Exception if failed
+     */
+    @Test
+    public void grow() throws Exception {
+        HashAggregationTable<IntOption, LongOption> table = new HashAggregationTable<>(
+                new IntOption(), new Sum(), sink, 1 << 20, Integer.MAX_VALUE - 8, () -> false);
+        int keys = 100_000;
+        for (int i = 0; i < keys; i++) {
+            table.aggregate(new IntOption(i), new LongOption(i));
+        }
+        for (int i = 0; i < keys; i++) {
+            table.aggregate(new IntOption(i), new LongOption(1));
+        }
+        assertThat(table.size(), is(keys));
+        assertThat(table.getHitCount(), is((long) keys));
+        table.flush();
+        assertThat(table.getFlushCount(), is(1L));
+        assertThat(results.size(), is(keys));
+        for (int i = 0; i < keys; i++) {
+            assertThat(results.get(i), is(i + 1L));
+        }
+    }
+
+    /**
+     * many distinct keys with collisions.
+     * @throws Exception if failed
+     */
+    @Test
+    public void many() throws Exception {
+        HashAggregationTable<IntOption, LongOption> table = new HashAggregationTable<>(
+                new IntOption(), new Sum(), sink, () -> false);
+        int keys = 1000;
+        for (int i = 0; i < 100_000; i++) {
+            table.aggregate(new IntOption(i % keys), new LongOption(i));
+        }
+        table.flush();
+        assertThat(results.size(), is(keys));
+        long total = 0;
+        for (long v : results.values()) {
+            total += v;
+        }
+        assertThat(total, is(100_000L * 99_999 / 2));
+        assertThat(table.getOutputCount(), is((long) keys));
+    }
+
+    /**
+     * null keys.
+     * @throws Exception if failed
+     */
+    @Test
+    public void null_key() throws Exception {
+        Map<Boolean, Long> nulls = new LinkedHashMap<>();
+        HashAggregationTable<IntOption, LongOption> table = new HashAggregationTable<>(
+                new IntOption(), new Sum(), (k, v) -> nulls.merge(k.isNull(), v.get(), Long::sum));
+        table.aggregate(new IntOption(), new LongOption(1));
+        table.aggregate(new IntOption(0), new LongOption(2));
+        table.aggregate(new IntOption(), new LongOption(3));
+        table.flush();
+        assertThat(nulls, hasEntry(true, 4L));
+        assertThat(nulls, hasEntry(false, 2L));
+    }
+
+    private static final class Sum implements HashAggregationTable.Aggregator<LongOption> {
+
+        Sum() {
+            return;
+        }
+
+        @Override
+        public LongOption newObject() {
+            return new LongOption();
+        }
+
+        @Override
+        public void copy(LongOption destination, LongOption source) {
+            destination.copyFrom(source);
+        }
+
+        @Override
+        public void combine(LongOption destination, LongOption source) {
+            destination.add(source);
+        }
+    }
+}
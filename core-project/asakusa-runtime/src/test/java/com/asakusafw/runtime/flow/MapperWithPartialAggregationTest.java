@@ -0,0 +1,280 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.flow;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.MRJobConfig;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.map.WrappedMapper;
+import org.apache.hadoop.mapreduce.task.MapContextImpl;
+import org.junit.Test;
+
+import com.asakusafw.runtime.value.IntOption;
+import com.asakusafw.runtime.value.LongOption;
+
+/**
+ * Test for {@link MapperWithPartialAggregation}.
+ */
+public class MapperWithPartialAggregationTest {
+
+    private final Counters counters = new Counters();
+
+    /**
+     * simple case.
+     * @throws Exception if failed
+     */
+    @Test
+    public void simple() throws Exception {
+        List<String> results = run(new Testing(), 1, 2, 1, 3, 1);
+        assertThat(results, containsInAnyOrder("0:1=3", "0:2=1", "0:3=1"));
+        Counter hit = counters.findCounter(
+                HashAggregationTable.COUNTER_GROUP,
+                Testing.class.getSimpleName() + HashAggregationTable.SUFFIX_HIT_COUNT);
+        assertThat(hit.getValue(), is(2L));
+    }
+
+    /**
+     * w/ segments without aggregators.
+     * @throws Exception if failed
+     */
+    @Test
+    public void through() throws Exception {
+        Testing mapper = new Testing();
+        mapper.segments = 2;
+        List<String> results = run(mapper, 1, 1, 2);
+        assertThat(results, containsInAnyOrder(
+                "0:1=2", "0:2=1",
+                "1:1=1", "1:1=1", "1:2=1"));
+    }
+
+    private List<String> run(Testing mapper, int... values) throws IOException, InterruptedException {
+        Configuration conf = new Configuration(false);
+        conf.setClass(MRJobConfig.MAP_OUTPUT_KEY_CLASS, Key.class, Object.class);
+        conf.setClass(MRJobConfig.MAP_OUTPUT_VALUE_CLASS, Value.class, Object.class);
+        List<String> results = new ArrayList<>();
+        RecordWriter<Key, Value> writer = new RecordWriter<Key, Value>() {
+            @Override
+            public void write(Key key, Value value) {
+                results.add(String.format("%d:%d=%d", key.segment, key.key.get(), value.value.get()));
+            }
+            @Override
+            public void close(TaskAttemptContext context) {
+                return;
+            }
+        };
+        Mapper<Object, IntOption, Key, Value>.Context context = new WrappedMapper<Object, IntOption, Key, Value>()
+                .getMapContext(new MapContextImpl<>(
+                        conf, new TaskAttemptID(),
+                        new Reader(values), writer,
+                        null, new Reporter(), null));
+        mapper.run(context);
+        return results;
+    }
+
+    private static final class Testing extends MapperWithPartialAggregation<Object, IntOption, Key, Value> {
+
+        int segments = 1;
+
+        private final Key key = new Key();
+
+        private final Value value = new Value();
+
+        Testing() {
+            return;
+        }
+
+        @Override
+        protected HashAggregationTable.Aggregator<Value> getAggregator(int segmentId) {
+            if (segmentId != 0) {
+                return null;
+            }
+            return new HashAggregationTable.Aggregator<Value>() {
+                @Override
+                public Value newObject() {
+                    return new Value();
+                }
+                @Override
+                public void copy(Value destination, Value source) {
+                    destination.segment = source.segment;
+                    destination.value.copyFrom(source.value);
+                }
+                @Override
+                public void combine(Value destination, Value source) {
+                    destination.value.add(source.value);
+                }
+            };
+        }
+
+        @Override
+        protected void map(Object k, IntOption v, Context context) throws IOException, InterruptedException {
+            for (int i = 0; i < segments; i++) {
+                key.segment = i;
+                key.key.copyFrom(v);
+                value.segment = i;
+                value.value.modify(1);
+                emit(key, value);
+            }
+        }
+    }
+
+    @SuppressWarnings("javadoc")
+    public static final class Key implements SegmentedWritable {
+
+        int segment;
+
+        final IntOption key = new IntOption();
+
+        @Override
+        public int getSegmentId() {
+            return segment;
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeInt(segment);
+            key.write(out);
+        }
+
+        @Override
+        public void readFields(DataInput in) throws IOException {
+            segment = in.readInt();
+            key.readFields(in);
+        }
+    }
+
+    @SuppressWarnings("javadoc")
+    public static final class Value implements SegmentedWritable {
+
+        int segment;
+
+        final LongOption value = new LongOption();
+
+        @Override
+        public int getSegmentId() {
+            return segment;
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeInt(segment);
+            value.write(out);
+        }
+
+        @Override
+        public void readFields(DataInput in) throws IOException {
+            segment = in.readInt();
+            value.readFields(in);
+        }
+    }
+
+    private static final class Reader extends RecordReader<Object, IntOption> {
+
+        private final Iterator<Integer> iterator;
+
+        private final IntOption current = new IntOption();
+
+        Reader(int... values) {
+            List<Integer> list = new ArrayList<>();
+            Arrays.stream(values).forEach(list::add);
+            this.iterator = list.iterator();
+        }
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context) {
+            return;
+        }
+
+        @Override
+        public boolean nextKeyValue() {
+            if (iterator.hasNext()) {
+                current.modify(iterator.next());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Object getCurrentKey() {
+            return null;
+        }
+
+        @Override
+        public IntOption getCurrentValue() {
+            return current;
+        }
+
+        @Override
+        public float getProgress() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+            return;
+        }
+    }
+
+    private final class Reporter extends StatusReporter {
+
+        Reporter() {
+            return;
+        }
+
+        @Override
+        public Counter getCounter(Enum<?> name) {
+            return counters.findCounter(name);
+        }
+
+        @Override
+        public Counter getCounter(String group, String name) {
+            return counters.findCounter(group, name);
+        }
+
+        @Override
+        public void progress() {
+            return;
+        }
+
+        @Override
+        public float getProgress() {
+            return 0;
+        }
+
+        @Override
+        public void setStatus(String status) {
+            return;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.flow;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.asakusafw.runtime.flow.FileMapListBufferTest.Holder;
+import com.asakusafw.runtime.flow.OffHeapListBuffer.MemoryBudget;
+import com.asakusafw.runtime.value.IntOption;
+
+/**
+ * Test for {@link OffHeapListBuffer}.
+ */
+public class OffHeapListBufferTest {
+
+    /**
+     * creates an empty buffer.
+     */
+    @Test
+    public void createEmpty() {
+        OffHeapListBuffer<Holder> buf = new OffHeapListBuffer<>();
+        buf.begin();
+        buf.end();
+        assertThat(buf.size(), is(0));
+
+        buf.shrink();
+    }
+
+    /**
+     * creates a buffer with one element.
+     */
+    @Test
+    public void createSingle() {
+        OffHeapListBuffer<Holder> buf = new OffHeapListBuffer<>();
+        buf.begin();
+        assertThat(buf.isExpandRequired(), is(true));
+        buf.expand(new Holder(""));
+        assertThat(buf.isExpandRequired(), is(false));
+        buf.advance().value = "Hello";
+        buf.end();
+        assertThat(buf.size(), is(1));
+        assertThat(buf.get(0), is(new Holder("Hello")));
+
+        buf.shrink();
+    }
+
+    /**
+     * reuses the buffer.
+     */
+    @Test
+    public void reuse() {
+        OffHeapListBuffer<Holder> buf = new OffHeapListBuffer<>(32, new MemoryBudget(1024 * 1024), 1024);
+        try {
+            fill(buf, 0, 1000);
+            fill(buf, 1000, 1500);
+            assertThat(buf.size(), is(500));
+            for (int i = 0; i < 500; i++) {
+                assertThat(buf.get(i).value, is(String.valueOf(i + 1000)));
+            }
+            assertThat(buf.getSpillUsage(), is(0L));
+        } finally {
+            buf.shrink();
+        }
+    }
+
+    /**
+     * creates a buffer over multiple pages and segments.
+     */
+    @Test
+    public void createMultiplePages() {
+        OffHeapListBuffer<Holder> buf = new OffHeapListBuffer<>(32, new MemoryBudget(1024 * 1024), 100);
+        try {
+            int size = 10000;
+            fill(buf, 0, size);
+            assertThat(buf.size(), is(size));
+            assertThat(buf.getMemoryUsage(), is(greaterThan(0L)));
+            assertThat(buf.getSpillUsage(), is(0L));
+            for (int i = 0; i < size; i++) {
+                assertThat(buf.get(i).value, is(String.valueOf(i)));
+            }
+            for (int i = size - 1; i >= 0; i--) {
+                assertThat(buf.get(i).value, is(String.valueOf(i)));
+            }
+        } finally {
+            buf.shrink();
+        }
+    }
+
+    /**
+     * spills contents over the off-heap memory limit.
+     */
+    @Test
+    public void spill() {
+        OffHeapListBuffer<Holder> buf = new OffHeapListBuffer<>(32, new MemoryBudget(1000), 64);
+        try {
+            int size = 10000;
+            fill(buf, 0, size);
+            assertThat(buf.size(), is(size));
+            assertThat(buf.getMemoryUsage(), is(960L));
+            assertThat(buf.getSpillUsage(), is(greaterThan(0L)));
+            for (int i = 0; i < size; i++) {
+                assertThat(buf.get(i).value, is(String.valueOf(i)));
+            }
+        } finally {
+            buf.shrink();
+        }
+    }
+
+    /**
+     * shares the off-heap memory budget between buffers.
+     */
+    @Test
+    public void shared_budget() {
+        MemoryBudget budget = new MemoryBudget(1024);
+        OffHeapListBuffer<Holder> a = new OffHeapListBuffer<>(32, budget, 64);
+        OffHeapListBuffer<Holder> b = new OffHeapListBuffer<>(32, budget, 64);
+        try {
+            fill(a, 0, 10000);
+            assertThat(budget.getUsage(), is(1024L));
+            fill(b, 0, 10000);
+            assertThat(b.getMemoryUsage(), is(0L));
+            assertThat(b.getSpillUsage(), is(greaterThan(0L)));
+            for (int i = 0; i < 10000; i++) {
+                assertThat(a.get(i).value, is(String.valueOf(i)));
+                assertThat(b.get(i).value, is(String.valueOf(i)));
+            }
+            a.shrink();
+            assertThat(budget.getUsage(), is(0L));
+            fill(b, 0, 10000);
+            assertThat(b.getMemoryUsage(), is(1024L));
+        } finally {
+            a.shrink();
+            b.shrink();
+        }
+        assertThat(budget.getUsage(), is(0L));
+    }
+
+    /**
+     * releases unused segments on end.
+     */
+    @Test
+    public void release_unused() {
+        MemoryBudget budget = new MemoryBudget(1024 * 1024);
+        OffHeapListBuffer<Holder> buf = new OffHeapListBuffer<>(32, budget, 64);
+        try {
+            fill(buf, 0, 10000);
+            long large = budget.getUsage();
+            fill(buf, 0, 100);
+            assertThat(budget.getUsage(), is(lessThan(large)));
+            assertThat(budget.getUsage(), is(greaterThanOrEqualTo(buf.getMemoryUsage())));
+            for (int i = 0; i < 100; i++) {
+                assertThat(buf.get(i).value, is(String.valueOf(i)));
+            }
+        } finally {
+            buf.shrink();
+        }
+        assertThat(budget.getUsage(), is(0L));
+    }
+
+    /**
+     * reuses the released segments.
+     */
+    @Test
+    public void reuse_segments() {
+        MemoryBudget budget = new MemoryBudget(1024 * 1024);
+        OffHeapListBuffer<Holder> a = new OffHeapListBuffer<>(32, budget, 64);
+        OffHeapListBuffer<Holder> b = new OffHeapListBuffer<>(32, budget, 64);
+        try {
+            fill(a, 0, 10000);
+            long large = budget.getUsage();
+            assertThat(budget.getPooled(), is(0L));
+
+            fill(a, 0, 100);
+            assertThat(budget.getUsage() + budget.getPooled(), is(large));
+
+            a.shrink();
+            assertThat(budget.getUsage(), is(0L));
+            assertThat(budget.getPooled(), is(large));
+
+            fill(b, 0, 10000);
+            assertThat(budget.getUsage(), is(large));
+            assertThat(budget.getPooled(), is(0L));
+            for (int i = 0; i < 10000; i++) {
+                assertThat(b.get(i).value, is(String.valueOf(i)));
+            }
+        } finally {
+            a.shrink();
+            b.shrink();
+        }
+        assertThat(budget.getUsage(), is(0L));
+    }
+
+    /**
+     * w/o off-heap memory.
+     */
+    @Test
+    public void spill_all() {
+        OffHeapListBuffer<Holder> buf = new OffHeapListBuffer<>(32, new MemoryBudget(0), 64);
+        try {
+            int size = 1000;
+            fill(buf, 0, size);
+            assertThat(buf.getMemoryUsage(), is(0L));
+            for (int i = 0; i < size; i++) {
+                assertThat(buf.get(i).value, is(String.valueOf(i)));
+            }
+        } finally {
+            buf.shrink();
+        }
+    }
+
+    /**
+     * w/ many records.
+     */
+    @SuppressWarnings("deprecation")
+    @Test
+    public void large() {
+        ListBuffer<IntOption> buf = new OffHeapListBuffer<>();
+        try {
+            int size = 1_000_000;
+            buf.begin();
+            for (int i = 0; i < size; i++) {
+                if (buf.isExpandRequired()) {
+                    buf.expand(new IntOption());
+                }
+                buf.advance().modify(i);
+            }
+            buf.end();
+            assertThat(buf.size(), is(size));
+            for (int i = 0; i < size; i++) {
+                assertEquals(i, buf.get(i).get());
+            }
+        } finally {
+            buf.shrink();
+        }
+    }
+
+    /**
+     * negative index.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_LowerOutOfBounds() {
+        OffHeapListBuffer<Holder> buf = new OffHeapListBuffer<>();
+        try {
+            buf.begin();
+            buf.end();
+            buf.get(-1);
+        } finally {
+            buf.shrink();
+        }
+    }
+
+    /**
+     * missing advance.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_UpperOutOfBounds() {
+        OffHeapListBuffer<Holder> buf = new OffHeapListBuffer<>();
+        try {
+            buf.begin();
+            buf.end();
+            buf.get(0);
+        } finally {
+            buf.shrink();
+        }
+    }
+
+    private static void fill(ListBuffer<Holder> buf, int begin, int end) {
+        buf.begin();
+        for (int i = begin; i < end; i++) {
+            if (buf.isExpandRequired()) {
+                buf.expand(new Holder(""));
+            }
+            buf.advance().value = String.valueOf(i);
+        }
+        buf.end();
+    }
+}
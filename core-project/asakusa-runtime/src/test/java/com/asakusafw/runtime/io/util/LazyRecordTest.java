@@ -0,0 +1,148 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.io.util;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.Test;
+
+import com.asakusafw.runtime.value.IntOption;
+import com.asakusafw.runtime.value.StringOption;
+
+/**
+ * Test for {@link LazyRecord}.
+ */
+public class LazyRecordTest {
+
+    /**
+     * lazy deserialization.
+     * @throws Exception if failed
+     */
+    @Test
+    public void lazy() throws Exception {
+        byte[] data = serialize(new IntOption(100), new StringOption("Hello"), new IntOption(200));
+
+        IntOption a = new IntOption();
+        StringOption b = new StringOption();
+        IntOption c = new IntOption();
+        LazyRecord record = new LazyRecord(a, b, c);
+
+        DataInputBuffer in = new DataInputBuffer();
+        in.reset(data, data.length);
+        record.readFields(in);
+        assertThat(in.getPosition(), is(data.length));
+        assertThat(a.isNull(), is(true));
+
+        record.load(0);
+        assertThat(a, is(new IntOption(100)));
+        assertThat(b.isNull(), is(true));
+        assertThat(c.isNull(), is(true));
+
+        record.loadAll();
+        assertThat(b, is(new StringOption("Hello")));
+        assertThat(c, is(new IntOption(200)));
+    }
+
+    /**
+     * untouched properties are written back as is.
+     * @throws Exception if failed
+     */
+    @Test
+    public void write_untouched() throws Exception {
+        byte[] data = serialize(new IntOption(100), new StringOption("Hello"), new IntOption(200));
+
+        IntOption a = new IntOption();
+        StringOption b = new StringOption();
+        IntOption c = new IntOption();
+        LazyRecord record = new LazyRecord(a, b, c);
+
+        DataBuffer in = new DataBuffer();
+        in.write(data);
+        in.write(data);
+        record.readFields(in);
+        record.load(2);
+        c.modify(300);
+
+        DataOutputBuffer out = new DataOutputBuffer();
+        record.write(out);
+        assertThat(b.isNull(), is(true));
+
+        byte[] expected = serialize(new IntOption(100), new StringOption("Hello"), new IntOption(300));
+        assertThat(out.getLength(), is(expected.length));
+        assertArrayEquals(expected, Arrays.copyOf(out.getData(), out.getLength()));
+
+        record.readFields(in);
+        assertThat(in.getReadRemaining(), is(0));
+        record.loadAll();
+        assertThat(c, is(new IntOption(200)));
+    }
+
+    /**
+     * deserializes eagerly from generic inputs.
+     * @throws Exception if failed
+     */
+    @Test
+    public void eager() throws Exception {
+        byte[] data = serialize(new IntOption(100), new StringOption("Hello"));
+
+        IntOption a = new IntOption();
+        StringOption b = new StringOption();
+        LazyRecord record = new LazyRecord(a, b);
+        record.readFields(new DataInputStream(new ByteArrayInputStream(data)));
+        assertThat(a, is(new IntOption(100)));
+        assertThat(b, is(new StringOption("Hello")));
+    }
+
+    /**
+     * discard kept record.
+     * @throws Exception if failed
+     */
+    @Test
+    public void discard() throws Exception {
+        byte[] data = serialize(new IntOption(100));
+
+        IntOption a = new IntOption();
+        LazyRecord record = new LazyRecord(a);
+        DataInputBuffer in = new DataInputBuffer();
+        in.reset(data, data.length);
+        record.readFields(in);
+        record.discard();
+        a.modify(200);
+
+        DataOutputBuffer out = new DataOutputBuffer();
+        record.write(out);
+        IntOption restored = new IntOption();
+        DataInputBuffer check = new DataInputBuffer();
+        check.reset(out.getData(), out.getLength());
+        restored.readFields(check);
+        assertThat(restored, is(new IntOption(200)));
+    }
+
+    private static byte[] serialize(WritableRawComparable... values) throws Exception {
+        DataOutputBuffer out = new DataOutputBuffer();
+        for (WritableRawComparable value : values) {
+            value.write(out);
+        }
+        return Arrays.copyOf(out.getData(), out.getLength());
+    }
+}
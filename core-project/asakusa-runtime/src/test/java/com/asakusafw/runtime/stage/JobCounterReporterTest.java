@@ -0,0 +1,61 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.stage;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Properties;
+
+import org.apache.hadoop.mapreduce.Counters;
+import org.junit.Test;
+
+/**
+ * Test for {@link JobCounterReporter}.
+ */
+public class JobCounterReporterTest {
+
+    /**
+     * simple case.
+     */
+    @Test
+    public void merge() {
+        Counters counters = new Counters();
+        counters.findCounter("g", "a.records").increment(10);
+        counters.findCounter("g", "a.bytes").increment(100);
+
+        Properties properties = new Properties();
+        JobCounterReporter.merge(properties, counters);
+        assertThat(properties.getProperty("g/a.records"), is("10"));
+        assertThat(properties.getProperty("g/a.bytes"), is("100"));
+    }
+
+    /**
+     * merges into existing values.
+     */
+    @Test
+    public void merge_existing() {
+        Counters counters = new Counters();
+        counters.findCounter("g", "c").increment(5);
+
+        Properties properties = new Properties();
+        properties.setProperty("g/c", "3");
+        properties.setProperty("g/other", "7");
+        JobCounterReporter.merge(properties, counters);
+        assertThat(properties.getProperty("g/c"), is("8"));
+        assertThat(properties.getProperty("g/other"), is("7"));
+    }
+}
@@ -21,6 +21,8 @@ import static org.junit.Assert.*;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -106,6 +108,7 @@ public class LauncherOptionsParserTest extends LauncherTestRoot {
                 LauncherOptionsParser.KEY_ARG_LIBRARIES,
                 lib.getPath(),
         });
+        assertThat(options.isApplicationClassLoaderShared(), is(false));
         assertClasspath(options.getApplicationClassLoader().getURLs(), "testing");
         assertThat(lib, is(inClasspath(options.getApplicationClassLoader().getURLs())));
 
@@ -157,6 +160,29 @@ public class LauncherOptionsParserTest extends LauncherTestRoot {
         assertThat(lib, is(not(inClasspath(GenericOptionsParser.getLibJars(conf)))));
     }
 
+    /**
+     * w/ libjars on the shared class loader.
+     * @throws Exception if failed
+     */
+    @Test
+    public void w_libjars_shared() throws Exception {
+        try (URLClassLoader shared = new URLClassLoader(new URL[0], getClass().getClassLoader())) {
+            conf.setClassLoader(shared);
+            conf.setBoolean(LauncherOptionsParser.KEY_SHARED_CLASS_LOADER, true);
+            File lib = putFile("dummy.jar");
+            LauncherOptions options = parse(new String[] {
+                    MockTool.class.getName(),
+                    LauncherOptionsParser.KEY_ARG_LIBRARIES,
+                    lib.getPath(),
+            });
+            assertThat(options.isApplicationClassLoaderShared(), is(true));
+            assertThat(options.getApplicationClassLoader(), is(sameInstance(shared)));
+
+            assertClasspath(GenericOptionsParser.getLibJars(conf), "testing");
+            assertThat(lib, is(inClasspath(GenericOptionsParser.getLibJars(conf))));
+        }
+    }
+
     /**
      * w/ libjars with disabled cache.
      * @throws Exception if failed
@@ -51,6 +51,7 @@ import com.asakusafw.utils.io.Sources;
  * @param <K> key object type
  * @param <V> value object type
  * @since 0.7.1
+ * @version 0.10.5
  */
 public class KeyValueSorter<K, V> implements Closeable {
 
@@ -177,6 +178,37 @@ public class KeyValueSorter<K, V> implements Closeable {
         return Sources.merge(sources, comparator);
     }
 
+    /**
+     * Sort previously added key-value pairs in the individual sorters, and then merges them.
+     * @param sorters the sorters, must share the same sort comparator
+     * @return the sorted source
+     * @throws IOException if failed to sort pairs
+     * @throws InterruptedException if interrupted while preparing
+     * @since 0.10.5
+     */
+    public static Source<KeyValueSlice> sort(
+            List<? extends KeyValueSorter<?, ?>> sorters) throws IOException, InterruptedException {
+        if (sorters.size() == 1) {
+            return sorters.get(0).sort();
+        }
+        List<Source<KeyValueSlice>> sources = new ArrayList<>();
+        boolean succeed = false;
+        try {
+            for (KeyValueSorter<?, ?> sorter : sorters) {
+                sources.add(sorter.sort());
+            }
+            succeed = true;
+        } finally {
+            if (succeed == false) {
+                for (Source<KeyValueSlice> s : sources) {
+                    s.close();
+                }
+            }
+        }
+        KeyValueSorter<?, ?> first = sorters.get(0);
+        return Sources.merge(sources, first.comparator);
+    }
+
     private void flushPageBuffer() throws IOException, InterruptedException {
         KeyValuePageBuffer<?, ?> page = pageBuffer;
         int count = page.getCount();
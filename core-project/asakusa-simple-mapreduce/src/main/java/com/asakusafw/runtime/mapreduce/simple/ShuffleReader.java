@@ -17,6 +17,9 @@ package com.asakusafw.runtime.mapreduce.simple;
 
 import java.io.IOException;
 import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.hadoop.io.DataInputBuffer;
 import org.apache.hadoop.mapred.RawKeyValueIterator;
@@ -27,10 +30,11 @@ import com.asakusafw.utils.io.Source;
 /**
  * Read shuffle outputs.
  * @since 0.7.1
+ * @version 0.10.5
  */
 public class ShuffleReader implements RawKeyValueIterator {
 
-    private final KeyValueSorter<?, ?> sorter;
+    private final List<KeyValueSorter<?, ?>> sorters;
 
     private Source<KeyValueSlice> source;
 
@@ -48,7 +52,17 @@ public class ShuffleReader implements RawKeyValueIterator {
      * @param progress the progress
      */
     public ShuffleReader(KeyValueSorter<?, ?> sorter, Progress progress) {
-        this.sorter = sorter;
+        this(Collections.singletonList(sorter), progress);
+    }
+
+    /**
+     * Creates a new instance, which merges the outputs of the individual sorters.
+     * @param sorters the source sorters, must share the same sort comparator
+     * @param progress the progress
+     * @since 0.10.5
+     */
+    public ShuffleReader(List<? extends KeyValueSorter<?, ?>> sorters, Progress progress) {
+        this.sorters = new ArrayList<>(sorters);
         this.progress = progress;
     }
 
@@ -56,7 +70,7 @@ public class ShuffleReader implements RawKeyValueIterator {
     public boolean next() throws IOException {
         if (source == null) {
             try {
-                source = sorter.sort();
+                source = KeyValueSorter.sort(sorters);
             } catch (InterruptedException e) {
                 throw (IOException) new InterruptedIOException().initCause(e);
             }
@@ -93,7 +107,9 @@ public class ShuffleReader implements RawKeyValueIterator {
                 source.close();
             }
         } finally {
-            sorter.close();
+            for (KeyValueSorter<?, ?> sorter : sorters) {
+                sorter.close();
+            }
         }
     }
 
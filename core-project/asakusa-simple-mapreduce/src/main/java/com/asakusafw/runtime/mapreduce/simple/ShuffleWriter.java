@@ -16,7 +16,10 @@
 package com.asakusafw.runtime.mapreduce.simple;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.apache.hadoop.mapreduce.Partitioner;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
@@ -25,22 +28,46 @@ import org.apache.hadoop.mapreduce.TaskAttemptContext;
  * @param <K> the key type
  * @param <V> the value type
  * @since 0.7.1
+ * @version 0.10.5
  */
 public class ShuffleWriter<K, V> extends RecordWriter<K, V> {
 
     private final KeyValueSorter<K, V> sorter;
 
+    private final List<KeyValueSorter<K, V>> partitions;
+
+    private final Partitioner<? super K, ? super V> partitioner;
+
     /**
      * Creates a new instance.
      * @param sorter the key value sorter
      */
     public ShuffleWriter(KeyValueSorter<K, V> sorter) {
         this.sorter = sorter;
+        this.partitions = null;
+        this.partitioner = null;
+    }
+
+    /**
+     * Creates a new instance, which distributes the records into the partitions.
+     * @param partitions the key value sorters for the individual partitions
+     * @param partitioner the partitioner
+     * @since 0.10.5
+     */
+    public ShuffleWriter(List<KeyValueSorter<K, V>> partitions, Partitioner<? super K, ? super V> partitioner) {
+        this.sorter = null;
+        this.partitions = new ArrayList<>(partitions);
+        this.partitioner = partitioner;
     }
 
     @Override
     public void write(K key, V value) throws IOException, InterruptedException {
-        sorter.put(key, value);
+        if (partitions == null) {
+            sorter.put(key, value);
+        } else {
+            int partition = partitioner.getPartition(key, value, partitions.size());
+            partitions.get(partition).put(key, value);
+        }
     }
 
     @Override
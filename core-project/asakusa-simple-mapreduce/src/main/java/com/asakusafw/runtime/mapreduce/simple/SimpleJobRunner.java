@@ -18,8 +18,19 @@ package com.asakusafw.runtime.mapreduce.simple;
 import java.io.File;
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -27,6 +38,7 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.RawComparator;
 import org.apache.hadoop.io.serializer.SerializationFactory;
 import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.Job;
@@ -35,15 +47,16 @@ import org.apache.hadoop.mapreduce.JobStatus.State;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.OutputCommitter;
 import org.apache.hadoop.mapreduce.OutputFormat;
+import org.apache.hadoop.mapreduce.Partitioner;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.StatusReporter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskCounter;
 import org.apache.hadoop.mapreduce.TaskID;
 import org.apache.hadoop.mapreduce.TaskType;
-import org.apache.hadoop.mapreduce.counters.GenericCounter;
 import org.apache.hadoop.mapreduce.lib.map.WrappedMapper;
 import org.apache.hadoop.mapreduce.lib.reduce.WrappedReducer;
 import org.apache.hadoop.mapreduce.task.MapContextImpl;
@@ -57,6 +70,7 @@ import com.asakusafw.runtime.stage.JobRunner;
 /**
  * An implementation of {@link JobRunner} using simplified map-reduce engine.
  * @since 0.7.1
+ * @version 0.10.5
  */
 public class SimpleJobRunner implements JobRunner {
 
@@ -79,6 +93,22 @@ public class SimpleJobRunner implements JobRunner {
      */
     public static final String KEY_COMPRESS_BLOCK = KEY_PREFIX + "shuffle.compress"; //$NON-NLS-1$
 
+    /**
+     * Hadoop property key of the max number of map tasks which run concurrently.
+     * @since 0.10.5
+     */
+    public static final String KEY_MAP_PARALLELISM = KEY_PREFIX + "map.parallelism"; //$NON-NLS-1$
+
+    /**
+     * Hadoop property key of the max number of reduce partitions which run concurrently.
+     * The actual number of partitions is also limited by the number of reduce tasks in the job,
+     * and the individual records are distributed to the partitions by the job's {@link Partitioner}.
+     * @since 0.10.5
+     */
+    public static final String KEY_REDUCE_PARALLELISM = KEY_PREFIX + "reduce.parallelism"; //$NON-NLS-1$
+
+    private static final int DEFAULT_PARALLELISM = 1;
+
     private static final int DEFAULT_BUFFER_SIZE = 64 * 1024 * 1024;
 
     private static final int MIN_BUFFER_SIZE = 2 * 1024 * 1024;
@@ -89,6 +119,10 @@ public class SimpleJobRunner implements JobRunner {
 
     private static final String DUMMY_JOBTRACKER_ID = "asakusafw";
 
+    private JobID lastJobId;
+
+    private Counters lastCounters;
+
     @Override
     public boolean run(Job job) throws InterruptedException {
         job.setJobID(new JobID(DUMMY_JOBTRACKER_ID, new Random().nextInt(Integer.MAX_VALUE)));
@@ -98,7 +132,12 @@ public class SimpleJobRunner implements JobRunner {
                 job.getJobID(),
                 job.getJobName()));
         try {
-            runJob(job);
+            Counters counters = new Counters();
+            runJob(job, counters);
+            synchronized (this) {
+                lastJobId = job.getJobID();
+                lastCounters = counters;
+            }
             return true;
         } catch (InterruptedException e) {
             throw e;
@@ -111,7 +150,22 @@ public class SimpleJobRunner implements JobRunner {
         }
     }
 
-    private void runJob(Job job) throws ClassNotFoundException, IOException, InterruptedException {
+    /**
+     * Returns the counters of the job which was last completed on this runner.
+     * The counters are aggregated from the individual map and reduce tasks,
+     * because the jobs executed by this runner are never submitted to the cluster.
+     * @param job the finished job
+     * @return the job counters, or {@code null} if the job was not completed on this runner
+     */
+    @Override
+    public synchronized Counters getCounters(Job job) {
+        if (lastCounters == null || job.getJobID() == null || job.getJobID().equals(lastJobId) == false) {
+            return null;
+        }
+        return lastCounters;
+    }
+
+    private void runJob(Job job, Counters counters) throws ClassNotFoundException, IOException, InterruptedException {
         assert job.getJobID() != null;
         TaskID taskId = new TaskID(job.getJobID(), TaskType.MAP, 0);
         Configuration conf = job.getConfiguration();
@@ -121,13 +175,37 @@ public class SimpleJobRunner implements JobRunner {
         boolean succeed = false;
         committer.setupJob(job);
         try {
+            int mapParallelism = getParallelism(conf, KEY_MAP_PARALLELISM);
             if (job.getNumReduceTasks() == 0) {
-                runMap(job, null);
+                runMap(job, counters, mapParallelism, null);
             } else {
-                try (KeyValueSorter<?, ?> sorter = createSorter(job,
-                        job.getMapOutputKeyClass(), job.getMapOutputValueClass())) {
-                    runMap(job, sorter);
-                    runReduce(job, sorter);
+                long bufferSize = getBufferSize(conf);
+                int[] parallelism = getShuffleParallelism(bufferSize,
+                        mapParallelism,
+                        Math.min(job.getNumReduceTasks(), getParallelism(conf, KEY_REDUCE_PARALLELISM)));
+                mapParallelism = parallelism[0];
+                int partitions = parallelism[1];
+                // the shuffle buffer is shared between the individual sorters
+                long sorterBufferSize = bufferSize / ((long) mapParallelism * partitions);
+                List<List<KeyValueSorter<?, ?>>> slots = new ArrayList<>();
+                try {
+                    for (int i = 0; i < mapParallelism; i++) {
+                        List<KeyValueSorter<?, ?>> slot = new ArrayList<>();
+                        slots.add(slot);
+                        for (int j = 0; j < partitions; j++) {
+                            slot.add(createSorter(job,
+                                    job.getMapOutputKeyClass(), job.getMapOutputValueClass(),
+                                    sorterBufferSize));
+                        }
+                    }
+                    runMap(job, counters, mapParallelism, slots);
+                    runReduce(job, counters, slots, partitions);
+                } finally {
+                    for (List<KeyValueSorter<?, ?>> slot : slots) {
+                        for (KeyValueSorter<?, ?> sorter : slot) {
+                            sorter.close();
+                        }
+                    }
                 }
             }
             committer.commitJob(job);
@@ -146,88 +224,174 @@ public class SimpleJobRunner implements JobRunner {
         }
     }
 
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     private void runMap(
             Job job,
-            KeyValueSorter<?, ?> sorter) throws IOException, InterruptedException, ClassNotFoundException {
+            Counters counters,
+            int parallelism,
+            List<List<KeyValueSorter<?, ?>>> slots) throws IOException, InterruptedException, ClassNotFoundException {
         Configuration conf = job.getConfiguration();
         InputFormat<?, ?> input = ReflectionUtils.newInstance(job.getInputFormatClass(), conf);
         List<InputSplit> splits = input.getSplits(job);
-        int serial = 1;
-        for (InputSplit split : splits) {
-            TaskAttemptID id = new TaskAttemptID(new TaskID(job.getJobID(), TaskType.MAP, serial++), 0);
-            Mapper<?, ?, ?, ?> mapper = ReflectionUtils.newInstance(job.getMapperClass(), conf);
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(MessageFormat.format(
-                        "starting mapper: {0}@{1} ({2}bytes)", //$NON-NLS-1$
-                        mapper.getClass().getName(),
-                        id,
-                        split.getLength()));
+        if (parallelism <= 1 || splits.size() <= 1) {
+            List<KeyValueSorter<?, ?>> slot = slots == null ? null : slots.get(0);
+            int serial = 1;
+            for (InputSplit split : splits) {
+                runMapTask(job, counters, input, split, serial++, slot);
             }
-            TaskAttemptContext context = new TaskAttemptContextImpl(conf, id);
-            // we always obtain a new OutputFormat object / OutputFormat.getOutputCommiter() may be cached
-            OutputFormat<?, ?> output = ReflectionUtils.newInstance(job.getOutputFormatClass(), conf);
-            OutputCommitter committer = output.getOutputCommitter(context);
-            committer.setupTask(context);
-            boolean succeed = false;
-            try (RecordReader<?, ?> reader = input.createRecordReader(split, new TaskAttemptContextImpl(conf, id))) {
-                RecordWriter<?, ?> writer;
-                if (sorter != null) {
-                    writer = new ShuffleWriter(sorter);
-                } else {
-                    writer = output.getRecordWriter(new TaskAttemptContextImpl(conf, id));
-                }
-                try {
-                    Mapper.Context c = new WrappedMapper().getMapContext(new MapContextImpl<>(
-                            conf, id,
-                            reader, writer,
-                            committer, new MockStatusReporter(),
-                            split));
-                    reader.initialize(split, c);
-                    mapper.run(c);
-                } finally {
-                    writer.close(new TaskAttemptContextImpl(conf, id));
-                }
-                doCommitTask(context, committer);
-                succeed = true;
+        } else {
+            int threads = Math.min(parallelism, splits.size());
+            // each slot of sorters is used in only one thread at a time
+            BlockingQueue<List<KeyValueSorter<?, ?>>> available = new LinkedBlockingQueue<>();
+            if (slots != null) {
+                available.addAll(slots);
+            }
+            List<Callable<?>> tasks = new ArrayList<>();
+            int serial = 1;
+            for (InputSplit split : splits) {
+                int taskSerial = serial++;
+                tasks.add(() -> {
+                    if (slots == null) {
+                        runMapTask(job, counters, input, split, taskSerial, null);
+                    } else {
+                        List<KeyValueSorter<?, ?>> slot = available.take();
+                        try {
+                            runMapTask(job, counters, input, split, taskSerial, slot);
+                        } finally {
+                            available.add(slot);
+                        }
+                    }
+                    return null;
+                });
+            }
+            runParallel(job, TaskType.MAP, threads, tasks);
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void runMapTask(
+            Job job,
+            Counters counters,
+            InputFormat<?, ?> input,
+            InputSplit split,
+            int serial,
+            List<KeyValueSorter<?, ?>> partitions) throws IOException, InterruptedException, ClassNotFoundException {
+        Configuration conf = job.getConfiguration();
+        TaskAttemptID id = new TaskAttemptID(new TaskID(job.getJobID(), TaskType.MAP, serial), 0);
+        Mapper<?, ?, ?, ?> mapper = ReflectionUtils.newInstance(job.getMapperClass(), conf);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(MessageFormat.format(
+                    "starting mapper: {0}@{1} ({2}bytes)", //$NON-NLS-1$
+                    mapper.getClass().getName(),
+                    id,
+                    split.getLength()));
+        }
+        TaskAttemptContext context = new TaskAttemptContextImpl(conf, id);
+        // we always obtain a new OutputFormat object / OutputFormat.getOutputCommiter() may be cached
+        OutputFormat<?, ?> output = ReflectionUtils.newInstance(job.getOutputFormatClass(), conf);
+        OutputCommitter committer = output.getOutputCommitter(context);
+        committer.setupTask(context);
+        Counters taskCounters = new Counters();
+        Counter inputRecords = taskCounters.findCounter(TaskCounter.MAP_INPUT_RECORDS);
+        boolean succeed = false;
+        try (RecordReader<?, ?> reader = input.createRecordReader(split, new TaskAttemptContextImpl(conf, id))) {
+            RecordWriter<?, ?> writer;
+            if (partitions == null) {
+                writer = output.getRecordWriter(new TaskAttemptContextImpl(conf, id));
+            } else if (partitions.size() == 1) {
+                writer = new ShuffleWriter(partitions.get(0));
+            } else {
+                Partitioner<?, ?> partitioner = ReflectionUtils.newInstance(job.getPartitionerClass(), conf);
+                writer = new ShuffleWriter(partitions, partitioner);
+            }
+            try {
+                Mapper.Context c = new WrappedMapper().getMapContext(new MapContextImpl(
+                        conf, id,
+                        reader, writer,
+                        committer, new CounterStatusReporter(taskCounters),
+                        split) {
+                    @Override
+                    public boolean nextKeyValue() throws IOException, InterruptedException {
+                        if (super.nextKeyValue()) {
+                            inputRecords.increment(1);
+                            return true;
+                        }
+                        return false;
+                    }
+                });
+                reader.initialize(split, c);
+                mapper.run(c);
             } finally {
-                if (succeed == false) {
-                    doAbortTask(context, committer);
-                }
+                writer.close(new TaskAttemptContextImpl(conf, id));
+            }
+            doCommitTask(context, committer);
+            counters.incrAllCounters(taskCounters);
+            succeed = true;
+        } finally {
+            if (succeed == false) {
+                doAbortTask(context, committer);
             }
         }
     }
 
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     private void runReduce(
             Job job,
-            KeyValueSorter<?, ?> sorter) throws ClassNotFoundException, IOException, InterruptedException {
+            Counters counters,
+            List<List<KeyValueSorter<?, ?>>> slots,
+            int partitions) throws ClassNotFoundException, IOException, InterruptedException {
+        if (partitions <= 1) {
+            runReduceTask(job, counters, slots.stream().map(it -> it.get(0)).collect(Collectors.toList()), 0);
+        } else {
+            List<Callable<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < partitions; i++) {
+                int partition = i;
+                List<KeyValueSorter<?, ?>> sorters = slots.stream()
+                        .map(it -> it.get(partition))
+                        .collect(Collectors.toList());
+                tasks.add(() -> {
+                    runReduceTask(job, counters, sorters, partition);
+                    return null;
+                });
+            }
+            runParallel(job, TaskType.REDUCE, partitions, tasks);
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void runReduceTask(
+            Job job,
+            Counters counters,
+            List<KeyValueSorter<?, ?>> sorters,
+            int partition) throws ClassNotFoundException, IOException, InterruptedException {
         Configuration conf = job.getConfiguration();
         OutputFormat<?, ?> output = ReflectionUtils.newInstance(job.getOutputFormatClass(), conf);
-        TaskAttemptID id = new TaskAttemptID(new TaskID(job.getJobID(), TaskType.REDUCE, 0), 0);
+        TaskAttemptID id = new TaskAttemptID(new TaskID(job.getJobID(), TaskType.REDUCE, partition), 0);
         Reducer<?, ?, ?, ?> reducer = ReflectionUtils.newInstance(job.getReducerClass(), conf);
         if (LOG.isDebugEnabled()) {
             LOG.debug(MessageFormat.format(
                     "starting reducer: {0}@{1} ({2}records, {3}bytes)", //$NON-NLS-1$
                     reducer.getClass().getName(),
                     id,
-                    sorter.getRecordCount(),
-                    sorter.getSizeInBytes()));
+                    sorters.stream().mapToLong(KeyValueSorter::getRecordCount).sum(),
+                    sorters.stream().mapToLong(KeyValueSorter::getSizeInBytes).sum()));
         }
         TaskAttemptContext context = new TaskAttemptContextImpl(conf, id);
         OutputCommitter committer = output.getOutputCommitter(context);
         committer.setupTask(context);
+        Counters taskCounters = new Counters();
+        taskCounters.findCounter(TaskCounter.REDUCE_SHUFFLE_BYTES)
+                .increment(sorters.stream().mapToLong(KeyValueSorter::getSizeInBytes).sum());
         boolean succeed = false;
         try {
-            ShuffleReader reader = new ShuffleReader(sorter, new Progress());
+            KeyValueSorter<?, ?> sorter = sorters.get(0);
+            ShuffleReader reader = new ShuffleReader(sorters, new Progress());
             try {
                 RecordWriter<?, ?> writer = output.getRecordWriter(new TaskAttemptContextImpl(conf, id));
                 try {
                     Reducer.Context c = new WrappedReducer().getReducerContext(new ReduceContextImpl<>(
                             conf, id, reader,
-                            new GenericCounter(),
-                            new GenericCounter(),
-                            writer, committer, new MockStatusReporter(),
+                            taskCounters.findCounter(TaskCounter.REDUCE_INPUT_GROUPS),
+                            taskCounters.findCounter(TaskCounter.REDUCE_INPUT_RECORDS),
+                            writer, committer, new CounterStatusReporter(taskCounters),
                             (RawComparator) job.getGroupingComparator(),
                             sorter.getKeyClass(), sorter.getValueClass()));
                     reducer.run(c);
@@ -245,6 +409,7 @@ public class SimpleJobRunner implements JobRunner {
                 }
             }
             doCommitTask(context, committer);
+            counters.incrAllCounters(taskCounters);
             succeed = true;
         } finally {
             if (succeed == false) {
@@ -253,6 +418,46 @@ public class SimpleJobRunner implements JobRunner {
         }
     }
 
+    private void runParallel(
+            Job job,
+            TaskType type,
+            int threads,
+            List<Callable<?>> tasks) throws IOException, InterruptedException, ClassNotFoundException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(MessageFormat.format(
+                    "starting {1} {2} tasks in {3} threads: {0}", //$NON-NLS-1$
+                    job.getJobID(),
+                    tasks.size(),
+                    type,
+                    threads));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads, Util.newThreadFactory(String.format(
+                "SimpleJobRunner-%s-%s", //$NON-NLS-1$
+                job.getJobID(),
+                type.name().toLowerCase(Locale.ENGLISH))));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Callable<?> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw Util.rethrow(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            while (executor.awaitTermination(1, TimeUnit.SECONDS) == false) {
+                LOG.debug(MessageFormat.format(
+                        "waiting for {1} tasks are terminated: {0}", //$NON-NLS-1$
+                        job.getJobID(),
+                        type));
+            }
+        }
+    }
+
     private void doCommitTask(TaskAttemptContext context, OutputCommitter committer) throws IOException {
         if (committer.needsTaskCommit(context)) {
             committer.commitTask(context);
@@ -270,8 +475,45 @@ public class SimpleJobRunner implements JobRunner {
         }
     }
 
-    private <K, V> KeyValueSorter<?, ?> createSorter(Job job, Class<K> key, Class<V> value) {
-        KeyValueSorter.Options options = getSorterOptions(job.getConfiguration());
+    private int getParallelism(Configuration configuration, String key) {
+        int parallelism = configuration.getInt(key, DEFAULT_PARALLELISM);
+        if (parallelism < 1) {
+            LOG.warn(MessageFormat.format(
+                    "invalid parallelism: {0}={1}",
+                    key,
+                    parallelism));
+            return DEFAULT_PARALLELISM;
+        }
+        return parallelism;
+    }
+
+    /**
+     * Returns the number of map tasks and reduce partitions which run concurrently.
+     * Each pair of them requires its own sorter, so that this reduces them until every sorter can have
+     * at least the minimum buffer size within the total shuffle buffer.
+     * @param bufferSize the total shuffle buffer size in bytes
+     * @param mapParallelism the requested number of concurrent map tasks
+     * @param partitions the requested number of reduce partitions
+     * @return the pair of the actual map parallelism and the actual number of reduce partitions
+     */
+    static int[] getShuffleParallelism(long bufferSize, int mapParallelism, int partitions) {
+        int sorters = (int) Math.max(1L, Math.min(Integer.MAX_VALUE, bufferSize / MIN_BUFFER_SIZE));
+        if ((long) mapParallelism * partitions <= sorters) {
+            return new int[] { mapParallelism, partitions };
+        }
+        int actualPartitions = Math.min(partitions, sorters);
+        int actualMapParallelism = Math.max(1, Math.min(mapParallelism, sorters / actualPartitions));
+        LOG.info(MessageFormat.format(
+                "shuffle buffer is too small for parallel sorters: "
+                + "map-parallelism={0}->{2}, reduce-partitions={1}->{3} ({4}={5})",
+                mapParallelism, partitions,
+                actualMapParallelism, actualPartitions,
+                KEY_BUFFER_SIZE, bufferSize));
+        return new int[] { actualMapParallelism, actualPartitions };
+    }
+
+    private <K, V> KeyValueSorter<?, ?> createSorter(Job job, Class<K> key, Class<V> value, long bufferSize) {
+        KeyValueSorter.Options options = getSorterOptions(job.getConfiguration(), bufferSize);
         if (LOG.isDebugEnabled()) {
             LOG.debug(MessageFormat.format(
                     "shuffle buffer size: {1}bytes/page, {2}bytes/block, compression:{3} ({0})", //$NON-NLS-1$
@@ -286,13 +528,15 @@ public class SimpleJobRunner implements JobRunner {
                 options);
     }
 
-    private KeyValueSorter.Options getSorterOptions(Configuration configuration) {
+    private long getBufferSize(Configuration configuration) {
         long bufferSize = configuration.getLong(KEY_BUFFER_SIZE, -1);
         if (bufferSize < 0) {
-            bufferSize = DEFAULT_BUFFER_SIZE;
-        } else {
-            bufferSize = Math.max(MIN_BUFFER_SIZE, Math.min(MAX_BUFFER_SIZE, bufferSize));
+            return DEFAULT_BUFFER_SIZE;
         }
+        return Math.max(MIN_BUFFER_SIZE, Math.min(MAX_BUFFER_SIZE, bufferSize));
+    }
+
+    private KeyValueSorter.Options getSorterOptions(Configuration configuration, long bufferSize) {
         File temporaryDirectory = null;
         String tempdirString = configuration.get(KEY_TEMPORARY_LOCATION);
         if (tempdirString != null) {
@@ -317,20 +561,22 @@ public class SimpleJobRunner implements JobRunner {
         return "Asakusa built-in job runner";
     }
 
-    private static final class MockStatusReporter extends StatusReporter {
+    private static final class CounterStatusReporter extends StatusReporter {
 
-        MockStatusReporter() {
-            return;
+        private final Counters counters;
+
+        CounterStatusReporter(Counters counters) {
+            this.counters = counters;
         }
 
         @Override
         public Counter getCounter(Enum<?> name) {
-            return new GenericCounter();
+            return counters.findCounter(name);
         }
 
         @Override
         public Counter getCounter(String group, String name) {
-            return new GenericCounter();
+            return counters.findCounter(group, name);
         }
 
         @Override
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.mapreduce.simple;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utilities for the simple job runner.
+ * @since 0.10.5
+ */
+final class Util {
+
+    private Util() {
+        return;
+    }
+
+    /**
+     * Returns a thread factory which creates daemon threads named {@code <prefix>-<serial number>}.
+     * @param prefix the thread name prefix
+     * @return the created factory
+     */
+    static ThreadFactory newThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, String.format("%s-%d", prefix, counter.incrementAndGet())); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Re-throws the cause of a failed task.
+     * @param cause the cause
+     * @return never returns normally
+     * @throws IOException if the cause is an I/O error or a checked exception not declared here
+     * @throws InterruptedException if the cause is an interruption
+     * @throws ClassNotFoundException if the cause is a missing class
+     */
+    static IOException rethrow(Throwable cause) throws IOException, InterruptedException, ClassNotFoundException {
+        if (cause instanceof IOException) {
+            throw (IOException) cause;
+        } else if (cause instanceof InterruptedException) {
+            throw (InterruptedException) cause;
+        } else if (cause instanceof ClassNotFoundException) {
+            throw (ClassNotFoundException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        } else {
+            throw new IOException(cause);
+        }
+    }
+}
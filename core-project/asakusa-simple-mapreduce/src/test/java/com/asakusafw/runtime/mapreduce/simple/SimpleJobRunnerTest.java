@@ -138,6 +138,162 @@ public class SimpleJobRunnerTest {
         })));
     }
 
+    /**
+     * Test for map only job with parallel mappers.
+     * @throws Exception if failed
+     */
+    @Test
+    public void map_only_parallel() throws Exception {
+        Job job = newJob();
+        job.getConfiguration().setInt(SimpleJobRunner.KEY_MAP_PARALLELISM, 4);
+        job.setInputFormatClass(TextInputFormat.class);
+        job.setOutputFormatClass(TextOutputFormat.class);
+        job.setMapperClass(SimpleMapper.class);
+        job.setNumReduceTasks(0);
+        job.setOutputKeyClass(LongWritable.class);
+        job.setOutputValueClass(Text.class);
+
+        File inputDir = folder.newFolder();
+        Set<String> expected = new LinkedHashSet<>();
+        for (int i = 0; i < 10; i++) {
+            write(new File(inputDir, String.format("input-%d.txt", i)), String.format("Hello%d", i));
+            expected.add(String.format("Hello%d", i));
+        }
+
+        File outputDir = folder.newFolder();
+        outputDir.delete();
+
+        FileInputFormat.setInputPaths(job, new Path(inputDir.toURI()));
+        FileOutputFormat.setOutputPath(job, new Path(outputDir.toURI()));
+        assertThat(new SimpleJobRunner().run(job), is(true));
+        assertThat(trimHead(read(outputDir)), is(expected));
+    }
+
+    /**
+     * Test for map-reduce job with parallel mappers.
+     * @throws Exception if failed
+     */
+    @Test
+    public void map_reduce_parallel() throws Exception {
+        Job job = newJob();
+        job.getConfiguration().setInt(SimpleJobRunner.KEY_MAP_PARALLELISM, 4);
+        job.setInputFormatClass(TextInputFormat.class);
+        job.setOutputFormatClass(TextOutputFormat.class);
+
+        job.setMapperClass(WordCountMapper.class);
+        job.setMapOutputKeyClass(Text.class);
+        job.setMapOutputValueClass(LongWritable.class);
+
+        job.setSortComparatorClass(Text.Comparator.class);
+        job.setGroupingComparatorClass(Text.Comparator.class);
+
+        job.setReducerClass(WordCountReducer.class);
+        job.setNumReduceTasks(1);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(LongWritable.class);
+
+        File inputDir = folder.newFolder();
+        for (int i = 0; i < 10; i++) {
+            write(new File(inputDir, String.format("input-%d.txt", i)), new String[] {
+                    "a b c d",
+                    "a a b c",
+                    "c",
+            });
+        }
+
+        File outputDir = folder.newFolder();
+        outputDir.delete();
+
+        FileInputFormat.setInputPaths(job, new Path(inputDir.toURI()));
+        FileOutputFormat.setOutputPath(job, new Path(outputDir.toURI()));
+        assertThat(new SimpleJobRunner().run(job), is(true));
+        assertThat(toMap(read(outputDir)), is(map(new String[] {
+                "a", "30",
+                "b", "20",
+                "c", "30",
+                "d", "10",
+        })));
+    }
+
+    /**
+     * Test for map-reduce job with parallel reducers.
+     * @throws Exception if failed
+     */
+    @Test
+    public void map_reduce_partitioned() throws Exception {
+        Job job = newJob();
+        job.getConfiguration().setInt(SimpleJobRunner.KEY_MAP_PARALLELISM, 2);
+        job.getConfiguration().setInt(SimpleJobRunner.KEY_REDUCE_PARALLELISM, 3);
+        job.setInputFormatClass(TextInputFormat.class);
+        job.setOutputFormatClass(TextOutputFormat.class);
+
+        job.setMapperClass(WordCountMapper.class);
+        job.setMapOutputKeyClass(Text.class);
+        job.setMapOutputValueClass(LongWritable.class);
+
+        job.setSortComparatorClass(Text.Comparator.class);
+        job.setGroupingComparatorClass(Text.Comparator.class);
+
+        job.setReducerClass(WordCountReducer.class);
+        job.setNumReduceTasks(10);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(LongWritable.class);
+
+        File inputDir = folder.newFolder();
+        for (int i = 0; i < 10; i++) {
+            write(new File(inputDir, String.format("input-%d.txt", i)), new String[] {
+                    "a b c d",
+                    "a a b c",
+                    "c",
+            });
+        }
+
+        File outputDir = folder.newFolder();
+        outputDir.delete();
+
+        FileInputFormat.setInputPaths(job, new Path(inputDir.toURI()));
+        FileOutputFormat.setOutputPath(job, new Path(outputDir.toURI()));
+        assertThat(new SimpleJobRunner().run(job), is(true));
+        assertThat(toMap(read(outputDir)), is(map(new String[] {
+                "a", "30",
+                "b", "20",
+                "c", "30",
+                "d", "10",
+        })));
+        File[] parts = outputDir.listFiles(f -> f.getName().startsWith("part-r-"));
+        assertThat(parts, is(notNullValue()));
+        assertThat(parts.length, is(3));
+    }
+
+    /**
+     * Test for wrong job with parallel mappers.
+     * @throws Exception if failed
+     */
+    @Test
+    public void exception_parallel() throws Exception {
+        Job job = newJob();
+        job.getConfiguration().setInt(SimpleJobRunner.KEY_MAP_PARALLELISM, 4);
+        job.setJobName("w/ exception");
+        job.setInputFormatClass(TextInputFormat.class);
+        job.setOutputFormatClass(TextOutputFormat.class);
+        job.setMapperClass(InvalidMapper.class);
+        job.setNumReduceTasks(0);
+        job.setOutputKeyClass(LongWritable.class);
+        job.setOutputValueClass(Text.class);
+
+        File inputDir = folder.newFolder();
+        for (int i = 0; i < 10; i++) {
+            write(new File(inputDir, String.format("input-%d.txt", i)), "testing");
+        }
+
+        File outputDir = folder.newFolder();
+        outputDir.delete();
+
+        FileInputFormat.setInputPaths(job, new Path(inputDir.toURI()));
+        FileOutputFormat.setOutputPath(job, new Path(outputDir.toURI()));
+        assertThat(new SimpleJobRunner().run(job), is(false));
+    }
+
     /**
      * Simple stress testing.
      * @throws Exception if failed
@@ -205,6 +361,20 @@ public class SimpleJobRunnerTest {
         assertThat(new SimpleJobRunner().run(job), is(false));
     }
 
+    /**
+     * Test for limiting parallelism by the shuffle buffer size.
+     */
+    @Test
+    public void shuffle_parallelism() {
+        long min = 2 * 1024 * 1024;
+        assertThat(SimpleJobRunner.getShuffleParallelism(min * 16, 2, 3), is(new int[] { 2, 3 }));
+        assertThat(SimpleJobRunner.getShuffleParallelism(min * 6, 2, 3), is(new int[] { 2, 3 }));
+        assertThat(SimpleJobRunner.getShuffleParallelism(min * 5, 2, 3), is(new int[] { 1, 3 }));
+        assertThat(SimpleJobRunner.getShuffleParallelism(min * 8, 4, 3), is(new int[] { 2, 3 }));
+        assertThat(SimpleJobRunner.getShuffleParallelism(min * 2, 4, 3), is(new int[] { 1, 2 }));
+        assertThat(SimpleJobRunner.getShuffleParallelism(min, 4, 3), is(new int[] { 1, 1 }));
+    }
+
     private Job newJob() throws IOException {
         Job job = Job.getInstance(new Configuration());
         job.getConfiguration().setInt(SimpleJobRunner.KEY_BUFFER_SIZE, 16 * 1024 * 1024);
@@ -302,6 +472,17 @@ public class SimpleJobRunnerTest {
         }
     }
 
+    /**
+     * user counters.
+     */
+    public enum Statistics {
+
+        /**
+         * the number of tokens.
+         */
+        TOKENS,
+    }
+
     /**
      * tokenize.
      */
@@ -316,6 +497,7 @@ public class SimpleJobRunnerTest {
                 }
                 out.set(token);
                 context.write(out, one);
+                context.getCounter(Statistics.TOKENS).increment(1);
             }
         }
     }
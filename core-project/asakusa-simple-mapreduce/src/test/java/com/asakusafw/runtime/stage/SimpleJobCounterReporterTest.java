@@ -0,0 +1,160 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.runtime.stage;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.TaskCounter;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.asakusafw.runtime.mapreduce.simple.SimpleJobRunner;
+import com.asakusafw.runtime.mapreduce.simple.SimpleJobRunnerTest;
+import com.asakusafw.runtime.windows.WindowsSupport;
+
+/**
+ * Test for {@link JobCounterReporter} with {@link SimpleJobRunner}.
+ */
+public class SimpleJobCounterReporterTest {
+
+    /**
+     * Windows platform support.
+     */
+    @ClassRule
+    public static final WindowsSupport WINDOWS_SUPPORT = new WindowsSupport();
+
+    /**
+     * A temporary folder.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * reports counters aggregated from the individual tasks.
+     * @throws Exception if failed
+     */
+    @Test
+    public void report() throws Exception {
+        File report = new File(folder.getRoot(), "counters.properties");
+        Job job = newJob(2);
+        job.getConfiguration().set(StageConstants.PROP_COUNTER_REPORT, report.getAbsolutePath());
+
+        SimpleJobRunner runner = new SimpleJobRunner();
+        assertThat(runner.run(job), is(true));
+        JobCounterReporter.report(job, runner);
+
+        Properties properties = load(report);
+        assertThat(properties.getProperty(key(TaskCounter.MAP_INPUT_RECORDS)), is("3"));
+        assertThat(properties.getProperty(key(TaskCounter.REDUCE_INPUT_RECORDS)), is("9"));
+        assertThat(properties.getProperty(key(TaskCounter.REDUCE_INPUT_GROUPS)), is("4"));
+        assertThat(Long.parseLong(properties.getProperty(key(TaskCounter.REDUCE_SHUFFLE_BYTES))), greaterThan(0L));
+        assertThat(properties.getProperty(key(SimpleJobRunnerTest.Statistics.TOKENS)), is("9"));
+    }
+
+    /**
+     * reports counters of the individual jobs into the same file.
+     * @throws Exception if failed
+     */
+    @Test
+    public void report_accumulate() throws Exception {
+        File report = new File(folder.getRoot(), "counters.properties");
+        for (int i = 0; i < 2; i++) {
+            Job job = newJob(1);
+            job.getConfiguration().set(StageConstants.PROP_COUNTER_REPORT, report.getAbsolutePath());
+            SimpleJobRunner runner = new SimpleJobRunner();
+            assertThat(runner.run(job), is(true));
+            JobCounterReporter.report(job, runner);
+        }
+        Properties properties = load(report);
+        assertThat(properties.getProperty(key(TaskCounter.MAP_INPUT_RECORDS)), is("6"));
+    }
+
+    /**
+     * reports nothing for jobs which were not executed on the runner.
+     * @throws Exception if failed
+     */
+    @Test
+    public void report_unknown() throws Exception {
+        File report = new File(folder.getRoot(), "counters.properties");
+        Job job = newJob(1);
+        job.getConfiguration().set(StageConstants.PROP_COUNTER_REPORT, report.getAbsolutePath());
+        JobCounterReporter.report(job, new SimpleJobRunner());
+        assertThat(report.exists(), is(false));
+    }
+
+    private Job newJob(int partitions) throws Exception {
+        Job job = Job.getInstance(new Configuration());
+        job.getConfiguration().setInt(SimpleJobRunner.KEY_BUFFER_SIZE, 16 * 1024 * 1024);
+        job.getConfiguration().setInt(SimpleJobRunner.KEY_REDUCE_PARALLELISM, partitions);
+        job.getConfiguration().set(
+                SimpleJobRunner.KEY_TEMPORARY_LOCATION,
+                new File(folder.getRoot(), "spill-out").getAbsolutePath());
+        job.setInputFormatClass(TextInputFormat.class);
+        job.setOutputFormatClass(TextOutputFormat.class);
+        job.setMapperClass(SimpleJobRunnerTest.WordCountMapper.class);
+        job.setMapOutputKeyClass(Text.class);
+        job.setMapOutputValueClass(LongWritable.class);
+        job.setSortComparatorClass(Text.Comparator.class);
+        job.setGroupingComparatorClass(Text.Comparator.class);
+        job.setReducerClass(SimpleJobRunnerTest.WordCountReducer.class);
+        job.setNumReduceTasks(partitions);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(LongWritable.class);
+
+        File inputFile = folder.newFile();
+        try (PrintWriter writer = new PrintWriter(inputFile, "UTF-8")) {
+            writer.println("a b c d");
+            writer.println("a a b c");
+            writer.println("c");
+        }
+        File outputDir = folder.newFolder();
+        outputDir.delete();
+        FileInputFormat.setInputPaths(job, new Path(inputFile.toURI()));
+        FileOutputFormat.setOutputPath(job, new Path(outputDir.toURI()));
+        return job;
+    }
+
+    private static String key(Enum<?> counter) {
+        return counter.getDeclaringClass().getName() + JobCounterReporter.SEPARATOR + counter.name();
+    }
+
+    private static Properties load(File file) throws Exception {
+        assertThat(file.isFile(), is(true));
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            properties.load(in);
+        }
+        return properties;
+    }
+}
@@ -17,9 +17,13 @@ package com.asakusafw.dmdl.util;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 import java.net.URI;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,7 +45,7 @@ import com.asakusafw.dmdl.spi.TypeDriver;
 /**
  * Analyzes DMDL models from input DMDL scripts.
  * @since 0.2.0
- * @version 0.7.1
+ * @version 0.10.5
  */
 public class AnalyzeTask {
 
@@ -53,6 +57,8 @@ public class AnalyzeTask {
 
     private final ClassLoader serviceClassLoader;
 
+    private int parallelism = 1;
+
     /**
      * Creates and returns a new instance.
      * @param processName the parent process name
@@ -86,6 +92,20 @@ public class AnalyzeTask {
         this.serviceClassLoader = serviceClassLoader;
     }
 
+    /**
+     * Sets the max number of DMDL scripts which are parsed concurrently.
+     * <p>
+     * If this is greater than {@code 1}, contents of the individual scripts are read sequentially,
+     * and then they are parsed in parallel.
+     * Data models are always registered in the order of their scripts.
+     * </p>
+     * @param parallelism the max parallelism (default: {@code 1})
+     * @since 0.10.5
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(parallelism, 1);
+    }
+
     /**
      * Analyzes all models from source repository in the current configuration.
      * @param repository the source repository
@@ -126,33 +146,25 @@ public class AnalyzeTask {
 
     private DmdlAnalyzer parse(DmdlSourceRepository source) throws IOException {
         assert source != null;
+        List<AstScript> scripts = parallelism <= 1 ? parseSequential(source) : parseParallel(source);
         boolean green = true;
-        DmdlParser parser = new DmdlParser();
         DmdlAnalyzer analyzer = new DmdlAnalyzer(
                 analyzerEnhancer,
                 ServiceLoader.load(TypeDriver.class, serviceClassLoader),
                 ServiceLoader.load(AttributeDriver.class, serviceClassLoader));
         int count = 0;
-        try (Cursor cursor = source.createCursor()) {
-            while (cursor.next()) {
-                URI name = cursor.getIdentifier();
-                LOG.info(Messages.getString("AnalyzeTask.monitorParseStarting"), name); //$NON-NLS-1$
-                try (Reader resource = cursor.openResource()) {
-                    AstScript script = parser.parse(resource, name);
-                    for (AstModelDefinition<?> model : script.models) {
-                        LOG.debug(Messages.getString("AnalyzeTask.monitorFoundModel"), model.name); //$NON-NLS-1$
-                        analyzer.addModel(model);
-                        count++;
-                    }
-                } catch (DmdlSyntaxException e) {
-                    LOG.error(MessageFormat.format(
-                            Messages.getString("AnalyzeTask.monitorParseFailed"), //$NON-NLS-1$
-                            name), e);
-                    green = false;
-                }
+        for (AstScript script : scripts) {
+            if (script == null) {
+                green = false;
+                continue;
+            }
+            for (AstModelDefinition<?> model : script.models) {
+                LOG.debug(Messages.getString("AnalyzeTask.monitorFoundModel"), model.name); //$NON-NLS-1$
+                analyzer.addModel(model);
+                count++;
             }
-            LOG.debug(Messages.getString("AnalyzeTask.monitorCountModel"), count); //$NON-NLS-1$
         }
+        LOG.debug(Messages.getString("AnalyzeTask.monitorCountModel"), count); //$NON-NLS-1$
         if (green == false) {
             throw new IOException(MessageFormat.format(
                     Messages.getString("AnalyzeTask.errorParse"), //$NON-NLS-1$
@@ -163,4 +175,63 @@ public class AnalyzeTask {
         }
         return analyzer;
     }
+
+    private static List<AstScript> parseSequential(DmdlSourceRepository source) throws IOException {
+        List<AstScript> results = new ArrayList<>();
+        DmdlParser parser = new DmdlParser();
+        try (Cursor cursor = source.createCursor()) {
+            while (cursor.next()) {
+                URI name = cursor.getIdentifier();
+                try (Reader resource = cursor.openResource()) {
+                    results.add(parse(parser, resource, name));
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<AstScript> parseParallel(DmdlSourceRepository source) throws IOException {
+        List<URI> names = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
+        try (Cursor cursor = source.createCursor()) {
+            while (cursor.next()) {
+                names.add(cursor.getIdentifier());
+                try (Reader resource = cursor.openResource()) {
+                    contents.add(read(resource));
+                }
+            }
+        }
+        List<Callable<AstScript>> tasks = new ArrayList<>();
+        for (int i = 0, n = names.size(); i < n; i++) {
+            URI name = names.get(i);
+            String content = contents.get(i);
+            tasks.add(() -> parse(new DmdlParser(), new StringReader(content), name));
+        }
+        return ParallelUtil.invokeAll("dmdl-parser", parallelism, tasks); //$NON-NLS-1$
+    }
+
+    private static AstScript parse(DmdlParser parser, Reader resource, URI name) throws IOException {
+        LOG.info(Messages.getString("AnalyzeTask.monitorParseStarting"), name); //$NON-NLS-1$
+        try {
+            return parser.parse(resource, name);
+        } catch (DmdlSyntaxException e) {
+            LOG.error(MessageFormat.format(
+                    Messages.getString("AnalyzeTask.monitorParseFailed"), //$NON-NLS-1$
+                    name), e);
+            return null;
+        }
+    }
+
+    private static String read(Reader reader) throws IOException {
+        StringBuilder buf = new StringBuilder();
+        char[] chars = new char[4096];
+        while (true) {
+            int read = reader.read(chars);
+            if (read < 0) {
+                break;
+            }
+            buf.append(chars, 0, read);
+        }
+        return buf.toString();
+    }
 }
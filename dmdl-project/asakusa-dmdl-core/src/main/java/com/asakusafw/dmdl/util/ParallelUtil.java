@@ -0,0 +1,115 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.dmdl.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utilities about running tasks in parallel.
+ * @since 0.10.5
+ */
+public final class ParallelUtil {
+
+    private ParallelUtil() {
+        return;
+    }
+
+    /**
+     * Returns a thread factory which creates daemon threads named {@code <prefix>-<serial number>}.
+     * @param prefix the thread name prefix
+     * @return the created factory
+     */
+    public static ThreadFactory newThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, String.format("%s-%d", prefix, counter.incrementAndGet())); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Runs the given tasks in parallel, and then returns their results.
+     * This waits for all tasks even if some of them were failed,
+     * and then throws the first failure with the others as its suppressed exceptions.
+     * @param <T> the result type
+     * @param prefix the thread name prefix
+     * @param parallelism the max number of threads
+     * @param tasks the tasks
+     * @return the results of individual tasks, in order of the given tasks
+     * @throws IOException if some tasks were failed
+     * @throws InterruptedIOException if interrupted while waiting for the tasks
+     */
+    public static <T> List<T> invokeAll(
+            String prefix, int parallelism, List<? extends Callable<? extends T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>();
+        if (tasks.isEmpty()) {
+            return results;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(Math.min(parallelism, tasks.size()), 1),
+                newThreadFactory(prefix));
+        try {
+            List<Future<? extends T>> futures = new ArrayList<>();
+            for (Callable<? extends T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            Throwable failure = null;
+            for (Future<? extends T> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw rethrow(failure);
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (IOException) new InterruptedIOException().initCause(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static IOException rethrow(Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        } else {
+            return new IOException(cause);
+        }
+    }
+}
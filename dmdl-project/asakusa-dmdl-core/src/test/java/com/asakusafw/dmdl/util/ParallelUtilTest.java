@@ -0,0 +1,89 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.dmdl.util;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link ParallelUtil}.
+ */
+public class ParallelUtilTest {
+
+    /**
+     * thread factory.
+     */
+    @Test
+    public void thread_factory() {
+        ThreadFactory factory = ParallelUtil.newThreadFactory("testing");
+        Thread t1 = factory.newThread(() -> {
+            return;
+        });
+        Thread t2 = factory.newThread(() -> {
+            return;
+        });
+        assertThat(t1.getName(), is("testing-1"));
+        assertThat(t2.getName(), is("testing-2"));
+        assertThat(t1.isDaemon(), is(true));
+    }
+
+    /**
+     * simple case.
+     * @throws Exception if failed
+     */
+    @Test
+    public void invokeAll() throws Exception {
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            tasks.add(() -> value);
+        }
+        List<Integer> results = ParallelUtil.invokeAll("testing", 4, tasks);
+        assertThat(results, is(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)));
+    }
+
+    /**
+     * failures are aggregated.
+     */
+    @Test
+    public void invokeAll_failure() {
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        tasks.add(() -> 0);
+        tasks.add(() -> {
+            throw new IOException("a");
+        });
+        tasks.add(() -> {
+            throw new IllegalStateException("b");
+        });
+        try {
+            ParallelUtil.invokeAll("testing", 3, tasks);
+            fail();
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("a"));
+            assertThat(e.getSuppressed().length, is(1));
+            assertThat(e.getSuppressed()[0], is(instanceOf(IllegalStateException.class)));
+        }
+    }
+}
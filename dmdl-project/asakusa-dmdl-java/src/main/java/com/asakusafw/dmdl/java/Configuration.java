@@ -15,6 +15,7 @@
  */
 package com.asakusafw.dmdl.java;
 
+import java.io.File;
 import java.util.Locale;
 
 import com.asakusafw.dmdl.source.DmdlSourceRepository;
@@ -24,6 +25,7 @@ import com.asakusafw.utils.java.model.util.Emitter;
 
 /**
  * Configurations for DMDL Java emitter.
+ * @version 0.10.5
  */
 public class Configuration {
 
@@ -39,6 +41,10 @@ public class Configuration {
 
     private final Locale locale;
 
+    private int parallelism = 1;
+
+    private File digestIndex;
+
     /**
      * Creates and returns a new instance.
      * @param factory Java DOM element factory
@@ -129,4 +135,45 @@ public class Configuration {
     public Locale getLocale() {
         return locale;
     }
+
+    /**
+     * Returns the max number of threads to parse DMDL scripts and emit Java data model classes.
+     * @return the max parallelism
+     * @since 0.10.5
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the max number of threads to parse DMDL scripts and emit Java data model classes.
+     * Note that the {@link #getOutput() output emitter} must be thread-safe if this is greater than {@code 1}.
+     * @param parallelism the max parallelism (default: {@code 1})
+     * @since 0.10.5
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(parallelism, 1);
+    }
+
+    /**
+     * Returns the digest index file for incremental generation.
+     * @return the digest index file, or {@code null} if incremental generation is disabled
+     * @since 0.10.5
+     */
+    public File getDigestIndex() {
+        return digestIndex;
+    }
+
+    /**
+     * Sets the digest index file for incremental generation.
+     * If it is set, data model classes are not generated again while their source declarations and
+     * their dependencies are not changed since the last generation, and their generated files still exist.
+     * Note that this is only effective if the {@link #getOutput() output emitter} is a
+     * {@link com.asakusafw.utils.java.model.util.Filer}.
+     * @param digestIndex the digest index file, or {@code null} to disable incremental generation
+     * @since 0.10.5
+     */
+    public void setDigestIndex(File digestIndex) {
+        this.digestIndex = digestIndex;
+    }
 }
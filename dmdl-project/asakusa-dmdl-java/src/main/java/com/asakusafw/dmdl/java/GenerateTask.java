@@ -15,9 +15,14 @@
  */
 package com.asakusafw.dmdl.java;
 
+import java.io.File;
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,10 +33,22 @@ import com.asakusafw.dmdl.java.emitter.JavaModelClassGenerator;
 import com.asakusafw.dmdl.java.spi.JavaDataModelDriver;
 import com.asakusafw.dmdl.semantics.DmdlSemantics;
 import com.asakusafw.dmdl.semantics.ModelDeclaration;
+import com.asakusafw.dmdl.source.DmdlSourceRepository;
 import com.asakusafw.dmdl.util.AnalyzeTask;
+import com.asakusafw.dmdl.util.ParallelUtil;
+import com.asakusafw.utils.java.model.syntax.PackageDeclaration;
+import com.asakusafw.utils.java.model.util.Filer;
 
 /**
  * Generates Java model classes from input DMDL scripts.
+ * <p>
+ * If {@link Configuration#getParallelism()} is greater than {@code 1}, this parses individual DMDL scripts and
+ * emits individual data model classes in parallel.
+ * If {@link Configuration#getDigestIndex()} is set, this skips emitting data model classes whose declarations
+ * and dependencies are not changed since the last generation, and whose generated files still exist.
+ * This requires that the {@link Configuration#getOutput() output} is a {@link Filer}.
+ * </p>
+ * @version 0.10.5
  */
 public class GenerateTask {
 
@@ -69,25 +86,100 @@ public class GenerateTask {
         if (driver == null) {
             throw new IllegalArgumentException("driver must not be null"); //$NON-NLS-1$
         }
-        DmdlSemantics semantics = analyze();
+        ModelDigestIndex index = loadIndex(driver);
+        DmdlSemantics semantics = analyze(index == null ? conf.getSource() : index.track(conf.getSource()));
         JavaModelClassGenerator generator = new JavaModelClassGenerator(semantics, conf, driver);
         Collection<ModelDeclaration> models = semantics.getDeclaredModels();
         LOG.info(MessageFormat.format(
                 Messages.getString("GenerateTask.monitorGenerateStarting"), //$NON-NLS-1$
                 models.size()));
+        List<ModelDeclaration> targets = new ArrayList<>();
         for (ModelDeclaration model : models) {
-            LOG.info(MessageFormat.format(Messages.getString("GenerateTask.monitorGenerateModel"), //$NON-NLS-1$
-                    model.getName()));
-            generator.emit(model);
+            if (index != null && index.isUpToDate(model)) {
+                LOG.debug(MessageFormat.format(Messages.getString("GenerateTask.monitorSkipModel"), //$NON-NLS-1$
+                        model.getName()));
+            } else {
+                targets.add(model);
+            }
+        }
+        if (targets.size() < models.size()) {
+            LOG.info(MessageFormat.format(Messages.getString("GenerateTask.monitorGenerateSkipped"), //$NON-NLS-1$
+                    models.size() - targets.size()));
+        }
+        if (conf.getParallelism() <= 1 || targets.size() <= 1) {
+            for (ModelDeclaration model : targets) {
+                emit(getGenerator(generator, semantics, driver, index, model), model);
+            }
+        } else {
+            emitParallel(generator, semantics, driver, index, targets);
+        }
+        if (index != null) {
+            index.store();
         }
         LOG.info(Messages.getString("GenerateTask.monitorGenerateFinishing")); //$NON-NLS-1$
     }
 
-    private DmdlSemantics analyze() throws IOException {
+    private ModelDigestIndex loadIndex(JavaDataModelDriver driver) throws IOException {
+        File indexFile = conf.getDigestIndex();
+        if (indexFile == null) {
+            return null;
+        }
+        Predicate<String> outputExists;
+        if (conf.getOutput() instanceof Filer) {
+            File root = ((Filer) conf.getOutput()).getFolderFor((PackageDeclaration) null);
+            outputExists = path -> new File(root, path).isFile();
+        } else {
+            // we cannot check whether or not the generated files still exist
+            LOG.debug("incremental generation requires a file based output: {}", conf.getOutput()); //$NON-NLS-1$
+            outputExists = path -> false;
+        }
+        return ModelDigestIndex.load(indexFile, conf, driver, outputExists);
+    }
+
+    private JavaModelClassGenerator getGenerator(
+            JavaModelClassGenerator generator, DmdlSemantics semantics, JavaDataModelDriver driver,
+            ModelDigestIndex index, ModelDeclaration model) {
+        if (index == null) {
+            return generator;
+        }
+        Configuration tracking = new Configuration(
+                conf.getFactory(),
+                conf.getSource(),
+                conf.getBasePackage(),
+                index.track(model, conf.getOutput()),
+                conf.getServiceClassLoader(),
+                conf.getLocale());
+        tracking.setParallelism(conf.getParallelism());
+        tracking.setDigestIndex(conf.getDigestIndex());
+        return new JavaModelClassGenerator(semantics, tracking, driver);
+    }
+
+    private static void emit(JavaModelClassGenerator generator, ModelDeclaration model) throws IOException {
+        LOG.info(MessageFormat.format(Messages.getString("GenerateTask.monitorGenerateModel"), //$NON-NLS-1$
+                model.getName()));
+        generator.emit(model);
+    }
+
+    private void emitParallel(
+            JavaModelClassGenerator generator, DmdlSemantics semantics, JavaDataModelDriver driver,
+            ModelDigestIndex index, List<ModelDeclaration> models) throws IOException {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (ModelDeclaration model : models) {
+            JavaModelClassGenerator target = getGenerator(generator, semantics, driver, index, model);
+            tasks.add(() -> {
+                emit(target, model);
+                return null;
+            });
+        }
+        ParallelUtil.invokeAll("dmdl-java-emitter", conf.getParallelism(), tasks); //$NON-NLS-1$
+    }
+
+    private DmdlSemantics analyze(DmdlSourceRepository source) throws IOException {
         AnalyzeTask analyzer = new AnalyzeTask(
                 Messages.getString("GenerateTask.name"), //$NON-NLS-1$
                 new JavaDataModelAnalyzerEnhancer(),
                 conf.getServiceClassLoader());
-        return analyzer.process(conf.getSource());
+        analyzer.setParallelism(conf.getParallelism());
+        return analyzer.process(source);
     }
 }
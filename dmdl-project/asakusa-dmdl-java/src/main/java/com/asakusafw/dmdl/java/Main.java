@@ -39,6 +39,7 @@ import com.asakusafw.utils.java.model.util.Models;
 
 /**
  * Asakusa DMDL Compiler Command Line Interface.
+ * @version 0.10.5
  */
 public final class Main {
 
@@ -50,6 +51,8 @@ public final class Main {
     private static final Option OPT_TARGET_ENCODING;
     private static final Option OPT_SOURCE_PATH;
     private static final Option OPT_PLUGIN;
+    private static final Option OPT_PARALLELISM;
+    private static final Option OPT_DIGEST;
 
     private static final Options OPTIONS;
     static {
@@ -85,6 +88,16 @@ public final class Main {
         OPT_PLUGIN.setValueSeparator(File.pathSeparatorChar);
         OPT_PLUGIN.setRequired(false);
 
+        OPT_PARALLELISM = new Option("parallelism", true, //$NON-NLS-1$
+                Messages.getString("Main.optParallelism")); //$NON-NLS-1$
+        OPT_PARALLELISM.setArgName("number-of-threads"); //$NON-NLS-1$
+        OPT_PARALLELISM.setRequired(false);
+
+        OPT_DIGEST = new Option("digest", true, //$NON-NLS-1$
+                Messages.getString("Main.optDigest")); //$NON-NLS-1$
+        OPT_DIGEST.setArgName("/path/to/digest-index"); //$NON-NLS-1$
+        OPT_DIGEST.setRequired(false);
+
         OPTIONS = new Options();
         OPTIONS.addOption(OPT_OUTPUT);
         OPTIONS.addOption(OPT_PACKAGE);
@@ -92,6 +105,8 @@ public final class Main {
         OPTIONS.addOption(OPT_TARGET_ENCODING);
         OPTIONS.addOption(OPT_SOURCE_PATH);
         OPTIONS.addOption(OPT_PLUGIN);
+        OPTIONS.addOption(OPT_PARALLELISM);
+        OPTIONS.addOption(OPT_DIGEST);
     }
 
     private Main() {
@@ -139,18 +154,33 @@ public final class Main {
         Charset targetEnc = parseCharset(cmd.getOptionValue(OPT_TARGET_ENCODING.getOpt()));
         String sourcePaths = cmd.getOptionValue(OPT_SOURCE_PATH.getOpt());
         String plugin = cmd.getOptionValue(OPT_PLUGIN.getOpt());
+        String parallelism = cmd.getOptionValue(OPT_PARALLELISM.getOpt());
+        String digest = cmd.getOptionValue(OPT_DIGEST.getOpt());
 
         File outputDirectory = new File(output);
         DmdlSourceRepository source = buildRepository(parseFileList(sourcePaths), sourceEnc);
         ClassLoader serviceLoader = buildPluginLoader(Main.class.getClassLoader(), parseFileList(plugin));
 
         ModelFactory factory = Models.getModelFactory();
-        return new Configuration(
+        Configuration result = new Configuration(
                 factory,
                 source,
                 Models.toName(factory, packageName),
                 new Filer(outputDirectory, targetEnc),
                 serviceLoader,
                 Locale.getDefault());
+        if (parallelism != null) {
+            try {
+                result.setParallelism(Integer.parseInt(parallelism.trim()));
+            } catch (NumberFormatException e) {
+                throw new ParseException(MessageFormat.format(
+                        "invalid parallelism: {0}", //$NON-NLS-1$
+                        parallelism));
+            }
+        }
+        if (digest != null) {
+            result.setDigestIndex(new File(digest));
+        }
+        return result;
     }
 }
@@ -0,0 +1,430 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.dmdl.java;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.asakusafw.dmdl.Region;
+import com.asakusafw.dmdl.semantics.ModelDeclaration;
+import com.asakusafw.dmdl.semantics.ModelSymbol;
+import com.asakusafw.dmdl.semantics.trait.JoinTrait;
+import com.asakusafw.dmdl.semantics.trait.ProjectionsTrait;
+import com.asakusafw.dmdl.semantics.trait.ReduceTerm;
+import com.asakusafw.dmdl.semantics.trait.ReferencesTrait;
+import com.asakusafw.dmdl.semantics.trait.SummarizeTrait;
+import com.asakusafw.dmdl.source.DmdlSourceRepository;
+import com.asakusafw.utils.java.model.syntax.PackageDeclaration;
+import com.asakusafw.utils.java.model.util.Emitter;
+
+/**
+ * A persistent index of digests of the individual data model declarations.
+ * <p>
+ * Each digest is computed from the source text of the model declaration, digests of the models which it depends on,
+ * and a fingerprint of the generator environment.
+ * This also records the files generated from each model, and a model is considered to be up-to-date only if
+ * all of them still exist.
+ * </p>
+ * @since 0.10.5
+ */
+final class ModelDigestIndex {
+
+    static final Logger LOG = LoggerFactory.getLogger(ModelDigestIndex.class);
+
+    private static final String ALGORITHM = "SHA-256"; //$NON-NLS-1$
+
+    private static final String KEY_FINGERPRINT = "@fingerprint"; //$NON-NLS-1$
+
+    private static final String SUFFIX_OUTPUTS = "@outputs"; //$NON-NLS-1$
+
+    private static final String OUTPUT_SEPARATOR = ","; //$NON-NLS-1$
+
+    private static final String[] SERVICE_RESOURCES = {
+            "META-INF/services/com.asakusafw.dmdl.java.spi.JavaDataModelDriver", //$NON-NLS-1$
+            "META-INF/services/com.asakusafw.dmdl.spi.AttributeDriver", //$NON-NLS-1$
+            "META-INF/services/com.asakusafw.dmdl.spi.TypeDriver", //$NON-NLS-1$
+    };
+
+    private final File file;
+
+    private final String fingerprint;
+
+    private final Predicate<String> outputExists;
+
+    private final Map<URI, List<String>> sources = new ConcurrentHashMap<>();
+
+    private final Map<String, String> previous = new HashMap<>();
+
+    private final Map<String, List<String>> previousOutputs = new HashMap<>();
+
+    private final Map<String, String> current = new HashMap<>();
+
+    private final Map<String, List<String>> currentOutputs = new ConcurrentHashMap<>();
+
+    private ModelDigestIndex(File file, String fingerprint, Predicate<String> outputExists) {
+        assert file != null;
+        assert fingerprint != null;
+        assert outputExists != null;
+        this.file = file;
+        this.fingerprint = fingerprint;
+        this.outputExists = outputExists;
+    }
+
+    /**
+     * Loads the digest index from the given file.
+     * If the file does not exist or its fingerprint is different, this returns an empty index.
+     * @param file the index file
+     * @param conf the current configuration
+     * @param driver the current generator driver
+     * @param outputExists tests whether or not the generated file exists, by its relative path
+     * @return the loaded index
+     * @throws IOException if failed to load the index
+     */
+    static ModelDigestIndex load(
+            File file, Configuration conf, Object driver, Predicate<String> outputExists) throws IOException {
+        String fingerprint = computeFingerprint(conf, driver);
+        ModelDigestIndex result = new ModelDigestIndex(file, fingerprint, outputExists);
+        if (file.isFile()) {
+            Properties properties = new Properties();
+            try (InputStream input = Files.newInputStream(file.toPath())) {
+                properties.load(input);
+            }
+            if (fingerprint.equals(properties.getProperty(KEY_FINGERPRINT))) {
+                for (String key : properties.stringPropertyNames()) {
+                    String value = properties.getProperty(key);
+                    if (key.endsWith(SUFFIX_OUTPUTS)) {
+                        String name = key.substring(0, key.length() - SUFFIX_OUTPUTS.length());
+                        result.previousOutputs.put(name, value.isEmpty()
+                                ? Collections.emptyList()
+                                : Arrays.asList(value.split(OUTPUT_SEPARATOR)));
+                    } else if (key.equals(KEY_FINGERPRINT) == false) {
+                        result.previous.put(key, value);
+                    }
+                }
+            } else {
+                LOG.debug("generator environment was changed: {}", file); //$NON-NLS-1$
+            }
+        }
+        return result;
+    }
+
+    private static String computeFingerprint(Configuration conf, Object driver) throws IOException {
+        StringBuilder buf = new StringBuilder();
+        buf.append(conf.getBasePackage().toNameString()).append('\n');
+        buf.append(driver.getClass().getName()).append('\n');
+        buf.append(ModelDigestIndex.class.getPackage().getImplementationVersion()).append('\n');
+        ClassLoader loader = conf.getServiceClassLoader();
+        for (String resource : SERVICE_RESOURCES) {
+            for (URL url : Collections.list(loader.getResources(resource))) {
+                buf.append(url);
+                // plug-in libraries may be rebuilt in the same location
+                File location = findLocation(url);
+                if (location != null && location.exists()) {
+                    buf.append(':').append(location.length());
+                    buf.append(':').append(location.lastModified());
+                }
+                buf.append('\n');
+            }
+        }
+        return toHex(newDigest().digest(buf.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static File findLocation(URL url) {
+        try {
+            URL current = url;
+            if (current.getProtocol().equals("jar")) { //$NON-NLS-1$
+                String path = current.getPath();
+                int index = path.indexOf("!/"); //$NON-NLS-1$
+                current = new URL(index < 0 ? path : path.substring(0, index));
+            }
+            if (current.getProtocol().equals("file")) { //$NON-NLS-1$
+                return new File(current.toURI());
+            }
+        } catch (MalformedURLException | URISyntaxException | IllegalArgumentException e) {
+            LOG.debug("failed to resolve plug-in location: {}", url, e); //$NON-NLS-1$
+        }
+        return null;
+    }
+
+    /**
+     * Returns a view of the repository, which records contents of its scripts into this index.
+     * @param repository the original repository
+     * @return the recording repository
+     */
+    DmdlSourceRepository track(DmdlSourceRepository repository) {
+        return () -> {
+            DmdlSourceRepository.Cursor cursor = repository.createCursor();
+            return new DmdlSourceRepository.Cursor() {
+                @Override
+                public boolean next() throws IOException {
+                    return cursor.next();
+                }
+                @Override
+                public URI getIdentifier() throws IOException {
+                    return cursor.getIdentifier();
+                }
+                @Override
+                public Reader openResource() throws IOException {
+                    URI identifier = cursor.getIdentifier();
+                    StringBuilder buf = new StringBuilder();
+                    try (Reader reader = cursor.openResource()) {
+                        char[] chars = new char[4096];
+                        while (true) {
+                            int read = reader.read(chars);
+                            if (read < 0) {
+                                break;
+                            }
+                            buf.append(chars, 0, read);
+                        }
+                    }
+                    String content = buf.toString();
+                    List<String> lines = new ArrayList<>();
+                    Collections.addAll(lines, content.split("\r\n|\r|\n", -1)); //$NON-NLS-1$
+                    sources.put(identifier, lines);
+                    return new StringReader(content);
+                }
+                @Override
+                public void close() throws IOException {
+                    cursor.close();
+                }
+            };
+        };
+    }
+
+    /**
+     * Returns whether or not the model is not changed since the last generation.
+     * @param model the target model
+     * @return {@code true} if it is not changed, otherwise {@code false}
+     */
+    boolean isUpToDate(ModelDeclaration model) {
+        String name = model.getName().identifier;
+        String digest = computeDigest(model, new HashSet<>());
+        if (digest == null || digest.equals(previous.get(name)) == false) {
+            return false;
+        }
+        List<String> outputs = previousOutputs.get(name);
+        if (outputs == null) {
+            return false;
+        }
+        for (String output : outputs) {
+            if (outputExists.test(output) == false) {
+                LOG.debug("generated file is missing: {} ({})", output, name); //$NON-NLS-1$
+                return false;
+            }
+        }
+        currentOutputs.put(name, outputs);
+        return true;
+    }
+
+    /**
+     * Returns a view of the emitter, which records files generated from the given model into this index.
+     * @param model the target model
+     * @param emitter the original emitter
+     * @return the recording emitter
+     */
+    Emitter track(ModelDeclaration model, Emitter emitter) {
+        List<String> outputs = Collections.synchronizedList(new ArrayList<>());
+        currentOutputs.put(model.getName().identifier, outputs);
+        return new Emitter() {
+            @Override
+            public PrintWriter openFor(PackageDeclaration packageDeclOrNull, String subPath) throws IOException {
+                outputs.add(getOutputPath(packageDeclOrNull, subPath));
+                return emitter.openFor(packageDeclOrNull, subPath);
+            }
+        };
+    }
+
+    /**
+     * Returns the relative path of the generated file.
+     * @param packageDeclOrNull the base package, or {@code null} if it is the default package
+     * @param subPath the relative path from the base package
+     * @return the relative path from the output root
+     */
+    static String getOutputPath(PackageDeclaration packageDeclOrNull, String subPath) {
+        if (packageDeclOrNull == null) {
+            return subPath;
+        }
+        return packageDeclOrNull.getName().toNameString().replace('.', '/') + '/' + subPath;
+    }
+
+    /**
+     * Stores digests of the examined models into the index file.
+     * @throws IOException if failed to store the index
+     */
+    void store() throws IOException {
+        Properties properties = new Properties();
+        synchronized (current) {
+            for (Map.Entry<String, String> entry : current.entrySet()) {
+                List<String> outputs = currentOutputs.get(entry.getKey());
+                if (entry.getValue() != null && outputs != null) {
+                    properties.setProperty(entry.getKey(), entry.getValue());
+                    synchronized (outputs) {
+                        properties.setProperty(entry.getKey() + SUFFIX_OUTPUTS, String.join(OUTPUT_SEPARATOR, outputs));
+                    }
+                }
+            }
+        }
+        properties.setProperty(KEY_FINGERPRINT, fingerprint);
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && parent.isDirectory() == false && parent.mkdirs() == false
+                && parent.isDirectory() == false) {
+            throw new IOException(MessageFormat.format(
+                    "failed to create directory: {0}", //$NON-NLS-1$
+                    parent));
+        }
+        try (OutputStream output = Files.newOutputStream(file.toPath())) {
+            properties.store(output, null);
+        }
+    }
+
+    private String computeDigest(ModelDeclaration model, Set<String> visiting) {
+        String name = model.getName().identifier;
+        synchronized (current) {
+            if (current.containsKey(name)) {
+                return current.get(name);
+            }
+        }
+        if (visiting.add(name) == false) {
+            // cyclic dependencies
+            return null;
+        }
+        String result = null;
+        List<String> text = getText(model.getOriginalAst().getRegion());
+        if (text != null) {
+            MessageDigest digest = newDigest();
+            update(digest, fingerprint);
+            update(digest, name);
+            for (String line : text) {
+                update(digest, line);
+            }
+            boolean resolved = true;
+            for (ModelDeclaration dependency : collectDependencies(model)) {
+                String value = computeDigest(dependency, visiting);
+                if (value == null) {
+                    resolved = false;
+                    break;
+                }
+                update(digest, dependency.getName().identifier);
+                update(digest, value);
+            }
+            if (resolved) {
+                result = toHex(digest.digest());
+            }
+        }
+        visiting.remove(name);
+        synchronized (current) {
+            current.put(name, result);
+        }
+        return result;
+    }
+
+    private List<String> getText(Region region) {
+        if (region == null || region.sourceFile == null) {
+            return null;
+        }
+        List<String> lines = sources.get(region.sourceFile);
+        if (lines == null || region.beginLine < 1 || region.endLine > lines.size()) {
+            return null;
+        }
+        return lines.subList(region.beginLine - 1, region.endLine);
+    }
+
+    private static List<ModelDeclaration> collectDependencies(ModelDeclaration model) {
+        Set<ModelSymbol> symbols = new HashSet<>();
+        ReferencesTrait references = model.getTrait(ReferencesTrait.class);
+        if (references != null) {
+            symbols.addAll(references.getReferences());
+        }
+        ProjectionsTrait projections = model.getTrait(ProjectionsTrait.class);
+        if (projections != null) {
+            symbols.addAll(projections.getProjections());
+        }
+        JoinTrait join = model.getTrait(JoinTrait.class);
+        if (join != null) {
+            for (ReduceTerm<?> term : join.getTerms()) {
+                symbols.add(term.getSource());
+            }
+        }
+        SummarizeTrait summarize = model.getTrait(SummarizeTrait.class);
+        if (summarize != null) {
+            for (ReduceTerm<?> term : summarize.getTerms()) {
+                symbols.add(term.getSource());
+            }
+        }
+        Map<String, ModelDeclaration> results = new HashMap<>();
+        for (ModelSymbol symbol : symbols) {
+            ModelDeclaration declaration = symbol.findDeclaration();
+            if (declaration != null) {
+                results.put(declaration.getName().identifier, declaration);
+            }
+        }
+        List<ModelDeclaration> sorted = new ArrayList<>();
+        for (String key : new TreeSet<>(results.keySet())) {
+            sorted.add(results.get(key));
+        }
+        return sorted;
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder buf = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            buf.append(String.format("%02x", b & 0xff)); //$NON-NLS-1$
+        }
+        return buf.toString();
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.dmdl.java.analyzer;
+
+import com.asakusafw.dmdl.model.AstAttribute;
+import com.asakusafw.dmdl.semantics.ModelDeclaration;
+import com.asakusafw.dmdl.semantics.Trait;
+
+/**
+ * Enables lazy deserialization for data models.
+ * @since 0.10.5
+ */
+public class LazyDeserializationTrait implements Trait<LazyDeserializationTrait> {
+
+    private final AstAttribute originalAst;
+
+    /**
+     * Creates and returns a new instance.
+     * @param originalAst the original AST, or {@code null} if this is an ad-hoc element
+     */
+    public LazyDeserializationTrait(AstAttribute originalAst) {
+        this.originalAst = originalAst;
+    }
+
+    @Override
+    public AstAttribute getOriginalAst() {
+        return originalAst;
+    }
+
+    /**
+     * Returns whether or not lazy deserialization is enabled for the target model.
+     * @param model the target model
+     * @return {@code true} if it is enabled, otherwise {@code false}
+     */
+    public static boolean isEnabled(ModelDeclaration model) {
+        return model.getTrait(LazyDeserializationTrait.class) != null;
+    }
+}
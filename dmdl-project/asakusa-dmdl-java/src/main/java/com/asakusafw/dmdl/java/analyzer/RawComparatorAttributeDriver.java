@@ -0,0 +1,55 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.dmdl.java.analyzer;
+
+import com.asakusafw.dmdl.model.AstAttribute;
+import com.asakusafw.dmdl.semantics.DmdlSemantics;
+import com.asakusafw.dmdl.semantics.ModelDeclaration;
+import com.asakusafw.dmdl.spi.ModelAttributeDriver;
+import com.asakusafw.dmdl.util.AttributeUtil;
+
+/**
+ * Processes <code>&#64;raw_comparator</code> annotations.
+ * The generated data models provide methods which compare and hash their serialized form.
+<h2>'&#64;raw_comparator' attribute</h2>
+The attributed declaration must be:
+<ul>
+<li> a model attribute </li>
+<li> with no attribute elements </li>
+</ul>
+ * @since 0.10.5
+ */
+public class RawComparatorAttributeDriver extends ModelAttributeDriver {
+
+    /**
+     * The attribute name.
+     */
+    public static final String TARGET_NAME = "raw_comparator"; //$NON-NLS-1$
+
+    @Override
+    public String getTargetName() {
+        return TARGET_NAME;
+    }
+
+    @Override
+    public void process(
+            DmdlSemantics environment,
+            ModelDeclaration declaration,
+            AstAttribute attribute) {
+        environment.reportAll(AttributeUtil.reportInvalidElements(attribute, attribute.elements));
+        declaration.putTrait(RawComparatorTrait.class, new RawComparatorTrait(attribute));
+    }
+}
@@ -32,6 +32,7 @@ import com.asakusafw.dmdl.semantics.ModelDeclaration;
 import com.asakusafw.dmdl.semantics.PropertyDeclaration;
 import com.asakusafw.dmdl.semantics.PropertyReferenceDeclaration;
 import com.asakusafw.dmdl.semantics.PropertySymbol;
+import com.asakusafw.runtime.io.util.LazyRecord;
 import com.asakusafw.runtime.model.DataModel;
 import com.asakusafw.runtime.value.ValueOptionList;
 import com.asakusafw.runtime.value.ValueOptionMap;
@@ -55,7 +56,7 @@ import com.asakusafw.utils.java.model.util.TypeBuilder;
 /**
  * Abstract super class which emits a record/joined/summarized model as a Java model class.
  * @since 0.2.0
- * @version 0.9.2
+ * @version 0.10.5
  */
 public class ConcreteModelEmitter {
 
@@ -143,6 +144,7 @@ public class ConcreteModelEmitter {
         List<TypeBodyDeclaration> results = new ArrayList<>();
         results.addAll(createPropertyFields());
         results.addAll(createReferenceFields());
+        results.addAll(createLazyRecordFields());
         results.addAll(driver.getFields(context, model));
         results.addAll(createDataModelMethods());
         results.addAll(createPropertyAccessors());
@@ -169,6 +171,35 @@ public class ConcreteModelEmitter {
         return results;
     }
 
+    private List<FieldDeclaration> createLazyRecordFields() {
+        if (context.isLazyDeserialization() == false) {
+            return Collections.emptyList();
+        }
+        List<Expression> properties = model.getDeclaredProperties().stream()
+                .map(it -> new ExpressionBuilder(f, f.newThis())
+                        .field(context.getFieldName(it))
+                        .toExpression())
+                .collect(Collectors.toList());
+        return Collections.singletonList(f.newFieldDeclaration(
+                null,
+                new AttributeBuilder(f)
+                    .Private()
+                    .Final()
+                    .toAttributes(),
+                context.resolve(LazyRecord.class),
+                context.getLazyRecordFieldName(),
+                new TypeBuilder(f, context.resolve(LazyRecord.class))
+                    .newObject(properties)
+                    .toExpression()));
+    }
+
+    private Statement createLazyDiscard() {
+        return new ExpressionBuilder(f, f.newThis())
+            .field(context.getLazyRecordFieldName())
+            .method("discard") //$NON-NLS-1$
+            .toStatement();
+    }
+
     private List<FieldDeclaration> createReferenceFields() {
         List<FieldDeclaration> results = new ArrayList<>();
         for (PropertyReferenceDeclaration reference : model.getDeclaredPropertyReferences()) {
@@ -349,6 +380,9 @@ public class ConcreteModelEmitter {
 
     private MethodDeclaration createResetMethod() {
         List<Statement> statements = new ArrayList<>();
+        if (context.isLazyDeserialization()) {
+            statements.add(createLazyDiscard());
+        }
         for (PropertyDeclaration property : model.getDeclaredProperties()) {
             statements.add(new ExpressionBuilder(f, f.newThis())
                 .field(context.getFieldName(property))
@@ -372,6 +406,10 @@ public class ConcreteModelEmitter {
     private MethodDeclaration createCopyMethod() {
         SimpleName other = context.createVariableName("other"); //$NON-NLS-1$
         List<Statement> statements = new ArrayList<>();
+        statements.addAll(context.createLazyLoad(other, null));
+        if (context.isLazyDeserialization()) {
+            statements.add(createLazyDiscard());
+        }
         for (PropertyDeclaration property : model.getDeclaredProperties()) {
             statements.add(new ExpressionBuilder(f, f.newThis())
                 .field(context.getFieldName(property))
@@ -437,7 +475,7 @@ public class ConcreteModelEmitter {
                 context.getValueType(property),
                 context.getValueGetterName(property),
                 Collections.emptyList(),
-                Collections.singletonList(new ExpressionBuilder(f, f.newThis())
+                withLazyLoad(property, new ExpressionBuilder(f, f.newThis())
                     .field(context.getFieldName(property))
                     .method("get") //$NON-NLS-1$
                     .toReturnStatement()));
@@ -466,7 +504,7 @@ public class ConcreteModelEmitter {
                 Arrays.asList(new FormalParameterDeclaration[] {
                         f.newFormalParameterDeclaration(valueType, paramName)
                 }),
-                Collections.singletonList(new ExpressionBuilder(f, f.newThis())
+                withLazyLoad(property, new ExpressionBuilder(f, f.newThis())
                     .field(context.getFieldName(property))
                     .method("modify", paramName) //$NON-NLS-1$
                     .toStatement()));
@@ -491,7 +529,7 @@ public class ConcreteModelEmitter {
                 context.getFieldType(property),
                 context.getOptionGetterName(property),
                 Collections.emptyList(),
-                Collections.singletonList(new ExpressionBuilder(f, f.newThis())
+                withLazyLoad(property, new ExpressionBuilder(f, f.newThis())
                     .field(context.getFieldName(property))
                     .toReturnStatement()));
     }
@@ -519,12 +557,19 @@ public class ConcreteModelEmitter {
                 Arrays.asList(new FormalParameterDeclaration[] {
                         f.newFormalParameterDeclaration(optionType, paramName)
                 }),
-                Collections.singletonList(new ExpressionBuilder(f, f.newThis())
+                withLazyLoad(property, new ExpressionBuilder(f, f.newThis())
                     .field(context.getFieldName(property))
                     .method("copyFrom", paramName) //$NON-NLS-1$
                     .toStatement()));
     }
 
+    private List<Statement> withLazyLoad(PropertyDeclaration property, Statement statement) {
+        List<Statement> results = new ArrayList<>();
+        results.addAll(context.createLazyLoad(f.newThis(), property));
+        results.add(statement);
+        return results;
+    }
+
     private MethodDeclaration createReferenceGetter(PropertyReferenceDeclaration reference) throws IOException {
         List<Attribute> attributes = new ArrayList<>();
         attributes.addAll(driver.getMemberAnnotations(context, reference));
@@ -28,6 +28,7 @@ import java.util.Set;
 import org.apache.hadoop.io.Text;
 
 import com.asakusafw.dmdl.java.Configuration;
+import com.asakusafw.dmdl.java.analyzer.LazyDeserializationTrait;
 import com.asakusafw.dmdl.java.util.JavaName;
 import com.asakusafw.dmdl.java.util.NameUtil;
 import com.asakusafw.dmdl.model.AstDescription;
@@ -62,20 +63,24 @@ import com.asakusafw.utils.java.model.syntax.ModelFactory;
 import com.asakusafw.utils.java.model.syntax.Name;
 import com.asakusafw.utils.java.model.syntax.QualifiedName;
 import com.asakusafw.utils.java.model.syntax.SimpleName;
+import com.asakusafw.utils.java.model.syntax.Statement;
 import com.asakusafw.utils.java.model.syntax.Type;
 import com.asakusafw.utils.java.model.syntax.TypeDeclaration;
+import com.asakusafw.utils.java.model.util.ExpressionBuilder;
 import com.asakusafw.utils.java.model.util.ImportBuilder;
 import com.asakusafw.utils.java.model.util.Models;
 
 /**
  * Emitting context.
  * @since 0.2.0
- * @version 0.7.5
+ * @version 0.10.5
  */
 public final class EmitContext {
 
     private final DmdlSemantics semantics;
 
+    private final ModelDeclaration model;
+
     private final Configuration config;
 
     private final ModelFactory factory;
@@ -114,6 +119,7 @@ public final class EmitContext {
             throw new IllegalArgumentException("categoryName must not be null"); //$NON-NLS-1$
         }
         this.semantics = semantics;
+        this.model = model;
         this.config = config;
         this.factory = config.getFactory();
         this.typeName = getTypeName(model, typeNamePattern);
@@ -609,6 +615,52 @@ public final class EmitContext {
         }
     }
 
+    /**
+     * Returns whether or not the current model deserializes its properties lazily.
+     * @return {@code true} if the properties are deserialized lazily, otherwise {@code false}
+     * @see LazyDeserializationTrait
+     * @since 0.10.5
+     */
+    public boolean isLazyDeserialization() {
+        return LazyDeserializationTrait.isEnabled(model);
+    }
+
+    /**
+     * Returns the field name which keeps the serialized record of lazy data models.
+     * @return the field name
+     * @see #isLazyDeserialization()
+     * @since 0.10.5
+     */
+    public SimpleName getLazyRecordFieldName() {
+        return createVariableName("lazyRecord"); //$NON-NLS-1$
+    }
+
+    /**
+     * Returns statements which ensure the target property is deserialized.
+     * @param object the target data model object
+     * @param property the target property, or {@code null} to ensure all properties
+     * @return the statements, or an empty list if the current model does not deserialize properties lazily
+     * @see #isLazyDeserialization()
+     * @since 0.10.5
+     */
+    public List<Statement> createLazyLoad(Expression object, PropertyDeclaration property) {
+        if (isLazyDeserialization() == false) {
+            return Collections.emptyList();
+        }
+        ExpressionBuilder builder = new ExpressionBuilder(factory, object)
+                .field(getLazyRecordFieldName());
+        if (property == null) {
+            builder.method("loadAll"); //$NON-NLS-1$
+        } else {
+            int index = model.getDeclaredProperties().indexOf(property);
+            if (index < 0) {
+                throw new IllegalArgumentException(property.toString());
+            }
+            builder.method("load", Models.toLiteral(factory, index)); //$NON-NLS-1$
+        }
+        return Collections.singletonList(builder.toStatement());
+    }
+
     /**
      * Returns the description text of the declaration.
      * @param declaration the target declaration
@@ -58,6 +58,7 @@ public class ObjectDriver extends JavaDataModelDriver {
         assert model != null;
         ModelFactory f = context.getModelFactory();
         List<Statement> statements = new ArrayList<>();
+        statements.addAll(context.createLazyLoad(f.newThis(), null));
         SimpleName buffer = context.createVariableName("result"); //$NON-NLS-1$
         statements.add(new TypeBuilder(f, context.resolve(StringBuilder.class))
             .newObject()
@@ -103,6 +104,7 @@ public class ObjectDriver extends JavaDataModelDriver {
         assert model != null;
         ModelFactory f = context.getModelFactory();
         List<Statement> statements = new ArrayList<>();
+        statements.addAll(context.createLazyLoad(f.newThis(), null));
         SimpleName prime = context.createVariableName("prime"); //$NON-NLS-1$
         SimpleName result = context.createVariableName("result"); //$NON-NLS-1$
         statements.add(new ExpressionBuilder(f, Models.toLiteral(f, 31))
@@ -163,6 +165,8 @@ public class ObjectDriver extends JavaDataModelDriver {
         statements.add(new ExpressionBuilder(f, obj)
             .castTo(self)
             .toLocalVariableDeclaration(self, other));
+        statements.addAll(context.createLazyLoad(f.newThis(), null));
+        statements.addAll(context.createLazyLoad(other, null));
         for (PropertyDeclaration property : model.getDeclaredProperties()) {
             SimpleName field = context.getFieldName(property);
             statements.add(f.newIfStatement(
@@ -0,0 +1,291 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.dmdl.java.emitter.driver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.io.WritableComparator;
+
+import com.asakusafw.dmdl.java.analyzer.RawComparatorTrait;
+import com.asakusafw.dmdl.java.emitter.EmitContext;
+import com.asakusafw.dmdl.java.spi.JavaDataModelDriver;
+import com.asakusafw.dmdl.model.ModelDefinitionKind;
+import com.asakusafw.dmdl.semantics.ModelDeclaration;
+import com.asakusafw.dmdl.semantics.PropertyDeclaration;
+import com.asakusafw.utils.java.model.syntax.Expression;
+import com.asakusafw.utils.java.model.syntax.FormalParameterDeclaration;
+import com.asakusafw.utils.java.model.syntax.InfixOperator;
+import com.asakusafw.utils.java.model.syntax.MethodDeclaration;
+import com.asakusafw.utils.java.model.syntax.ModelFactory;
+import com.asakusafw.utils.java.model.syntax.SimpleName;
+import com.asakusafw.utils.java.model.syntax.Statement;
+import com.asakusafw.utils.java.model.syntax.Type;
+import com.asakusafw.utils.java.model.util.AttributeBuilder;
+import com.asakusafw.utils.java.model.util.ExpressionBuilder;
+import com.asakusafw.utils.java.model.util.JavadocBuilder;
+import com.asakusafw.utils.java.model.util.Models;
+import com.asakusafw.utils.java.model.util.TypeBuilder;
+
+/**
+ * Implements {@code compareBytes} and {@code hashBytes} methods, which work on serialized data models.
+ * <p>
+ * The generated methods accept a bit set of the target properties in declaration order, and each property is
+ * processed by the straight-line code specialized for its type.
+ * The methods are only generated for models which are annotated with
+ * <code>&#64;{@value com.asakusafw.dmdl.java.analyzer.RawComparatorAttributeDriver#TARGET_NAME}</code>,
+ * and have at most {@link #MAX_PROPERTIES} properties.
+ * </p>
+ * @since 0.10.5
+ */
+public class RawComparatorDriver extends JavaDataModelDriver {
+
+    /**
+     * The max number of properties to generate the methods.
+     */
+    public static final int MAX_PROPERTIES = Long.SIZE;
+
+    /**
+     * The method name of comparing serialized data models.
+     */
+    public static final String NAME_COMPARE_BYTES = "compareBytes"; //$NON-NLS-1$
+
+    /**
+     * The method name of computing hash code of serialized data models.
+     */
+    public static final String NAME_HASH_BYTES = "hashBytes"; //$NON-NLS-1$
+
+    private static final String NAME_GET_BYTES_LENGTH = "getBytesLength"; //$NON-NLS-1$
+
+    @Override
+    public List<MethodDeclaration> getMethods(EmitContext context, ModelDeclaration model) {
+        if (RawComparatorTrait.isEnabled(model) == false) {
+            return Collections.emptyList();
+        }
+        if (model.getOriginalAst().kind == ModelDefinitionKind.PROJECTIVE) {
+            return Collections.emptyList();
+        }
+        if (model.getDeclaredProperties().size() > MAX_PROPERTIES) {
+            return Collections.emptyList();
+        }
+        List<MethodDeclaration> results = new ArrayList<>();
+        results.add(createCompareBytes(context, model));
+        results.add(createHashBytes(context, model));
+        return results;
+    }
+
+    private MethodDeclaration createCompareBytes(EmitContext context, ModelDeclaration model) {
+        ModelFactory f = context.getModelFactory();
+        SimpleName properties = context.createVariableName("properties"); //$NON-NLS-1$
+        SimpleName b1 = context.createVariableName("b1"); //$NON-NLS-1$
+        SimpleName s1 = context.createVariableName("s1"); //$NON-NLS-1$
+        SimpleName l1 = context.createVariableName("l1"); //$NON-NLS-1$
+        SimpleName b2 = context.createVariableName("b2"); //$NON-NLS-1$
+        SimpleName s2 = context.createVariableName("s2"); //$NON-NLS-1$
+        SimpleName l2 = context.createVariableName("l2"); //$NON-NLS-1$
+        SimpleName o1 = context.createVariableName("o1"); //$NON-NLS-1$
+        SimpleName o2 = context.createVariableName("o2"); //$NON-NLS-1$
+        SimpleName e1 = context.createVariableName("e1"); //$NON-NLS-1$
+        SimpleName e2 = context.createVariableName("e2"); //$NON-NLS-1$
+        SimpleName n1 = context.createVariableName("n1"); //$NON-NLS-1$
+        SimpleName n2 = context.createVariableName("n2"); //$NON-NLS-1$
+        SimpleName diff = context.createVariableName("diff"); //$NON-NLS-1$
+
+        List<Statement> statements = new ArrayList<>();
+        statements.add(new ExpressionBuilder(f, s1)
+            .toLocalVariableDeclaration(Models.toType(f, int.class), o1));
+        statements.add(new ExpressionBuilder(f, s2)
+            .toLocalVariableDeclaration(Models.toType(f, int.class), o2));
+        statements.add(new ExpressionBuilder(f, s1)
+            .apply(InfixOperator.PLUS, l1)
+            .toLocalVariableDeclaration(Models.toType(f, int.class), e1));
+        statements.add(new ExpressionBuilder(f, s2)
+            .apply(InfixOperator.PLUS, l2)
+            .toLocalVariableDeclaration(Models.toType(f, int.class), e2));
+        int index = 0;
+        for (PropertyDeclaration property : model.getDeclaredProperties()) {
+            Type type = context.getFieldType(property);
+            List<Statement> block = new ArrayList<>();
+            block.add(createRestCheck(f, properties, index, Models.toLiteral(f, 0)));
+            block.add(createGetLength(f, type, b1, o1, e1, n1));
+            block.add(createGetLength(f, type, b2, o2, e2, n2));
+            block.add(f.newIfStatement(
+                    createContains(f, properties, index),
+                    f.newBlock(
+                            new TypeBuilder(f, type)
+                                .method(NAME_COMPARE_BYTES, b1, o1, n1, b2, o2, n2)
+                                .toLocalVariableDeclaration(Models.toType(f, int.class), diff),
+                            f.newIfStatement(
+                                    new ExpressionBuilder(f, diff)
+                                        .apply(InfixOperator.NOT_EQUALS, Models.toLiteral(f, 0))
+                                        .toExpression(),
+                                    f.newBlock(f.newReturnStatement(diff))))));
+            block.add(new ExpressionBuilder(f, o1)
+                .assignFrom(InfixOperator.PLUS, n1)
+                .toStatement());
+            block.add(new ExpressionBuilder(f, o2)
+                .assignFrom(InfixOperator.PLUS, n2)
+                .toStatement());
+            statements.add(f.newBlock(block));
+            index++;
+        }
+        statements.add(f.newReturnStatement(Models.toLiteral(f, 0)));
+
+        return f.newMethodDeclaration(
+                new JavadocBuilder(f)
+                    .text(Messages.getString("RawComparatorDriver.javadocCompareBytes")) //$NON-NLS-1$
+                    .param(properties)
+                        .text(Messages.getString("RawComparatorDriver.javadocProperties")) //$NON-NLS-1$
+                    .param(b1)
+                        .text(Messages.getString("RawComparatorDriver.javadocBytes")) //$NON-NLS-1$
+                    .param(s1)
+                        .text(Messages.getString("RawComparatorDriver.javadocOffset")) //$NON-NLS-1$
+                    .param(l1)
+                        .text(Messages.getString("RawComparatorDriver.javadocLength")) //$NON-NLS-1$
+                    .param(b2)
+                        .text(Messages.getString("RawComparatorDriver.javadocBytes")) //$NON-NLS-1$
+                    .param(s2)
+                        .text(Messages.getString("RawComparatorDriver.javadocOffset")) //$NON-NLS-1$
+                    .param(l2)
+                        .text(Messages.getString("RawComparatorDriver.javadocLength")) //$NON-NLS-1$
+                    .returns()
+                        .text(Messages.getString("RawComparatorDriver.javadocCompareBytesReturn")) //$NON-NLS-1$
+                    .toJavadoc(),
+                new AttributeBuilder(f)
+                    .Public()
+                    .Static()
+                    .toAttributes(),
+                Models.toType(f, int.class),
+                f.newSimpleName(NAME_COMPARE_BYTES),
+                Arrays.asList(
+                        parameter(f, long.class, properties),
+                        parameter(f, byte[].class, b1),
+                        parameter(f, int.class, s1),
+                        parameter(f, int.class, l1),
+                        parameter(f, byte[].class, b2),
+                        parameter(f, int.class, s2),
+                        parameter(f, int.class, l2)),
+                statements);
+    }
+
+    private MethodDeclaration createHashBytes(EmitContext context, ModelDeclaration model) {
+        ModelFactory f = context.getModelFactory();
+        SimpleName properties = context.createVariableName("properties"); //$NON-NLS-1$
+        SimpleName bytes = context.createVariableName("bytes"); //$NON-NLS-1$
+        SimpleName start = context.createVariableName("start"); //$NON-NLS-1$
+        SimpleName length = context.createVariableName("length"); //$NON-NLS-1$
+        SimpleName offset = context.createVariableName("offset"); //$NON-NLS-1$
+        SimpleName end = context.createVariableName("end"); //$NON-NLS-1$
+        SimpleName size = context.createVariableName("size"); //$NON-NLS-1$
+        SimpleName result = context.createVariableName("result"); //$NON-NLS-1$
+
+        List<Statement> statements = new ArrayList<>();
+        statements.add(new ExpressionBuilder(f, Models.toLiteral(f, 1))
+            .toLocalVariableDeclaration(Models.toType(f, int.class), result));
+        statements.add(new ExpressionBuilder(f, start)
+            .toLocalVariableDeclaration(Models.toType(f, int.class), offset));
+        statements.add(new ExpressionBuilder(f, start)
+            .apply(InfixOperator.PLUS, length)
+            .toLocalVariableDeclaration(Models.toType(f, int.class), end));
+        int index = 0;
+        for (PropertyDeclaration property : model.getDeclaredProperties()) {
+            Type type = context.getFieldType(property);
+            List<Statement> block = new ArrayList<>();
+            block.add(createRestCheck(f, properties, index, result));
+            block.add(createGetLength(f, type, bytes, offset, end, size));
+            block.add(f.newIfStatement(
+                    createContains(f, properties, index),
+                    f.newBlock(new ExpressionBuilder(f, result)
+                        .assignFrom(new ExpressionBuilder(f, Models.toLiteral(f, 31))
+                            .apply(InfixOperator.TIMES, result)
+                            .apply(InfixOperator.PLUS, new TypeBuilder(f, context.resolve(WritableComparator.class))
+                                .method("hashBytes", bytes, offset, size) //$NON-NLS-1$
+                                .toExpression())
+                            .toExpression())
+                        .toStatement())));
+            block.add(new ExpressionBuilder(f, offset)
+                .assignFrom(InfixOperator.PLUS, size)
+                .toStatement());
+            statements.add(f.newBlock(block));
+            index++;
+        }
+        statements.add(f.newReturnStatement(result));
+
+        return f.newMethodDeclaration(
+                new JavadocBuilder(f)
+                    .text(Messages.getString("RawComparatorDriver.javadocHashBytes")) //$NON-NLS-1$
+                    .param(properties)
+                        .text(Messages.getString("RawComparatorDriver.javadocProperties")) //$NON-NLS-1$
+                    .param(bytes)
+                        .text(Messages.getString("RawComparatorDriver.javadocBytes")) //$NON-NLS-1$
+                    .param(start)
+                        .text(Messages.getString("RawComparatorDriver.javadocOffset")) //$NON-NLS-1$
+                    .param(length)
+                        .text(Messages.getString("RawComparatorDriver.javadocLength")) //$NON-NLS-1$
+                    .returns()
+                        .text(Messages.getString("RawComparatorDriver.javadocHashBytesReturn")) //$NON-NLS-1$
+                    .toJavadoc(),
+                new AttributeBuilder(f)
+                    .Public()
+                    .Static()
+                    .toAttributes(),
+                Models.toType(f, int.class),
+                f.newSimpleName(NAME_HASH_BYTES),
+                Arrays.asList(
+                        parameter(f, long.class, properties),
+                        parameter(f, byte[].class, bytes),
+                        parameter(f, int.class, start),
+                        parameter(f, int.class, length)),
+                statements);
+    }
+
+    private static FormalParameterDeclaration parameter(ModelFactory f, Class<?> type, SimpleName name) {
+        return f.newFormalParameterDeclaration(Models.toType(f, type), name);
+    }
+
+    private static Statement createRestCheck(ModelFactory f, SimpleName properties, int index, Expression result) {
+        // exits if the rest properties are not required
+        Expression rest = index == 0
+                ? properties
+                : new ExpressionBuilder(f, properties)
+                    .apply(InfixOperator.RIGHT_SHIFT_UNSIGNED, Models.toLiteral(f, index))
+                    .toExpression();
+        return f.newIfStatement(
+                new ExpressionBuilder(f, rest)
+                    .apply(InfixOperator.EQUALS, Models.toLiteral(f, 0L))
+                    .toExpression(),
+                f.newBlock(f.newReturnStatement(result)));
+    }
+
+    private static Expression createContains(ModelFactory f, SimpleName properties, int index) {
+        return new ExpressionBuilder(f, properties)
+            .apply(InfixOperator.AND, Models.toLiteral(f, 1L << index))
+            .apply(InfixOperator.NOT_EQUALS, Models.toLiteral(f, 0L))
+            .toExpression();
+    }
+
+    private static Statement createGetLength(
+            ModelFactory f, Type type,
+            SimpleName bytes, SimpleName offset, SimpleName end, SimpleName size) {
+        return new TypeBuilder(f, type)
+            .method(NAME_GET_BYTES_LENGTH, bytes, offset, new ExpressionBuilder(f, end)
+                    .apply(InfixOperator.MINUS, offset)
+                    .toExpression())
+            .toLocalVariableDeclaration(Models.toType(f, int.class), size);
+    }
+}
@@ -38,6 +38,7 @@ import com.asakusafw.utils.java.model.syntax.ModifierKind;
 import com.asakusafw.utils.java.model.syntax.Name;
 import com.asakusafw.utils.java.model.syntax.SimpleName;
 import com.asakusafw.utils.java.model.syntax.SingleElementAnnotation;
+import com.asakusafw.utils.java.model.syntax.Statement;
 import com.asakusafw.utils.java.model.util.AttributeBuilder;
 import com.asakusafw.utils.java.model.util.ExpressionBuilder;
 import com.asakusafw.utils.java.model.util.JavadocBuilder;
@@ -94,7 +95,7 @@ public class StringPropertyDriver extends JavaDataModelDriver {
                 context.resolve(String.class),
                 f.newSimpleName(name.toMemberName()),
                 Collections.emptyList(),
-                Collections.singletonList(new ExpressionBuilder(f, f.newThis())
+                withLazyLoad(context, property, new ExpressionBuilder(f, f.newThis())
                     .field(context.getFieldName(property))
                     .method("getAsString") //$NON-NLS-1$
                     .toReturnStatement()));
@@ -132,12 +133,20 @@ public class StringPropertyDriver extends JavaDataModelDriver {
                                 context.resolve(String.class),
                                 paramName)
                 }),
-                Collections.singletonList(new ExpressionBuilder(f, f.newThis())
+                withLazyLoad(context, property, new ExpressionBuilder(f, f.newThis())
                     .field(context.getFieldName(property))
                     .method("modify", paramName) //$NON-NLS-1$
                     .toStatement()));
     }
 
+    private static List<Statement> withLazyLoad(
+            EmitContext context, PropertyDeclaration property, Statement statement) {
+        List<Statement> results = new ArrayList<>();
+        results.addAll(context.createLazyLoad(context.getModelFactory().newThis(), property));
+        results.add(statement);
+        return results;
+    }
+
     private boolean isTextType(PropertyDeclaration property) {
         assert property != null;
         return property.getType().isSame(TEXT_TYPE);
@@ -41,6 +41,7 @@ import com.asakusafw.utils.java.model.util.Models;
 
 /**
  * Implements {@link Writable} interface.
+ * @version 0.10.5
  */
 public class WritableDriver extends JavaDataModelDriver {
 
@@ -66,11 +67,18 @@ public class WritableDriver extends JavaDataModelDriver {
         ModelFactory f = context.getModelFactory();
         SimpleName parameter = context.createVariableName("out"); //$NON-NLS-1$
         List<Statement> statements = new ArrayList<>();
-        for (PropertyDeclaration property : model.getDeclaredProperties()) {
-            SimpleName fieldName = context.getFieldName(property);
-            statements.add(new ExpressionBuilder(f, fieldName)
+        if (context.isLazyDeserialization()) {
+            statements.add(new ExpressionBuilder(f, f.newThis())
+                .field(context.getLazyRecordFieldName())
                 .method("write", parameter) //$NON-NLS-1$
                 .toStatement());
+        } else {
+            for (PropertyDeclaration property : model.getDeclaredProperties()) {
+                SimpleName fieldName = context.getFieldName(property);
+                statements.add(new ExpressionBuilder(f, fieldName)
+                    .method("write", parameter) //$NON-NLS-1$
+                    .toStatement());
+            }
         }
         return f.newMethodDeclaration(
                 null,
@@ -95,11 +103,18 @@ public class WritableDriver extends JavaDataModelDriver {
         ModelFactory f = context.getModelFactory();
         SimpleName parameter = context.createVariableName("in"); //$NON-NLS-1$
         List<Statement> statements = new ArrayList<>();
-        for (PropertyDeclaration property : model.getDeclaredProperties()) {
-            SimpleName fieldName = context.getFieldName(property);
-            statements.add(new ExpressionBuilder(f, fieldName)
+        if (context.isLazyDeserialization()) {
+            statements.add(new ExpressionBuilder(f, f.newThis())
+                .field(context.getLazyRecordFieldName())
                 .method("readFields", parameter) //$NON-NLS-1$
                 .toStatement());
+        } else {
+            for (PropertyDeclaration property : model.getDeclaredProperties()) {
+                SimpleName fieldName = context.getFieldName(property);
+                statements.add(new ExpressionBuilder(f, fieldName)
+                    .method("readFields", parameter) //$NON-NLS-1$
+                    .toStatement());
+            }
         }
         return f.newMethodDeclaration(
                 null,
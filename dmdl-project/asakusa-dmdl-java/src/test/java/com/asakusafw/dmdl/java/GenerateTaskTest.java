@@ -0,0 +1,258 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.dmdl.java;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.asakusafw.dmdl.source.DmdlSourceFile;
+import com.asakusafw.utils.java.jsr199.testing.VolatileJavaFile;
+import com.asakusafw.utils.java.model.syntax.ModelFactory;
+import com.asakusafw.utils.java.model.syntax.PackageDeclaration;
+import com.asakusafw.utils.java.model.util.Filer;
+import com.asakusafw.utils.java.model.util.Models;
+
+/**
+ * Test for {@link GenerateTask}.
+ */
+public class GenerateTaskTest {
+
+    /**
+     * Temporary folder for the test cases.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * parallel generation.
+     * @throws Exception if test was failed
+     */
+    @Test
+    public void parallel() throws Exception {
+        File a = script("a.dmdl", "a = { x : INT; };", "b = a + { y : INT; };");
+        File c = script("c.dmdl", "c = { z : INT; };", "d = c;");
+
+        VolatileEmitter sequential = new VolatileEmitter();
+        new GenerateTask(configuration(sequential, a, c)).process();
+
+        VolatileEmitter parallel = new VolatileEmitter();
+        Configuration conf = configuration(parallel, a, c);
+        conf.setParallelism(4);
+        new GenerateTask(conf).process();
+
+        assertThat(names(parallel), is(names(sequential)));
+        assertThat(names(parallel), hasItems("A", "B", "C", "D"));
+    }
+
+    /**
+     * incremental generation.
+     * @throws Exception if test was failed
+     */
+    @Test
+    public void incremental() throws Exception {
+        File index = new File(folder.getRoot(), "index/digest.properties");
+        File output = new File(folder.getRoot(), "output");
+        File a = script("a.dmdl", "a = { x : INT; };", "b = a + { y : INT; };");
+        File c = script("c.dmdl", "c = { z : INT; };");
+
+        TrackingFiler first = new TrackingFiler(output);
+        new GenerateTask(configuration(first, index, a, c)).process();
+        assertThat(first.names, hasItems("A", "B", "C"));
+        assertThat(index.isFile(), is(true));
+
+        TrackingFiler second = new TrackingFiler(output);
+        new GenerateTask(configuration(second, index, a, c)).process();
+        assertThat(second.names, is(empty()));
+
+        script("a.dmdl", "a = { x : INT; w : LONG; };", "b = a + { y : INT; };");
+        TrackingFiler third = new TrackingFiler(output);
+        new GenerateTask(configuration(third, index, a, c)).process();
+        assertThat(third.names, hasItems("A", "B"));
+        assertThat(third.names, not(hasItem("C")));
+    }
+
+    /**
+     * incremental generation - generated files are removed.
+     * @throws Exception if test was failed
+     */
+    @Test
+    public void incremental_output_removed() throws Exception {
+        File index = new File(folder.getRoot(), "index/digest.properties");
+        File output = new File(folder.getRoot(), "output");
+        File a = script("a.dmdl", "a = { x : INT; };", "b = { y : INT; };");
+
+        TrackingFiler first = new TrackingFiler(output);
+        new GenerateTask(configuration(first, index, a)).process();
+        assertThat(first.names, hasItems("A", "B"));
+
+        File generated = find(output, "A.java");
+        assertThat(generated.delete(), is(true));
+
+        TrackingFiler second = new TrackingFiler(output);
+        new GenerateTask(configuration(second, index, a)).process();
+        assertThat(second.names, hasItem("A"));
+        assertThat(second.names, not(hasItem("B")));
+        assertThat(generated.toString(), generated.isFile(), is(true));
+
+        delete(output);
+        TrackingFiler third = new TrackingFiler(output);
+        new GenerateTask(configuration(third, index, a)).process();
+        assertThat(third.names, hasItems("A", "B"));
+    }
+
+    /**
+     * incremental generation - plug-in library is rebuilt.
+     * @throws Exception if test was failed
+     */
+    @Test
+    public void incremental_plugin_changed() throws Exception {
+        File index = new File(folder.getRoot(), "index/digest.properties");
+        File output = new File(folder.getRoot(), "output");
+        File a = script("a.dmdl", "a = { x : INT; };");
+        File plugin = new File(folder.getRoot(), "plugin");
+        plugin(plugin, "");
+
+        try (URLClassLoader loader = loader(plugin)) {
+            TrackingFiler first = new TrackingFiler(output);
+            new GenerateTask(configuration(first, index, loader, a)).process();
+            assertThat(first.names, hasItems("A"));
+
+            TrackingFiler second = new TrackingFiler(output);
+            new GenerateTask(configuration(second, index, loader, a)).process();
+            assertThat(second.names, is(empty()));
+        }
+
+        plugin(plugin, "# rebuilt");
+        try (URLClassLoader loader = loader(plugin)) {
+            TrackingFiler third = new TrackingFiler(output);
+            new GenerateTask(configuration(third, index, loader, a)).process();
+            assertThat(third.names, hasItems("A"));
+        }
+    }
+
+    private static void plugin(File directory, String content) throws IOException {
+        File file = new File(directory, "META-INF/services/com.asakusafw.dmdl.java.spi.JavaDataModelDriver");
+        Files.createDirectories(file.toPath().getParent());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static URLClassLoader loader(File plugin) throws IOException {
+        return new URLClassLoader(new URL[] { plugin.toURI().toURL() }, GenerateTaskTest.class.getClassLoader());
+    }
+
+    private static File find(File directory, String name) throws IOException {
+        try (Stream<Path> stream = Files.walk(directory.toPath())) {
+            return stream
+                    .filter(path -> path.getFileName().toString().equals(name))
+                    .map(Path::toFile)
+                    .findFirst()
+                    .orElseThrow(() -> new AssertionError(name));
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        assertThat(file.toString(), file.delete(), is(true));
+    }
+
+    private File script(String name, String... lines) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static Configuration configuration(VolatileEmitter emitter, File... files) {
+        ModelFactory factory = Models.getModelFactory();
+        return new Configuration(
+                factory,
+                new DmdlSourceFile(Arrays.asList(files), StandardCharsets.UTF_8),
+                Models.toName(factory, "com.example"),
+                emitter,
+                GenerateTaskTest.class.getClassLoader(),
+                Locale.getDefault());
+    }
+
+    private static Configuration configuration(Filer filer, File index, File... files) {
+        return configuration(filer, index, GenerateTaskTest.class.getClassLoader(), files);
+    }
+
+    private static Configuration configuration(Filer filer, File index, ClassLoader loader, File... files) {
+        ModelFactory factory = Models.getModelFactory();
+        Configuration conf = new Configuration(
+                factory,
+                new DmdlSourceFile(Arrays.asList(files), StandardCharsets.UTF_8),
+                Models.toName(factory, "com.example"),
+                filer,
+                loader,
+                Locale.getDefault());
+        conf.setDigestIndex(index);
+        return conf;
+    }
+
+    private static Set<String> names(VolatileEmitter emitter) {
+        Set<String> results = new TreeSet<>();
+        for (VolatileJavaFile file : emitter.getEmitted()) {
+            String path = file.toUri().getPath();
+            String name = path.substring(path.lastIndexOf('/') + 1);
+            if (name.endsWith(".java")) {
+                name = name.substring(0, name.length() - 5);
+            }
+            results.add(name);
+        }
+        return results;
+    }
+
+    private static final class TrackingFiler extends Filer {
+
+        final Set<String> names = Collections.synchronizedSet(new TreeSet<>());
+
+        TrackingFiler(File output) {
+            super(output, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public PrintWriter openFor(PackageDeclaration packageDeclOrNull, String subPath) throws IOException {
+            if (subPath.endsWith(".java")) {
+                names.add(subPath.substring(0, subPath.length() - 5));
+            }
+            return super.openFor(packageDeclOrNull, subPath);
+        }
+    }
+}
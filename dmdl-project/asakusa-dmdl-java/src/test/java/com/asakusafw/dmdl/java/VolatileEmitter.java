@@ -45,7 +45,7 @@ public class VolatileEmitter extends Emitter {
         return new PrintWriter(file.openWriter());
     }
 
-    private void register(VolatileJavaFile file) {
+    private synchronized void register(VolatileJavaFile file) {
         emitted.add(file);
     }
 
@@ -53,7 +53,7 @@ public class VolatileEmitter extends Emitter {
      * Returns the emitted files.
      * @return the emitted files
      */
-    public List<VolatileJavaFile> getEmitted() {
+    public synchronized List<VolatileJavaFile> getEmitted() {
         return emitted;
     }
 }
@@ -0,0 +1,185 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.dmdl.java.emitter.driver;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.asakusafw.dmdl.java.GeneratorTesterRoot;
+import com.asakusafw.runtime.value.Date;
+
+/**
+ * Test for {@link RawComparatorDriver}.
+ */
+public class RawComparatorDriverTest extends GeneratorTesterRoot {
+
+    /**
+     * Initializes the test.
+     * @throws Exception if some errors were occurred
+     */
+    @Before
+    public void setUp() throws Exception {
+        emitDrivers.add(new WritableDriver());
+        emitDrivers.add(new ObjectDriver());
+        emitDrivers.add(new RawComparatorDriver());
+    }
+
+    /**
+     * compare all properties.
+     * @throws Exception if test was failed
+     */
+    @Test
+    public void compare() throws Exception {
+        ModelLoader loader = generate("raw_comparator");
+        Class<?> type = loader.modelType("Primitives");
+
+        ModelWrapper a = loader.newModel("Primitives");
+        ModelWrapper b = loader.newModel("Primitives");
+        assertThat(compare(type, -1L, a, b), is(0));
+
+        a.set("type_int", 100);
+        b.set("type_int", 100);
+        a.set("type_text", new Text("a"));
+        b.set("type_text", new Text("b"));
+        assertThat(compare(type, -1L, a, b), lessThan(0));
+        assertThat(compare(type, -1L, b, a), greaterThan(0));
+
+        a.set("type_int", 200);
+        assertThat(compare(type, -1L, a, b), greaterThan(0));
+    }
+
+    /**
+     * compare property subset.
+     * @throws Exception if test was failed
+     */
+    @Test
+    public void compare_subset() throws Exception {
+        ModelLoader loader = generate("raw_comparator");
+        Class<?> type = loader.modelType("Primitives");
+
+        // type_int:0, type_text:7, type_date:9
+        long intOnly = 1L << 0;
+        long dateOnly = 1L << 9;
+
+        ModelWrapper a = loader.newModel("Primitives");
+        ModelWrapper b = loader.newModel("Primitives");
+        a.set("type_int", 100);
+        b.set("type_int", 100);
+        a.set("type_text", new Text("Hello, world!"));
+        b.set("type_text", new Text("Hello"));
+        a.set("type_date", new Date(2011, 3, 31));
+        b.set("type_date", new Date(2011, 4, 1));
+
+        assertThat(compare(type, intOnly, a, b), is(0));
+        assertThat(compare(type, dateOnly, a, b), lessThan(0));
+        assertThat(compare(type, intOnly | dateOnly, a, b), lessThan(0));
+        assertThat(compare(type, -1L, a, b), greaterThan(0));
+        assertThat(compare(type, 0L, a, b), is(0));
+    }
+
+    /**
+     * hash properties.
+     * @throws Exception if test was failed
+     */
+    @Test
+    public void hash() throws Exception {
+        ModelLoader loader = generate("raw_comparator");
+        Class<?> type = loader.modelType("Primitives");
+
+        ModelWrapper a = loader.newModel("Primitives");
+        ModelWrapper b = loader.newModel("Primitives");
+        a.set("type_int", 100);
+        b.set("type_int", 100);
+        a.set("type_text", new Text("a"));
+        b.set("type_text", new Text("b"));
+
+        long intOnly = 1L << 0;
+        assertThat(hash(type, intOnly, a), is(hash(type, intOnly, b)));
+        assertThat(hash(type, -1L, a), is(not(hash(type, -1L, b))));
+
+        b.set("type_text", new Text("a"));
+        assertThat(hash(type, -1L, a), is(hash(type, -1L, b)));
+    }
+
+    /**
+     * the model is not annotated.
+     * @throws Exception if test was failed
+     */
+    @Test
+    public void not_annotated() throws Exception {
+        ModelLoader loader = generate("raw_comparator");
+        Class<?> type = loader.modelType("Plain");
+        for (Method method : type.getMethods()) {
+            assertThat(method.getName(), is(not(RawComparatorDriver.NAME_COMPARE_BYTES)));
+            assertThat(method.getName(), is(not(RawComparatorDriver.NAME_HASH_BYTES)));
+        }
+    }
+
+    /**
+     * the model has too many properties.
+     * @throws Exception if test was failed
+     */
+    @Test
+    public void too_many_properties() throws Exception {
+        List<String> lines = new ArrayList<>();
+        lines.add("@raw_comparator");
+        lines.add("model = {");
+        for (int i = 0; i <= RawComparatorDriver.MAX_PROPERTIES; i++) {
+            lines.add(String.format("p%d : INT;", i));
+        }
+        lines.add("};");
+        ModelLoader loader = generate(lines.toArray(new String[lines.size()]));
+        Class<?> type = loader.modelType("Model");
+        for (Method method : type.getMethods()) {
+            assertThat(method.getName(), is(not(RawComparatorDriver.NAME_COMPARE_BYTES)));
+            assertThat(method.getName(), is(not(RawComparatorDriver.NAME_HASH_BYTES)));
+        }
+    }
+
+    private static int compare(Class<?> type, long properties, ModelWrapper a, ModelWrapper b) throws Exception {
+        byte[] b1 = serialize(a, 3);
+        byte[] b2 = serialize(b, 5);
+        Method method = type.getMethod(RawComparatorDriver.NAME_COMPARE_BYTES,
+                long.class, byte[].class, int.class, int.class, byte[].class, int.class, int.class);
+        return (Integer) method.invoke(null, properties, b1, 3, b1.length - 3, b2, 5, b2.length - 5);
+    }
+
+    private static int hash(Class<?> type, long properties, ModelWrapper model) throws Exception {
+        byte[] bytes = serialize(model, 1);
+        Method method = type.getMethod(RawComparatorDriver.NAME_HASH_BYTES,
+                long.class, byte[].class, int.class, int.class);
+        return (Integer) method.invoke(null, properties, bytes, 1, bytes.length - 1);
+    }
+
+    private static byte[] serialize(ModelWrapper model, int padding) throws Exception {
+        DataOutputBuffer output = new DataOutputBuffer();
+        output.write(new byte[padding]);
+        ((Writable) model.unwrap()).write(output);
+        byte[] results = new byte[output.getLength()];
+        System.arraycopy(output.getData(), 0, results, 0, results.length);
+        return results;
+    }
+}
@@ -81,4 +81,56 @@ public class WritableDriverTest extends GeneratorTesterRoot {
         assertThat(input.read(), is(-1));
         assertThat(writable, equalTo(copy));
     }
+
+    /**
+     * lazy deserialization.
+     * @throws Exception if test was failed
+     */
+    @Test
+    public void lazy() throws Exception {
+        ModelLoader loader = generate();
+        ModelWrapper eager = loader.newModel("EagerModel");
+        eager.set("type_int", 100);
+        eager.set("type_text", new Text("Hello, world!"));
+        eager.set("type_long", 200L);
+        eager.set("type_decimal", new BigDecimal("1234.567"));
+
+        DataOutputBuffer output = new DataOutputBuffer();
+        ((Writable) eager.unwrap()).write(output);
+
+        ModelWrapper lazy = loader.newModel("LazyModel");
+        DataInputBuffer input = new DataInputBuffer();
+        input.reset(output.getData(), output.getLength());
+        ((Writable) lazy.unwrap()).readFields(input);
+        assertThat(input.read(), is(-1));
+
+        assertThat(lazy.get("type_long"), is((Object) 200L));
+        lazy.set("type_int", 300);
+
+        DataOutputBuffer rewrite = new DataOutputBuffer();
+        ((Writable) lazy.unwrap()).write(rewrite);
+
+        ModelWrapper copy = loader.newModel("EagerModel");
+        input.reset(rewrite.getData(), rewrite.getLength());
+        ((Writable) copy.unwrap()).readFields(input);
+        assertThat(input.read(), is(-1));
+
+        assertThat(copy.get("type_int"), is((Object) 300));
+        assertThat(copy.get("type_text"), is((Object) new Text("Hello, world!")));
+        assertThat(copy.get("type_long"), is((Object) 200L));
+        assertThat(copy.get("type_decimal"), is((Object) new BigDecimal("1234.567")));
+
+        ModelWrapper other = loader.newModel("LazyModel");
+        input.reset(rewrite.getData(), rewrite.getLength());
+        ((Writable) other.unwrap()).readFields(input);
+        assertThat(other.unwrap(), is(lazy.unwrap()));
+        assertThat(other.unwrap().hashCode(), is(lazy.unwrap().hashCode()));
+
+        ModelWrapper copied = loader.newModel("LazyModel");
+        copied.copyFrom(other);
+        assertThat(copied.get("type_text"), is((Object) new Text("Hello, world!")));
+
+        other.reset();
+        assertThat(other.getOption("type_text").isNull(), is(true));
+    }
 }
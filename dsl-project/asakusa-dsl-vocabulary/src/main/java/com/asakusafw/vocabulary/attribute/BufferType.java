@@ -18,6 +18,7 @@ package com.asakusafw.vocabulary.attribute;
 /**
  * Represents a buffer type of inputs.
  * @since 0.9.1
+ * @version 0.10.5
  */
 public enum BufferType implements Attribute {
 
@@ -35,4 +36,10 @@ public enum BufferType implements Attribute {
      * Does not allocate buffer space.
      */
     VOLATILE,
+
+    /**
+     * Allocates a buffer onto off-heap memory segments and temporary files.
+     * @since 0.10.5
+     */
+    OFF_HEAP,
 }
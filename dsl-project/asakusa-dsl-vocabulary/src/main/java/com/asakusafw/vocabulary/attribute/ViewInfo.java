@@ -25,6 +25,7 @@ import java.util.stream.Collectors;
 /**
  * Represents information of data-flow views.
  * @since 0.9.1
+ * @version 0.10.5
  */
 public final class ViewInfo implements Attribute {
 
@@ -60,6 +61,34 @@ public final class ViewInfo implements Attribute {
      * @see #getTerms()
      */
     public static ViewInfo groupOf(String... terms) {
+        return parse(ViewKind.GROUP, terms);
+    }
+
+    /**
+     * Creates a new sorted group view information instance from the given grouping term list.
+     * The form of each term is as same as {@link #groupOf(String...)}, and the first ordering term represents
+     * the sort key of the view: it must exist and must be ascendant.
+     * @param terms the property terms
+     * @return the created instance
+     * @see #getTerms()
+     * @since 0.10.5
+     */
+    public static ViewInfo sortedOf(String... terms) {
+        ViewInfo result = parse(ViewKind.SORTED, terms);
+        if (result.ordering.isEmpty()) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "sorted view must have the sort key: {0}", //$NON-NLS-1$
+                    String.join(", ", terms))); //$NON-NLS-1$
+        }
+        if (result.ordering.get(0).getDirection() != Direction.ASCENDANT) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "sort key of sorted view must be ascendant: {0}", //$NON-NLS-1$
+                    result.ordering.get(0)));
+        }
+        return result;
+    }
+
+    private static ViewInfo parse(ViewKind kind, String... terms) {
         List<String> grouping = new ArrayList<>();
         List<Ordering> ordering = new ArrayList<>();
         for (String term : terms) {
@@ -82,7 +111,7 @@ public final class ViewInfo implements Attribute {
                 throw new IllegalArgumentException(term);
             }
         }
-        return new ViewInfo(ViewKind.GROUP, grouping, ordering);
+        return new ViewInfo(kind, grouping, ordering);
     }
 
     /**
@@ -164,7 +193,8 @@ public final class ViewInfo implements Attribute {
         switch (kind) {
         case FLAT:
             return "PlainView"; //$NON-NLS-1$
-        case GROUP: {
+        case GROUP:
+        case SORTED: {
             List<String> elements = new ArrayList<>();
             for (String name : grouping) {
                 elements.add(String.format("=%s", name)); //$NON-NLS-1$
@@ -173,7 +203,8 @@ public final class ViewInfo implements Attribute {
                 elements.add(order.toString());
             }
             return MessageFormat.format(
-                    "GroupView{0}", //$NON-NLS-1$
+                    "{0}{1}", //$NON-NLS-1$
+                    kind == ViewKind.SORTED ? "SortedGroupView" : "GroupView", //$NON-NLS-1$ //$NON-NLS-2$
                     elements);
         }
         default:
@@ -184,6 +215,7 @@ public final class ViewInfo implements Attribute {
     /**
      * Represents a kind of view.
      * @since 0.9.1
+     * @version 0.10.5
      */
     public enum ViewKind {
 
@@ -196,6 +228,12 @@ public final class ViewInfo implements Attribute {
          * Represents a {@code GroupView}.
          */
         GROUP,
+
+        /**
+         * Represents a {@code SortedGroupView}.
+         * @since 0.10.5
+         */
+        SORTED,
     }
 
     /**
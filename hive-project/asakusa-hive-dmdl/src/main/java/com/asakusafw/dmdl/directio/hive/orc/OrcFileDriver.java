@@ -47,13 +47,14 @@ The attributed declaration can have:
 <li> with {@code format_version=[string-literal]} as ORCFile format version (default: system default) </li>
 <li> with {@code compression=[string-literal]} as compression kind name (default: {@code "snappy"}) </li>
 <li> with {@code stripe_size=integer} as stripe size (default: system default) </li>
+<li> with {@code enable_vectorization=boolean} as vectorized I/O on/off (default: {@code FALSE}) </li>
 <li> with {@code field_mappping=[string-literal]}  (default: {@code "position"}) </li>
 <li> with {@code missing_source=[string-literal]}  (default: {@code "logging"}) </li>
 <li> with {@code missing_target=[string-literal]}  (default: {@code "logging"}) </li>
 <li> with {@code incompatible_type=[string-literal]}  (default: {@code "fail"}) </li>
 </ul>
  * @since 0.7.0
- * @version 0.10.3
+ * @version 0.10.5
  */
 public class OrcFileDriver extends ModelAttributeDriver {
 
@@ -84,6 +85,12 @@ public class OrcFileDriver extends ModelAttributeDriver {
      */
     public static final String ELEMENT_STRIPE_SIZE = "stripe_size"; //$NON-NLS-1$
 
+    /**
+     * The element name of vectorization enabled.
+     * @since 0.10.5
+     */
+    public static final String ELEMENT_ENABLE_VECTORIZATION = "enable_vectorization"; //$NON-NLS-1$
+
     /**
      * The element name of field mapping strategy.
      */
@@ -152,6 +159,7 @@ public class OrcFileDriver extends ModelAttributeDriver {
         consumeFormatVersion(environment, attribute, elements, result);
         consumeCompressionKind(environment, attribute, elements, result);
         consumeStripeSize(environment, attribute, elements, result);
+        consumeEnableVectorization(environment, attribute, elements, result);
 
         consumeFieldMapping(environment, attribute, elements, result);
         consumeMissingSource(environment, attribute, elements, result);
@@ -298,6 +306,15 @@ public class OrcFileDriver extends ModelAttributeDriver {
         }
     }
 
+    private void consumeEnableVectorization(
+            DmdlSemantics environment, AstAttribute attribute,
+            Map<String, AstAttributeElement> elements, OrcFileTrait result) {
+        AstLiteral value = take(environment, attribute, elements, ELEMENT_ENABLE_VECTORIZATION, LiteralKind.BOOLEAN);
+        if (value != null) {
+            result.configuration().withEnableVectorization(value.toBooleanValue());
+        }
+    }
+
     private AstLiteral take(
             DmdlSemantics environment,
             AstAttribute attribute,
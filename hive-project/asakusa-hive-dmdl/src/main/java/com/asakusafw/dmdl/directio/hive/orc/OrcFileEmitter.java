@@ -250,6 +250,12 @@ public class OrcFileEmitter extends JavaDataModelDriver {
                     .method("withStripeSize", Models.toLiteral(f, (long) conf.getStripeSize())) //$NON-NLS-1$
                     .toStatement());
             }
+            if (conf.getEnableVectorization() != null) {
+                statements.add(new ExpressionBuilder(f, result)
+                    .method("withEnableVectorization", //$NON-NLS-1$
+                            Models.toLiteral(f, conf.getEnableVectorization()))
+                    .toStatement());
+            }
             statements.add(new ExpressionBuilder(f, result).toReturnStatement());
             return f.newMethodDeclaration(
                     null,
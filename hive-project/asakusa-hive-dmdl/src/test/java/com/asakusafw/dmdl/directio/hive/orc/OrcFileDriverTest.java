@@ -57,6 +57,7 @@ public class OrcFileDriverTest extends GeneratorTesterRoot {
         assertThat(trait.configuration().getFormatVersion(), is(nullValue()));
         assertThat(trait.configuration().getCompressionKind(), is(nullValue()));
         assertThat(trait.configuration().getStripeSize(), is(nullValue()));
+        assertThat(trait.configuration().getEnableVectorization(), is(nullValue()));
     }
 
     /**
@@ -74,6 +75,7 @@ public class OrcFileDriverTest extends GeneratorTesterRoot {
                 "  format_version = '0.11',",
                 "  compression = 'zlib',",
                 "  stripe_size = 123456789,",
+                "  enable_vectorization = TRUE,",
                 ")",
                 "model = { simple : INT; };"
         }).findModelDeclaration("model");
@@ -89,6 +91,7 @@ public class OrcFileDriverTest extends GeneratorTesterRoot {
         assertThat(trait.configuration().getFormatVersion(OrcFile.Version.class), is(OrcFile.Version.V_0_11));
         assertThat(trait.configuration().getCompressionKind(CompressionKind.class), is(CompressionKind.ZLIB));
         assertThat(trait.configuration().getStripeSize(), is(123456789L));
+        assertThat(trait.configuration().getEnableVectorization(), is(true));
     }
 
     /**
@@ -55,6 +55,7 @@ public class OrcFileEmitterTest extends GeneratorTesterRoot {
         assertThat(conf.getFormatVersion(), is(nullValue()));
         assertThat(conf.getCompressionKind(CompressionKind.class), is(CompressionKind.SNAPPY));
         assertThat(conf.getStripeSize(), is(64L * 1024 * 1024));
+        assertThat(conf.getEnableVectorization(), is(nullValue()));
 
         assertThat(loader.exists(OrcFileEmitter.CATEGORY, "AbstractModelOrcFileInputDescription"), is(true));
         assertThat(loader.exists(OrcFileEmitter.CATEGORY, "AbstractModelOrcFileOutputDescription"), is(true));
@@ -92,6 +93,7 @@ public class OrcFileEmitterTest extends GeneratorTesterRoot {
                 "  format_version = '0.11',",
                 "  compression = 'zlib',",
                 "  stripe_size = 123456789,",
+                "  enable_vectorization = TRUE,",
                 ")",
                 "model = { simple : INT; };"
         });
@@ -107,6 +109,7 @@ public class OrcFileEmitterTest extends GeneratorTesterRoot {
         assertThat(conf.getFormatVersion(OrcFile.Version.class), is(OrcFile.Version.V_0_11));
         assertThat(conf.getCompressionKind(CompressionKind.class), is(CompressionKind.ZLIB));
         assertThat(conf.getStripeSize(), is(123456789L));
+        assertThat(conf.getEnableVectorization(), is(true));
     }
 
     private AbstractOrcFileFormat<?> load(ModelLoader loader, String simpleName) {
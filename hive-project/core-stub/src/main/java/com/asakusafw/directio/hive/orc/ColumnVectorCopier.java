@@ -0,0 +1,472 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.directio.hive.orc;
+
+import org.apache.hadoop.hive.common.type.HiveDecimal;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.io.Text;
+
+import com.asakusafw.directio.hive.serde.ValueSerde;
+import com.asakusafw.runtime.value.BooleanOption;
+import com.asakusafw.runtime.value.ByteOption;
+import com.asakusafw.runtime.value.DateOption;
+import com.asakusafw.runtime.value.DateUtil;
+import com.asakusafw.runtime.value.DecimalOption;
+import com.asakusafw.runtime.value.DoubleOption;
+import com.asakusafw.runtime.value.FloatOption;
+import com.asakusafw.runtime.value.IntOption;
+import com.asakusafw.runtime.value.LongOption;
+import com.asakusafw.runtime.value.ShortOption;
+import com.asakusafw.runtime.value.StringOption;
+import com.asakusafw.runtime.value.ValueOption;
+
+/**
+ * Copies values between {@link ColumnVector} and {@link ValueOption}.
+ * Each implementation is specialized for a column type, so that it does not require any object inspectors.
+ * @since 0.10.5
+ */
+public abstract class ColumnVectorCopier {
+
+    /**
+     * The number of elapsed days from {@code 0001/01/01} to {@code 1970/01/01}.
+     */
+    static final int EPOCH_DAY = DateUtil.getDayFromDate(1970, 1, 1);
+
+    private final Class<?> valueClass;
+
+    /**
+     * Creates a new instance.
+     * @param valueClass the property type which this copier accepts
+     */
+    protected ColumnVectorCopier(Class<? extends ValueOption<?>> valueClass) {
+        this.valueClass = valueClass;
+    }
+
+    /**
+     * Returns a copier for the given property ser/de.
+     * Note that, this does not support {@code TIMESTAMP} because its vector representation depends on the
+     * Hive version.
+     * @param serde the target property ser/de
+     * @return the corresponded copier, or {@code null} if it is not supported
+     * @see #find(Class, TypeInfo)
+     */
+    public static ColumnVectorCopier find(ValueSerde serde) {
+        return find(serde.getValueClass(), serde.getTypeInfo());
+    }
+
+    /**
+     * Returns a copier between the given property type and column type.
+     * This only returns a copier if the property type is the natural representation of the column type,
+     * for example, this returns {@code null} for {@link DecimalOption} properties which are stored as
+     * {@code STRING} columns.
+     * Note that, this does not support {@code TIMESTAMP} because its vector representation depends on the
+     * Hive version.
+     * @param valueClass the property type
+     * @param type the column type
+     * @return the corresponded copier, or {@code null} if it is not supported
+     */
+    public static ColumnVectorCopier find(Class<?> valueClass, TypeInfo type) {
+        if ((type instanceof PrimitiveTypeInfo) == false) {
+            return null;
+        }
+        ColumnVectorCopier copier = find(((PrimitiveTypeInfo) type).getPrimitiveCategory());
+        if (copier == null || copier.valueClass != valueClass) {
+            return null;
+        }
+        return copier;
+    }
+
+    private static ColumnVectorCopier find(PrimitiveCategory category) {
+        switch (category) {
+        case BOOLEAN:
+            return BooleanCopier.INSTANCE;
+        case BYTE:
+            return ByteCopier.INSTANCE;
+        case SHORT:
+            return ShortCopier.INSTANCE;
+        case INT:
+            return IntCopier.INSTANCE;
+        case LONG:
+            return LongCopier.INSTANCE;
+        case FLOAT:
+            return FloatCopier.INSTANCE;
+        case DOUBLE:
+            return DoubleCopier.INSTANCE;
+        case DATE:
+            return DateCopier.INSTANCE;
+        case DECIMAL:
+            return DecimalCopier.INSTANCE;
+        case STRING:
+        case VARCHAR:
+            return StringCopier.INSTANCE;
+        case CHAR:
+            return CharCopier.INSTANCE;
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Copies a value in the column vector into the target property.
+     * @param vector the source column vector
+     * @param row the row index in the column vector
+     * @param target the target property
+     */
+    public abstract void read(ColumnVector vector, int row, ValueOption<?> target);
+
+    /**
+     * Copies a value of the source property into the column vector.
+     * @param source the source property
+     * @param vector the target column vector
+     * @param row the row index in the column vector
+     */
+    public abstract void write(ValueOption<?> source, ColumnVector vector, int row);
+
+    /**
+     * Returns the actual row index in the column vector.
+     * @param vector the column vector
+     * @param row the logical row index
+     * @return the actual row index, or {@code -1} if the target value is {@code null}
+     */
+    protected static int index(ColumnVector vector, int row) {
+        int index = vector.isRepeating ? 0 : row;
+        if (vector.noNulls == false && vector.isNull[index]) {
+            return -1;
+        }
+        return index;
+    }
+
+    /**
+     * Puts a {@code null} value into the column vector if the source property is {@code null}.
+     * @param source the source property
+     * @param vector the target column vector
+     * @param row the row index in the column vector
+     * @return {@code true} if the source property is {@code null}, otherwise {@code false}
+     */
+    protected static boolean putNull(ValueOption<?> source, ColumnVector vector, int row) {
+        if (source.isNull()) {
+            vector.noNulls = false;
+            vector.isNull[row] = true;
+            return true;
+        }
+        vector.isNull[row] = false;
+        return false;
+    }
+
+    private static final class BooleanCopier extends ColumnVectorCopier {
+
+        static final BooleanCopier INSTANCE = new BooleanCopier();
+
+        BooleanCopier() {
+            super(BooleanOption.class);
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void read(ColumnVector vector, int row, ValueOption<?> target) {
+            int index = index(vector, row);
+            if (index < 0) {
+                target.setNull();
+            } else {
+                ((BooleanOption) target).modify(((LongColumnVector) vector).vector[index] != 0);
+            }
+        }
+
+        @Override
+        public void write(ValueOption<?> source, ColumnVector vector, int row) {
+            if (putNull(source, vector, row) == false) {
+                ((LongColumnVector) vector).vector[row] = ((BooleanOption) source).get() ? 1 : 0;
+            }
+        }
+    }
+
+    private static final class ByteCopier extends ColumnVectorCopier {
+
+        static final ByteCopier INSTANCE = new ByteCopier();
+
+        ByteCopier() {
+            super(ByteOption.class);
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void read(ColumnVector vector, int row, ValueOption<?> target) {
+            int index = index(vector, row);
+            if (index < 0) {
+                target.setNull();
+            } else {
+                ((ByteOption) target).modify((byte) ((LongColumnVector) vector).vector[index]);
+            }
+        }
+
+        @Override
+        public void write(ValueOption<?> source, ColumnVector vector, int row) {
+            if (putNull(source, vector, row) == false) {
+                ((LongColumnVector) vector).vector[row] = ((ByteOption) source).get();
+            }
+        }
+    }
+
+    private static final class ShortCopier extends ColumnVectorCopier {
+
+        static final ShortCopier INSTANCE = new ShortCopier();
+
+        ShortCopier() {
+            super(ShortOption.class);
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void read(ColumnVector vector, int row, ValueOption<?> target) {
+            int index = index(vector, row);
+            if (index < 0) {
+                target.setNull();
+            } else {
+                ((ShortOption) target).modify((short) ((LongColumnVector) vector).vector[index]);
+            }
+        }
+
+        @Override
+        public void write(ValueOption<?> source, ColumnVector vector, int row) {
+            if (putNull(source, vector, row) == false) {
+                ((LongColumnVector) vector).vector[row] = ((ShortOption) source).get();
+            }
+        }
+    }
+
+    private static final class IntCopier extends ColumnVectorCopier {
+
+        static final IntCopier INSTANCE = new IntCopier();
+
+        IntCopier() {
+            super(IntOption.class);
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void read(ColumnVector vector, int row, ValueOption<?> target) {
+            int index = index(vector, row);
+            if (index < 0) {
+                target.setNull();
+            } else {
+                ((IntOption) target).modify((int) ((LongColumnVector) vector).vector[index]);
+            }
+        }
+
+        @Override
+        public void write(ValueOption<?> source, ColumnVector vector, int row) {
+            if (putNull(source, vector, row) == false) {
+                ((LongColumnVector) vector).vector[row] = ((IntOption) source).get();
+            }
+        }
+    }
+
+    private static final class LongCopier extends ColumnVectorCopier {
+
+        static final LongCopier INSTANCE = new LongCopier();
+
+        LongCopier() {
+            super(LongOption.class);
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void read(ColumnVector vector, int row, ValueOption<?> target) {
+            int index = index(vector, row);
+            if (index < 0) {
+                target.setNull();
+            } else {
+                ((LongOption) target).modify(((LongColumnVector) vector).vector[index]);
+            }
+        }
+
+        @Override
+        public void write(ValueOption<?> source, ColumnVector vector, int row) {
+            if (putNull(source, vector, row) == false) {
+                ((LongColumnVector) vector).vector[row] = ((LongOption) source).get();
+            }
+        }
+    }
+
+    private static final class FloatCopier extends ColumnVectorCopier {
+
+        static final FloatCopier INSTANCE = new FloatCopier();
+
+        FloatCopier() {
+            super(FloatOption.class);
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void read(ColumnVector vector, int row, ValueOption<?> target) {
+            int index = index(vector, row);
+            if (index < 0) {
+                target.setNull();
+            } else {
+                ((FloatOption) target).modify((float) ((DoubleColumnVector) vector).vector[index]);
+            }
+        }
+
+        @Override
+        public void write(ValueOption<?> source, ColumnVector vector, int row) {
+            if (putNull(source, vector, row) == false) {
+                ((DoubleColumnVector) vector).vector[row] = ((FloatOption) source).get();
+            }
+        }
+    }
+
+    private static final class DoubleCopier extends ColumnVectorCopier {
+
+        static final DoubleCopier INSTANCE = new DoubleCopier();
+
+        DoubleCopier() {
+            super(DoubleOption.class);
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void read(ColumnVector vector, int row, ValueOption<?> target) {
+            int index = index(vector, row);
+            if (index < 0) {
+                target.setNull();
+            } else {
+                ((DoubleOption) target).modify(((DoubleColumnVector) vector).vector[index]);
+            }
+        }
+
+        @Override
+        public void write(ValueOption<?> source, ColumnVector vector, int row) {
+            if (putNull(source, vector, row) == false) {
+                ((DoubleColumnVector) vector).vector[row] = ((DoubleOption) source).get();
+            }
+        }
+    }
+
+    private static final class DateCopier extends ColumnVectorCopier {
+
+        static final DateCopier INSTANCE = new DateCopier();
+
+        DateCopier() {
+            super(DateOption.class);
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void read(ColumnVector vector, int row, ValueOption<?> target) {
+            int index = index(vector, row);
+            if (index < 0) {
+                target.setNull();
+            } else {
+                ((DateOption) target).modify((int) ((LongColumnVector) vector).vector[index] + EPOCH_DAY);
+            }
+        }
+
+        @Override
+        public void write(ValueOption<?> source, ColumnVector vector, int row) {
+            if (putNull(source, vector, row) == false) {
+                ((LongColumnVector) vector).vector[row] = ((DateOption) source).get().getElapsedDays() - EPOCH_DAY;
+            }
+        }
+    }
+
+    private static final class DecimalCopier extends ColumnVectorCopier {
+
+        static final DecimalCopier INSTANCE = new DecimalCopier();
+
+        DecimalCopier() {
+            super(DecimalOption.class);
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void read(ColumnVector vector, int row, ValueOption<?> target) {
+            int index = index(vector, row);
+            if (index < 0) {
+                target.setNull();
+            } else {
+                HiveDecimal value = ((DecimalColumnVector) vector).vector[index].getHiveDecimal();
+                ((DecimalOption) target).modify(value.bigDecimalValue());
+            }
+        }
+
+        @Override
+        public void write(ValueOption<?> source, ColumnVector vector, int row) {
+            if (putNull(source, vector, row) == false) {
+                ((DecimalColumnVector) vector).set(row, HiveDecimal.create(((DecimalOption) source).get()));
+            }
+        }
+    }
+
+    private static class StringCopier extends ColumnVectorCopier {
+
+        static final StringCopier INSTANCE = new StringCopier();
+
+        StringCopier() {
+            super(StringOption.class);
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void read(ColumnVector vector, int row, ValueOption<?> target) {
+            int index = index(vector, row);
+            if (index < 0) {
+                target.setNull();
+            } else {
+                BytesColumnVector v = (BytesColumnVector) vector;
+                int offset = v.start[index];
+                ((StringOption) target).modify(v.vector[index], offset, length(v.vector[index], offset, v.length[index]));
+            }
+        }
+
+        int length(byte[] bytes, int offset, int length) {
+            return length;
+        }
+
+        @Override
+        public void write(ValueOption<?> source, ColumnVector vector, int row) {
+            if (putNull(source, vector, row) == false) {
+                Text text = ((StringOption) source).get();
+                ((BytesColumnVector) vector).setVal(row, text.getBytes(), 0, text.getLength());
+            }
+        }
+    }
+
+    private static final class CharCopier extends StringCopier {
+
+        static final CharCopier INSTANCE = new CharCopier();
+
+        CharCopier() {
+            return;
+        }
+
+        @Override
+        int length(byte[] bytes, int offset, int length) {
+            // strips trailing white-spaces, like as HiveChar
+            int end = offset + length;
+            while (end > offset && bytes[end - 1] == ' ') {
+                end--;
+            }
+            return end - offset;
+        }
+    }
+}
@@ -23,7 +23,7 @@ import com.asakusafw.directio.hive.serde.DataModelMapping.FieldMappingStrategy;
 /**
  * Represents the ORCFile format configurations.
  * @since 0.7.0
- * @version 0.10.3
+ * @version 0.10.5
  */
 public class OrcFormatConfiguration {
 
@@ -41,6 +41,8 @@ public class OrcFormatConfiguration {
 
     private Long stripeSize = 64L * 1024 * 1024;
 
+    private Boolean enableVectorization;
+
     /**
      * Clears all properties.
      * @return this
@@ -53,6 +55,7 @@ public class OrcFormatConfiguration {
         formatVersion = null;
         compressionKind = null;
         stripeSize = null;
+        enableVectorization = null;
         return this;
     }
 
@@ -126,6 +129,17 @@ public class OrcFormatConfiguration {
         return this;
     }
 
+    /**
+     * Sets whether the vectorized I/O is enabled or not.
+     * @param value {@code true} to enable, {@code false} to disable, or {@code null} to use the default setting
+     * @return this
+     * @since 0.10.5
+     */
+    public OrcFormatConfiguration withEnableVectorization(Boolean value) {
+        this.enableVectorization = value;
+        return this;
+    }
+
     /**
      * Returns the field mapping strategy.
      * @return the field mapping strategy
@@ -208,6 +222,16 @@ public class OrcFormatConfiguration {
         return stripeSize;
     }
 
+    /**
+     * Returns whether the vectorized I/O is enabled or not.
+     * @return {@code true} if it is enabled, {@code false} if it is disabled,
+     *     or {@code null} if use system default value
+     * @since 0.10.5
+     */
+    public Boolean getEnableVectorization() {
+        return enableVectorization;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -225,6 +249,8 @@ public class OrcFormatConfiguration {
         builder.append(compressionKind);
         builder.append(", stripeSize="); //$NON-NLS-1$
         builder.append(stripeSize);
+        builder.append(", enableVectorization="); //$NON-NLS-1$
+        builder.append(enableVectorization);
         builder.append("]"); //$NON-NLS-1$
         return builder.toString();
     }
@@ -0,0 +1,244 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.directio.hive.orc;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.Reader;
+import org.apache.hadoop.hive.ql.io.orc.RecordReader;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
+
+import com.asakusafw.directio.hive.serde.DataModelDescriptor;
+import com.asakusafw.directio.hive.serde.DataModelDriver;
+import com.asakusafw.directio.hive.serde.DataModelMapping;
+import com.asakusafw.directio.hive.serde.PropertyDescriptor;
+import com.asakusafw.runtime.directio.Counter;
+import com.asakusafw.runtime.io.ModelInput;
+
+/**
+ * An implementation of {@link ModelInput} for reading ORCFile through {@link VectorizedRowBatch}.
+ * <p>
+ * This reads a batch of rows at once, and then copies each row into the data model objects by
+ * {@link ColumnVectorCopier}s without any object inspectors.
+ * Subclasses must provide how to read the next batch, because it depends on the Hive version.
+ * If some columns in the file cannot be copied into the corresponded properties directly, this falls back to
+ * {@link OrcFileInput}.
+ * </p>
+ * @param <T> the data model type
+ * @since 0.10.5
+ */
+public abstract class VectorizedOrcFileInput<T> implements ModelInput<T> {
+
+    static final Log LOG = LogFactory.getLog(VectorizedOrcFileInput.class);
+
+    private final DataModelDescriptor descriptor;
+
+    private final DataModelMapping configuration;
+
+    private final FileSystem fileSystem;
+
+    private final Path path;
+
+    private final long offset;
+
+    private final long fragmentSize;
+
+    private final Counter counter;
+
+    private Reader currentOrc;
+
+    private RecordReader currentReader;
+
+    private int[] columns;
+
+    private PropertyDescriptor[] targets;
+
+    private ColumnVectorCopier[] copiers;
+
+    private VectorizedRowBatch batch;
+
+    private int batchIndex;
+
+    private long lastCount;
+
+    private OrcFileInput<T> fallback;
+
+    /**
+     * Creates a new instance.
+     * @param descriptor the target data model descriptor
+     * @param configuration the {@link DataModelDriver} configuration
+     * @param fileSystem the file system to open the target path
+     * @param path the path to the target file
+     * @param offset starting stream offset
+     * @param fragmentSize suggested fragment bytes count
+     * @param counter the current counter
+     */
+    public VectorizedOrcFileInput(
+            DataModelDescriptor descriptor,
+            DataModelMapping configuration,
+            FileSystem fileSystem, Path path,
+            long offset, long fragmentSize,
+            Counter counter) {
+        this.descriptor = descriptor;
+        this.configuration = configuration;
+        this.fileSystem = fileSystem;
+        this.path = path;
+        this.offset = offset;
+        this.fragmentSize = fragmentSize;
+        this.counter = counter;
+    }
+
+    /**
+     * Returns a copier between the given property type and column type.
+     * @param valueClass the property type
+     * @param type the column type
+     * @return the corresponded copier, or {@code null} if it is not supported
+     */
+    protected ColumnVectorCopier findCopier(Class<?> valueClass, TypeInfo type) {
+        return ColumnVectorCopier.find(valueClass, type);
+    }
+
+    /**
+     * Reads the next batch.
+     * @param orc the current ORCFile reader
+     * @param reader the current record reader
+     * @param previous the previous batch, or {@code null} if this is the first invocation
+     * @return the next batch, or {@code null} if there are no more rows
+     * @throws IOException if I/O error was occurred while reading the next batch
+     */
+    protected abstract VectorizedRowBatch nextBatch(
+            Reader orc, RecordReader reader, VectorizedRowBatch previous) throws IOException;
+
+    @Override
+    public boolean readTo(T model) throws IOException {
+        RecordReader reader = prepare();
+        if (reader == null) {
+            return fallback.readTo(model);
+        }
+        VectorizedRowBatch current = batch;
+        while (current == null || batchIndex >= current.size) {
+            current = nextBatch(currentOrc, reader, current);
+            if (current == null) {
+                return false;
+            }
+            batch = current;
+            batchIndex = 0;
+            advanceCounter((long) (fragmentSize * reader.getProgress()));
+        }
+        int row = current.selectedInUse ? current.selected[batchIndex] : batchIndex;
+        batchIndex++;
+        int[] cols = columns;
+        PropertyDescriptor[] props = targets;
+        ColumnVectorCopier[] cs = copiers;
+        for (int i = 0; i < cs.length; i++) {
+            cs[i].read(current.cols[cols[i]], row, props[i].extract(model));
+        }
+        return true;
+    }
+
+    private RecordReader prepare() throws IOException {
+        RecordReader reader = currentReader;
+        if (reader == null && fallback == null) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info(MessageFormat.format(
+                        Messages.getString("OrcFileInput.infoLoadMetadata"), //$NON-NLS-1$
+                        descriptor.getDataModelClass().getSimpleName(),
+                        path));
+            }
+            Reader orc = OrcFile.createReader(fileSystem, path);
+            StructObjectInspector sourceInspector = (StructObjectInspector) orc.getObjectInspector();
+            DataModelDriver driver = new DataModelDriver(descriptor, sourceInspector, configuration);
+            List<? extends StructField> all = sourceInspector.getAllStructFieldRefs();
+            List<StructField> sources = driver.getSourceFields();
+            List<PropertyDescriptor> properties = driver.getTargetProperties();
+            boolean[] availables = new boolean[all.size() + 1];
+            availables[0] = true;
+            columns = new int[sources.size()];
+            targets = new PropertyDescriptor[sources.size()];
+            copiers = new ColumnVectorCopier[sources.size()];
+            for (int i = 0, n = sources.size(); i < n; i++) {
+                PropertyDescriptor property = properties.get(i);
+                TypeInfo columnType = TypeInfoUtils.getTypeInfoFromObjectInspector(
+                        sources.get(i).getFieldObjectInspector());
+                ColumnVectorCopier copier = findCopier(property.getValueClass(), columnType);
+                if (copier == null) {
+                    // the file column type may differ from the property type
+                    if (LOG.isInfoEnabled()) {
+                        LOG.info(MessageFormat.format(
+                                Messages.getString("VectorizedOrcFileInput.infoFallback"), //$NON-NLS-1$
+                                descriptor.getDataModelClass().getSimpleName(),
+                                property.getFieldName(),
+                                columnType,
+                                path));
+                    }
+                    fallback = new OrcFileInput<>(
+                            descriptor, configuration,
+                            fileSystem, path,
+                            offset, fragmentSize,
+                            counter);
+                    return null;
+                }
+                int column = all.indexOf(sources.get(i));
+                assert column >= 0;
+                columns[i] = column;
+                targets[i] = property;
+                copiers[i] = copier;
+                availables[column + 1] = true;
+            }
+            if (LOG.isInfoEnabled()) {
+                LOG.info(MessageFormat.format(
+                        Messages.getString("OrcFileInput.infoLoadContents"), //$NON-NLS-1$
+                        descriptor.getDataModelClass().getSimpleName(),
+                        path,
+                        offset,
+                        fragmentSize));
+            }
+            reader = orc.rows(offset, fragmentSize, availables);
+            currentOrc = orc;
+            currentReader = reader;
+        }
+        return reader;
+    }
+
+    private void advanceCounter(long nextCount) {
+        long deltaCount = nextCount - lastCount;
+        if (deltaCount > 0) {
+            counter.add(deltaCount);
+            lastCount = nextCount;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (currentReader != null) {
+            currentReader.close();
+        }
+        if (fallback != null) {
+            fallback.close();
+        }
+    }
+}
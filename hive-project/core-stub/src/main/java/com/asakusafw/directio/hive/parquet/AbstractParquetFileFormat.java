@@ -26,6 +26,7 @@ import org.apache.hadoop.fs.Path;
 
 import com.asakusafw.directio.hive.serde.DataModelDescriptor;
 import com.asakusafw.directio.hive.serde.PropertyDescriptor;
+import com.asakusafw.directio.hive.util.ReadAheadModelInput;
 import com.asakusafw.info.hive.BuiltinStorageFormatInfo;
 import com.asakusafw.info.hive.StorageFormatInfo;
 import com.asakusafw.info.hive.TableInfo;
@@ -40,6 +41,7 @@ import com.asakusafw.runtime.io.ModelOutput;
  * An abstract implementation of {@link HadoopFileFormat} for Parquet.
  * @param <T> the data model type
  * @since 0.7.0
+ * @version 0.10.5
  */
 public abstract class AbstractParquetFileFormat<T> extends HadoopFileFormat<T>
         implements StripedDataFormat<T>, TableInfo.Provider {
@@ -102,6 +104,30 @@ public abstract class AbstractParquetFileFormat<T> extends HadoopFileFormat<T>
                     path,
                     getFormatConfiguration()));
         }
+        int parallelism = ReadAheadModelInput.getParallelism(getConf());
+        if (parallelism > 0) {
+            List<ReadAheadModelInput.Segment> segments = COMPAT.computeSegments(
+                    this, fileSystem, path, offset, fragmentSize);
+            if (segments.size() > 1) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(MessageFormat.format(
+                            "Parquet file read-ahead ({0}): segments={1}, parallelism={2}", //$NON-NLS-1$
+                            path,
+                            segments.size(),
+                            parallelism));
+                }
+                return new ReadAheadModelInput<>(
+                        getDataModelDescriptor(),
+                        segments,
+                        (segment, segmentCounter) -> COMPAT.createInput(
+                                this, dataType, fileSystem, path,
+                                segment.getOffset(), segment.getLength(),
+                                segmentCounter),
+                        counter,
+                        parallelism,
+                        ReadAheadModelInput.getMemoryBudget(getConf()));
+            }
+        }
         return COMPAT.createInput(this, dataType, fileSystem, path, offset, fragmentSize, counter);
     }
 
@@ -17,6 +17,7 @@ package com.asakusafw.directio.hive.parquet;
 
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
@@ -31,6 +32,7 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
 
+import com.asakusafw.directio.hive.util.ReadAheadModelInput;
 import com.asakusafw.runtime.directio.Counter;
 import com.asakusafw.runtime.directio.DirectInputFragment;
 import com.asakusafw.runtime.directio.hadoop.StripedDataFormat.InputContext;
@@ -41,6 +43,7 @@ import com.asakusafw.runtime.value.ValueOption;
 /**
  * compatibility layer for Direct I/O Parquet support.
  * @since 0.10.3
+ * @version 0.10.5
  */
 public abstract class Compatibility {
 
@@ -138,6 +141,31 @@ public abstract class Compatibility {
             long fragmentSize,
             Counter counter) throws IOException, InterruptedException;
 
+    /**
+     * returns the read-ahead segments in the target fragment.
+     * Each segment is passed to {@link #createInput(AbstractParquetFileFormat, Class, FileSystem, Path, long, long, Counter)}
+     * as its offset and fragment size.
+     * This implementation returns a single segment which represents the whole fragment,
+     * then read-ahead is disabled.
+     * @param format the source format
+     * @param fileSystem the file system to open the target path
+     * @param path the path to the target file
+     * @param offset starting stream offset
+     * @param fragmentSize suggested fragment bytes count, or {@code -1} as infinite
+     * @return the segments in the fragment, one for each row groups
+     * @throws IOException if failed to compute segments
+     * @throws InterruptedException if interrupted
+     * @since 0.10.5
+     */
+    public List<ReadAheadModelInput.Segment> computeSegments(
+            AbstractParquetFileFormat<?> format,
+            FileSystem fileSystem,
+            Path path,
+            long offset,
+            long fragmentSize) throws IOException, InterruptedException {
+        return Collections.singletonList(new ReadAheadModelInput.Segment(offset, fragmentSize));
+    }
+
     /**
      * delegate from {@link AbstractParquetFileFormat#createOutput(Class, FileSystem, Path, Counter)}.
      * @param <T> the data type
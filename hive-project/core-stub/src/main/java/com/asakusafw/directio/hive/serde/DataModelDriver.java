@@ -36,6 +36,7 @@ import com.asakusafw.runtime.value.ValueOption;
 /**
  * Drives a value into an Asakusa data model.
  * @since 0.7.0
+ * @version 0.10.5
  */
 public class DataModelDriver {
 
@@ -232,6 +233,17 @@ public class DataModelDriver {
         return results;
     }
 
+    /**
+     * Returns target properties which are mapped from the individual {@link #getSourceFields() source fields}.
+     * @return the target properties
+     * @since 0.10.5
+     */
+    public List<PropertyDescriptor> getTargetProperties() {
+        List<PropertyDescriptor> results = new ArrayList<>();
+        Collections.addAll(results, this.targetProperties);
+        return results;
+    }
+
     /**
      * Sets data model properties from the source object.
      * @param dataModel the data model object
@@ -0,0 +1,508 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.directio.hive.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+import com.asakusafw.directio.hive.serde.DataModelDescriptor;
+import com.asakusafw.directio.hive.serde.PropertyDescriptor;
+import com.asakusafw.runtime.directio.Counter;
+import com.asakusafw.runtime.io.ModelInput;
+import com.asakusafw.runtime.value.StringOption;
+import com.asakusafw.runtime.value.ValueOption;
+
+/**
+ * An implementation of {@link ModelInput} which decodes the successive segments (e.g. ORCFile stripes or
+ * Parquet row groups) of a fragment on background threads, and then provides their records in order.
+ * <p>
+ * Decoded records are buffered until they are consumed, and the total size of them are limited by the memory budget.
+ * Note that, the segment which is currently consumed can always be decoded even if the budget is exhausted.
+ * </p>
+ * @param <T> the data model type
+ * @since 0.10.5
+ */
+public class ReadAheadModelInput<T> implements ModelInput<T> {
+
+    static final Log LOG = LogFactory.getLog(ReadAheadModelInput.class);
+
+    /**
+     * The configuration key prefix.
+     */
+    public static final String KEY_PREFIX = "com.asakusafw.directio.hive.readahead."; //$NON-NLS-1$
+
+    /**
+     * The configuration key of the max number of segments to be decoded in parallel.
+     * Read-ahead is disabled if this is less than {@code 1}.
+     */
+    public static final String KEY_PARALLELISM = KEY_PREFIX + "parallelism"; //$NON-NLS-1$
+
+    /**
+     * The configuration key of the memory budget in bytes for buffering decoded records.
+     */
+    public static final String KEY_MEMORY_BUDGET = KEY_PREFIX + "budget"; //$NON-NLS-1$
+
+    /**
+     * The default value of {@link #KEY_PARALLELISM}.
+     */
+    public static final int DEFAULT_PARALLELISM = 0;
+
+    /**
+     * The default value of {@link #KEY_MEMORY_BUDGET}.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+    static final int CHUNK_SIZE = 256;
+
+    static final long PROPERTY_OVERHEAD = 16;
+
+    static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private static final ThreadFactory DAEMON_THREAD_FACTORY = r -> {
+        Thread t = new Thread(r);
+        t.setDaemon(true);
+        t.setName(String.format("ReadAheadModelInput-%d", THREAD_COUNTER.incrementAndGet())); //$NON-NLS-1$
+        return t;
+    };
+
+    private final DataModelDescriptor descriptor;
+
+    private final List<? extends PropertyDescriptor> properties;
+
+    private final List<Segment> segments;
+
+    private final Opener<T> opener;
+
+    private final Counter counter;
+
+    private final int parallelism;
+
+    private final Budget budget;
+
+    private final ExecutorService executor;
+
+    private final Queue<T> freeObjects = new ConcurrentLinkedQueue<>();
+
+    private final LinkedList<Worker> running = new LinkedList<>();
+
+    private int nextSegmentIndex;
+
+    private Chunk<T> currentChunk;
+
+    private int currentChunkOffset;
+
+    private long stallCount;
+
+    private long stallNanos;
+
+    /**
+     * Creates a new instance.
+     * @param descriptor the target data model descriptor
+     * @param segments the segments to read, must be ordered
+     * @param opener the segment opener
+     * @param counter the counter which will be increased by the segment inputs
+     * @param parallelism the max number of segments to be decoded in parallel
+     * @param memoryBudget the memory budget in bytes for buffering decoded records
+     */
+    public ReadAheadModelInput(
+            DataModelDescriptor descriptor,
+            List<Segment> segments, Opener<T> opener, Counter counter,
+            int parallelism, long memoryBudget) {
+        this.descriptor = descriptor;
+        this.properties = descriptor.getPropertyDescriptors();
+        this.segments = new ArrayList<>(segments);
+        this.opener = opener;
+        this.counter = counter;
+        this.parallelism = Math.max(parallelism, 1);
+        this.budget = new Budget(Math.max(memoryBudget, 0L));
+        this.executor = Executors.newFixedThreadPool(this.parallelism, DAEMON_THREAD_FACTORY);
+    }
+
+    /**
+     * Returns the max number of segments to be decoded in parallel.
+     * @param conf the current configuration, may be {@code null}
+     * @return the parallelism, or {@code 0} if read-ahead is disabled
+     * @see #KEY_PARALLELISM
+     */
+    public static int getParallelism(Configuration conf) {
+        if (conf == null) {
+            return DEFAULT_PARALLELISM;
+        }
+        return Math.max(conf.getInt(KEY_PARALLELISM, DEFAULT_PARALLELISM), 0);
+    }
+
+    /**
+     * Returns the memory budget in bytes for buffering decoded records.
+     * @param conf the current configuration, may be {@code null}
+     * @return the memory budget
+     * @see #KEY_MEMORY_BUDGET
+     */
+    public static long getMemoryBudget(Configuration conf) {
+        if (conf == null) {
+            return DEFAULT_MEMORY_BUDGET;
+        }
+        return Math.max(conf.getLong(KEY_MEMORY_BUDGET, DEFAULT_MEMORY_BUDGET), 0L);
+    }
+
+    @Override
+    public boolean readTo(T model) throws IOException {
+        while (true) {
+            Chunk<T> chunk = currentChunk;
+            if (chunk != null) {
+                if (currentChunkOffset < chunk.records.size()) {
+                    copy(chunk.records.get(currentChunkOffset++), model);
+                    return true;
+                }
+                releaseChunk(chunk);
+            }
+            if (nextChunk() == false) {
+                return false;
+            }
+        }
+    }
+
+    private boolean nextChunk() throws IOException {
+        assert currentChunk == null;
+        if (nextSegmentIndex == 0) {
+            while (nextSegmentIndex < segments.size() && running.size() < parallelism) {
+                submitNext();
+            }
+        }
+        while (true) {
+            Worker head = running.peekFirst();
+            if (head == null) {
+                return false;
+            }
+            Chunk<T> chunk = head.chunks.poll();
+            if (chunk == null) {
+                stallCount++;
+                long start = System.nanoTime();
+                try {
+                    chunk = head.chunks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw (IOException) new InterruptedIOException().initCause(e);
+                } finally {
+                    stallNanos += System.nanoTime() - start;
+                }
+            }
+            head.forwardCount(counter);
+            if (chunk.failure != null) {
+                throw toIOException(head.segment, chunk.failure);
+            }
+            if (chunk.records == null) {
+                running.removeFirst();
+                budget.advance(head.index + 1);
+                if (nextSegmentIndex < segments.size()) {
+                    submitNext();
+                }
+                continue;
+            }
+            this.currentChunk = chunk;
+            this.currentChunkOffset = 0;
+            return true;
+        }
+    }
+
+    private void submitNext() {
+        int index = nextSegmentIndex++;
+        Worker worker = new Worker(index, segments.get(index));
+        running.addLast(worker);
+        executor.execute(worker);
+    }
+
+    private void releaseChunk(Chunk<T> chunk) {
+        budget.release(chunk.bytes);
+        freeObjects.addAll(chunk.records);
+        this.currentChunk = null;
+    }
+
+    private static IOException toIOException(Segment segment, Throwable failure) {
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        return new IOException(MessageFormat.format(
+                Messages.getString("ReadAheadModelInput.errorRead"), //$NON-NLS-1$
+                segment), failure);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes", "deprecation" })
+    private void copy(T source, T destination) {
+        for (PropertyDescriptor property : properties) {
+            ValueOption from = property.extract(source);
+            ValueOption to = property.extract(destination);
+            to.copyFrom(from);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    T newObject() {
+        T object = freeObjects.poll();
+        if (object == null) {
+            object = (T) descriptor.createDataModelObject();
+        }
+        return object;
+    }
+
+    long estimateSize(T object) {
+        long size = 0;
+        for (PropertyDescriptor property : properties) {
+            size += PROPERTY_OVERHEAD;
+            ValueOption<?> value = property.extract(object);
+            if (value instanceof StringOption && value.isNull() == false) {
+                size += ((StringOption) value).get().getLength();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of times that the reader was blocked because the next records were not decoded yet.
+     * @return the number of stalls
+     */
+    public long getStallCount() {
+        return stallCount;
+    }
+
+    /**
+     * Returns the total time that the reader was blocked because the next records were not decoded yet.
+     * @param unit the time unit
+     * @return the total stall time
+     */
+    public long getStallTime(TimeUnit unit) {
+        return unit.convert(stallNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void close() throws IOException {
+        budget.close();
+        executor.shutdownNow();
+        try {
+            if (executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS) == false) {
+                LOG.warn(MessageFormat.format(
+                        Messages.getString("ReadAheadModelInput.warnShutdownTimeout"), //$NON-NLS-1$
+                        descriptor.getDataModelClass().getSimpleName(),
+                        SHUTDOWN_TIMEOUT_SECONDS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running.clear();
+        currentChunk = null;
+        freeObjects.clear();
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(MessageFormat.format(
+                    "read-ahead statistics: type={0}, segments={1}/{2}, stalls={3}, stallTime={4}ms", //$NON-NLS-1$
+                    descriptor.getDataModelClass().getSimpleName(),
+                    nextSegmentIndex,
+                    segments.size(),
+                    stallCount,
+                    getStallTime(TimeUnit.MILLISECONDS)));
+        }
+    }
+
+    /**
+     * Opens a segment.
+     * @param <T> the data model type
+     * @since 0.10.5
+     */
+    @FunctionalInterface
+    public interface Opener<T> {
+
+        /**
+         * Opens a {@link ModelInput} which reads only the given segment.
+         * @param segment the target segment
+         * @param counter the counter for the opened input
+         * @return the opened input
+         * @throws IOException if I/O error was occurred while opening the segment
+         * @throws InterruptedException if interrupted while opening the segment
+         */
+        ModelInput<T> open(Segment segment, Counter counter) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Represents a segment of a fragment.
+     * @since 0.10.5
+     */
+    public static final class Segment {
+
+        private final long offset;
+
+        private final long length;
+
+        /**
+         * Creates a new instance.
+         * @param offset the offset in the file
+         * @param length the length in bytes
+         */
+        public Segment(long offset, long length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * Returns the offset in the file.
+         * @return the offset
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Returns the length in bytes.
+         * @return the length
+         */
+        public long getLength() {
+            return length;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Segment(%,d+%,d)", offset, length); //$NON-NLS-1$
+        }
+    }
+
+    private static final class Chunk<T> {
+
+        final List<T> records;
+
+        final long bytes;
+
+        final Throwable failure;
+
+        Chunk(List<T> records, long bytes, Throwable failure) {
+            this.records = records;
+            this.bytes = bytes;
+            this.failure = failure;
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        final int index;
+
+        final Segment segment;
+
+        final Counter localCounter = new Counter();
+
+        final BlockingQueue<Chunk<T>> chunks = new LinkedBlockingQueue<>();
+
+        private long forwarded;
+
+        Worker(int index, Segment segment) {
+            this.index = index;
+            this.segment = segment;
+        }
+
+        void forwardCount(Counter target) {
+            long current = localCounter.get();
+            if (current != forwarded) {
+                target.add(current - forwarded);
+                forwarded = current;
+            }
+        }
+
+        @Override
+        public void run() {
+            try (ModelInput<T> input = opener.open(segment, localCounter)) {
+                while (true) {
+                    List<T> records = new ArrayList<>(CHUNK_SIZE);
+                    long bytes = 0;
+                    boolean eof = false;
+                    while (records.size() < CHUNK_SIZE) {
+                        T object = newObject();
+                        if (input.readTo(object) == false) {
+                            freeObjects.offer(object);
+                            eof = true;
+                            break;
+                        }
+                        records.add(object);
+                        bytes += estimateSize(object);
+                    }
+                    if (records.isEmpty() == false) {
+                        budget.acquire(index, bytes);
+                        chunks.add(new Chunk<>(records, bytes, null));
+                    }
+                    if (eof) {
+                        break;
+                    }
+                }
+                chunks.add(new Chunk<>(null, 0L, null));
+            } catch (Throwable t) {
+                chunks.add(new Chunk<>(null, 0L, t));
+            }
+        }
+    }
+
+    private static final class Budget {
+
+        private final long limit;
+
+        private long used;
+
+        private int head;
+
+        private boolean closed;
+
+        Budget(long limit) {
+            this.limit = limit;
+        }
+
+        synchronized void acquire(int index, long bytes) throws InterruptedException {
+            // the head segment must not be blocked, or the reader will never proceed
+            while (closed == false && index != head && used > 0 && used + bytes > limit) {
+                wait();
+            }
+            used += bytes;
+        }
+
+        synchronized void release(long bytes) {
+            used -= bytes;
+            notifyAll();
+        }
+
+        synchronized void advance(int index) {
+            head = index;
+            notifyAll();
+        }
+
+        synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+    }
+}
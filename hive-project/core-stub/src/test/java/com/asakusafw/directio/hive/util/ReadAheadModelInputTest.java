@@ -0,0 +1,254 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.directio.hive.util;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import com.asakusafw.directio.hive.serde.DataModelDescriptor;
+import com.asakusafw.directio.hive.serde.FieldPropertyDescriptor;
+import com.asakusafw.directio.hive.serde.mock.MockSimple;
+import com.asakusafw.directio.hive.util.ReadAheadModelInput.Opener;
+import com.asakusafw.directio.hive.util.ReadAheadModelInput.Segment;
+import com.asakusafw.runtime.directio.Counter;
+import com.asakusafw.runtime.io.ModelInput;
+import com.asakusafw.runtime.value.IntOption;
+import com.asakusafw.runtime.value.StringOption;
+
+/**
+ * Test for {@link ReadAheadModelInput}.
+ */
+public class ReadAheadModelInputTest {
+
+    static final DataModelDescriptor DESCRIPTOR = FieldPropertyDescriptor.extract(MockSimple.class);
+
+    /**
+     * simple case.
+     * @throws Exception if failed
+     */
+    @Test
+    public void simple() throws Exception {
+        List<Segment> segments = segments(1, 10);
+        Counter counter = new Counter();
+        try (ReadAheadModelInput<MockSimple> input = new ReadAheadModelInput<>(
+                DESCRIPTOR, segments, opener(), counter, 2, Long.MAX_VALUE)) {
+            check(input, 10);
+        }
+        assertThat(counter.get(), is(10L));
+    }
+
+    /**
+     * reads many segments.
+     * @throws Exception if failed
+     */
+    @Test
+    public void many_segments() throws Exception {
+        List<Segment> segments = segments(100, 1000);
+        Counter counter = new Counter();
+        try (ReadAheadModelInput<MockSimple> input = new ReadAheadModelInput<>(
+                DESCRIPTOR, segments, opener(), counter, 4, Long.MAX_VALUE)) {
+            check(input, 100_000);
+        }
+        assertThat(counter.get(), is(100_000L));
+    }
+
+    /**
+     * reads segments with a tiny memory budget.
+     * @throws Exception if failed
+     */
+    @Test
+    public void tiny_budget() throws Exception {
+        List<Segment> segments = segments(20, 1000);
+        try (ReadAheadModelInput<MockSimple> input = new ReadAheadModelInput<>(
+                DESCRIPTOR, segments, opener(), new Counter(), 4, 1L)) {
+            check(input, 20_000);
+        }
+    }
+
+    /**
+     * reads segments which include empty ones.
+     * @throws Exception if failed
+     */
+    @Test
+    public void empty_segments() throws Exception {
+        List<Segment> segments = new ArrayList<>();
+        segments.add(new Segment(0, 0));
+        segments.add(new Segment(0, 5));
+        segments.add(new Segment(5, 0));
+        segments.add(new Segment(5, 5));
+        segments.add(new Segment(10, 0));
+        try (ReadAheadModelInput<MockSimple> input = new ReadAheadModelInput<>(
+                DESCRIPTOR, segments, opener(), new Counter(), 2, Long.MAX_VALUE)) {
+            check(input, 10);
+        }
+    }
+
+    /**
+     * reads no segments.
+     * @throws Exception if failed
+     */
+    @Test
+    public void no_segments() throws Exception {
+        try (ReadAheadModelInput<MockSimple> input = new ReadAheadModelInput<>(
+                DESCRIPTOR, Collections.emptyList(), opener(), new Counter(), 2, Long.MAX_VALUE)) {
+            check(input, 0);
+        }
+    }
+
+    /**
+     * stalls are counted if the reader waits for decoding.
+     * @throws Exception if failed
+     */
+    @Test
+    public void stall() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        Opener<MockSimple> base = opener();
+        Opener<MockSimple> opener = (segment, counter) -> {
+            latch.await();
+            return base.open(segment, counter);
+        };
+        try (ReadAheadModelInput<MockSimple> input = new ReadAheadModelInput<>(
+                DESCRIPTOR, segments(2, 10), opener, new Counter(), 2, Long.MAX_VALUE)) {
+            Thread releaser = new Thread(() -> {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+                latch.countDown();
+            });
+            releaser.start();
+            check(input, 20);
+            releaser.join();
+            assertThat(input.getStallCount(), is(greaterThan(0L)));
+            assertThat(input.getStallTime(TimeUnit.NANOSECONDS), is(greaterThan(0L)));
+        }
+    }
+
+    /**
+     * failure while reading segments.
+     * @throws Exception if failed
+     */
+    @Test
+    public void failure() throws Exception {
+        Opener<MockSimple> base = opener();
+        Opener<MockSimple> opener = (segment, counter) -> {
+            if (segment.getOffset() == 10) {
+                throw new IOException("testing");
+            }
+            return base.open(segment, counter);
+        };
+        int count = 0;
+        try (ReadAheadModelInput<MockSimple> input = new ReadAheadModelInput<>(
+                DESCRIPTOR, segments(3, 10), opener, new Counter(), 2, Long.MAX_VALUE)) {
+            MockSimple buf = new MockSimple();
+            while (input.readTo(buf)) {
+                count++;
+            }
+            fail();
+        } catch (IOException e) {
+            assertThat(e.getCause(), is(instanceOf(IOException.class)));
+        }
+        assertThat(count, is(10));
+    }
+
+    /**
+     * close while reading segments.
+     * @throws Exception if failed
+     */
+    @Test
+    public void close_early() throws Exception {
+        try (ReadAheadModelInput<MockSimple> input = new ReadAheadModelInput<>(
+                DESCRIPTOR, segments(10, 10_000), opener(), new Counter(), 4, 1024)) {
+            MockSimple buf = new MockSimple();
+            assertThat(input.readTo(buf), is(true));
+            assertThat(buf.number, is(new IntOption(0)));
+        }
+    }
+
+    /**
+     * configuration.
+     */
+    @Test
+    public void configuration() {
+        assertThat(ReadAheadModelInput.getParallelism(null), is(ReadAheadModelInput.DEFAULT_PARALLELISM));
+        assertThat(ReadAheadModelInput.getMemoryBudget(null), is(ReadAheadModelInput.DEFAULT_MEMORY_BUDGET));
+
+        Configuration conf = new Configuration(false);
+        conf.setInt(ReadAheadModelInput.KEY_PARALLELISM, 3);
+        conf.setLong(ReadAheadModelInput.KEY_MEMORY_BUDGET, 1024);
+        assertThat(ReadAheadModelInput.getParallelism(conf), is(3));
+        assertThat(ReadAheadModelInput.getMemoryBudget(conf), is(1024L));
+    }
+
+    private static List<Segment> segments(int count, int size) {
+        List<Segment> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            results.add(new Segment((long) i * size, size));
+        }
+        return results;
+    }
+
+    /**
+     * Returns an opener which provides records whose numbers are in the segment range.
+     * @return the opener
+     */
+    @SuppressWarnings("deprecation")
+    private static Opener<MockSimple> opener() {
+        return (segment, counter) -> new ModelInput<MockSimple>() {
+            private long next = segment.getOffset();
+            @Override
+            public boolean readTo(MockSimple model) throws IOException {
+                if (next >= segment.getOffset() + segment.getLength()) {
+                    return false;
+                }
+                int value = (int) next++;
+                model.number.modify(value);
+                if (value % 10 == 0) {
+                    model.string.setNull();
+                } else {
+                    model.string.modify("v" + value);
+                }
+                counter.add(1);
+                return true;
+            }
+            @Override
+            public void close() {
+                return;
+            }
+        };
+    }
+
+    private static void check(ModelInput<MockSimple> input, int count) throws IOException {
+        MockSimple buf = new MockSimple();
+        for (int i = 0; i < count; i++) {
+            assertThat(input.readTo(buf), is(true));
+            assertThat(buf.number, is(new IntOption(i)));
+            assertThat(buf.string, is(i % 10 == 0 ? new StringOption() : new StringOption("v" + i)));
+        }
+        assertThat(input.readTo(buf), is(false));
+    }
+}
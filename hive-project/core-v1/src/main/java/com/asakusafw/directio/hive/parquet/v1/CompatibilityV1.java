@@ -36,6 +36,7 @@ import com.asakusafw.directio.hive.parquet.Compatibility;
 import com.asakusafw.directio.hive.parquet.ParquetFormatConfiguration;
 import com.asakusafw.directio.hive.serde.DataModelMapping;
 import com.asakusafw.directio.hive.util.CompatibilityUtil;
+import com.asakusafw.directio.hive.util.ReadAheadModelInput;
 import com.asakusafw.runtime.directio.Counter;
 import com.asakusafw.runtime.directio.DirectInputFragment;
 import com.asakusafw.runtime.directio.hadoop.BlockMap;
@@ -44,15 +45,18 @@ import com.asakusafw.runtime.io.ModelInput;
 import com.asakusafw.runtime.io.ModelOutput;
 
 import parquet.column.ParquetProperties;
+import parquet.format.converter.ParquetMetadataConverter;
 import parquet.hadoop.Footer;
 import parquet.hadoop.ParquetFileReader;
 import parquet.hadoop.metadata.BlockMetaData;
 import parquet.hadoop.metadata.ColumnChunkMetaData;
 import parquet.hadoop.metadata.CompressionCodecName;
+import parquet.hadoop.metadata.ParquetMetadata;
 
 /**
  * compatibility layer for Direct I/O Parquet support.
  * @since 0.10.3
+ * @version 0.10.5
  */
 public class CompatibilityV1 extends Compatibility {
 
@@ -143,6 +147,34 @@ public class CompatibilityV1 extends Compatibility {
         return results;
     }
 
+    @Override
+    public List<ReadAheadModelInput.Segment> computeSegments(
+            AbstractParquetFileFormat<?> format,
+            FileSystem fileSystem,
+            Path path,
+            long offset,
+            long fragmentSize) throws IOException, InterruptedException {
+        ParquetMetadata footer = ParquetFileReader.readFooter(
+                format.getConf(), path, ParquetMetadataConverter.NO_FILTER);
+        List<ReadAheadModelInput.Segment> results = new ArrayList<>();
+        for (BlockMetaData block : footer.getBlocks()) {
+            if (block.getColumns().isEmpty() || block.getRowCount() == 0) {
+                continue;
+            }
+            long begin = Long.MAX_VALUE;
+            long end = -1L;
+            for (ColumnChunkMetaData column : block.getColumns()) {
+                begin = Math.min(begin, column.getFirstDataPageOffset());
+                end = Math.max(end, column.getFirstDataPageOffset() + column.getTotalSize());
+            }
+            // Parquet file inputs accept row groups which are entirely in the target range
+            if (fragmentSize < 0L || (offset <= begin && end <= offset + fragmentSize)) {
+                results.add(new ReadAheadModelInput.Segment(begin, end - begin));
+            }
+        }
+        return results;
+    }
+
     @Override
     public <T> ModelInput<T> createInput(
             AbstractParquetFileFormat<T> format,
@@ -30,6 +30,8 @@ import com.asakusafw.runtime.value.DecimalOption;
 import com.asakusafw.runtime.value.ValueOption;
 
 import parquet.column.Dictionary;
+import parquet.column.values.dictionary.PlainValuesDictionary.PlainIntegerDictionary;
+import parquet.column.values.dictionary.PlainValuesDictionary.PlainLongDictionary;
 import parquet.io.api.Binary;
 import parquet.io.api.RecordConsumer;
 import parquet.schema.OriginalType;
@@ -42,6 +44,7 @@ import parquet.schema.Types.PrimitiveBuilder;
 /**
  * {@link ParquetValueDriver} for decimals.
  * @since 0.10.0
+ * @version 0.10.5
  */
 public class DecimalValueDriver implements ParquetValueDriver {
 
@@ -156,7 +159,17 @@ public class DecimalValueDriver implements ParquetValueDriver {
         @Override
         public void setDictionary(Dictionary dictionary) {
             BigDecimal[] buf = prepareDictionaryBuffer(dictionary);
-            setDictionaryAsBinary(dictionary, buf);
+            if (dictionary instanceof PlainIntegerDictionary) {
+                for (int id = 0, max = dictionary.getMaxId(); id <= max; id++) {
+                    buf[id] = convert(dictionary.decodeToInt(id));
+                }
+            } else if (dictionary instanceof PlainLongDictionary) {
+                for (int id = 0, max = dictionary.getMaxId(); id <= max; id++) {
+                    buf[id] = convert(dictionary.decodeToLong(id));
+                }
+            } else {
+                setDictionaryAsBinary(dictionary, buf);
+            }
         }
 
         private void setDictionaryAsBinary(Dictionary dictionary, BigDecimal[] buf) {
@@ -176,15 +189,15 @@ public class DecimalValueDriver implements ParquetValueDriver {
             return this.dict;
         }
 
-        private BigDecimal convert(int value) {
-            return new BigDecimal(BigInteger.valueOf(value), scale);
-        }
-
         private BigDecimal convert(long value) {
-            return new BigDecimal(BigInteger.valueOf(value), scale);
+            // BigDecimal.valueOf() may return cached instances for small values
+            return BigDecimal.valueOf(value, scale);
         }
 
         private BigDecimal convert(Binary value) {
+            if (isLongCompatible(value)) {
+                return convert(toLong(value));
+            }
             BigInteger unscaled = new BigInteger(value.getBytes());
             return new BigDecimal(unscaled, scale);
         }
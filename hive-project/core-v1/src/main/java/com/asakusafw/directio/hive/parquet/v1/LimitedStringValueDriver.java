@@ -15,8 +15,6 @@
  */
 package com.asakusafw.directio.hive.parquet.v1;
 
-import java.util.Arrays;
-
 import org.apache.hadoop.hive.common.type.HiveBaseChar;
 import org.apache.hadoop.io.Text;
 
@@ -34,6 +32,7 @@ import parquet.schema.Types;
 /**
  * {@link ParquetValueDriver} for character strings with its length limit.
  * @since 0.7.2
+ * @version 0.10.5
  */
 public class LimitedStringValueDriver implements ParquetValueDriver {
 
@@ -108,10 +107,12 @@ public class LimitedStringValueDriver implements ParquetValueDriver {
         public void setDictionary(Dictionary dictionary) {
             Text[] buf = prepareDictionaryBuffer(dictionary);
             for (int id = 0, max = dictionary.getMaxId(); id <= max; id++) {
-                Text text = new Text();
-                Binary binary = dictionary.decodeToBinary(id);
-                setBinary(text, binary);
-                buf[id] = text;
+                Text text = buf[id];
+                if (text == null) {
+                    text = new Text();
+                    buf[id] = text;
+                }
+                setBinary(text, dictionary.decodeToBinary(id));
             }
         }
 
@@ -131,16 +132,19 @@ public class LimitedStringValueDriver implements ParquetValueDriver {
             int size = dictionary.getMaxId() + 1;
             if (this.dict == null || this.dict.length < size) {
                 int capacity = (int) (size * 1.2) + 1;
-                this.dict = new Text[capacity];
-            } else {
-                Arrays.fill(this.dict, null);
+                Text[] newDict = new Text[capacity];
+                if (this.dict != null) {
+                    // reuses the decoded buffers
+                    System.arraycopy(this.dict, 0, newDict, 0, this.dict.length);
+                }
+                this.dict = newDict;
             }
             return this.dict;
         }
 
         private void setBinary(Text text, Binary binary) {
             // TODO check it length?
-            text.set(binary.getBytes(), 0, binary.length());
+            copy(binary, text);
         }
     }
 }
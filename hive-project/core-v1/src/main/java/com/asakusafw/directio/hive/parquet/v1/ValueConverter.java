@@ -15,13 +15,19 @@
  */
 package com.asakusafw.directio.hive.parquet.v1;
 
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.io.Text;
+
 import com.asakusafw.runtime.value.ValueOption;
 
+import parquet.io.api.Binary;
 import parquet.io.api.PrimitiveConverter;
 
 /**
  * The parquet converter for setting {@link ValueOption}s.
  * @since 0.7.0
+ * @version 0.10.5
  */
 public abstract class ValueConverter extends PrimitiveConverter {
 
@@ -30,4 +36,51 @@ public abstract class ValueConverter extends PrimitiveConverter {
      * @param value the target {@link ValueOption}
      */
     public abstract void set(ValueOption<?> value);
+
+    /**
+     * Copies the contents of the given {@link Binary} into the {@link Text}.
+     * This does not create any intermediate byte arrays if the binary is backed by a heap array.
+     * @param source the source binary
+     * @param destination the destination text
+     * @since 0.10.5
+     */
+    static void copy(Binary source, Text destination) {
+        ByteBuffer buffer = source.toByteBuffer();
+        if (buffer.hasArray()) {
+            destination.set(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            destination.set(bytes);
+        }
+    }
+
+    /**
+     * Returns whether or not the given {@link Binary} can be decoded by {@link #toLong(Binary)}.
+     * @param source the source binary
+     * @return {@code true} if it can be decoded as a {@code long} value, otherwise {@code false}
+     * @since 0.10.5
+     */
+    static boolean isLongCompatible(Binary source) {
+        int length = source.length();
+        return length > 0 && length <= Long.BYTES;
+    }
+
+    /**
+     * Decodes the given {@link Binary} as a big-endian two's complement {@code long} value.
+     * @param source the source binary, which must satisfy {@link #isLongCompatible(Binary)}
+     * @return the decoded value
+     * @since 0.10.5
+     */
+    static long toLong(Binary source) {
+        ByteBuffer buffer = source.toByteBuffer();
+        int offset = buffer.position();
+        int length = buffer.remaining();
+        assert length > 0 && length <= Long.BYTES;
+        long result = buffer.get(offset); // sign extension
+        for (int i = 1; i < length; i++) {
+            result = (result << Byte.SIZE) | (buffer.get(offset + i) & 0xff);
+        }
+        return result;
+    }
 }
@@ -20,9 +20,11 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -42,8 +44,13 @@ import com.asakusafw.directio.hive.serde.DataModelDescriptorEditor;
 import com.asakusafw.directio.hive.serde.DataModelMapping.ExceptionHandlingStrategy;
 import com.asakusafw.directio.hive.serde.DataModelMapping.FieldMappingStrategy;
 import com.asakusafw.directio.hive.serde.FieldPropertyDescriptor;
+import com.asakusafw.directio.hive.serde.StringValueSerdeFactory;
+import com.asakusafw.directio.hive.serde.TimestampValueSerdeFactory;
 import com.asakusafw.directio.hive.serde.ValueSerde;
+import com.asakusafw.directio.hive.serde.ValueSerdeFactory;
 import com.asakusafw.directio.hive.serde.mock.MockSimple;
+import com.asakusafw.directio.hive.serde.mock.MockTypes;
+import com.asakusafw.directio.hive.util.ReadAheadModelInput;
 import com.asakusafw.info.hive.BuiltinStorageFormatInfo;
 import com.asakusafw.info.hive.StorageFormatInfo;
 import com.asakusafw.runtime.directio.Counter;
@@ -51,6 +58,8 @@ import com.asakusafw.runtime.directio.DirectInputFragment;
 import com.asakusafw.runtime.directio.hadoop.StripedDataFormat;
 import com.asakusafw.runtime.io.ModelInput;
 import com.asakusafw.runtime.io.ModelOutput;
+import com.asakusafw.runtime.value.Date;
+import com.asakusafw.runtime.value.DateTime;
 import com.asakusafw.runtime.value.IntOption;
 import com.asakusafw.runtime.value.StringOption;
 import com.asakusafw.runtime.windows.WindowsSupport;
@@ -216,6 +225,35 @@ public class OrcFileFormatTest {
     }
 
 
+    /**
+     * I/O with read-ahead.
+     * @throws Exception if failed
+     */
+    @Test
+    public void io_read_ahead() throws Exception {
+        OrcFileFormat<MockSimple> format = format(MockSimple.class);
+        format.getFormatConfiguration().withStripeSize(64L * 1024);
+        format.getConf().setInt(ReadAheadModelInput.KEY_PARALLELISM, 2);
+        format.getConf().setLong(ReadAheadModelInput.KEY_MEMORY_BUDGET, 64L * 1024);
+        List<MockSimple> in = simples(200_000);
+        File file = save(format, in);
+
+        LocalFileSystem fs = FileSystem.getLocal(format.getConf());
+        try (ModelInput<MockSimple> input = format.createInput(
+                MockSimple.class,
+                fs, new Path(file.toURI()),
+                0, file.length(),
+                new Counter())) {
+            assertThat(input, is(instanceOf(ReadAheadModelInput.class)));
+        }
+        List<MockSimple> out = load(format, file);
+        assertThat(out, hasSize(in.size()));
+        for (int i = 0; i < in.size(); i++) {
+            assertThat(out.get(i).number, is(in.get(i).number));
+            assertThat(out.get(i).string, is(in.get(i).string));
+        }
+    }
+
     /**
      * I/O with {@code 0.11}.
      * @throws Exception if failed
@@ -230,6 +268,179 @@ public class OrcFileFormatTest {
         assertThat(out.string, is(in.string));
     }
 
+    /**
+     * vectorized I/O with all supported types.
+     * @throws Exception if failed
+     */
+    @Test
+    public void io_vectorized_types() throws Exception {
+        OrcFileFormat<MockTypes> format = vectorized(format(MockTypes.class, decimalEdits(), "dateTimeOption"));
+        MockTypes in = withoutDateTime(types());
+        MockTypes out = restore(format, in);
+        assertTypes(out, in);
+
+        MockTypes nulls = restore(format, new MockTypes());
+        assertTypes(nulls, new MockTypes());
+    }
+
+    /**
+     * vectorized I/O is compatible with the row-by-row I/O.
+     * @throws Exception if failed
+     */
+    @Test
+    public void io_vectorized_compatible() throws Exception {
+        OrcFileFormat<MockTypes> row = format(MockTypes.class, decimalEdits(), "dateTimeOption");
+        OrcFileFormat<MockTypes> vectorized = vectorized(format(MockTypes.class, decimalEdits(), "dateTimeOption"));
+
+        List<MockTypes> r2v = load(vectorized, save(row, Arrays.asList(withoutDateTime(types()), new MockTypes())));
+        assertThat(r2v, hasSize(2));
+        assertTypes(r2v.get(0), withoutDateTime(types()));
+        assertTypes(r2v.get(1), new MockTypes());
+
+        List<MockTypes> v2r = load(row, save(vectorized, Arrays.asList(withoutDateTime(types()), new MockTypes())));
+        assertThat(v2r, hasSize(2));
+        assertTypes(v2r.get(0), withoutDateTime(types()));
+        assertTypes(v2r.get(1), new MockTypes());
+    }
+
+    /**
+     * vectorized I/O falls back to row-by-row I/O for unsupported types.
+     * @throws Exception if failed
+     */
+    @Test
+    public void io_vectorized_fallback() throws Exception {
+        OrcFileFormat<MockTypes> format = vectorized(format(MockTypes.class, decimalEdits()));
+        MockTypes in = types();
+        MockTypes out = restore(format, in);
+        assertTypes(out, in);
+    }
+
+    /**
+     * vectorized I/O with projection.
+     * @throws Exception if failed
+     */
+    @Test
+    public void io_vectorized_projection() throws Exception {
+        OrcFileFormat<MockSimple> format1 = format(MockSimple.class);
+        OrcFileFormat<MockSimple> format2 = vectorized(format(MockSimple.class, "string"));
+        format2.getFormatConfiguration()
+            .withFieldMappingStrategy(FieldMappingStrategy.NAME)
+            .withOnMissingTarget(ExceptionHandlingStrategy.IGNORE);
+
+        MockSimple in = new MockSimple(100, "Hello, world!");
+        File file = save(format1, Arrays.asList(in));
+        List<MockSimple> restored = load(format2, file);
+
+        assertThat(restored, hasSize(1));
+        MockSimple out = restored.get(0);
+        assertThat(out.number, is(in.number));
+        assertThat(out.string, is(new StringOption())); // null
+    }
+
+    /**
+     * vectorized I/O with multiple batches.
+     * @throws Exception if failed
+     */
+    @Test
+    public void io_vectorized_large() throws Exception {
+        OrcFileFormat<MockSimple> format = vectorized(format(MockSimple.class));
+        List<MockSimple> in = simples(10_000);
+        List<MockSimple> out = restore(format, in);
+        for (int i = 0; i < in.size(); i++) {
+            assertThat(out.get(i).number, is(in.get(i).number));
+            assertThat(out.get(i).string, is(in.get(i).string));
+        }
+    }
+
+    /**
+     * vectorized I/O with properties which are stored as {@code STRING}.
+     * @throws Exception if failed
+     */
+    @Test
+    public void io_vectorized_string_serde() throws Exception {
+        Map<String, ValueSerde> edits = new HashMap<>();
+        edits.put("decimalOption", StringValueSerdeFactory.DECIMAL);
+        edits.put("dateOption", StringValueSerdeFactory.DATE);
+        edits.put("dateTimeOption", StringValueSerdeFactory.DATETIME);
+        OrcFileFormat<MockTypes> row = format(MockTypes.class, edits);
+        OrcFileFormat<MockTypes> vectorized = vectorized(format(MockTypes.class, edits));
+        MockTypes in = types();
+        assertTypes(restore(vectorized, in), in);
+        assertTypes(load(vectorized, save(row, Arrays.asList(in))).get(0), in);
+        assertTypes(load(row, save(vectorized, Arrays.asList(in))).get(0), in);
+    }
+
+    /**
+     * vectorized I/O with {@code DATE} properties which are stored as {@code TIMESTAMP}.
+     * @throws Exception if failed
+     */
+    @Test
+    public void io_vectorized_timestamp_serde() throws Exception {
+        Map<String, ValueSerde> edits = decimalEdits();
+        edits.put("dateOption", TimestampValueSerdeFactory.DATE);
+        OrcFileFormat<MockTypes> row = format(MockTypes.class, edits, "dateTimeOption");
+        OrcFileFormat<MockTypes> vectorized = vectorized(format(MockTypes.class, edits, "dateTimeOption"));
+        MockTypes in = withoutDateTime(types());
+        assertTypes(restore(vectorized, in), in);
+        assertTypes(load(vectorized, save(row, Arrays.asList(in))).get(0), in);
+        assertTypes(load(row, save(vectorized, Arrays.asList(in))).get(0), in);
+    }
+
+    private static <T> OrcFileFormat<T> vectorized(OrcFileFormat<T> format) {
+        format.getFormatConfiguration().withEnableVectorization(true);
+        return format;
+    }
+
+    private static Map<String, ValueSerde> decimalEdits() {
+        Map<String, ValueSerde> edits = new HashMap<>();
+        edits.put("decimalOption", ValueSerdeFactory.getDecimal(10, 2));
+        return edits;
+    }
+
+    private static List<MockSimple> simples(int count) {
+        List<MockSimple> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            results.add(new MockSimple(i, i % 10 == 0 ? null : "Hello" + i));
+        }
+        return results;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static MockTypes types() {
+        MockTypes in = new MockTypes();
+        in.booleanOption.modify(true);
+        in.byteOption.modify((byte) 1);
+        in.shortOption.modify((short) 2);
+        in.intOption.modify(3);
+        in.longOption.modify(4L);
+        in.floatOption.modify(5f);
+        in.doubleOption.modify(6d);
+        in.dateOption.modify(new Date(2014, 6, 1));
+        in.dateTimeOption.modify(new DateTime(2014, 6, 1, 2, 3, 4));
+        in.stringOption.modify("Hello, world!");
+        in.decimalOption.modify(new BigDecimal("7.89"));
+        return in;
+    }
+
+    private static MockTypes withoutDateTime(MockTypes value) {
+        value.dateTimeOption.setNull();
+        return value;
+    }
+
+    private static void assertTypes(MockTypes out, MockTypes in) {
+        assertThat(out.booleanOption, equalTo(in.booleanOption));
+        assertThat(out.byteOption, equalTo(in.byteOption));
+        assertThat(out.shortOption, equalTo(in.shortOption));
+        assertThat(out.intOption, equalTo(in.intOption));
+        assertThat(out.longOption, equalTo(in.longOption));
+        assertThat(out.floatOption, equalTo(in.floatOption));
+        assertThat(out.doubleOption, equalTo(in.doubleOption));
+        assertThat(out.dateOption, equalTo(in.dateOption));
+        assertThat(out.dateTimeOption, equalTo(in.dateTimeOption));
+        assertThat(out.stringOption, equalTo(in.stringOption));
+        assertThat(out.decimalOption, equalTo(in.decimalOption));
+    }
+
     private <T> T restore(OrcFileFormat<T> format, T value) throws IOException, InterruptedException {
         List<T> in = new ArrayList<>();
         in.add(value);
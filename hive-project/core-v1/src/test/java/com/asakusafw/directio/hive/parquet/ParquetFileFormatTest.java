@@ -64,6 +64,7 @@ import com.asakusafw.directio.hive.serde.ValueSerde;
 import com.asakusafw.directio.hive.serde.ValueSerdeFactory;
 import com.asakusafw.directio.hive.serde.mock.MockSimple;
 import com.asakusafw.directio.hive.serde.mock.MockTypes;
+import com.asakusafw.directio.hive.util.ReadAheadModelInput;
 import com.asakusafw.info.hive.BuiltinStorageFormatInfo;
 import com.asakusafw.info.hive.StorageFormatInfo;
 import com.asakusafw.runtime.directio.Counter;
@@ -418,6 +419,39 @@ public class ParquetFileFormatTest {
         }
     }
 
+    /**
+     * I/O with read-ahead.
+     * @throws Exception if failed
+     */
+    @SuppressWarnings("deprecation")
+    @Test
+    public void io_read_ahead() throws Exception {
+        ParquetFileFormat<MockSimple> format = format(MockSimple.class);
+        format.getFormatConfiguration().withBlockSize(64 * 1024);
+        format.getConf().setInt(ReadAheadModelInput.KEY_PARALLELISM, 2);
+        format.getConf().setLong(ReadAheadModelInput.KEY_MEMORY_BUDGET, 64L * 1024);
+        List<MockSimple> in = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            in.add(new MockSimple(i, i % 10 == 0 ? null : "Hello" + i));
+        }
+        File file = save(format, in);
+
+        LocalFileSystem fs = FileSystem.getLocal(format.getConf());
+        try (ModelInput<MockSimple> input = format.createInput(
+                MockSimple.class,
+                fs, new Path(file.toURI()),
+                0, file.length(),
+                new Counter())) {
+            assertThat(input, is(instanceOf(ReadAheadModelInput.class)));
+        }
+        List<MockSimple> out = load(format, file);
+        assertThat(out, hasSize(in.size()));
+        for (int i = 0; i < in.size(); i++) {
+            assertThat(out.get(i).number, is(in.get(i).number));
+            assertThat(out.get(i).string, is(in.get(i).string));
+        }
+    }
+
     /**
      * I/O with {@code v2}.
      * @throws Exception if failed
@@ -713,6 +747,48 @@ public class ParquetFileFormatTest {
         assertThat(count, is(0));
     }
 
+    /**
+     * using strings and decimals with dictionary.
+     * @throws Exception if failed
+     */
+    @SuppressWarnings("deprecation")
+    @Test
+    public void io_decimal_dict() throws Exception {
+        String[] ids = {
+                "",
+                "Hello",
+                "\u3042\u3044\u3046",
+                "Hello, world!",
+        };
+        String[][] values = {
+                { "0.00", "1.00", "-1.00", "1234567.89", "-9876543.21" },
+                { "0.00", "-0.01", "9999999999999999.99", "-9999999999999999.99" },
+                { "0.01", "-0.01", "12345678901234567890123.45", "-99999999999999999999999999999999999.99" },
+        };
+        int[] precisions = { 9, 18, 38 };
+        for (int p = 0; p < precisions.length; p++) {
+            Map<String, ValueSerde> edits = new HashMap<>();
+            edits.put("value", ValueSerdeFactory.getDecimal(precisions[p], 2));
+            ParquetFileFormat<WithDecimal> format = format(WithDecimal.class, edits);
+
+            int count = 1000;
+            List<WithDecimal> inputs = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                inputs.add(new WithDecimal(
+                        ids[i % ids.length],
+                        new BigDecimal(values[p][i % values[p].length])));
+            }
+            List<WithDecimal> outputs = restore(format, inputs);
+            assertThat(outputs, hasSize(count));
+            for (int i = 0; i < count; i++) {
+                WithDecimal in = inputs.get(i);
+                WithDecimal out = outputs.get(i);
+                assertThat(out.id, is(in.id));
+                assertThat(out.value, is(in.value));
+            }
+        }
+    }
+
     /**
      * loading char type which generated by hive.
      * @throws Exception if failed
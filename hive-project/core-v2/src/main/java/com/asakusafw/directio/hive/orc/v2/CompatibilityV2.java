@@ -29,20 +29,28 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.ql.io.orc.OrcFile;
 import org.apache.hadoop.hive.ql.io.orc.Reader;
+import org.apache.hadoop.hive.ql.io.orc.RecordReader;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
 import org.apache.orc.CompressionKind;
 import org.apache.orc.OrcConf;
 import org.apache.orc.StripeInformation;
 
 import com.asakusafw.directio.hive.orc.AbstractOrcFileFormat;
+import com.asakusafw.directio.hive.orc.ColumnVectorCopier;
 import com.asakusafw.directio.hive.orc.Compatibility;
 import com.asakusafw.directio.hive.orc.OrcFileInput;
 import com.asakusafw.directio.hive.orc.OrcFileOutput;
 import com.asakusafw.directio.hive.orc.OrcFormatConfiguration;
+import com.asakusafw.directio.hive.orc.VectorizedOrcFileInput;
+import com.asakusafw.directio.hive.serde.DataModelDescriptor;
 import com.asakusafw.directio.hive.serde.DataModelInspector;
 import com.asakusafw.directio.hive.serde.DataModelMapping;
+import com.asakusafw.directio.hive.serde.PropertyDescriptor;
 import com.asakusafw.directio.hive.util.CompatibilityUtil;
+import com.asakusafw.directio.hive.util.ReadAheadModelInput;
 import com.asakusafw.runtime.directio.Counter;
 import com.asakusafw.runtime.directio.DirectInputFragment;
 import com.asakusafw.runtime.directio.hadoop.BlockMap;
@@ -53,6 +61,7 @@ import com.asakusafw.runtime.io.ModelOutput;
 /**
  * compatibility layer for Direct I/O ORC File support.
  * @since 0.10.3
+ * @version 0.10.5
  */
 public class CompatibilityV2 extends Compatibility {
 
@@ -142,6 +151,25 @@ public class CompatibilityV2 extends Compatibility {
         return results;
     }
 
+    @Override
+    public List<ReadAheadModelInput.Segment> computeSegments(
+            AbstractOrcFileFormat<?> format,
+            FileSystem fileSystem,
+            Path path,
+            long offset,
+            long fragmentSize) throws IOException, InterruptedException {
+        Reader orc = OrcFile.createReader(fileSystem, path);
+        List<ReadAheadModelInput.Segment> results = new ArrayList<>();
+        for (StripeInformation stripe : orc.getStripes()) {
+            // ORC readers accept stripes which start in the target range
+            long begin = stripe.getOffset();
+            if (offset <= begin && (fragmentSize < 0L || begin < offset + fragmentSize)) {
+                results.add(new ReadAheadModelInput.Segment(begin, stripe.getLength()));
+            }
+        }
+        return results;
+    }
+
     @Override
     public <T> ModelInput<T> createInput(
             AbstractOrcFileFormat<T> format,
@@ -170,6 +198,12 @@ public class CompatibilityV2 extends Compatibility {
             FileStatus stat = fileSystem.getFileStatus(path);
             size = stat.getLen();
         }
+        if (isVectorizationEnabled(conf, format.getDataModelDescriptor())) {
+            return new VectorizedInput<>(
+                    format.getDataModelDescriptor(), driverConf,
+                    fileSystem, path,
+                    offset, size, counter);
+        }
         return new OrcFileInput<>(
                 format.getDataModelDescriptor(), driverConf,
                 fileSystem, path,
@@ -199,9 +233,31 @@ public class CompatibilityV2 extends Compatibility {
         if (stripeSize != null) {
             options.stripeSize(stripeSize);
         }
+        if (isVectorizationEnabled(conf, format.getDataModelDescriptor())) {
+            return new VectorizedOrcFileOutput<>(format.getDataModelDescriptor(), path, fileSystem, options, counter);
+        }
         return new OrcFileOutput<>(format.getDataModelDescriptor(), path, fileSystem, options, counter);
     }
 
+    private static boolean isVectorizationEnabled(OrcFormatConfiguration conf, DataModelDescriptor descriptor) {
+        if (Boolean.TRUE.equals(conf.getEnableVectorization()) == false) {
+            return false;
+        }
+        for (PropertyDescriptor property : descriptor.getPropertyDescriptors()) {
+            if (TimestampColumnVectorCopier.findWithTimestamp(property) == null) {
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(MessageFormat.format(
+                            Messages.getString("Compatibility.infoVectorizationUnsupported"), //$NON-NLS-1$
+                            descriptor.getDataModelClass().getSimpleName(),
+                            property.getFieldName(),
+                            property.getTypeInfo()));
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public Optional<OrcFile.Version> findVersionId(String name) {
         try {
@@ -215,4 +271,33 @@ public class CompatibilityV2 extends Compatibility {
     public Class<CompressionKind> getCompressionKindClass() {
         return CompressionKind.class;
     }
+
+    private static final class VectorizedInput<T> extends VectorizedOrcFileInput<T> {
+
+        VectorizedInput(
+                DataModelDescriptor descriptor, DataModelMapping configuration,
+                FileSystem fileSystem, Path path,
+                long offset, long fragmentSize,
+                Counter counter) {
+            super(descriptor, configuration, fileSystem, path, offset, fragmentSize, counter);
+        }
+
+        @Override
+        protected ColumnVectorCopier findCopier(Class<?> valueClass, TypeInfo type) {
+            return TimestampColumnVectorCopier.findWithTimestamp(valueClass, type);
+        }
+
+        @Override
+        protected VectorizedRowBatch nextBatch(
+                Reader orc, RecordReader reader, VectorizedRowBatch previous) throws IOException {
+            VectorizedRowBatch batch = previous;
+            if (batch == null) {
+                batch = orc.getSchema().createRowBatch();
+            }
+            if (reader.nextBatch(batch) == false) {
+                return null;
+            }
+            return batch;
+        }
+    }
 }
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.directio.hive.orc.v2;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.TimestampColumnVector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+
+import com.asakusafw.directio.hive.orc.ColumnVectorCopier;
+import com.asakusafw.directio.hive.serde.ValueSerde;
+import com.asakusafw.runtime.value.DateTimeOption;
+import com.asakusafw.runtime.value.DateUtil;
+import com.asakusafw.runtime.value.ValueOption;
+
+/**
+ * {@link ColumnVectorCopier} for {@link TimestampColumnVector}.
+ * @since 0.10.5
+ */
+final class TimestampColumnVectorCopier extends ColumnVectorCopier {
+
+    private final Date dateBuffer = new Date();
+
+    private final Calendar calendarBuffer = Calendar.getInstance();
+
+    TimestampColumnVectorCopier() {
+        super(DateTimeOption.class);
+    }
+
+    /**
+     * Returns a copier for the given property ser/de.
+     * @param serde the target property ser/de
+     * @return the corresponded copier, or {@code null} if it is not supported
+     */
+    static ColumnVectorCopier findWithTimestamp(ValueSerde serde) {
+        return findWithTimestamp(serde.getValueClass(), serde.getTypeInfo());
+    }
+
+    /**
+     * Returns a copier between the given property type and column type.
+     * @param valueClass the property type
+     * @param type the column type
+     * @return the corresponded copier, or {@code null} if it is not supported
+     * @see ColumnVectorCopier#find(Class, TypeInfo)
+     */
+    static ColumnVectorCopier findWithTimestamp(Class<?> valueClass, TypeInfo type) {
+        if (type instanceof PrimitiveTypeInfo
+                && ((PrimitiveTypeInfo) type).getPrimitiveCategory() == PrimitiveCategory.TIMESTAMP) {
+            if (valueClass == DateTimeOption.class) {
+                return new TimestampColumnVectorCopier();
+            }
+            return null;
+        }
+        return ColumnVectorCopier.find(valueClass, type);
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public void read(ColumnVector vector, int row, ValueOption<?> target) {
+        int index = index(vector, row);
+        if (index < 0) {
+            target.setNull();
+        } else {
+            Date date = dateBuffer;
+            date.setTime(((TimestampColumnVector) vector).time[index]);
+            ((DateTimeOption) target).modify(DateUtil.getSecondFromDate(date));
+        }
+    }
+
+    @Override
+    public void write(ValueOption<?> source, ColumnVector vector, int row) {
+        if (putNull(source, vector, row) == false) {
+            Calendar calendar = calendarBuffer;
+            DateUtil.setSecondToCalendar(((DateTimeOption) source).get().getElapsedSeconds(), calendar);
+            TimestampColumnVector v = (TimestampColumnVector) vector;
+            v.time[row] = calendar.getTimeInMillis();
+            v.nanos[row] = 0;
+        }
+    }
+}
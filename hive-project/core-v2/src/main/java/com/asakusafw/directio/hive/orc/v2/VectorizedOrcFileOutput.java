@@ -0,0 +1,170 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.directio.hive.orc.v2;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile.WriterOptions;
+import org.apache.hadoop.hive.ql.io.orc.Writer;
+
+import com.asakusafw.directio.hive.orc.ColumnVectorCopier;
+import com.asakusafw.directio.hive.serde.DataModelDescriptor;
+import com.asakusafw.directio.hive.serde.PropertyDescriptor;
+import com.asakusafw.runtime.directio.Counter;
+import com.asakusafw.runtime.io.ModelOutput;
+
+/**
+ * An implementation of {@link ModelOutput} for creating ORCFile through {@link VectorizedRowBatch}.
+ * @param <T> the data model type
+ * @since 0.10.5
+ */
+class VectorizedOrcFileOutput<T> implements ModelOutput<T> {
+
+    static final Log LOG = LogFactory.getLog(VectorizedOrcFileOutput.class);
+
+    private final DataModelDescriptor descriptor;
+
+    private final Path path;
+
+    private final FileSystem fileSystem;
+
+    private final OrcFile.WriterOptions options;
+
+    private final Counter counter;
+
+    private final PropertyDescriptor[] properties;
+
+    private final ColumnVectorCopier[] copiers;
+
+    private Writer currentWriter;
+
+    private VectorizedRowBatch batch;
+
+    /**
+     * Creates a new instance.
+     * @param descriptor the target data model descriptor
+     * @param path the path to the target file
+     * @param fileSystem the target file system
+     * @param options the ORCFile writer options
+     * @param counter the current counter
+     */
+    VectorizedOrcFileOutput(
+            DataModelDescriptor descriptor,
+            Path path,
+            FileSystem fileSystem,
+            WriterOptions options,
+            Counter counter) {
+        this.descriptor = descriptor;
+        this.path = path;
+        this.fileSystem = fileSystem;
+        this.options = options;
+        this.counter = counter;
+        List<? extends PropertyDescriptor> props = descriptor.getPropertyDescriptors();
+        this.properties = props.toArray(new PropertyDescriptor[props.size()]);
+        this.copiers = new ColumnVectorCopier[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            ColumnVectorCopier copier = TimestampColumnVectorCopier.findWithTimestamp(properties[i]);
+            if (copier == null) {
+                throw new IllegalArgumentException(MessageFormat.format(
+                        Messages.getString("VectorizedOrcFileOutput.errorUnsupportedType"), //$NON-NLS-1$
+                        descriptor.getDataModelClass().getSimpleName(),
+                        properties[i].getFieldName(),
+                        properties[i].getTypeInfo()));
+            }
+            copiers[i] = copier;
+        }
+    }
+
+    @Override
+    public void write(T model) throws IOException {
+        VectorizedRowBatch current = prepare();
+        int row = current.size++;
+        PropertyDescriptor[] props = properties;
+        ColumnVectorCopier[] cs = copiers;
+        for (int i = 0; i < cs.length; i++) {
+            cs[i].write(props[i].extract(model), current.cols[i], row);
+        }
+        if (current.size >= current.getMaxSize()) {
+            flush();
+        }
+    }
+
+    private VectorizedRowBatch prepare() throws IOException {
+        VectorizedRowBatch current = batch;
+        if (current == null) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info(MessageFormat.format(
+                        Messages.getString("VectorizedOrcFileOutput.infoCreate"), //$NON-NLS-1$
+                        descriptor.getDataModelClass().getSimpleName(),
+                        path));
+            }
+            Writer writer = OrcFile.createWriter(path, options);
+            current = writer.getSchema().createRowBatch();
+            current.reset();
+            currentWriter = writer;
+            batch = current;
+        }
+        return current;
+    }
+
+    private void flush() throws IOException {
+        VectorizedRowBatch current = batch;
+        if (current != null && current.size > 0) {
+            currentWriter.addRowBatch(current);
+            current.reset();
+
+            // NOTE: only tell this is alive
+            counter.add(0);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (currentWriter != null) {
+            flush();
+            currentWriter.close();
+            currentWriter = null;
+            batch = null;
+            counter.add(getFileSize());
+        }
+    }
+
+    private long getFileSize() {
+        try {
+            FileStatus status = fileSystem.getFileStatus(path);
+            return status.getLen();
+        } catch (FileNotFoundException e) {
+            LOG.debug(MessageFormat.format(
+                    "cannot obtain the ORC file size: {0}",
+                    path), e);
+        } catch (IOException e) {
+            LOG.warn(MessageFormat.format(
+                    "cannot obtain the ORC file size: {0}",
+                    path), e);
+        }
+        return 0;
+    }
+}
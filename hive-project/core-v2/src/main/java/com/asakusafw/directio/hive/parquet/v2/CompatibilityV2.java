@@ -31,17 +31,20 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
 import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
 import org.apache.parquet.hadoop.Footer;
 import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.metadata.BlockMetaData;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
 
 import com.asakusafw.directio.hive.parquet.AbstractParquetFileFormat;
 import com.asakusafw.directio.hive.parquet.Compatibility;
 import com.asakusafw.directio.hive.parquet.ParquetFormatConfiguration;
 import com.asakusafw.directio.hive.serde.DataModelMapping;
 import com.asakusafw.directio.hive.util.CompatibilityUtil;
+import com.asakusafw.directio.hive.util.ReadAheadModelInput;
 import com.asakusafw.runtime.directio.Counter;
 import com.asakusafw.runtime.directio.DirectInputFragment;
 import com.asakusafw.runtime.directio.hadoop.BlockMap;
@@ -52,6 +55,7 @@ import com.asakusafw.runtime.io.ModelOutput;
 /**
  * compatibility layer for Direct I/O Parquet support.
  * @since 0.10.3
+ * @version 0.10.5
  */
 public class CompatibilityV2 extends Compatibility {
 
@@ -142,6 +146,34 @@ public class CompatibilityV2 extends Compatibility {
         return results;
     }
 
+    @Override
+    public List<ReadAheadModelInput.Segment> computeSegments(
+            AbstractParquetFileFormat<?> format,
+            FileSystem fileSystem,
+            Path path,
+            long offset,
+            long fragmentSize) throws IOException, InterruptedException {
+        ParquetMetadata footer = ParquetFileReader.readFooter(
+                format.getConf(), path, ParquetMetadataConverter.NO_FILTER);
+        List<ReadAheadModelInput.Segment> results = new ArrayList<>();
+        for (BlockMetaData block : footer.getBlocks()) {
+            if (block.getColumns().isEmpty() || block.getRowCount() == 0) {
+                continue;
+            }
+            long begin = Long.MAX_VALUE;
+            long end = -1L;
+            for (ColumnChunkMetaData column : block.getColumns()) {
+                begin = Math.min(begin, column.getFirstDataPageOffset());
+                end = Math.max(end, column.getFirstDataPageOffset() + column.getTotalSize());
+            }
+            // Parquet file inputs accept row groups which are entirely in the target range
+            if (fragmentSize < 0L || (offset <= begin && end <= offset + fragmentSize)) {
+                results.add(new ReadAheadModelInput.Segment(begin, end - begin));
+            }
+        }
+        return results;
+    }
+
     @Override
     public <T> ModelInput<T> createInput(
             AbstractParquetFileFormat<T> format,
@@ -26,6 +26,8 @@ import java.util.Optional;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.column.values.dictionary.PlainValuesDictionary.PlainIntegerDictionary;
+import org.apache.parquet.column.values.dictionary.PlainValuesDictionary.PlainLongDictionary;
 import org.apache.parquet.io.api.Binary;
 import org.apache.parquet.io.api.RecordConsumer;
 import org.apache.parquet.schema.OriginalType;
@@ -41,6 +43,7 @@ import com.asakusafw.runtime.value.ValueOption;
 /**
  * {@link ParquetValueDriver} for decimals.
  * @since 0.10.0
+ * @version 0.10.5
  */
 public class DecimalValueDriver implements ParquetValueDriver {
 
@@ -155,7 +158,17 @@ public class DecimalValueDriver implements ParquetValueDriver {
         @Override
         public void setDictionary(Dictionary dictionary) {
             BigDecimal[] buf = prepareDictionaryBuffer(dictionary);
-            setDictionaryAsBinary(dictionary, buf);
+            if (dictionary instanceof PlainIntegerDictionary) {
+                for (int id = 0, max = dictionary.getMaxId(); id <= max; id++) {
+                    buf[id] = convert(dictionary.decodeToInt(id));
+                }
+            } else if (dictionary instanceof PlainLongDictionary) {
+                for (int id = 0, max = dictionary.getMaxId(); id <= max; id++) {
+                    buf[id] = convert(dictionary.decodeToLong(id));
+                }
+            } else {
+                setDictionaryAsBinary(dictionary, buf);
+            }
         }
 
         private void setDictionaryAsBinary(Dictionary dictionary, BigDecimal[] buf) {
@@ -175,15 +188,15 @@ public class DecimalValueDriver implements ParquetValueDriver {
             return this.dict;
         }
 
-        private BigDecimal convert(int value) {
-            return new BigDecimal(BigInteger.valueOf(value), scale);
-        }
-
         private BigDecimal convert(long value) {
-            return new BigDecimal(BigInteger.valueOf(value), scale);
+            // BigDecimal.valueOf() may return cached instances for small values
+            return BigDecimal.valueOf(value, scale);
         }
 
         private BigDecimal convert(Binary value) {
+            if (isLongCompatible(value)) {
+                return convert(toLong(value));
+            }
             BigInteger unscaled = new BigInteger(value.getBytes());
             return new BigDecimal(unscaled, scale);
         }
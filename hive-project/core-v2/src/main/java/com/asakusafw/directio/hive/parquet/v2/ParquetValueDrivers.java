@@ -16,7 +16,6 @@
 package com.asakusafw.directio.hive.parquet.v2;
 
 import java.text.MessageFormat;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -26,6 +25,7 @@ import org.apache.hadoop.hive.serde2.typeinfo.DecimalTypeInfo;
 import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.Text;
 import org.apache.parquet.column.Dictionary;
 import org.apache.parquet.io.api.Binary;
 import org.apache.parquet.schema.OriginalType;
@@ -50,7 +50,7 @@ import com.asakusafw.runtime.value.ValueOption;
 /**
  * Provides {@link ParquetValueDriver}.
  * @since 0.7.0
- * @version 0.7.4
+ * @version 0.10.5
  */
 public enum ParquetValueDrivers implements ParquetValueDriver {
 
@@ -469,7 +469,7 @@ public enum ParquetValueDrivers implements ParquetValueDriver {
 
         private StringOption target;
 
-        private Binary[] dict;
+        private Text[] dict;
 
         StringOptionConverter() {
             return;
@@ -487,30 +487,40 @@ public enum ParquetValueDrivers implements ParquetValueDriver {
 
         @Override
         public void setDictionary(Dictionary dictionary) {
-            Binary[] buf = prepareDictionaryBuffer(dictionary);
+            Text[] buf = prepareDictionaryBuffer(dictionary);
             for (int id = 0, max = dictionary.getMaxId(); id <= max; id++) {
-                buf[id] = dictionary.decodeToBinary(id);
+                Text text = buf[id];
+                if (text == null) {
+                    text = new Text();
+                    buf[id] = text;
+                }
+                copy(dictionary.decodeToBinary(id), text);
             }
         }
 
         @Override
         public void addValueFromDictionary(int dictionaryId) {
-            addBinary(dict[dictionaryId]);
+            Text text = dict[dictionaryId];
+            target.reset();
+            target.get().set(text.getBytes(), 0, text.getLength());
         }
 
         @Override
         public void addBinary(Binary value) {
             target.reset();
-            target.get().set(value.getBytes(), 0, value.length());
+            copy(value, target.get());
         }
 
-        private Binary[] prepareDictionaryBuffer(Dictionary dictionary) {
+        private Text[] prepareDictionaryBuffer(Dictionary dictionary) {
             int size = dictionary.getMaxId() + 1;
             if (this.dict == null || this.dict.length < size) {
                 int capacity = (int) (size * 1.2) + 1;
-                this.dict = new Binary[capacity];
-            } else {
-                Arrays.fill(this.dict, null);
+                Text[] newDict = new Text[capacity];
+                if (this.dict != null) {
+                    // reuses the decoded buffers
+                    System.arraycopy(this.dict, 0, newDict, 0, this.dict.length);
+                }
+                this.dict = newDict;
             }
             return this.dict;
         }
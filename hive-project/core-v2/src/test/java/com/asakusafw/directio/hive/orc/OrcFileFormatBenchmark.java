@@ -0,0 +1,156 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.directio.hive.orc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.asakusafw.directio.hive.serde.DataModelDescriptorEditor;
+import com.asakusafw.directio.hive.serde.FieldPropertyDescriptor;
+import com.asakusafw.directio.hive.serde.mock.MockSimple;
+import com.asakusafw.runtime.directio.Counter;
+import com.asakusafw.runtime.io.ModelInput;
+import com.asakusafw.runtime.io.ModelOutput;
+import com.asakusafw.runtime.windows.WindowsSupport;
+
+/**
+ * Compares elapsed time of vectorized ORCFile I/O and row-by-row ORCFile I/O.
+ * <p>
+ * This is not a part of the regular tests, please run it explicitly:
+ * {@code mvn test -Dtest=OrcFileFormatBenchmark [-Dbenchmark.records=N] [-Dbenchmark.iterations=N]}.
+ * </p>
+ */
+public class OrcFileFormatBenchmark {
+
+    /**
+     * Windows platform support.
+     */
+    @ClassRule
+    public static final WindowsSupport WINDOWS_SUPPORT = new WindowsSupport();
+
+    /**
+     * A temporary folder for testing.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int WARMUP = 2;
+
+    /**
+     * Runs the benchmark.
+     * @throws Exception if failed
+     */
+    @Test
+    public void run() throws Exception {
+        int records = Integer.getInteger("benchmark.records", 1_000_000); //$NON-NLS-1$
+        int iterations = Integer.getInteger("benchmark.iterations", 5); //$NON-NLS-1$
+        List<MockSimple> values = new ArrayList<>();
+        for (int i = 0; i < records; i++) {
+            values.add(new MockSimple(i, i % 10 == 0 ? null : "Hello" + i));
+        }
+        OrcFileFormat<MockSimple> row = format(false);
+        OrcFileFormat<MockSimple> vectorized = format(true);
+        long[] rowWrite = new long[iterations];
+        long[] rowRead = new long[iterations];
+        long[] vectorizedWrite = new long[iterations];
+        long[] vectorizedRead = new long[iterations];
+        for (int i = -WARMUP; i < iterations; i++) {
+            File rowFile = folder.newFile();
+            File vectorizedFile = folder.newFile();
+            long t0 = System.nanoTime();
+            save(row, values, rowFile);
+            long t1 = System.nanoTime();
+            long c1 = load(row, rowFile);
+            long t2 = System.nanoTime();
+            save(vectorized, values, vectorizedFile);
+            long t3 = System.nanoTime();
+            long c2 = load(vectorized, vectorizedFile);
+            long t4 = System.nanoTime();
+            if (c1 != records || c2 != records) {
+                throw new AssertionError(Arrays.asList(records, c1, c2));
+            }
+            if (i >= 0) {
+                rowWrite[i] = t1 - t0;
+                rowRead[i] = t2 - t1;
+                vectorizedWrite[i] = t3 - t2;
+                vectorizedRead[i] = t4 - t3;
+            }
+            rowFile.delete();
+            vectorizedFile.delete();
+        }
+        System.out.printf("ORCFile I/O: %,d records, median of %d iterations%n", records, iterations);
+        System.out.printf("  row        - write: %,dms, read: %,dms%n", median(rowWrite), median(rowRead));
+        System.out.printf("  vectorized - write: %,dms, read: %,dms%n",
+                median(vectorizedWrite), median(vectorizedRead));
+    }
+
+    private static long median(long[] elapsed) {
+        long[] sorted = elapsed.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1_000_000;
+    }
+
+    private static OrcFileFormat<MockSimple> format(boolean vectorize) {
+        OrcFileFormat<MockSimple> format = new OrcFileFormat<>(
+                "testing",
+                new OrcFormatConfiguration().withEnableVectorization(vectorize),
+                new DataModelDescriptorEditor(FieldPropertyDescriptor.extract(MockSimple.class)).build());
+        format.setConf(new org.apache.hadoop.conf.Configuration());
+        return format;
+    }
+
+    private static void save(
+            OrcFileFormat<MockSimple> format,
+            List<MockSimple> values, File file) throws IOException, InterruptedException {
+        file.delete();
+        LocalFileSystem fs = FileSystem.getLocal(format.getConf());
+        try (ModelOutput<MockSimple> output = format.createOutput(
+                format.getSupportedType(),
+                fs, new Path(file.toURI()),
+                new Counter())) {
+            for (MockSimple value : values) {
+                output.write(value);
+            }
+        }
+    }
+
+    private static long load(OrcFileFormat<MockSimple> format, File file) throws IOException, InterruptedException {
+        LocalFileSystem fs = FileSystem.getLocal(format.getConf());
+        try (ModelInput<MockSimple> input = format.createInput(
+                format.getSupportedType(),
+                fs, new Path(file.toURI()),
+                0, file.length(),
+                new Counter())) {
+            MockSimple buffer = new MockSimple();
+            long count = 0;
+            while (input.readTo(buffer)) {
+                count++;
+            }
+            return count;
+        }
+    }
+}
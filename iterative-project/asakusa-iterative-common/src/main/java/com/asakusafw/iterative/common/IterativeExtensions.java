@@ -15,16 +15,23 @@
  */
 package com.asakusafw.iterative.common;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Objects;
 
 import com.asakusafw.iterative.common.basic.BasicParameterTable;
+import com.asakusafw.iterative.common.basic.CompactParameterTable;
 
 /**
  * API entry of Asakusa Iterative Extensions.
  * @since 0.8.0
+ * @version 0.10.5
  */
 public final class IterativeExtensions {
 
@@ -45,20 +52,87 @@ public final class IterativeExtensions {
         return new BasicParameterTable.BasicBuilder();
     }
 
+    /**
+     * Creates a new builder for building compact {@link ParameterTable}.
+     * The built table keeps its parameters as a dictionary encoded binary, and is suitable for very large tables.
+     * @return the created builder
+     * @since 0.10.5
+     */
+    public static ParameterTable.Builder compactBuilder() {
+        return new CompactParameterTable.CompactBuilder();
+    }
+
     /**
      * Restores the {@link #save(OutputStream, ParameterTable) saved} object.
+     * This also accepts the {@link #saveCompact(OutputStream, ParameterTable) compact} format.
      * @param input the input source
      * @throws IOException if I/O error was occurred while loading the object
      * @return the restored object
      */
     public static ParameterTable load(InputStream input) throws IOException {
         Objects.requireNonNull(input);
+        PushbackInputStream stream = new PushbackInputStream(input, Integer.BYTES);
+        byte[] head = new byte[Integer.BYTES];
+        int headSize = readFully(stream, head);
+        stream.unread(head, 0, headSize);
+        if (isCompact(head, headSize)) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            while (true) {
+                int read = stream.read(chunk);
+                if (read < 0) {
+                    break;
+                }
+                buffer.write(chunk, 0, read);
+            }
+            return new CompactParameterTable(ByteBuffer.wrap(buffer.toByteArray()));
+        }
         ParameterTableSerDe serde = new ParameterTableSerDe();
         ParameterTable.Builder builder = builder();
-        serde.deserialize(builder, input);
+        serde.deserialize(builder, stream);
         return builder.build();
     }
 
+    /**
+     * Restores the saved object from the given file.
+     * If the file is in the {@link #saveCompact(OutputStream, ParameterTable) compact} format,
+     * this maps the file into memory and decodes each row lazily.
+     * @param file the source file
+     * @throws IOException if I/O error was occurred while loading the object
+     * @return the restored object
+     * @since 0.10.5
+     */
+    public static ParameterTable open(Path file) throws IOException {
+        Objects.requireNonNull(file);
+        boolean compact;
+        try (InputStream input = Files.newInputStream(file)) {
+            byte[] head = new byte[Integer.BYTES];
+            compact = isCompact(head, readFully(input, head));
+        }
+        if (compact) {
+            return CompactParameterTable.map(file);
+        }
+        try (InputStream input = Files.newInputStream(file)) {
+            return load(input);
+        }
+    }
+
+    private static int readFully(InputStream input, byte[] buffer) throws IOException {
+        int size = 0;
+        while (size < buffer.length) {
+            int read = input.read(buffer, size, buffer.length - size);
+            if (read < 0) {
+                break;
+            }
+            size += read;
+        }
+        return size;
+    }
+
+    private static boolean isCompact(byte[] head, int size) {
+        return size == Integer.BYTES && ByteBuffer.wrap(head).getInt() == CompactParameterTable.MAGIC;
+    }
+
     /**
      * Stores the parameter table into the target stream.
      * @param output the target output
@@ -71,4 +145,18 @@ public final class IterativeExtensions {
         ParameterTableSerDe serde = new ParameterTableSerDe();
         serde.serialize(table, output);
     }
+
+    /**
+     * Stores the parameter table into the target stream as the compact format.
+     * The stored table can be restored by {@link #load(InputStream)} or {@link #open(Path)}.
+     * @param output the target output
+     * @param table the target table
+     * @throws IOException if I/O error was occurred while saving the object
+     * @since 0.10.5
+     */
+    public static void saveCompact(OutputStream output, ParameterTable table) throws IOException {
+        Objects.requireNonNull(output);
+        Objects.requireNonNull(table);
+        CompactParameterTable.write(table, output);
+    }
 }
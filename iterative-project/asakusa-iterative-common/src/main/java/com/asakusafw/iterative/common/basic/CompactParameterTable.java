@@ -0,0 +1,540 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.iterative.common.basic;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.asakusafw.iterative.common.ParameterSet;
+import com.asakusafw.iterative.common.ParameterTable;
+
+/**
+ * A compact {@link ParameterTable} which is backed by a columnar and dictionary encoded binary.
+ * <p>
+ * Each row is decoded lazily from the binary through {@link ParameterTable.Cursor},
+ * and the binary can be memory-mapped from a file by using {@link #map(Path)}.
+ * </p>
+ * <p>
+ * The binary format (big endian) is:
+ * </p>
+<pre><code>
+int magic
+int version
+int row-count
+int column-count
+int dictionary-size
+byte cell-width (1, 2, or 4)
+column-count * { int name-id, byte flags }
+(dictionary-size + 1) * int string-offset
+byte[] UTF-8 strings
+column-count * row-count * cell (0: absent, otherwise 1 + value-id)
+</code></pre>
+ * @since 0.10.5
+ */
+public class CompactParameterTable implements ParameterTable {
+
+    /**
+     * The magic number of the compact parameter table binary.
+     */
+    public static final int MAGIC = 0xad01_f0c1;
+
+    static final int VERSION = 0;
+
+    static final byte FLAG_AVAILABLE = 0x01;
+
+    static final byte FLAG_PARTIAL = 0x02;
+
+    private static final int HEADER_SIZE = Integer.BYTES * 5 + 1;
+
+    private static final int COLUMN_SIZE = Integer.BYTES + 1;
+
+    private final ByteBuffer buffer;
+
+    private final int rowCount;
+
+    private final String[] columnNames;
+
+    private final byte[] columnFlags;
+
+    private final Map<String, Integer> columnIndices;
+
+    private final int dictionarySize;
+
+    private final int dictionaryOffset;
+
+    private final int stringsOffset;
+
+    private final int cellWidth;
+
+    private final int cellsOffset;
+
+    private final String[] strings;
+
+    /**
+     * Creates a new instance.
+     * @param buffer the source binary, which must start from the {@link #MAGIC magic number}
+     * @throws IOException if the binary is not valid
+     */
+    public CompactParameterTable(ByteBuffer buffer) throws IOException {
+        Objects.requireNonNull(buffer);
+        this.buffer = buffer.slice().asReadOnlyBuffer();
+        try {
+            if (this.buffer.getInt(0) != MAGIC) {
+                throw new IOException("parameter table is broken: invalid magic number");
+            }
+            int version = this.buffer.getInt(Integer.BYTES);
+            if (version != VERSION) {
+                throw new IOException(MessageFormat.format(
+                        "inconsistent parameter table version: required={0}, actual={1}",
+                        VERSION,
+                        version));
+            }
+            this.rowCount = this.buffer.getInt(Integer.BYTES * 2);
+            int columnCount = this.buffer.getInt(Integer.BYTES * 3);
+            this.dictionarySize = this.buffer.getInt(Integer.BYTES * 4);
+            this.cellWidth = this.buffer.get(Integer.BYTES * 5);
+            if (rowCount < 0 || columnCount < 0 || dictionarySize < 0 || getCellWidth(dictionarySize) != cellWidth) {
+                throw new IOException("parameter table is broken: invalid header");
+            }
+            this.strings = new String[dictionarySize];
+            this.dictionaryOffset = HEADER_SIZE + columnCount * COLUMN_SIZE;
+            this.stringsOffset = dictionaryOffset + (dictionarySize + 1) * Integer.BYTES;
+            this.cellsOffset = stringsOffset + this.buffer.getInt(dictionaryOffset + dictionarySize * Integer.BYTES);
+            long limit = (long) cellsOffset + (long) columnCount * rowCount * cellWidth;
+            if (limit > this.buffer.limit()) {
+                throw new IOException("parameter table is broken: unexpected end of table");
+            }
+            this.columnNames = new String[columnCount];
+            this.columnFlags = new byte[columnCount];
+            this.columnIndices = new HashMap<>();
+            for (int i = 0; i < columnCount; i++) {
+                int offset = HEADER_SIZE + i * COLUMN_SIZE;
+                columnNames[i] = getString(this.buffer.getInt(offset));
+                columnFlags[i] = this.buffer.get(offset + Integer.BYTES);
+                columnIndices.put(columnNames[i], i);
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("parameter table is broken: unexpected end of table", e);
+        }
+    }
+
+    /**
+     * Maps the compact parameter table file into memory.
+     * @param file the source file
+     * @return the mapped table
+     * @throws IOException if failed to map the file, or the file is not valid
+     */
+    public static CompactParameterTable map(Path file) throws IOException {
+        Objects.requireNonNull(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(MessageFormat.format(
+                        "parameter table is too large: {0} ({1} bytes)",
+                        file,
+                        size));
+            }
+            // the mapping is still available after the channel is closed
+            return new CompactParameterTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * Writes the given table as a compact parameter table binary.
+     * @param table the source table
+     * @param output the destination
+     * @throws IOException if failed to write the table
+     */
+    public static void write(ParameterTable table, OutputStream output) throws IOException {
+        Objects.requireNonNull(table);
+        Objects.requireNonNull(output);
+        CompactParameterTable compact;
+        if (table instanceof CompactParameterTable) {
+            compact = (CompactParameterTable) table;
+        } else {
+            CompactBuilder builder = new CompactBuilder();
+            ParameterTable.Cursor cursor = table.newCursor();
+            while (cursor.next()) {
+                builder.next();
+                builder.put(cursor.get().toMap());
+            }
+            compact = builder.build();
+        }
+        ByteBuffer source = compact.buffer.duplicate();
+        source.clear();
+        byte[] chunk = new byte[Math.min(source.remaining(), 64 * 1024)];
+        while (source.hasRemaining()) {
+            int size = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, size);
+            output.write(chunk, 0, size);
+        }
+    }
+
+    static int getCellWidth(int dictionarySize) {
+        // cell values are in [0, dictionarySize]
+        if (dictionarySize <= 0xff) {
+            return 1;
+        } else if (dictionarySize <= 0xffff) {
+            return 2;
+        } else {
+            return 4;
+        }
+    }
+
+    String getString(int id) {
+        if (id < 0 || id >= dictionarySize) {
+            throw new IllegalStateException(MessageFormat.format(
+                    "parameter table is broken: invalid string ID: {0}",
+                    id));
+        }
+        String cached = strings[id];
+        if (cached != null) {
+            return cached;
+        }
+        int begin = buffer.getInt(dictionaryOffset + id * Integer.BYTES);
+        int end = buffer.getInt(dictionaryOffset + (id + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - begin];
+        ByteBuffer source = buffer.duplicate();
+        source.position(stringsOffset + begin);
+        source.get(bytes);
+        String result = new String(bytes, StandardCharsets.UTF_8);
+        strings[id] = result;
+        return result;
+    }
+
+    int getCell(int row, int column) {
+        int offset = cellsOffset + (column * rowCount + row) * cellWidth;
+        switch (cellWidth) {
+        case 1:
+            return buffer.get(offset) & 0xff;
+        case 2:
+            return buffer.getShort(offset) & 0xffff;
+        default:
+            return buffer.getInt(offset);
+        }
+    }
+
+    @Override
+    public Iterator<ParameterSet> iterator() {
+        return CursorUtil.toIterator(newCursor());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return rowCount == 0;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public Cursor newCursor() {
+        return new CompactCursor(this);
+    }
+
+    @Override
+    public Set<String> getAvailable() {
+        return getColumns(FLAG_AVAILABLE);
+    }
+
+    @Override
+    public Set<String> getPartial() {
+        return getColumns(FLAG_PARTIAL);
+    }
+
+    private Set<String> getColumns(byte flag) {
+        Set<String> results = new LinkedHashSet<>();
+        for (int i = 0; i < columnNames.length; i++) {
+            if ((columnFlags[i] & flag) != 0) {
+                results.add(columnNames[i]);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public List<ParameterSet> getRows() {
+        List<ParameterSet> results = new ArrayList<>(rowCount);
+        for (ParameterSet element : this) {
+            results.add(element);
+        }
+        return results;
+    }
+
+    /**
+     * A {@link com.asakusafw.iterative.common.ParameterTable.Cursor} for {@link CompactParameterTable}.
+     * @since 0.10.5
+     */
+    public static class CompactCursor implements Cursor {
+
+        private final CompactParameterTable table;
+
+        private int row = -1;
+
+        /**
+         * Creates a new instance.
+         * @param table the target table
+         */
+        public CompactCursor(CompactParameterTable table) {
+            Objects.requireNonNull(table);
+            this.table = table;
+        }
+
+        @Override
+        public boolean next() {
+            if (row + 1 >= table.rowCount) {
+                row = table.rowCount;
+                return false;
+            }
+            row++;
+            return true;
+        }
+
+        @Override
+        public ParameterSet get() {
+            checkRow();
+            return new CompactParameterSet(table, row);
+        }
+
+        @Override
+        public Set<String> getDifferences() {
+            checkRow();
+            Set<String> results = new HashSet<>();
+            for (int column = 0; column < table.columnNames.length; column++) {
+                int previous = row == 0 ? 0 : table.getCell(row - 1, column);
+                if (previous != table.getCell(row, column)) {
+                    results.add(table.columnNames[column]);
+                }
+            }
+            return results;
+        }
+
+        private void checkRow() {
+            if (row < 0 || row >= table.rowCount) {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private static final class CompactParameterSet implements ParameterSet {
+
+        private final CompactParameterTable table;
+
+        private final int row;
+
+        private Map<String, String> map;
+
+        CompactParameterSet(CompactParameterTable table, int row) {
+            this.table = table;
+            this.row = row;
+        }
+
+        @Override
+        public boolean isAvailable(String name) {
+            Objects.requireNonNull(name);
+            Integer column = table.columnIndices.get(name);
+            return column != null && table.getCell(row, column) != 0;
+        }
+
+        @Override
+        public String get(String name) {
+            Objects.requireNonNull(name);
+            Integer column = table.columnIndices.get(name);
+            if (column == null) {
+                return null;
+            }
+            int cell = table.getCell(row, column);
+            return cell == 0 ? null : table.getString(cell - 1);
+        }
+
+        @Override
+        public Set<String> getAvailable() {
+            return toMap().keySet();
+        }
+
+        @Override
+        public Map<String, String> toMap() {
+            if (map == null) {
+                Map<String, String> results = new LinkedHashMap<>();
+                for (int column = 0; column < table.columnNames.length; column++) {
+                    int cell = table.getCell(row, column);
+                    if (cell != 0) {
+                        results.put(table.columnNames[column], table.getString(cell - 1));
+                    }
+                }
+                map = Collections.unmodifiableMap(results);
+            }
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return toMap().toString();
+        }
+    }
+
+    /**
+     * A {@link com.asakusafw.iterative.common.ParameterTable.Builder} for {@link CompactParameterTable}.
+     * This keeps only dictionary encoded cells instead of individual parameter maps.
+     * @since 0.10.5
+     */
+    public static class CompactBuilder implements Builder {
+
+        private final Map<String, Integer> dictionary = new LinkedHashMap<>();
+
+        private final Map<String, int[]> columns = new LinkedHashMap<>();
+
+        private int rowCount = 0;
+
+        private int capacity = 16;
+
+        @Override
+        public Builder next() {
+            if (rowCount == capacity) {
+                capacity *= 2;
+                for (Map.Entry<String, int[]> entry : columns.entrySet()) {
+                    entry.setValue(Arrays.copyOf(entry.getValue(), capacity));
+                }
+            }
+            rowCount++;
+            return this;
+        }
+
+        @Override
+        public Builder put(String name, String value) {
+            Objects.requireNonNull(name);
+            Objects.requireNonNull(value);
+            if (rowCount == 0) {
+                throw new IllegalStateException();
+            }
+            int[] cells = columns.get(name);
+            if (cells == null) {
+                intern(name);
+                cells = new int[capacity];
+                columns.put(name, cells);
+            }
+            cells[rowCount - 1] = intern(value) + 1;
+            return this;
+        }
+
+        @Override
+        public Builder put(Map<String, String> parameters) {
+            Objects.requireNonNull(parameters);
+            for (Map.Entry<String, String> entry : parameters.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+            return this;
+        }
+
+        private int intern(String value) {
+            Integer id = dictionary.get(value);
+            if (id == null) {
+                id = dictionary.size();
+                dictionary.put(value, id);
+            }
+            return id;
+        }
+
+        @Override
+        public CompactParameterTable build() {
+            byte[][] encoded = new byte[dictionary.size()][];
+            int stringsSize = 0;
+            for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+                byte[] bytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                encoded[entry.getValue()] = bytes;
+                stringsSize += bytes.length;
+            }
+            int width = getCellWidth(encoded.length);
+            long size = (long) HEADER_SIZE
+                    + (long) columns.size() * COLUMN_SIZE
+                    + (long) (encoded.length + 1) * Integer.BYTES
+                    + stringsSize
+                    + (long) columns.size() * rowCount * width;
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException(MessageFormat.format(
+                        "parameter table is too large: {0} bytes",
+                        size));
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(rowCount);
+            buffer.putInt(columns.size());
+            buffer.putInt(encoded.length);
+            buffer.put((byte) width);
+            for (Map.Entry<String, int[]> entry : columns.entrySet()) {
+                int[] cells = entry.getValue();
+                byte flags = 0;
+                for (int i = 0; i < rowCount; i++) {
+                    flags |= cells[i] == 0 ? FLAG_PARTIAL : FLAG_AVAILABLE;
+                }
+                buffer.putInt(dictionary.get(entry.getKey()));
+                buffer.put(flags);
+            }
+            int offset = 0;
+            for (byte[] bytes : encoded) {
+                buffer.putInt(offset);
+                offset += bytes.length;
+            }
+            buffer.putInt(offset);
+            for (byte[] bytes : encoded) {
+                buffer.put(bytes);
+            }
+            for (int[] cells : columns.values()) {
+                for (int i = 0; i < rowCount; i++) {
+                    switch (width) {
+                    case 1:
+                        buffer.put((byte) cells[i]);
+                        break;
+                    case 2:
+                        buffer.putShort((short) cells[i]);
+                        break;
+                    default:
+                        buffer.putInt(cells[i]);
+                        break;
+                    }
+                }
+            }
+            assert buffer.remaining() == 0;
+            buffer.flip();
+            try {
+                return new CompactParameterTable(buffer);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -20,17 +20,30 @@ import static org.junit.Assert.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.asakusafw.iterative.common.basic.CompactParameterTable;
 
 /**
  * Test for {@link IterativeExtensions}.
  */
 public class IterativeExtensionsTest {
 
+    /**
+     * temporary folder.
+     */
+    @Rule
+    public final TemporaryFolder temporary = new TemporaryFolder();
+
     /**
      * builder - simple case.
      */
@@ -168,6 +181,67 @@ public class IterativeExtensionsTest {
         assertThat(m2, hasEntry("c", "C"));
     }
 
+    /**
+     * serde - compact format.
+     */
+    @Test
+    public void serde_compact() {
+        ParameterTable table = IterativeExtensions.compactBuilder()
+                .next().put("a", "A")
+                .next().put("b", "B")
+                .build();
+
+        ParameterTable restored = restoreCompact(table);
+        assertThat(restored, is(instanceOf(CompactParameterTable.class)));
+        assertThat(restored.getRowCount(), is(2));
+
+        List<ParameterSet> rows = restored.getRows();
+        assertThat(rows.get(0).toMap().keySet(), containsInAnyOrder("a"));
+        assertThat(rows.get(1).toMap(), hasEntry("b", "B"));
+    }
+
+    /**
+     * open - both formats.
+     * @throws Exception if failed
+     */
+    @Test
+    public void open() throws Exception {
+        ParameterTable table = IterativeExtensions.builder()
+                .next().put("a", "A")
+                .next().put("b", "B")
+                .build();
+
+        File basic = temporary.newFile();
+        try (OutputStream output = new FileOutputStream(basic)) {
+            IterativeExtensions.save(output, table);
+        }
+        File compact = temporary.newFile();
+        try (OutputStream output = new FileOutputStream(compact)) {
+            IterativeExtensions.saveCompact(output, table);
+        }
+        ParameterTable r0 = IterativeExtensions.open(basic.toPath());
+        ParameterTable r1 = IterativeExtensions.open(compact.toPath());
+        assertThat(r1, is(instanceOf(CompactParameterTable.class)));
+        for (ParameterTable restored : new ParameterTable[] { r0, r1 }) {
+            List<ParameterSet> rows = restored.getRows();
+            assertThat(rows, hasSize(2));
+            assertThat(rows.get(0).toMap().keySet(), containsInAnyOrder("a"));
+            assertThat(rows.get(1).toMap(), hasEntry("b", "B"));
+        }
+    }
+
+    private ParameterTable restoreCompact(ParameterTable table) {
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            IterativeExtensions.saveCompact(output, table);
+
+            ByteArrayInputStream input = new ByteArrayInputStream(output.toByteArray());
+            return IterativeExtensions.load(input);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     private ParameterTable restore(ParameterTable table) {
         try {
             ByteArrayOutputStream output = new ByteArrayOutputStream();
@@ -0,0 +1,190 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.iterative.common.basic;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.asakusafw.iterative.common.ParameterSet;
+import com.asakusafw.iterative.common.ParameterTable;
+
+/**
+ * Test for {@link CompactParameterTable}.
+ */
+public class CompactParameterTableTest {
+
+    /**
+     * temporary folder.
+     */
+    @Rule
+    public final TemporaryFolder temporary = new TemporaryFolder();
+
+    /**
+     * builder - simple case.
+     */
+    @Test
+    public void builder() {
+        ParameterTable table = new CompactParameterTable.CompactBuilder()
+            .next()
+                .put("a", "A")
+            .build();
+
+        assertThat(table.getRowCount(), is(1));
+        assertThat(table.getAvailable(), containsInAnyOrder("a"));
+        assertThat(table.getPartial(), hasSize(0));
+
+        List<ParameterSet> rows = table.getRows();
+        Map<String, String> map = rows.get(0).toMap();
+        assertThat(map.keySet(), containsInAnyOrder("a"));
+        assertThat(map, hasEntry("a", "A"));
+        assertThat(rows.get(0).get("a"), is("A"));
+        assertThat(rows.get(0).get("b"), is(nullValue()));
+        assertThat(rows.get(0).isAvailable("a"), is(true));
+        assertThat(rows.get(0).isAvailable("b"), is(false));
+    }
+
+    /**
+     * builder - empty table.
+     */
+    @Test
+    public void builder_empty() {
+        ParameterTable table = new CompactParameterTable.CompactBuilder().build();
+        assertThat(table.isEmpty(), is(true));
+        assertThat(table.getRowCount(), is(0));
+        assertThat(table.newCursor().next(), is(false));
+    }
+
+    /**
+     * builder - multiple rows.
+     */
+    @Test
+    public void builder_rows() {
+        ParameterTable table = new CompactParameterTable.CompactBuilder()
+                .next().put("a", "A").put("b", "B")
+                .next().put("a", "A")
+                .next().put("a", "X").put("a", "C")
+                .build();
+
+        assertThat(table.getRowCount(), is(3));
+        assertThat(table.getAvailable(), containsInAnyOrder("a", "b"));
+        assertThat(table.getPartial(), containsInAnyOrder("b"));
+
+        List<ParameterSet> rows = table.getRows();
+        assertThat(rows.get(0).toMap().keySet(), containsInAnyOrder("a", "b"));
+        assertThat(rows.get(1).toMap().keySet(), containsInAnyOrder("a"));
+        assertThat(rows.get(2).toMap(), hasEntry("a", "C"));
+    }
+
+    /**
+     * cursor - differences between rows.
+     */
+    @Test
+    public void cursor_differences() {
+        ParameterTable table = new CompactParameterTable.CompactBuilder()
+                .next().put("a", "A").put("b", "B")
+                .next().put("a", "A").put("b", "C")
+                .next().put("a", "A")
+                .build();
+
+        ParameterTable.Cursor cursor = table.newCursor();
+        assertThat(cursor.next(), is(true));
+        assertThat(cursor.getDifferences(), containsInAnyOrder("a", "b"));
+        assertThat(cursor.next(), is(true));
+        assertThat(cursor.getDifferences(), containsInAnyOrder("b"));
+        assertThat(cursor.next(), is(true));
+        assertThat(cursor.getDifferences(), containsInAnyOrder("b"));
+        assertThat(cursor.next(), is(false));
+    }
+
+    /**
+     * builder - many distinct values.
+     */
+    @Test
+    public void builder_wide_dictionary() {
+        int count = 70_000;
+        CompactParameterTable.CompactBuilder builder = new CompactParameterTable.CompactBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.next().put("id", String.valueOf(i)).put("mod", String.valueOf(i % 3));
+        }
+        ParameterTable table = builder.build();
+        assertThat(table.getRowCount(), is(count));
+
+        ParameterTable.Cursor cursor = table.newCursor();
+        for (int i = 0; i < count; i++) {
+            assertThat(cursor.next(), is(true));
+            ParameterSet row = cursor.get();
+            assertThat(row.get("id"), is(String.valueOf(i)));
+            assertThat(row.get("mod"), is(String.valueOf(i % 3)));
+        }
+        assertThat(cursor.next(), is(false));
+    }
+
+    /**
+     * write and map.
+     * @throws Exception if failed
+     */
+    @Test
+    public void map() throws Exception {
+        ParameterTable table = new BasicParameterTable.BasicBuilder()
+                .next().put("a", "A").put("c", "あ")
+                .next().put("b", "B")
+                .build();
+
+        File file = temporary.newFile();
+        try (OutputStream output = new FileOutputStream(file)) {
+            CompactParameterTable.write(table, output);
+        }
+        CompactParameterTable restored = CompactParameterTable.map(file.toPath());
+        assertThat(restored.getRowCount(), is(2));
+        List<ParameterSet> rows = restored.getRows();
+        assertThat(rows.get(0).toMap().keySet(), containsInAnyOrder("a", "c"));
+        assertThat(rows.get(0).get("c"), is("あ"));
+        assertThat(rows.get(1).toMap().keySet(), containsInAnyOrder("b"));
+
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        CompactParameterTable.write(restored, copy);
+        assertThat(copy.toByteArray(), is(Files.readAllBytes(file.toPath())));
+    }
+
+    /**
+     * broken binary.
+     * @throws Exception if failed
+     */
+    @Test(expected = IOException.class)
+    public void broken() throws Exception {
+        ParameterTable table = new CompactParameterTable.CompactBuilder()
+                .next().put("a", "A")
+                .build();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        CompactParameterTable.write(table, output);
+        byte[] bytes = output.toByteArray();
+        new CompactParameterTable(ByteBuffer.wrap(bytes, 0, bytes.length - 1));
+    }
+}
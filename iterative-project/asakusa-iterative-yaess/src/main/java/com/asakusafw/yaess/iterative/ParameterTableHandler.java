@@ -37,6 +37,7 @@ import com.fasterxml.jackson.core.JsonToken;
 /**
  * Handles {@link ParameterTable}.
  * @since 0.8.0
+ * @version 0.10.5
  */
 public class ParameterTableHandler implements ExtensionHandler {
 
@@ -47,22 +48,39 @@ public class ParameterTableHandler implements ExtensionHandler {
      */
     public static final String TAG = "parameter-table";
 
+    /**
+     * The extension tag name for storing the parameter table as the compact format.
+     * The engine runtime must read the table via {@link IterativeExtensions#load(java.io.InputStream)} or
+     * {@link IterativeExtensions#open(java.nio.file.Path)} of {@code 0.10.5} or later.
+     * @since 0.10.5
+     */
+    public static final String TAG_COMPACT = "parameter-table-compact";
+
     @Override
     public Extension handle(String tag, String value) throws IOException {
-        if (tag.equals(TAG) == false) {
+        boolean compact;
+        if (tag.equals(TAG)) {
+            compact = false;
+        } else if (tag.equals(TAG_COMPACT)) {
+            compact = true;
+        } else {
             return null;
         }
         File file = new File(value);
         if (file.isFile() == false) {
             throw new FileNotFoundException(file.getAbsolutePath());
         }
-        ParameterTable table = parse(file);
+        ParameterTable table = parse(file, compact);
 
         File temporary = File.createTempFile("asakusa-iterative-", ".bin"); //$NON-NLS-1$ //$NON-NLS-2$
         boolean success = false;
         try (OutputStream output = new FileOutputStream(temporary)) {
             LOG.debug("storing parameter table: {}", temporary); //$NON-NLS-1$
-            IterativeExtensions.save(output, table);
+            if (compact) {
+                IterativeExtensions.saveCompact(output, table);
+            } else {
+                IterativeExtensions.save(output, table);
+            }
             success = true;
         } finally {
             if (success == false) {
@@ -77,6 +95,10 @@ public class ParameterTableHandler implements ExtensionHandler {
     }
 
     static ParameterTable parse(File file) throws IOException {
+        return parse(file, false);
+    }
+
+    static ParameterTable parse(File file, boolean compact) throws IOException {
         LOG.debug("parsing JSON parameter table: {}", file); //$NON-NLS-1$
         JsonFactory json = new JsonFactory();
         json.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
@@ -86,7 +108,9 @@ public class ParameterTableHandler implements ExtensionHandler {
         json.enable(JsonParser.Feature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER);
         json.enable(JsonParser.Feature.ALLOW_NUMERIC_LEADING_ZEROS);
         try (JsonParser parser = json.createParser(file)) {
-            ParameterTable.Builder builder = IterativeExtensions.builder();
+            ParameterTable.Builder builder = compact
+                    ? IterativeExtensions.compactBuilder()
+                    : IterativeExtensions.builder();
             while (true) {
                 JsonToken t = parser.nextToken();
                 if (t == null) {
@@ -34,6 +34,7 @@ import org.junit.rules.TemporaryFolder;
 import com.asakusafw.iterative.common.IterativeExtensions;
 import com.asakusafw.iterative.common.ParameterSet;
 import com.asakusafw.iterative.common.ParameterTable;
+import com.asakusafw.iterative.common.basic.CompactParameterTable;
 import com.asakusafw.yaess.basic.BasicExtension;
 import com.asakusafw.yaess.core.Extension;
 import com.asakusafw.yaess.core.ExtensionHandler;
@@ -113,6 +114,7 @@ public class ParameterTableHandlerTest {
             f = ((BasicExtension) ext).getData().getFile();
             try (InputStream in = ext.getData().open()) {
                 ParameterTable table = IterativeExtensions.load(in);
+                assertThat(table, is(not(instanceOf(CompactParameterTable.class))));
                 assertThat(table.getRowCount(), is(1));
                 List<ParameterSet> rows = table.getRows();
                 assertThat(rows.get(0).toMap(), is(map("a", "A", "b", "B", "c", "C")));
@@ -121,6 +123,31 @@ public class ParameterTableHandlerTest {
         assertThat("delete on exit", f.exists(), is(false));
     }
 
+    /**
+     * handle - compact format.
+     * @throws Exception if failed
+     */
+    @Test
+    public void handle_compact() throws Exception {
+        File json = json(new String[] {
+                "{ a: 'A', b: 'B', c: 'C' }",
+                "{ a: 'A' }",
+        });
+        File f;
+        try (Extension ext = new ParameterTableHandler().handle(
+                ParameterTableHandler.TAG_COMPACT, json.getAbsolutePath())) {
+            assertThat(ext, is(notNullValue()));
+            f = ((BasicExtension) ext).getData().getFile();
+            ParameterTable table = IterativeExtensions.open(f.toPath());
+            assertThat(table, is(instanceOf(CompactParameterTable.class)));
+            assertThat(table.getRowCount(), is(2));
+            List<ParameterSet> rows = table.getRows();
+            assertThat(rows.get(0).toMap(), is(map("a", "A", "b", "B", "c", "C")));
+            assertThat(rows.get(1).toMap(), is(map("a", "A")));
+        }
+        assertThat("delete on exit", f.exists(), is(false));
+    }
+
     /**
      * handle.
      * @throws Exception if failed
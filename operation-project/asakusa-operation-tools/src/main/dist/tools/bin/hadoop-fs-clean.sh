@@ -20,7 +20,7 @@ usage() {
 hadoop-fs-clean - Remove old contents on Hadoop File System
 
 Usage:
-    hadoop-fs-clean.sh -k <days> [-r] [-s] <path> [<path> [...]]
+    hadoop-fs-clean.sh -k <days> [-r] [-s] [-p <threads>] [-b] [-c <file>] <path> [<path> [...]]
 
 Parameters:
     -h, -help
@@ -32,6 +32,15 @@ Parameters:
         Cleanup directories and their contents recursively.
     -s, -dry-run
         Do not actually remove contents.
+    -p <threads>, -parallelism <threads>
+        The number of threads for listing and removing contents (default: 1).
+    -b, -batch
+        Remove directories whose contents are all expired by a single recursive operation.
+        Some file systems (e.g. object stores) remove them in bulk.
+    -c <file>, -checkpoint <file>
+        Record the progress into the local <file>, and resume from it on the next execution
+        with the same -k, -r, and paths. The file is removed after successfully completed.
+        This is ignored if -s is specified.
     path
         Cleanup target path expressions.
     --
@@ -41,6 +50,7 @@ Examples:
     hadoop-fs-clean.sh -k 1 hadoopwork/*
     hadoop-fs-clean.sh -k 0 -r hdfs://localhost:8020/usr/asakusa/hadoopwork/*
     hadoop-fs-clean.sh -k 10 -r -s file:///tmp/asakusa/logs
+    hadoop-fs-clean.sh -k 1 -r -p 8 -b -c /tmp/asakusa/clean.checkpoint s3a://bucket/hadoopwork/*
 EOF
 }
 
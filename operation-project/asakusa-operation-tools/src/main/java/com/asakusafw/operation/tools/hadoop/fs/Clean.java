@@ -16,6 +16,7 @@
 package com.asakusafw.operation.tools.hadoop.fs;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.URI;
@@ -25,7 +26,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.apache.commons.cli.BasicParser;
 import org.apache.commons.cli.CommandLine;
@@ -45,6 +49,7 @@ import org.apache.hadoop.util.Tool;
 /**
  * CLI for Hadoop FS cleaning tool.
  * @since 0.4.0
+ * @version 0.10.5
  */
 public class Clean extends Configured implements Tool {
 
@@ -53,17 +58,29 @@ public class Clean extends Configured implements Tool {
     static final Option OPT_RECURSIVE;
     static final Option OPT_DRY_RUN;
     static final Option OPT_KEEP_DAYS;
+    static final Option OPT_PARALLELISM;
+    static final Option OPT_BATCH;
+    static final Option OPT_CHECKPOINT;
 
     private static final Options OPTIONS;
     static {
         OPT_RECURSIVE = new Option("r", "recursive", false, "remove recursively"); //$NON-NLS-1$ //$NON-NLS-2$
         OPT_DRY_RUN = new Option("s", "dry-run", false, "do not delete actually"); //$NON-NLS-1$ //$NON-NLS-2$
         OPT_KEEP_DAYS = new Option("k", "keep-days", true, "keep files lecent days"); //$NON-NLS-1$ //$NON-NLS-2$
+        OPT_PARALLELISM = new Option("p", "parallelism", true, //$NON-NLS-1$ //$NON-NLS-2$
+                "number of threads for listing and removing files");
+        OPT_BATCH = new Option("b", "batch", false, //$NON-NLS-1$ //$NON-NLS-2$
+                "remove fully expired directories by a single operation");
+        OPT_CHECKPOINT = new Option("c", "checkpoint", true, //$NON-NLS-1$ //$NON-NLS-2$
+                "checkpoint file to resume cleaning");
 
         OPTIONS = new Options();
         OPTIONS.addOption(OPT_RECURSIVE);
         OPTIONS.addOption(OPT_DRY_RUN);
         OPTIONS.addOption(OPT_KEEP_DAYS);
+        OPTIONS.addOption(OPT_PARALLELISM);
+        OPTIONS.addOption(OPT_BATCH);
+        OPTIONS.addOption(OPT_CHECKPOINT);
     }
 
     private final long currentTime;
@@ -129,16 +146,50 @@ public class Clean extends Configured implements Tool {
             return 2;
         }
         long period = currentTime - (long) (opts.keepDays * TimeUnit.DAYS.toMillis(1));
+        CleanCheckpoint checkpoint;
+        if (opts.checkpoint == null) {
+            checkpoint = CleanCheckpoint.empty(period);
+        } else if (opts.dryRun) {
+            LOG.info(MessageFormat.format(
+                    "[OT-CLEAN-I00101] Checkpoint is disabled in dry-run mode: {0}",
+                    opts.checkpoint));
+            checkpoint = CleanCheckpoint.empty(period);
+        } else {
+            try {
+                checkpoint = CleanCheckpoint.open(opts.checkpoint, opts.getSignature(), period);
+            } catch (IOException e) {
+                LOG.error(MessageFormat.format(
+                        "[OT-CLEAN-E00002] Failed to open checkpoint: {0}",
+                        opts.checkpoint), e);
+                return 1;
+            }
+        }
+        period = checkpoint.getPeriod();
         if (LOG.isDebugEnabled()) {
             LOG.debug(MessageFormat.format("Keep switching-time: {0}", new Date(period))); //$NON-NLS-1$
         }
-        Context context = new Context(opts.recursive, period, opts.dryRun);
-        for (Path path : opts.paths) {
-            remove(path, context);
+        ForkJoinPool pool = opts.parallelism > 1 ? new ForkJoinPool(opts.parallelism) : null;
+        Context context = new Context(opts.recursive, period, opts.dryRun, opts.batch, pool, checkpoint);
+        try {
+            for (Path path : opts.paths) {
+                remove(path, context);
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
         }
         if (context.hasError()) {
+            try {
+                checkpoint.close();
+            } catch (IOException e) {
+                LOG.warn(MessageFormat.format(
+                        "[OT-CLEAN-W01004] Failed to close checkpoint: {0}",
+                        opts.checkpoint), e);
+            }
             return 1;
         }
+        checkpoint.discard();
         return 0;
     }
 
@@ -154,6 +205,9 @@ public class Clean extends Configured implements Tool {
         boolean recursive = cmd.hasOption(OPT_RECURSIVE.getOpt());
         String keepString = cmd.getOptionValue(OPT_KEEP_DAYS.getOpt());
         boolean dryRun = cmd.hasOption(OPT_DRY_RUN.getOpt());
+        String parallelismString = cmd.getOptionValue(OPT_PARALLELISM.getOpt());
+        boolean batch = cmd.hasOption(OPT_BATCH.getOpt());
+        String checkpointString = cmd.getOptionValue(OPT_CHECKPOINT.getOpt());
         String[] rest = cmd.getArgs();
 
         if (keepString == null) {
@@ -182,7 +236,32 @@ public class Clean extends Configured implements Tool {
         if (LOG.isDebugEnabled()) {
             LOG.debug(MessageFormat.format("Option {0}: {1}", OPT_KEEP_DAYS.getLongOpt(), keepDays)); //$NON-NLS-1$
             LOG.debug(MessageFormat.format("Option {0}: {1}", OPT_DRY_RUN.getLongOpt(), dryRun)); //$NON-NLS-1$
+            LOG.debug(MessageFormat.format("Option {0}: {1}", OPT_BATCH.getLongOpt(), batch)); //$NON-NLS-1$
+            LOG.debug(MessageFormat.format("Option {0}: {1}", //$NON-NLS-1$
+                    OPT_CHECKPOINT.getLongOpt(), checkpointString));
+        }
+        int parallelism = 1;
+        if (parallelismString != null) {
+            try {
+                parallelism = Integer.parseInt(parallelismString);
+            } catch (NumberFormatException e) {
+                parallelism = -1;
+            }
+            if (parallelism < 1) {
+                LOG.error(MessageFormat.format(
+                        "[OT-CLEAN-E00001] -{0} must be a positive integer: {1}",
+                        OPT_PARALLELISM.getLongOpt(),
+                        parallelismString));
+                return null;
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(MessageFormat.format("Option {0}: {1}", //$NON-NLS-1$
+                        OPT_PARALLELISM.getLongOpt(), parallelism));
+            }
         }
+        File checkpoint = checkpointString == null || checkpointString.trim().isEmpty()
+                ? null
+                : new File(checkpointString.trim());
 
         List<Path> paths = new ArrayList<>();
         for (String pathString : rest) {
@@ -208,7 +287,7 @@ public class Clean extends Configured implements Tool {
                     new Object[0]));
             return null;
         }
-        return new Opts(recursive, keepDays, dryRun, paths);
+        return new Opts(recursive, keepDays, dryRun, paths, parallelism, batch, checkpoint);
     }
 
     boolean remove(Path path, Context context) {
@@ -242,10 +321,15 @@ public class Clean extends Configured implements Tool {
             context.setError();
             return false;
         }
-        boolean removed = true;
         long start = System.currentTimeMillis();
-        for (FileStatus file : files) {
-            removed &= remove(fs, file, context);
+        List<Result> results = context.invoke(() -> removeAll(fs, files, context, context.isBatch()));
+        boolean removed = true;
+        for (int i = 0, n = files.size(); i < n; i++) {
+            Result result = results.get(i);
+            if (result.isPending()) {
+                result = delete(fs, files.get(i), result, context);
+            }
+            removed &= result.isRemoved();
         }
         long end = System.currentTimeMillis();
         LOG.info(MessageFormat.format(
@@ -256,7 +340,25 @@ public class Clean extends Configured implements Tool {
         return removed;
     }
 
-    private boolean remove(FileSystem fs, FileStatus file, Context context) {
+    private List<Result> removeAll(FileSystem fs, List<FileStatus> files, Context context, boolean defer) {
+        List<Result> results = new ArrayList<>(files.size());
+        if (context.isParallel() == false || files.size() <= 1) {
+            for (FileStatus file : files) {
+                results.add(remove(fs, file, context, defer));
+            }
+            return results;
+        }
+        List<ForkJoinTask<Result>> tasks = new ArrayList<>(files.size());
+        for (FileStatus file : files) {
+            tasks.add(ForkJoinTask.adapt(() -> remove(fs, file, context, defer)));
+        }
+        for (ForkJoinTask<Result> task : ForkJoinTask.invokeAll(tasks)) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    private Result remove(FileSystem fs, FileStatus file, Context context, boolean defer) {
         if (LOG.isDebugEnabled()) {
             LOG.debug(MessageFormat.format("Attempt to remove {0}", file.getPath())); //$NON-NLS-1$
         }
@@ -266,71 +368,165 @@ public class Clean extends Configured implements Tool {
                     "[OT-CLEAN-W01001] Symlink is currenty not supported: {0}",
                     file.getPath()));
             context.setError();
-            return false;
+            return Result.FAILED;
         }
+        Result pending = null;
         if (file.isDirectory()) {
-            if (context.isRecursive()) {
-                List<FileStatus> children;
-                try {
-                    children = asList(fs.listStatus(file.getPath()));
-                } catch (IOException e) {
-                    LOG.error(MessageFormat.format(
-                            "[OT-CLEAN-E01003] Failed to list directory: {0}",
-                            file.getPath()), e);
-                    context.setError();
-                    return false;
-                }
-                boolean deleteChildren = true;
-                for (FileStatus child : children) {
-                    deleteChildren &= remove(fs, child, context);
-                }
-                if (deleteChildren == false) {
+            if (context.isRecursive() == false) {
+                LOG.info(MessageFormat.format(
+                        "[OT-CLEAN-I01003] Skipped: {0} (is directory)",
+                        file.getPath(),
+                        new Date(file.getModificationTime())));
+                return Result.KEPT;
+            }
+            if (context.isCompleted(file.getPath())) {
+                LOG.info(MessageFormat.format(
+                        "[OT-CLEAN-I01005] Skipped: {0} (is already completed)",
+                        file.getPath()));
+                return Result.KEPT;
+            }
+            List<FileStatus> children;
+            try {
+                children = asList(fs.listStatus(file.getPath()));
+            } catch (IOException e) {
+                LOG.error(MessageFormat.format(
+                        "[OT-CLEAN-E01003] Failed to list directory: {0}",
+                        file.getPath()), e);
+                context.setError();
+                return Result.FAILED;
+            }
+            List<Result> results = removeAll(fs, children, context, defer);
+            pending = Result.pending(file);
+            boolean sawKept = false;
+            for (Result result : results) {
+                sawKept |= result == Result.KEPT || result == Result.FAILED;
+                pending = pending == null || result.isPending() == false ? null : pending.merge(result);
+            }
+            if (sawKept || pending == null || context.canDelete(file) == false) {
+                flush(fs, children, results, context);
+                pending = null;
+                // deferred removals may fail in flush(), so that we must check the results after it
+                boolean sawFailed = results.contains(Result.FAILED);
+                if (sawKept || sawFailed) {
                     LOG.info(MessageFormat.format(
                             "[OT-CLEAN-I01004] Skipped: {0} (is no-empty directory)",
                             file.getPath(),
                             new Date(file.getModificationTime())));
-                    return false;
+                    if (sawFailed) {
+                        return Result.FAILED;
+                    }
+                    context.complete(file.getPath());
+                    return Result.KEPT;
                 }
-            } else {
-                LOG.info(MessageFormat.format(
-                        "[OT-CLEAN-I01003] Skipped: {0} (is directory)",
-                        file.getPath(),
-                        new Date(file.getModificationTime())));
-                return false;
             }
         }
         if (context.canDelete(file)) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(MessageFormat.format("Removing {0}", file.getPath())); //$NON-NLS-1$
+            if (defer) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(MessageFormat.format("Deferring removal of {0}", file.getPath())); //$NON-NLS-1$
+                }
+                return pending == null ? Result.pending(file) : pending;
             }
-            if (context.isDryRun() == false) {
-                try {
-                    boolean removed = fs.delete(file.getPath(), false);
-                    if (removed == false) {
-                        LOG.error(MessageFormat.format(
-                                "[OT-CLEAN-E01004] Failed to remove: {0}",
-                                file.getPath()));
-                        context.setError();
-                        return false;
-                    }
-                } catch (IOException e) {
-                    LOG.warn(MessageFormat.format(
+            return delete(fs, file, Result.pending(file), context);
+        } else {
+            LOG.info(MessageFormat.format(
+                    "[OT-CLEAN-I01002] Kept: {0} (timestamp={1})",
+                    file.getPath(),
+                    new Date(file.getModificationTime())));
+            if (file.isDirectory()) {
+                context.complete(file.getPath());
+            }
+            return Result.KEPT;
+        }
+    }
+
+    private void flush(FileSystem fs, List<FileStatus> files, List<Result> results, Context context) {
+        assert files.size() == results.size();
+        for (int i = 0, n = files.size(); i < n; i++) {
+            Result result = results.get(i);
+            if (result.isPending()) {
+                results.set(i, delete(fs, files.get(i), result, context));
+            }
+        }
+    }
+
+    private Result delete(FileSystem fs, FileStatus file, Result pending, Context context) {
+        assert pending.isPending();
+        boolean recursive = pending.getEntries() > 1;
+        if (recursive && isUnchanged(fs, pending) == false) {
+            // entries may have been added after listing, so that we must not remove the directory recursively
+            LOG.info(MessageFormat.format(
+                    "[OT-CLEAN-I01007] Directory was modified after listing, removing each entry: {0}",
+                    file.getPath()));
+            FileStatus current;
+            try {
+                current = fs.getFileStatus(file.getPath());
+            } catch (FileNotFoundException e) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(MessageFormat.format("Already removed: {0}", file.getPath()), e); //$NON-NLS-1$
+                }
+                return Result.REMOVED;
+            } catch (IOException e) {
+                LOG.error(MessageFormat.format(
+                        "[OT-CLEAN-E01003] Failed to list directory: {0}",
+                        file.getPath()), e);
+                context.setError();
+                return Result.FAILED;
+            }
+            return context.invoke(() -> remove(fs, current, context, false));
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(MessageFormat.format("Removing {0}", file.getPath())); //$NON-NLS-1$
+        }
+        if (context.isDryRun() == false) {
+            try {
+                boolean removed = fs.delete(file.getPath(), recursive);
+                if (removed == false) {
+                    LOG.error(MessageFormat.format(
                             "[OT-CLEAN-E01004] Failed to remove: {0}",
-                            file.getPath()), e);
+                            file.getPath()));
                     context.setError();
-                    return false;
+                    return Result.FAILED;
                 }
+            } catch (IOException e) {
+                LOG.warn(MessageFormat.format(
+                        "[OT-CLEAN-E01004] Failed to remove: {0}",
+                        file.getPath()), e);
+                context.setError();
+                return Result.FAILED;
             }
+        }
+        if (recursive) {
             LOG.info(MessageFormat.format(
-                    "[OT-CLEAN-I01001] Removed: {0} (timestamp={1})",
+                    "[OT-CLEAN-I01006] Removed: {0} (timestamp={1}, entries={2})",
                     file.getPath(),
-                    new Date(file.getModificationTime())));
+                    new Date(file.getModificationTime()),
+                    pending.getEntries()));
         } else {
             LOG.info(MessageFormat.format(
-                    "[OT-CLEAN-I01002] Kept: {0} (timestamp={1})",
+                    "[OT-CLEAN-I01001] Removed: {0} (timestamp={1})",
                     file.getPath(),
                     new Date(file.getModificationTime())));
-            return false;
+        }
+        return Result.REMOVED;
+    }
+
+    private boolean isUnchanged(FileSystem fs, Result pending) {
+        for (FileStatus directory : pending.getDirectories()) {
+            try {
+                FileStatus current = fs.getFileStatus(directory.getPath());
+                if (current.isDirectory() == false
+                        || current.getModificationTime() != directory.getModificationTime()) {
+                    return false;
+                }
+            } catch (IOException e) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(MessageFormat.format(
+                            "Failed to check directory: {0}", //$NON-NLS-1$
+                            directory.getPath()), e);
+                }
+                return false;
+            }
         }
         return true;
     }
@@ -353,11 +549,86 @@ public class Clean extends Configured implements Tool {
 
         final List<Path> paths;
 
-        Opts(boolean recursive, double keepDays, boolean dryRun, List<Path> paths) {
+        final int parallelism;
+
+        final boolean batch;
+
+        final File checkpoint;
+
+        Opts(boolean recursive, double keepDays, boolean dryRun, List<Path> paths,
+                int parallelism, boolean batch, File checkpoint) {
             this.recursive = recursive;
             this.keepDays = keepDays;
             this.dryRun = dryRun;
             this.paths = paths;
+            this.parallelism = parallelism;
+            this.batch = batch;
+            this.checkpoint = checkpoint;
+        }
+
+        String getSignature() {
+            return MessageFormat.format(
+                    "keep-days={0}, recursive={1}, paths={2}", //$NON-NLS-1$
+                    String.valueOf(keepDays),
+                    recursive,
+                    paths);
+        }
+    }
+
+    private static final class Result {
+
+        static final Result REMOVED = new Result(0, Collections.emptyList());
+
+        static final Result KEPT = new Result(-1, Collections.emptyList());
+
+        static final Result FAILED = new Result(-2, Collections.emptyList());
+
+        private final long entries;
+
+        private final List<FileStatus> directories;
+
+        private Result(long entries, List<FileStatus> directories) {
+            this.entries = entries;
+            this.directories = directories;
+        }
+
+        static Result pending(FileStatus file) {
+            if (file.isDirectory()) {
+                return new Result(1, Collections.singletonList(file));
+            }
+            return new Result(1, Collections.emptyList());
+        }
+
+        boolean isRemoved() {
+            return this == REMOVED;
+        }
+
+        boolean isPending() {
+            return entries > 0;
+        }
+
+        long getEntries() {
+            return entries;
+        }
+
+        /**
+         * Returns the listed directories in the deferred tree, with their modification time at listing.
+         * @return the listed directories
+         */
+        List<FileStatus> getDirectories() {
+            return directories;
+        }
+
+        Result merge(Result other) {
+            assert isPending();
+            assert other.isPending();
+            if (other.directories.isEmpty()) {
+                return new Result(entries + other.entries, directories);
+            }
+            List<FileStatus> merged = new ArrayList<>(directories.size() + other.directories.size());
+            merged.addAll(directories);
+            merged.addAll(other.directories);
+            return new Result(entries + other.entries, merged);
         }
     }
 
@@ -369,7 +640,13 @@ public class Clean extends Configured implements Tool {
 
         private final boolean dryRun;
 
-        private boolean sawError;
+        private final boolean batch;
+
+        private final ForkJoinPool pool;
+
+        private final CleanCheckpoint checkpoint;
+
+        private volatile boolean sawError;
 
         private static final Method FILE_STATUS_IS_SYMLINK;
         static {
@@ -383,10 +660,15 @@ public class Clean extends Configured implements Tool {
             FILE_STATUS_IS_SYMLINK = m;
         }
 
-        Context(boolean recursive, long keepPeriod, boolean dryRun) {
+        Context(
+                boolean recursive, long keepPeriod, boolean dryRun,
+                boolean batch, ForkJoinPool pool, CleanCheckpoint checkpoint) {
             this.recursive = recursive;
             this.keepPeriod = keepPeriod;
             this.dryRun = dryRun;
+            this.batch = batch;
+            this.pool = pool;
+            this.checkpoint = checkpoint;
             this.sawError = false;
         }
 
@@ -451,6 +733,29 @@ public class Clean extends Configured implements Tool {
             return dryRun;
         }
 
+        public boolean isBatch() {
+            return batch;
+        }
+
+        public boolean isParallel() {
+            return pool != null;
+        }
+
+        public <T> T invoke(Supplier<T> action) {
+            if (pool == null) {
+                return action.get();
+            }
+            return pool.invoke(ForkJoinTask.adapt(action::get));
+        }
+
+        public boolean isCompleted(Path path) {
+            return checkpoint.isCompleted(path);
+        }
+
+        public void complete(Path path) {
+            checkpoint.complete(path);
+        }
+
         public boolean canDelete(FileStatus file) {
             long lastModified = file.getModificationTime();
             return lastModified < keepPeriod;
@@ -0,0 +1,208 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.operation.tools.hadoop.fs;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * A progress checkpoint of {@link Clean}.
+ * <p>
+ * The checkpoint file records the keep switching-time and the directories which were already cleaned up
+ * and still must be kept, so that the next execution with the same options can skip them.
+ * The first line of the file is a header: {@code <signature> TAB <keep switching-time>},
+ * and the rest lines are the completed directory paths.
+ * </p>
+ * @since 0.10.5
+ */
+final class CleanCheckpoint implements Closeable {
+
+    static final Log LOG = LogFactory.getLog(CleanCheckpoint.class);
+
+    private static final char HEADER_SEPARATOR = '\t';
+
+    private final File file;
+
+    private final long period;
+
+    private final Set<String> completed;
+
+    private BufferedWriter writer;
+
+    private CleanCheckpoint(File file, long period, Set<String> completed, BufferedWriter writer) {
+        this.file = file;
+        this.period = period;
+        this.completed = completed;
+        this.writer = writer;
+    }
+
+    /**
+     * Returns a checkpoint which does not record anything.
+     * @param period the keep switching-time
+     * @return the created checkpoint
+     */
+    static CleanCheckpoint empty(long period) {
+        return new CleanCheckpoint(null, period, Collections.emptySet(), null);
+    }
+
+    /**
+     * Opens a checkpoint file.
+     * If the file was created by the execution with the same signature, this resumes from it.
+     * Otherwise, this creates a new checkpoint file.
+     * @param file the checkpoint file
+     * @param signature the signature of the current options
+     * @param period the keep switching-time for the fresh execution
+     * @return the opened checkpoint
+     * @throws IOException if failed to open the checkpoint file
+     */
+    static CleanCheckpoint open(File file, String signature, long period) throws IOException {
+        Set<String> completed = new HashSet<>();
+        long resumePeriod = period;
+        boolean resume = false;
+        if (file.isFile()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(file), StandardCharsets.UTF_8))) {
+                String header = reader.readLine();
+                int index = header == null ? -1 : header.lastIndexOf(HEADER_SEPARATOR);
+                if (index >= 0 && header.substring(0, index).equals(signature)) {
+                    resumePeriod = Long.parseLong(header.substring(index + 1));
+                    resume = true;
+                    while (true) {
+                        String line = reader.readLine();
+                        if (line == null) {
+                            break;
+                        }
+                        if (line.isEmpty() == false) {
+                            completed.add(line);
+                        }
+                    }
+                } else {
+                    LOG.warn(MessageFormat.format(
+                            "[OT-CLEAN-W01003] Checkpoint was created with different options, ignored: {0}",
+                            file));
+                }
+            } catch (NumberFormatException e) {
+                LOG.warn(MessageFormat.format(
+                        "[OT-CLEAN-W01003] Checkpoint is broken, ignored: {0}",
+                        file), e);
+                completed.clear();
+                resumePeriod = period;
+                resume = false;
+            }
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && parent.isDirectory() == false && parent.mkdirs() == false) {
+            throw new IOException(MessageFormat.format(
+                    "Failed to create checkpoint directory: {0}",
+                    parent));
+        }
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file, resume), StandardCharsets.UTF_8));
+        if (resume) {
+            LOG.info(MessageFormat.format(
+                    "[OT-CLEAN-I00100] Resuming from checkpoint: {0} ({1} completed directories)",
+                    file,
+                    completed.size()));
+        } else {
+            writer.write(signature + HEADER_SEPARATOR + resumePeriod);
+            writer.newLine();
+            writer.flush();
+        }
+        return new CleanCheckpoint(file, resumePeriod, completed, writer);
+    }
+
+    /**
+     * Returns the keep switching-time.
+     * @return the keep switching-time
+     */
+    long getPeriod() {
+        return period;
+    }
+
+    /**
+     * Returns whether or not the given directory was already completed.
+     * @param path the target directory
+     * @return {@code true} if it was completed, otherwise {@code false}
+     */
+    boolean isCompleted(Path path) {
+        return completed.contains(path.toString());
+    }
+
+    /**
+     * Records the given directory was completed.
+     * @param path the completed directory
+     */
+    synchronized void complete(Path path) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.write(path.toString());
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            LOG.warn(MessageFormat.format(
+                    "[OT-CLEAN-W01004] Failed to record checkpoint, disabled: {0}",
+                    file), e);
+            closeQuietly();
+        }
+    }
+
+    /**
+     * Discards this checkpoint file.
+     * This should be called only if the whole cleaning was successfully completed.
+     */
+    synchronized void discard() {
+        closeQuietly();
+        if (file != null && file.exists() && file.delete() == false) {
+            LOG.warn(MessageFormat.format(
+                    "[OT-CLEAN-W01004] Failed to delete checkpoint: {0}",
+                    file));
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            LOG.debug(MessageFormat.format("Failed to close checkpoint: {0}", file), e); //$NON-NLS-1$
+        }
+    }
+}
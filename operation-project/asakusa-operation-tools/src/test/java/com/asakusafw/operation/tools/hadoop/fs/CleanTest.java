@@ -27,6 +27,10 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.SystemUtils;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
 import org.junit.Assume;
 import org.junit.Rule;
 import org.junit.Test;
@@ -241,6 +245,227 @@ public class CleanTest {
         assertThat("a", file("b").exists(), is(false));
     }
 
+    /**
+     * recursive delete with multiple threads.
+     * @throws Exception if failed to execute
+     */
+    @Test
+    public void parallel() throws Exception {
+        List<File> removes = new ArrayList<>();
+        List<File> keeps = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                String path = String.format("d%d/e%d/file", i, j);
+                if ((i + j) % 7 == 0) {
+                    keeps.add(touch(path, 100));
+                } else {
+                    removes.add(touch(path, 50));
+                }
+            }
+        }
+
+        Clean c = createService(100);
+        int exit = c.run(args(30, "-r", "-p", "4", path("*")));
+
+        assertThat(exit, is(0));
+        for (File f : removes) {
+            assertThat(f.toString(), f.exists(), is(false));
+        }
+        for (File f : keeps) {
+            assertThat(f.toString(), f.exists(), is(true));
+        }
+        assertThat(file("d0").exists(), is(true));
+        assertThat(file("d1/e0").exists(), is(false));
+    }
+
+    /**
+     * invalid parallelism.
+     * @throws Exception if failed to execute
+     */
+    @Test
+    public void invalid_parallelism() throws Exception {
+        touch("file", 50);
+
+        Clean c = createService(100);
+        int exit = c.run(args(1, "-p", "0", path("file")));
+
+        assertThat(exit, is(not(0)));
+    }
+
+    /**
+     * batch removal.
+     * @throws Exception if failed to execute
+     */
+    @Test
+    public void batch() throws Exception {
+        File f1 = touch("a/file1", 50);
+        File f2 = touch("a/file2", 100);
+        File f3 = touch("a/c/file3", 50);
+        File f4 = touch("b/file4", 50);
+        File f5 = touch("b/d/file5", 50);
+        touch("a", 50);
+        touch("b", 50);
+
+        Clean c = createService(100);
+        int exit = c.run(args(30, "-r", "-b", "-p", "2", path("*")));
+
+        assertThat(exit, is(0));
+        assertThat(f1.toString(), f1.exists(), is(false));
+        assertThat(f2.toString(), f2.exists(), is(true));
+        assertThat(f3.toString(), f3.exists(), is(false));
+        assertThat(f4.toString(), f4.exists(), is(false));
+        assertThat(f5.toString(), f5.exists(), is(false));
+
+        assertThat("a", file("a").exists(), is(true));
+        assertThat("a/c", file("a/c").exists(), is(false));
+        assertThat("b", file("b").exists(), is(false));
+    }
+
+    /**
+     * batch removal must not remove entries which are created after listing.
+     * @throws Exception if failed to execute
+     */
+    @Test
+    public void batch_modified_after_listing() throws Exception {
+        File f1 = touch("b/file1", 50);
+        File f2 = touch("b/d/file2", 50);
+        touch("b", 50);
+        File late = file("b/d/late");
+
+        Clean c = createService(100);
+        c.getConf().setClass("fs.file.impl", LateWritingFileSystem.class, FileSystem.class);
+        c.getConf().setBoolean("fs.file.impl.disable.cache", true);
+        LateWritingFileSystem.target = late;
+        try {
+            int exit = c.run(args(30, "-r", "-b", path("*")));
+            assertThat(exit, is(0));
+        } finally {
+            LateWritingFileSystem.target = null;
+        }
+        assertThat(f1.toString(), f1.exists(), is(false));
+        assertThat(f2.toString(), f2.exists(), is(false));
+        assertThat(late.toString(), late.exists(), is(true));
+        assertThat("b/d", file("b/d").exists(), is(true));
+        assertThat("b", file("b").exists(), is(true));
+    }
+
+    /**
+     * batch removal must keep recent directories.
+     * @throws Exception if failed to execute
+     */
+    @Test
+    public void batch_keep_folder() throws Exception {
+        File f1 = touch("a/file1", 50);
+        File f2 = touch("a/file2", 50);
+        touch("a", 100);
+
+        Clean c = createService(100);
+        int exit = c.run(args(30, "-r", "-b", path("*")));
+
+        assertThat(exit, is(0));
+        assertThat(f1.toString(), f1.exists(), is(false));
+        assertThat(f2.toString(), f2.exists(), is(false));
+        assertThat("a", file("a").exists(), is(true));
+    }
+
+    /**
+     * batch removal with dry-run.
+     * @throws Exception if failed to execute
+     */
+    @Test
+    public void batch_dry_run() throws Exception {
+        File f1 = touch("a/file1", 50);
+        File checkpoint = file("checkpoint");
+
+        Clean c = createService(100);
+        int exit = c.run(args(30, "-r", "-b", "-s", "-c", checkpoint.getPath(), path("a")));
+
+        assertThat(exit, is(0));
+        assertThat(f1.toString(), f1.exists(), is(true));
+        assertThat(checkpoint.exists(), is(false));
+    }
+
+    /**
+     * checkpoint is discarded after successfully completed.
+     * @throws Exception if failed to execute
+     */
+    @Test
+    public void checkpoint() throws Exception {
+        File f1 = touch("a/file1", 50);
+        File f2 = touch("a/file2", 100);
+        File checkpoint = new File(folder.newFolder(), "checkpoint");
+
+        Clean c = createService(100);
+        int exit = c.run(args(30, "-r", "-c", checkpoint.getPath(), path("a")));
+
+        assertThat(exit, is(0));
+        assertThat(f1.toString(), f1.exists(), is(false));
+        assertThat(f2.toString(), f2.exists(), is(true));
+        assertThat(checkpoint.exists(), is(false));
+    }
+
+    /**
+     * resumes from checkpoint.
+     * @throws Exception if failed to execute
+     */
+    @Test
+    public void checkpoint_resume() throws Exception {
+        File f1 = touch("a/file1", 100);
+        File f2 = touch("b/file2", 50);
+        File checkpoint = new File(folder.newFolder(), "checkpoint");
+        String[] args = args(30, "-r", "-c", checkpoint.getPath(), path("a"), path("b"), path("missing"));
+
+        int exit1 = createService(100).run(args);
+        assertThat(exit1, is(not(0)));
+        assertThat(f1.toString(), f1.exists(), is(true));
+        assertThat(f2.toString(), f2.exists(), is(false));
+        assertThat(checkpoint.exists(), is(true));
+
+        // "a" was completed, and keep switching-time is restored from the checkpoint
+        File f3 = touch("a/file3", 50);
+        File f4 = touch("b/file4", 100);
+        int exit2 = createService(200).run(args);
+        assertThat(exit2, is(not(0)));
+        assertThat(f3.toString(), f3.exists(), is(true));
+        assertThat(f4.toString(), f4.exists(), is(true));
+
+        // different options: starts over
+        int exit3 = createService(200).run(args(30, "-r", "-c", checkpoint.getPath(), path("a"), path("b")));
+        assertThat(exit3, is(0));
+        assertThat(f1.toString(), f1.exists(), is(false));
+        assertThat(f3.toString(), f3.exists(), is(false));
+        assertThat(f4.toString(), f4.exists(), is(false));
+        assertThat(checkpoint.exists(), is(false));
+    }
+
+    /**
+     * resumes from checkpoint after deferred removals were failed.
+     * @throws Exception if failed to execute
+     */
+    @Test
+    public void checkpoint_resume_failed() throws Exception {
+        File f1 = touch("a/old/file1", 50);
+        File f2 = touch("a/file2", 100);
+        File checkpoint = new File(folder.newFolder(), "checkpoint");
+        String[] args = args(30, "-r", "-b", "-c", checkpoint.getPath(), path("a"));
+
+        Clean failing = createService(100);
+        failing.getConf().setClass("fs.file.impl", FailingFileSystem.class, FileSystem.class);
+        failing.getConf().setBoolean("fs.file.impl.disable.cache", true);
+        int exit1 = failing.run(args);
+        assertThat(exit1, is(not(0)));
+        assertThat(file("a/old").toString(), file("a/old").exists(), is(true));
+        assertThat(checkpoint.exists(), is(true));
+
+        // "a" must not be marked as completed
+        int exit2 = createService(100).run(args);
+        assertThat(exit2, is(0));
+        assertThat(f1.toString(), f1.exists(), is(false));
+        assertThat(file("a/old").toString(), file("a/old").exists(), is(false));
+        assertThat(f2.toString(), f2.exists(), is(true));
+        assertThat(checkpoint.exists(), is(false));
+    }
+
     /**
      * minus prefixed file.
      * @throws Exception if failed to execute
@@ -525,6 +750,41 @@ public class CleanTest {
         assertThat(f2.toString(), f2.exists(), is(false));
     }
 
+    /**
+     * A local file system which always fails to remove directories.
+     */
+    public static class FailingFileSystem extends LocalFileSystem {
+
+        @Override
+        public boolean delete(Path f, boolean recursive) throws IOException {
+            if (isDirectory(f)) {
+                return false;
+            }
+            return super.delete(f, recursive);
+        }
+    }
+
+    /**
+     * A local file system which creates a file into the target directory just after listing it.
+     */
+    public static class LateWritingFileSystem extends LocalFileSystem {
+
+        static volatile File target;
+
+        @Override
+        public FileStatus[] listStatus(Path f) throws IOException {
+            FileStatus[] results = super.listStatus(f);
+            File file = target;
+            if (file != null && pathToFile(f).getCanonicalFile().equals(file.getParentFile().getCanonicalFile())) {
+                target = null;
+                if (file.createNewFile() == false) {
+                    throw new IOException(file.toString());
+                }
+            }
+            return results;
+        }
+    }
+
     private Clean createService(long days) {
         Clean service = new Clean(TimeUnit.DAYS.toMillis(days));
         service.setConf(new Configuration());
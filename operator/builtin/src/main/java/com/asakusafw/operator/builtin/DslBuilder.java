@@ -102,6 +102,8 @@ final class DslBuilder {
 
     static final String NAME_GROUP_VIEW_INFO_FACTORY = "groupOf"; //$NON-NLS-1$
 
+    static final String NAME_SORTED_VIEW_INFO_FACTORY = "sortedOf"; //$NON-NLS-1$
+
     static final String NAME_CONNECTIVITY_OPTIONAL = "OPTIONAL";
 
     static final EnumConstantDescription ENUM_CONNECTIVITY_OPTIONAL =
@@ -452,6 +454,25 @@ final class DslBuilder {
         TypeRef type = parameter.type();
         if (type.isBasic()) {
             addArgument(parameter.document(), parameter.name(), type.mirror(), parameter.reference());
+        } else if (type.isSortedGroupView()) {
+            TypeRef arg = type.arg(0);
+            if (arg.isDataModel()) {
+                KeyRef key = parameter.resolveKey(arg);
+                ValueDescription info;
+                if (key == null) {
+                    // error
+                    info = ObjectDescription.of(TYPE_VIEW_INFO, NAME_SORTED_VIEW_INFO_FACTORY);
+                } else {
+                    List<KeyMirror.Order> order = key.getModel().getOrder();
+                    if (order.isEmpty() || order.get(0).getDirection() != KeyMirror.Direction.ASCENDANT) {
+                        key.error(Messages.getString("DslBuilder.errorSortedGroupViewWithoutSortKey")); //$NON-NLS-1$
+                    }
+                    info = key.toSortedTableInfo();
+                }
+                addInput(parameter.document(), parameter.name(), arg.mirror(), null, parameter.reference(), info);
+            } else {
+                parameter.error(Messages.getString("DslBuilder.errorSortedGroupViewNotDataModelType")); //$NON-NLS-1$
+            }
         } else if (type.isGroupView()) {
             TypeRef arg = type.arg(0);
             if (arg.isDataModel()) {
@@ -775,7 +796,7 @@ final class DslBuilder {
         }
 
         public boolean isViewLike() {
-            return isFlatView() || isGroupView();
+            return isFlatView() || isGroupView() || isSortedGroupView();
         }
 
         public boolean isFlatView() {
@@ -786,6 +807,11 @@ final class DslBuilder {
             return isErasureEqualTo(environment.findDeclaredType(Constants.TYPE_GROUP_VIEW));
         }
 
+        public boolean isSortedGroupView() {
+            DeclaredType type = environment.findDeclaredType(Constants.TYPE_SORTED_GROUP_VIEW);
+            return type != null && isErasureEqualTo(type);
+        }
+
         public boolean isBasic() {
             return isPrimitive() || isString() || (environment.isEnumConstantParameter() && isEnum());
         }
@@ -1057,6 +1083,10 @@ final class DslBuilder {
             return info;
         }
 
+        public ValueDescription toSortedTableInfo() {
+            return ObjectDescription.of(TYPE_VIEW_INFO, NAME_SORTED_VIEW_INFO_FACTORY, terms());
+        }
+
         public List<ValueDescription> terms() {
             return model.toTerms().stream()
                     .sequential()
@@ -233,6 +233,25 @@ public class CoGroupOperatorDriverTest extends OperatorDriverTestRoot {
         });
     }
 
+    /**
+     * w/ sorted table input.
+     */
+    @Test
+    public void with_sorted_table() {
+        compile(new Action("com.example.WithSortedTable") {
+            @Override
+            protected void perform(OperatorElement target) {
+                OperatorDescription description = target.getDescription();
+                assertThat(description.getInputs().size(), is(2));
+
+                Node side = description.getInputs().get(1);
+                assertThat(side.getName(), is("side"));
+                assertThat(side.getType(), is(sameType("com.example.Model")));
+                assertThat(side.getAttributes(), hasItem(sortedGroupView("=content", "+key")));
+            }
+        });
+    }
+
     /**
      * w/ many table inputs.
      */
@@ -361,6 +380,32 @@ public class CoGroupOperatorDriverTest extends OperatorDriverTestRoot {
         });
     }
 
+    /**
+     * w/ off-heap buffer types.
+     */
+    @Test
+    public void with_buffer_type_off_heap() {
+        compile(new Action("com.example.WithBufferTypeOffHeap") {
+            @Override
+            protected void perform(OperatorElement target) {
+                OperatorDescription description = target.getDescription();
+                assertThat(description.getInputs().size(), is(3));
+
+                Node in0 = description.getInputs().get(0);
+                assertThat(in0.getName(), is("in0"));
+                assertThat(in0.getAttributes(), hasItem(Descriptions.valueOf(BufferType.OFF_HEAP)));
+
+                Node in1 = description.getInputs().get(1);
+                assertThat(in1.getName(), is("in1"));
+                assertThat(in1.getAttributes(), hasItem(Descriptions.valueOf(BufferType.OFF_HEAP)));
+
+                Node in2 = description.getInputs().get(2);
+                assertThat(in2.getName(), is("in2"));
+                assertThat(in2.getAttributes(), hasItem(Descriptions.valueOf(BufferType.VOLATILE)));
+            }
+        });
+    }
+
     /**
      * violates method is not abstract.
      */
@@ -521,6 +566,14 @@ public class CoGroupOperatorDriverTest extends OperatorDriverTestRoot {
         violate("com.example.ViolateGroupViewWithKey");
     }
 
+    /**
+     * violates sorted view has no ascendant sort key.
+     */
+    @Test
+    public void violate_sorted_group_view_without_sort_key() {
+        violate("com.example.ViolateSortedGroupViewWithoutSortKey");
+    }
+
     /**
      * violates input exists.
      */
@@ -194,6 +194,17 @@ public class OperatorDriverTestRoot extends OperatorCompilerTestRoot {
                 Arrays.stream(terms).map(Descriptions::valueOf).collect(Collectors.toList()));
     }
 
+    /**
+     * Returns a sorted group view info.
+     * @param terms the property terms
+     * @return the matcher
+     */
+    public ObjectDescription sortedGroupView(String... terms) {
+        return ObjectDescription.of(
+                DslBuilder.TYPE_VIEW_INFO, DslBuilder.NAME_SORTED_VIEW_INFO_FACTORY,
+                Arrays.stream(terms).map(Descriptions::valueOf).collect(Collectors.toList()));
+    }
+
     /**
      * Returns a matcher that tests whether or not the value represents a view info.
      * @return the matcher
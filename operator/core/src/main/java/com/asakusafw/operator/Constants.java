@@ -75,6 +75,13 @@ public final class Constants {
     public static final ClassDescription TYPE_GROUP_VIEW =
             new ClassDescription("com.asakusafw.runtime.core.GroupView"); //$NON-NLS-1$
 
+    /**
+     * {@code SortedGroupView} type name.
+     * @since 0.10.5
+     */
+    public static final ClassDescription TYPE_SORTED_GROUP_VIEW =
+            new ClassDescription("com.asakusafw.runtime.core.SortedGroupView"); //$NON-NLS-1$
+
     /**
      * {@code Result} type name.
      */
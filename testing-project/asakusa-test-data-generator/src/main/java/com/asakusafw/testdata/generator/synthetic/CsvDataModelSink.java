@@ -0,0 +1,256 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdata.generator.synthetic;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+import com.asakusafw.dmdl.model.BasicTypeKind;
+import com.asakusafw.dmdl.semantics.ModelDeclaration;
+import com.asakusafw.dmdl.semantics.PropertyDeclaration;
+import com.asakusafw.dmdl.semantics.type.BasicType;
+import com.asakusafw.runtime.io.csv.CsvConfiguration;
+import com.asakusafw.runtime.io.csv.CsvEmitter;
+import com.asakusafw.runtime.value.BooleanOption;
+import com.asakusafw.runtime.value.ByteOption;
+import com.asakusafw.runtime.value.Date;
+import com.asakusafw.runtime.value.DateOption;
+import com.asakusafw.runtime.value.DateTime;
+import com.asakusafw.runtime.value.DateTimeOption;
+import com.asakusafw.runtime.value.DecimalOption;
+import com.asakusafw.runtime.value.DoubleOption;
+import com.asakusafw.runtime.value.FloatOption;
+import com.asakusafw.runtime.value.IntOption;
+import com.asakusafw.runtime.value.LongOption;
+import com.asakusafw.runtime.value.ShortOption;
+import com.asakusafw.runtime.value.StringOption;
+import com.asakusafw.testdriver.core.DataModelReflection;
+import com.asakusafw.testdriver.core.DataModelSink;
+import com.asakusafw.testdriver.core.PropertyName;
+
+/**
+ * A {@link DataModelSink} which writes data model objects as CSV.
+ * <p>
+ * The output format is compatible with the default settings of WindGate CSV
+ * ({@code asakusa-windgate-stream}), that is, it is encoded in UTF-8, and dates and date-times are formatted in
+ * {@value CsvConfiguration#DEFAULT_DATE_FORMAT} and {@value CsvConfiguration#DEFAULT_DATE_TIME_FORMAT}.
+ * </p>
+ * @since 0.10.5
+ */
+public class CsvDataModelSink implements DataModelSink {
+
+    private final CsvEmitter emitter;
+
+    private final List<Column> columns;
+
+    /**
+     * Creates a new instance.
+     * @param model the target data model
+     * @param output the target output stream
+     * @param path the output path (for diagnostics)
+     * @param header {@code true} to write a header line with property names, otherwise {@code false}
+     */
+    public CsvDataModelSink(ModelDeclaration model, OutputStream output, String path, boolean header) {
+        if (model == null) {
+            throw new IllegalArgumentException("model must not be null"); //$NON-NLS-1$
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("output must not be null"); //$NON-NLS-1$
+        }
+        if (path == null) {
+            throw new IllegalArgumentException("path must not be null"); //$NON-NLS-1$
+        }
+        List<String> names = new ArrayList<>();
+        List<Column> cols = new ArrayList<>();
+        for (PropertyDeclaration property : model.getDeclaredProperties()) {
+            String name = property.getName().identifier;
+            names.add(name);
+            cols.add(new Column(
+                    SyntheticDataGenerator.toPropertyName(name),
+                    ((BasicType) property.getType()).getKind()));
+        }
+        CsvConfiguration configuration = new CsvConfiguration(
+                CsvConfiguration.DEFAULT_CHARSET,
+                header ? names : Collections.emptyList(),
+                CsvConfiguration.DEFAULT_TRUE_FORMAT,
+                CsvConfiguration.DEFAULT_FALSE_FORMAT,
+                CsvConfiguration.DEFAULT_DATE_FORMAT,
+                CsvConfiguration.DEFAULT_DATE_TIME_FORMAT);
+        this.emitter = new CsvEmitter(output, path, configuration);
+        this.columns = cols;
+    }
+
+    @Override
+    public void put(DataModelReflection model) throws IOException {
+        if (model == null) {
+            throw new IllegalArgumentException("model must not be null"); //$NON-NLS-1$
+        }
+        for (Column column : columns) {
+            column.emit(emitter, model.getValue(column.name));
+        }
+        emitter.endRecord();
+    }
+
+    @Override
+    public void close() throws IOException {
+        emitter.close();
+    }
+
+    private static final class Column {
+
+        final PropertyName name;
+
+        private final BasicTypeKind kind;
+
+        private final BooleanOption booleanOption = new BooleanOption();
+
+        private final ByteOption byteOption = new ByteOption();
+
+        private final ShortOption shortOption = new ShortOption();
+
+        private final IntOption intOption = new IntOption();
+
+        private final LongOption longOption = new LongOption();
+
+        private final FloatOption floatOption = new FloatOption();
+
+        private final DoubleOption doubleOption = new DoubleOption();
+
+        private final DecimalOption decimalOption = new DecimalOption();
+
+        private final StringOption stringOption = new StringOption();
+
+        private final DateOption dateOption = new DateOption();
+
+        private final DateTimeOption dateTimeOption = new DateTimeOption();
+
+        Column(PropertyName name, BasicTypeKind kind) {
+            this.name = name;
+            this.kind = kind;
+        }
+
+        void emit(CsvEmitter emitter, Object value) throws IOException {
+            switch (kind) {
+            case BOOLEAN:
+                if (value == null) {
+                    booleanOption.setNull();
+                } else {
+                    booleanOption.modify((Boolean) value);
+                }
+                emitter.emit(booleanOption);
+                break;
+            case BYTE:
+                if (value == null) {
+                    byteOption.setNull();
+                } else {
+                    byteOption.modify((Byte) value);
+                }
+                emitter.emit(byteOption);
+                break;
+            case SHORT:
+                if (value == null) {
+                    shortOption.setNull();
+                } else {
+                    shortOption.modify((Short) value);
+                }
+                emitter.emit(shortOption);
+                break;
+            case INT:
+                if (value == null) {
+                    intOption.setNull();
+                } else {
+                    intOption.modify((Integer) value);
+                }
+                emitter.emit(intOption);
+                break;
+            case LONG:
+                if (value == null) {
+                    longOption.setNull();
+                } else {
+                    longOption.modify((Long) value);
+                }
+                emitter.emit(longOption);
+                break;
+            case FLOAT:
+                if (value == null) {
+                    floatOption.setNull();
+                } else {
+                    floatOption.modify((Float) value);
+                }
+                emitter.emit(floatOption);
+                break;
+            case DOUBLE:
+                if (value == null) {
+                    doubleOption.setNull();
+                } else {
+                    doubleOption.modify((Double) value);
+                }
+                emitter.emit(doubleOption);
+                break;
+            case DECIMAL:
+                if (value == null) {
+                    decimalOption.setNull();
+                } else {
+                    decimalOption.modify((BigDecimal) value);
+                }
+                emitter.emit(decimalOption);
+                break;
+            case TEXT:
+                if (value == null) {
+                    stringOption.setNull();
+                } else {
+                    stringOption.modify((String) value);
+                }
+                emitter.emit(stringOption);
+                break;
+            case DATE:
+                if (value == null) {
+                    dateOption.setNull();
+                } else {
+                    Calendar calendar = (Calendar) value;
+                    dateOption.modify(new Date(
+                            calendar.get(Calendar.YEAR),
+                            calendar.get(Calendar.MONTH) + 1,
+                            calendar.get(Calendar.DAY_OF_MONTH)));
+                }
+                emitter.emit(dateOption);
+                break;
+            case DATETIME:
+                if (value == null) {
+                    dateTimeOption.setNull();
+                } else {
+                    Calendar calendar = (Calendar) value;
+                    dateTimeOption.modify(new DateTime(
+                            calendar.get(Calendar.YEAR),
+                            calendar.get(Calendar.MONTH) + 1,
+                            calendar.get(Calendar.DAY_OF_MONTH),
+                            calendar.get(Calendar.HOUR_OF_DAY),
+                            calendar.get(Calendar.MINUTE),
+                            calendar.get(Calendar.SECOND)));
+                }
+                emitter.emit(dateTimeOption);
+                break;
+            default:
+                throw new AssertionError(kind);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdata.generator.synthetic;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.text.MessageFormat;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import com.asakusafw.runtime.directio.Counter;
+import com.asakusafw.runtime.directio.DataFormat;
+import com.asakusafw.runtime.directio.hadoop.HadoopDataSourceUtil;
+import com.asakusafw.runtime.directio.hadoop.HadoopFileFormat;
+import com.asakusafw.runtime.io.ModelOutput;
+import com.asakusafw.testdriver.core.DataModelDefinition;
+import com.asakusafw.testdriver.core.DataModelReflection;
+import com.asakusafw.testdriver.core.DataModelSink;
+
+/**
+ * A {@link DataModelSink} which writes data model objects into a local file via Direct I/O {@link DataFormat}.
+ * @param <T> the data model type
+ * @since 0.10.5
+ */
+public class DirectIoDataModelSink<T> implements DataModelSink {
+
+    private final DataModelDefinition<T> definition;
+
+    private final ModelOutput<? super T> output;
+
+    /**
+     * Creates a new instance.
+     * @param definition the data model definition
+     * @param output the destination
+     */
+    public DirectIoDataModelSink(DataModelDefinition<T> definition, ModelOutput<? super T> output) {
+        if (definition == null) {
+            throw new IllegalArgumentException("definition must not be null"); //$NON-NLS-1$
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("output must not be null"); //$NON-NLS-1$
+        }
+        this.definition = definition;
+        this.output = output;
+    }
+
+    /**
+     * Opens a local file as {@link DataModelSink}.
+     * @param <T> the data model type
+     * @param configuration the Hadoop configuration
+     * @param definition the data model definition
+     * @param format the Direct I/O data format
+     * @param destination the destination file
+     * @return the opened sink
+     * @throws IOException if failed to open the file
+     */
+    public static <T> DirectIoDataModelSink<T> open(
+            Configuration configuration,
+            DataModelDefinition<T> definition,
+            DataFormat<? super T> format,
+            File destination) throws IOException {
+        if (configuration == null) {
+            throw new IllegalArgumentException("configuration must not be null"); //$NON-NLS-1$
+        }
+        if (definition == null) {
+            throw new IllegalArgumentException("definition must not be null"); //$NON-NLS-1$
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("format must not be null"); //$NON-NLS-1$
+        }
+        if (destination == null) {
+            throw new IllegalArgumentException("destination must not be null"); //$NON-NLS-1$
+        }
+        if (format.getSupportedType().isAssignableFrom(definition.getModelClass()) == false) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    Messages.getString("DirectIoDataModelSink.errorInconsistentDataType"), //$NON-NLS-1$
+                    definition.getModelClass().getName(),
+                    format.getClass().getName(),
+                    format.getSupportedType().getName()));
+        }
+        if (format instanceof Configurable && ((Configurable) format).getConf() == null) {
+            ((Configurable) format).setConf(configuration);
+        }
+        HadoopFileFormat<? super T> hFormat = HadoopDataSourceUtil.toHadoopFileFormat(configuration, format);
+        try {
+            ModelOutput<? super T> output = hFormat.createOutput(
+                    definition.getModelClass(),
+                    FileSystem.getLocal(configuration),
+                    new Path(destination.toURI()),
+                    new Counter());
+            return new DirectIoDataModelSink<>(definition, output);
+        } catch (InterruptedException e) {
+            throw (IOException) new InterruptedIOException().initCause(e);
+        }
+    }
+
+    @Override
+    public void put(DataModelReflection model) throws IOException {
+        if (model == null) {
+            throw new IllegalArgumentException("model must not be null"); //$NON-NLS-1$
+        }
+        output.write(definition.toObject(model));
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdata.generator.synthetic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A set of {@link PropertyDistribution}s for each property.
+ * <p>
+ * The specification file is a Java properties file, which has entries like
+ * <code>&lt;property-name&gt;.&lt;attribute&gt;=&lt;value&gt;</code>.
+ * The property name can be {@value #WILDCARD} which represents the default distribution of all properties.
+ * Available attributes are:
+ * </p>
+ * <ul>
+ * <li> {@value #ATTRIBUTE_NULL} - the ratio of {@code null} values (0.0 - 1.0) </li>
+ * <li> {@value #ATTRIBUTE_CARDINALITY} - the max number of distinct values </li>
+ * <li> {@value #ATTRIBUTE_SKEW} - the skewness of value frequencies (0.0 is uniform) </li>
+ * <li> {@value #ATTRIBUTE_MIN} - the minimum value </li>
+ * <li> {@value #ATTRIBUTE_MAX} - the maximum value </li>
+ * <li> {@value #ATTRIBUTE_LENGTH} - the text length </li>
+ * </ul>
+ * @since 0.10.5
+ */
+public class DistributionSpec {
+
+    /**
+     * The property name which represents all properties.
+     */
+    public static final String WILDCARD = "*"; //$NON-NLS-1$
+
+    /**
+     * The attribute name of {@link PropertyDistribution#getNullRatio()}.
+     */
+    public static final String ATTRIBUTE_NULL = "null"; //$NON-NLS-1$
+
+    /**
+     * The attribute name of {@link PropertyDistribution#getCardinality()}.
+     */
+    public static final String ATTRIBUTE_CARDINALITY = "cardinality"; //$NON-NLS-1$
+
+    /**
+     * The attribute name of {@link PropertyDistribution#getSkew()}.
+     */
+    public static final String ATTRIBUTE_SKEW = "skew"; //$NON-NLS-1$
+
+    /**
+     * The attribute name of {@link PropertyDistribution#getMin()}.
+     */
+    public static final String ATTRIBUTE_MIN = "min"; //$NON-NLS-1$
+
+    /**
+     * The attribute name of {@link PropertyDistribution#getMax()}.
+     */
+    public static final String ATTRIBUTE_MAX = "max"; //$NON-NLS-1$
+
+    /**
+     * The attribute name of {@link PropertyDistribution#getLength()}.
+     */
+    public static final String ATTRIBUTE_LENGTH = "length"; //$NON-NLS-1$
+
+    private final PropertyDistribution defaultDistribution;
+
+    private final Map<String, PropertyDistribution> distributions;
+
+    /**
+     * Creates a new instance.
+     * @param defaultDistribution the default distribution
+     * @param distributions the distributions for individual properties
+     */
+    public DistributionSpec(
+            PropertyDistribution defaultDistribution,
+            Map<String, PropertyDistribution> distributions) {
+        if (defaultDistribution == null) {
+            throw new IllegalArgumentException("defaultDistribution must not be null"); //$NON-NLS-1$
+        }
+        if (distributions == null) {
+            throw new IllegalArgumentException("distributions must not be null"); //$NON-NLS-1$
+        }
+        this.defaultDistribution = defaultDistribution;
+        this.distributions = Collections.unmodifiableMap(new LinkedHashMap<>(distributions));
+    }
+
+    /**
+     * Returns an empty specification.
+     * @return an empty specification
+     */
+    public static DistributionSpec empty() {
+        return new DistributionSpec(PropertyDistribution.DEFAULT, Collections.emptyMap());
+    }
+
+    /**
+     * Loads a specification from the properties file.
+     * @param file the properties file
+     * @return the loaded specification
+     * @throws IOException if failed to load the file
+     */
+    public static DistributionSpec load(Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("file must not be null"); //$NON-NLS-1$
+        }
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(file)) {
+            properties.load(input);
+        }
+        return parse(properties);
+    }
+
+    /**
+     * Parses a specification.
+     * @param properties the specification properties
+     * @return the parsed specification
+     * @throws IllegalArgumentException if the properties are not valid
+     */
+    public static DistributionSpec parse(Properties properties) {
+        if (properties == null) {
+            throw new IllegalArgumentException("properties must not be null"); //$NON-NLS-1$
+        }
+        Map<String, Map<String, String>> attributes = new LinkedHashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            int index = key.lastIndexOf('.');
+            if (index <= 0) {
+                throw new IllegalArgumentException(MessageFormat.format(
+                        Messages.getString("DistributionSpec.errorInvalidKey"), //$NON-NLS-1$
+                        key));
+            }
+            String name = key.substring(0, index).trim();
+            String attribute = key.substring(index + 1).trim();
+            attributes.computeIfAbsent(name, k -> new HashMap<>())
+                    .put(attribute, properties.getProperty(key).trim());
+        }
+        PropertyDistribution defaults = PropertyDistribution.DEFAULT;
+        if (attributes.containsKey(WILDCARD)) {
+            defaults = toDistribution(WILDCARD, attributes.remove(WILDCARD), defaults);
+        }
+        Map<String, PropertyDistribution> distributions = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, String>> entry : attributes.entrySet()) {
+            distributions.put(entry.getKey(), toDistribution(entry.getKey(), entry.getValue(), defaults));
+        }
+        return new DistributionSpec(defaults, distributions);
+    }
+
+    private static PropertyDistribution toDistribution(
+            String name, Map<String, String> attributes, PropertyDistribution defaults) {
+        Map<String, String> rest = new HashMap<>(attributes);
+        try {
+            PropertyDistribution result = new PropertyDistribution(
+                    parseDouble(rest.remove(ATTRIBUTE_NULL), defaults.getNullRatio()),
+                    parseLong(rest.remove(ATTRIBUTE_CARDINALITY), defaults.getCardinality()),
+                    parseDouble(rest.remove(ATTRIBUTE_SKEW), defaults.getSkew()),
+                    parseString(rest.remove(ATTRIBUTE_MIN), defaults.getMin()),
+                    parseString(rest.remove(ATTRIBUTE_MAX), defaults.getMax()),
+                    (int) parseLong(rest.remove(ATTRIBUTE_LENGTH), defaults.getLength()));
+            if (rest.isEmpty() == false) {
+                throw new IllegalArgumentException(MessageFormat.format(
+                        Messages.getString("DistributionSpec.errorUnknownAttribute"), //$NON-NLS-1$
+                        name,
+                        rest.keySet()));
+            }
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    Messages.getString("DistributionSpec.errorInvalidDistribution"), //$NON-NLS-1$
+                    name,
+                    e.getMessage()), e);
+        }
+    }
+
+    private static double parseDouble(String value, double defaultValue) {
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    private static String parseString(String value, String defaultValue) {
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    /**
+     * Returns the distribution for the property.
+     * @param name the property name
+     * @return the corresponded distribution, or the default distribution if it is not defined
+     */
+    public PropertyDistribution get(String name) {
+        return distributions.getOrDefault(name, defaultDistribution);
+    }
+
+    /**
+     * Returns the property names which have explicit distributions.
+     * @return the property names
+     */
+    public Iterable<String> getPropertyNames() {
+        return distributions.keySet();
+    }
+}
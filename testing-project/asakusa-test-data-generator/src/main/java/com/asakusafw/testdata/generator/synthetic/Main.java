@@ -0,0 +1,296 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdata.generator.synthetic;
+
+import static com.asakusafw.dmdl.util.CommandLineUtils.*;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.text.MessageFormat;
+import java.util.List;
+
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.hadoop.conf.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.asakusafw.dmdl.semantics.DmdlSemantics;
+import com.asakusafw.dmdl.semantics.ModelDeclaration;
+import com.asakusafw.dmdl.source.DmdlSourceRepository;
+import com.asakusafw.dmdl.util.AnalyzeTask;
+import com.asakusafw.runtime.directio.DataFormat;
+import com.asakusafw.testdata.generator.synthetic.SyntheticDataGenerator.SinkProvider;
+import com.asakusafw.testdriver.core.DataModelDefinition;
+import com.asakusafw.testdriver.core.TestToolRepository;
+
+/**
+ * Synthetic data generator Command Line Interface.
+ * @since 0.10.5
+ */
+public final class Main {
+
+    static final Logger LOG = LoggerFactory.getLogger(Main.class);
+
+    /**
+     * The format name of WindGate compatible CSV.
+     */
+    public static final String FORMAT_CSV = "csv"; //$NON-NLS-1$
+
+    private static final String CSV_EXTENSION = ".csv"; //$NON-NLS-1$
+
+    private static final Option OPT_OUTPUT;
+    private static final Option OPT_MODEL;
+    private static final Option OPT_COUNT;
+    private static final Option OPT_FORMAT;
+    private static final Option OPT_SPEC;
+    private static final Option OPT_SEED;
+    private static final Option OPT_PARTITIONS;
+    private static final Option OPT_PARALLELISM;
+    private static final Option OPT_HEADER;
+    private static final Option OPT_ENCODING;
+    private static final Option OPT_SOURCE_PATH;
+    private static final Option OPT_PLUGIN;
+
+    private static final Options OPTIONS;
+    static {
+        OPT_OUTPUT = new Option("output", true, //$NON-NLS-1$
+                Messages.getString("Main.optOutput")); //$NON-NLS-1$
+        OPT_OUTPUT.setArgName("/path/to/output"); //$NON-NLS-1$
+        OPT_OUTPUT.setRequired(true);
+
+        OPT_MODEL = new Option("model", true, //$NON-NLS-1$
+                Messages.getString("Main.optModel")); //$NON-NLS-1$
+        OPT_MODEL.setArgName("model-name"); //$NON-NLS-1$
+        OPT_MODEL.setRequired(true);
+
+        OPT_COUNT = new Option("count", true, //$NON-NLS-1$
+                Messages.getString("Main.optCount")); //$NON-NLS-1$
+        OPT_COUNT.setArgName("number-of-records"); //$NON-NLS-1$
+        OPT_COUNT.setRequired(true);
+
+        OPT_FORMAT = new Option("format", true, //$NON-NLS-1$
+                Messages.getString("Main.optFormat")); //$NON-NLS-1$
+        OPT_FORMAT.setArgName(FORMAT_CSV + "|fully.qualified.DataFormatClassName"); //$NON-NLS-1$
+        OPT_FORMAT.setRequired(false);
+
+        OPT_SPEC = new Option("spec", true, //$NON-NLS-1$
+                Messages.getString("Main.optSpec")); //$NON-NLS-1$
+        OPT_SPEC.setArgName("/path/to/spec.properties"); //$NON-NLS-1$
+        OPT_SPEC.setRequired(false);
+
+        OPT_SEED = new Option("seed", true, //$NON-NLS-1$
+                Messages.getString("Main.optSeed")); //$NON-NLS-1$
+        OPT_SEED.setArgName("random-seed"); //$NON-NLS-1$
+        OPT_SEED.setRequired(false);
+
+        OPT_PARTITIONS = new Option("partitions", true, //$NON-NLS-1$
+                Messages.getString("Main.optPartitions")); //$NON-NLS-1$
+        OPT_PARTITIONS.setArgName("number-of-files"); //$NON-NLS-1$
+        OPT_PARTITIONS.setRequired(false);
+
+        OPT_PARALLELISM = new Option("parallelism", true, //$NON-NLS-1$
+                Messages.getString("Main.optParallelism")); //$NON-NLS-1$
+        OPT_PARALLELISM.setArgName("number-of-threads"); //$NON-NLS-1$
+        OPT_PARALLELISM.setRequired(false);
+
+        OPT_HEADER = new Option("header", false, //$NON-NLS-1$
+                Messages.getString("Main.optHeader")); //$NON-NLS-1$
+        OPT_HEADER.setRequired(false);
+
+        OPT_ENCODING = new Option("encoding", true, //$NON-NLS-1$
+                Messages.getString("Main.optEncoding")); //$NON-NLS-1$
+        OPT_ENCODING.setArgName("source-encoding"); //$NON-NLS-1$
+        OPT_ENCODING.setRequired(false);
+
+        OPT_SOURCE_PATH = new Option("source", true, //$NON-NLS-1$
+                Messages.getString("Main.optSource")); //$NON-NLS-1$
+        OPT_SOURCE_PATH.setArgName(
+                "source-file.dmdl" + File.pathSeparatorChar + "/path/to/source"); //$NON-NLS-1$ //$NON-NLS-2$
+        OPT_SOURCE_PATH.setRequired(true);
+
+        OPT_PLUGIN = new Option("plugin", true, //$NON-NLS-1$
+                Messages.getString("Main.optPlugin")); //$NON-NLS-1$
+        OPT_PLUGIN.setArgName("plugin-1.jar" + File.pathSeparatorChar + "plugin-2.jar"); //$NON-NLS-1$ //$NON-NLS-2$
+        OPT_PLUGIN.setValueSeparator(File.pathSeparatorChar);
+        OPT_PLUGIN.setRequired(false);
+
+        OPTIONS = new Options();
+        OPTIONS.addOption(OPT_OUTPUT);
+        OPTIONS.addOption(OPT_MODEL);
+        OPTIONS.addOption(OPT_COUNT);
+        OPTIONS.addOption(OPT_FORMAT);
+        OPTIONS.addOption(OPT_SPEC);
+        OPTIONS.addOption(OPT_SEED);
+        OPTIONS.addOption(OPT_PARTITIONS);
+        OPTIONS.addOption(OPT_PARALLELISM);
+        OPTIONS.addOption(OPT_HEADER);
+        OPTIONS.addOption(OPT_ENCODING);
+        OPTIONS.addOption(OPT_SOURCE_PATH);
+        OPTIONS.addOption(OPT_PLUGIN);
+    }
+
+    private Main() {
+        return;
+    }
+
+    /**
+     * Program entry.
+     * @param args program arguments
+     */
+    public static void main(String... args) {
+        System.exit(start(args));
+    }
+
+    static int start(String... args) {
+        assert args != null;
+        CommandLine cmd;
+        try {
+            CommandLineParser parser = new BasicParser();
+            cmd = parser.parse(OPTIONS, args);
+        } catch (Exception e) {
+            HelpFormatter formatter = new HelpFormatter();
+            formatter.setWidth(Integer.MAX_VALUE);
+            formatter.printHelp(
+                    MessageFormat.format(
+                            "java -classpath ... {0}", //$NON-NLS-1$
+                            Main.class.getName()),
+                    OPTIONS,
+                    true);
+            e.printStackTrace(System.out);
+            return 1;
+        }
+        try {
+            process(cmd);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace(System.out);
+            return 1;
+        }
+        return 0;
+    }
+
+    private static void process(CommandLine cmd) throws IOException {
+        ClassLoader classLoader = getClassLoader(cmd);
+        ModelDeclaration model = getModel(cmd, classLoader);
+        DistributionSpec spec = getSpec(cmd);
+        long seed = Long.parseLong(cmd.getOptionValue(OPT_SEED.getOpt(), "0")); //$NON-NLS-1$
+        long count = Long.parseLong(cmd.getOptionValue(OPT_COUNT.getOpt()));
+        int partitions = Integer.parseInt(cmd.getOptionValue(OPT_PARTITIONS.getOpt(), "1")); //$NON-NLS-1$
+        int parallelism = Integer.parseInt(cmd.getOptionValue(
+                OPT_PARALLELISM.getOpt(),
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        File output = new File(cmd.getOptionValue(OPT_OUTPUT.getOpt()));
+        if (output.mkdirs() == false && output.isDirectory() == false) {
+            throw new IOException(MessageFormat.format(
+                    Messages.getString("Main.errorFailedToCreateOutputDirectory"), //$NON-NLS-1$
+                    output));
+        }
+        SinkProvider sinks = getSinks(cmd, classLoader, model, output);
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(model, spec, seed);
+        generator.generate(count, partitions, parallelism, sinks);
+    }
+
+    private static ClassLoader getClassLoader(CommandLine cmd) {
+        assert cmd != null;
+        String pluginCmd = cmd.getOptionValue(OPT_PLUGIN.getOpt());
+        List<File> plugins = parseFileList(pluginCmd);
+        ClassLoader serviceLoader = buildPluginLoader(Main.class.getClassLoader(), plugins);
+        return serviceLoader;
+    }
+
+    private static ModelDeclaration getModel(CommandLine cmd, ClassLoader classLoader) throws IOException {
+        assert cmd != null;
+        Charset encoding = parseCharset(cmd.getOptionValue(OPT_ENCODING.getOpt()));
+        String sourceCmd = cmd.getOptionValue(OPT_SOURCE_PATH.getOpt());
+        DmdlSourceRepository repository = buildRepository(parseFileList(sourceCmd), encoding);
+        AnalyzeTask analyzer = new AnalyzeTask(Messages.getString("Main.title"), classLoader); //$NON-NLS-1$
+        DmdlSemantics semantics = analyzer.process(repository);
+        String name = cmd.getOptionValue(OPT_MODEL.getOpt());
+        ModelDeclaration model = semantics.findModelDeclaration(name);
+        if (model == null) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    Messages.getString("Main.errorUnknownModel"), //$NON-NLS-1$
+                    name));
+        }
+        return model;
+    }
+
+    private static DistributionSpec getSpec(CommandLine cmd) throws IOException {
+        String specCmd = cmd.getOptionValue(OPT_SPEC.getOpt());
+        if (specCmd == null) {
+            return DistributionSpec.empty();
+        }
+        return DistributionSpec.load(new File(specCmd).toPath());
+    }
+
+    private static SinkProvider getSinks(
+            CommandLine cmd, ClassLoader classLoader, ModelDeclaration model, File output) {
+        String formatCmd = cmd.getOptionValue(OPT_FORMAT.getOpt(), FORMAT_CSV);
+        String prefix = model.getName().identifier;
+        if (formatCmd.equals(FORMAT_CSV)) {
+            boolean header = cmd.hasOption(OPT_HEADER.getOpt());
+            return partition -> {
+                File file = new File(output, getFileName(prefix, partition) + CSV_EXTENSION);
+                LOG.debug("creating output: {}", file); //$NON-NLS-1$
+                OutputStream stream = new BufferedOutputStream(new FileOutputStream(file));
+                return new CsvDataModelSink(model, stream, file.getPath(), header);
+            };
+        }
+        DataFormat<?> format = newDataFormat(classLoader, formatCmd);
+        return partition -> {
+            File file = new File(output, getFileName(prefix, partition));
+            LOG.debug("creating output: {}", file); //$NON-NLS-1$
+            return open(classLoader, format, file);
+        };
+    }
+
+    private static <T> DirectIoDataModelSink<T> open(
+            ClassLoader classLoader, DataFormat<T> format, File file) throws IOException {
+        TestToolRepository repository = new TestToolRepository(classLoader);
+        DataModelDefinition<T> definition = repository.toDataModelDefinition(format.getSupportedType());
+        return DirectIoDataModelSink.open(new Configuration(), definition, format, file);
+    }
+
+    private static DataFormat<?> newDataFormat(ClassLoader classLoader, String className) {
+        try {
+            Class<?> aClass = Class.forName(className, true, classLoader);
+            if (DataFormat.class.isAssignableFrom(aClass) == false) {
+                throw new IllegalArgumentException(MessageFormat.format(
+                        Messages.getString("Main.errorUnknownFormat"), //$NON-NLS-1$
+                        OPT_FORMAT.getOpt(),
+                        className));
+            }
+            return aClass.asSubclass(DataFormat.class).newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    Messages.getString("Main.errorUnknownFormat"), //$NON-NLS-1$
+                    OPT_FORMAT.getOpt(),
+                    className), e);
+        }
+    }
+
+    private static String getFileName(String prefix, int partition) {
+        return String.format("%s-%05d", prefix, partition); //$NON-NLS-1$
+    }
+}
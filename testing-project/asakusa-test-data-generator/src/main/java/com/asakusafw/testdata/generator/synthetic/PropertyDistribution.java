@@ -0,0 +1,144 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdata.generator.synthetic;
+
+import java.text.MessageFormat;
+
+/**
+ * Distribution of values for individual properties.
+ * @since 0.10.5
+ */
+public class PropertyDistribution {
+
+    /**
+     * The default distribution: uniformly distributed non-null values.
+     */
+    public static final PropertyDistribution DEFAULT = new PropertyDistribution(0.0, 0L, 0.0, null, null, 0);
+
+    private final double nullRatio;
+
+    private final long cardinality;
+
+    private final double skew;
+
+    private final String min;
+
+    private final String max;
+
+    private final int length;
+
+    /**
+     * Creates a new instance.
+     * @param nullRatio the ratio of {@code null} values (0.0 - 1.0)
+     * @param cardinality the max number of distinct values, or {@code 0} for unbounded
+     * @param skew the skewness of value frequencies ({@code 0.0} for uniform distribution),
+     *     larger value makes a few values appear much more frequently
+     * @param min the minimum value in string representation, or {@code null} to use the default minimum
+     * @param max the maximum value in string representation, or {@code null} to use the default maximum
+     * @param length the text length, or {@code 0} to use the default length
+     * @throws IllegalArgumentException if some parameters are out of range
+     */
+    public PropertyDistribution(
+            double nullRatio, long cardinality, double skew,
+            String min, String max, int length) {
+        if (nullRatio < 0.0 || nullRatio > 1.0) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    Messages.getString("PropertyDistribution.errorInvalidNullRatio"), //$NON-NLS-1$
+                    nullRatio));
+        }
+        if (cardinality < 0L) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    Messages.getString("PropertyDistribution.errorInvalidCardinality"), //$NON-NLS-1$
+                    cardinality));
+        }
+        if (skew < 0.0) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    Messages.getString("PropertyDistribution.errorInvalidSkew"), //$NON-NLS-1$
+                    skew));
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    Messages.getString("PropertyDistribution.errorInvalidLength"), //$NON-NLS-1$
+                    length));
+        }
+        this.nullRatio = nullRatio;
+        this.cardinality = cardinality;
+        this.skew = skew;
+        this.min = min;
+        this.max = max;
+        this.length = length;
+    }
+
+    /**
+     * Returns the ratio of {@code null} values.
+     * @return the ratio of {@code null} values (0.0 - 1.0)
+     */
+    public double getNullRatio() {
+        return nullRatio;
+    }
+
+    /**
+     * Returns the max number of distinct values.
+     * @return the max number of distinct values, or {@code 0} for unbounded
+     */
+    public long getCardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Returns the skewness of value frequencies.
+     * @return the skewness, or {@code 0.0} for uniform distribution
+     */
+    public double getSkew() {
+        return skew;
+    }
+
+    /**
+     * Returns the minimum value.
+     * @return the minimum value in string representation, or {@code null} if it is not specified
+     */
+    public String getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the maximum value.
+     * @return the maximum value in string representation, or {@code null} if it is not specified
+     */
+    public String getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the text length.
+     * @return the text length, or {@code 0} if it is not specified
+     */
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return MessageFormat.format(
+                "PropertyDistribution(null={0}, cardinality={1}, skew={2}, min={3}, max={4}, length={5})", //$NON-NLS-1$
+                nullRatio,
+                cardinality,
+                skew,
+                min,
+                max,
+                length);
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdata.generator.synthetic;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.asakusafw.dmdl.semantics.ModelDeclaration;
+import com.asakusafw.dmdl.semantics.PropertyDeclaration;
+import com.asakusafw.dmdl.semantics.type.BasicType;
+import com.asakusafw.dmdl.util.ParallelUtil;
+import com.asakusafw.testdriver.core.DataModelReflection;
+import com.asakusafw.testdriver.core.DataModelSink;
+import com.asakusafw.testdriver.core.PropertyName;
+
+/**
+ * Generates synthetic data model objects from DMDL model declarations.
+ * <p>
+ * The generated records are split into partitions, and each partition uses its own random number generator
+ * derived from the seed and the partition number.
+ * Therefore, the contents of each partition are always same for the same seed, regardless of the parallelism.
+ * </p>
+ * @since 0.10.5
+ */
+public class SyntheticDataGenerator {
+
+    static final Logger LOG = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private final ModelDeclaration model;
+
+    private final Map<PropertyName, ValueGenerator> generators;
+
+    private final long seed;
+
+    /**
+     * Creates a new instance.
+     * @param model the target data model
+     * @param spec the value distribution for each property
+     * @param seed the random seed
+     * @throws IllegalArgumentException if the model or specification is not valid
+     */
+    public SyntheticDataGenerator(ModelDeclaration model, DistributionSpec spec, long seed) {
+        if (model == null) {
+            throw new IllegalArgumentException("model must not be null"); //$NON-NLS-1$
+        }
+        if (spec == null) {
+            throw new IllegalArgumentException("spec must not be null"); //$NON-NLS-1$
+        }
+        for (String name : spec.getPropertyNames()) {
+            if (model.findPropertyDeclaration(name) == null) {
+                throw new IllegalArgumentException(MessageFormat.format(
+                        Messages.getString("SyntheticDataGenerator.errorUnknownProperty"), //$NON-NLS-1$
+                        model.getName().identifier,
+                        name));
+            }
+        }
+        this.model = model;
+        this.generators = new LinkedHashMap<>();
+        for (PropertyDeclaration property : model.getDeclaredProperties()) {
+            String name = property.getName().identifier;
+            if ((property.getType() instanceof BasicType) == false) {
+                throw new IllegalArgumentException(MessageFormat.format(
+                        Messages.getString("SyntheticDataGenerator.errorUnsupportedType"), //$NON-NLS-1$
+                        model.getName().identifier,
+                        name,
+                        property.getType()));
+            }
+            BasicType type = (BasicType) property.getType();
+            ValueGenerator generator;
+            try {
+                generator = ValueGenerator.of(type.getKind(), spec.get(name));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(MessageFormat.format(
+                        Messages.getString("SyntheticDataGenerator.errorInvalidDistribution"), //$NON-NLS-1$
+                        model.getName().identifier,
+                        name,
+                        e.getMessage()), e);
+            }
+            generators.put(toPropertyName(name), generator);
+        }
+        this.seed = seed;
+    }
+
+    static PropertyName toPropertyName(String identifier) {
+        return PropertyName.newInstance(identifier.split("_")); //$NON-NLS-1$
+    }
+
+    /**
+     * Returns the target data model.
+     * @return the target data model
+     */
+    public ModelDeclaration getModel() {
+        return model;
+    }
+
+    /**
+     * Generates data model objects into the individual sinks for each partition.
+     * @param count the total number of records
+     * @param partitions the number of partitions
+     * @param parallelism the max number of threads
+     * @param sinks provides sinks for individual partitions
+     * @throws IOException if failed to generate records
+     * @throws IllegalArgumentException if some parameters are not valid
+     */
+    public void generate(long count, int partitions, int parallelism, SinkProvider sinks) throws IOException {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative"); //$NON-NLS-1$
+        }
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("partitions must be positive"); //$NON-NLS-1$
+        }
+        if (sinks == null) {
+            throw new IllegalArgumentException("sinks must not be null"); //$NON-NLS-1$
+        }
+        LOG.info(MessageFormat.format(
+                Messages.getString("SyntheticDataGenerator.infoStart"), //$NON-NLS-1$
+                model.getName().identifier,
+                count,
+                partitions));
+        int threads = Math.max(Math.min(parallelism, partitions), 1);
+        if (threads == 1) {
+            for (int i = 0; i < partitions; i++) {
+                generate(i, getPartitionSize(count, partitions, i), sinks);
+            }
+        } else {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < partitions; i++) {
+                int partition = i;
+                long size = getPartitionSize(count, partitions, i);
+                tasks.add(() -> {
+                    generate(partition, size, sinks);
+                    return null;
+                });
+            }
+            ParallelUtil.invokeAll("asakusa-synthetic-data", threads, tasks); //$NON-NLS-1$
+        }
+        LOG.info(MessageFormat.format(
+                Messages.getString("SyntheticDataGenerator.infoFinish"), //$NON-NLS-1$
+                model.getName().identifier,
+                count));
+    }
+
+    private static long getPartitionSize(long count, int partitions, int index) {
+        return count / partitions + (index < count % partitions ? 1 : 0);
+    }
+
+    private void generate(int partition, long size, SinkProvider sinks) throws IOException {
+        LOG.debug("generating partition: {}#{} ({} records)", model.getName(), partition, size); //$NON-NLS-1$
+        Random random = newRandom(partition);
+        try (DataModelSink sink = sinks.open(partition)) {
+            for (long i = 0; i < size; i++) {
+                sink.put(next(random));
+            }
+        }
+    }
+
+    /**
+     * Returns a new random number generator for the partition.
+     * @param partition the partition number
+     * @return the random number generator
+     */
+    Random newRandom(int partition) {
+        // mixes the seed and the partition number (SplitMix64)
+        long z = seed + (partition + 1) * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return new Random(z ^ (z >>> 31));
+    }
+
+    /**
+     * Generates the next data model object.
+     * @param random the random number generator
+     * @return the generated object
+     */
+    public DataModelReflection next(Random random) {
+        if (random == null) {
+            throw new IllegalArgumentException("random must not be null"); //$NON-NLS-1$
+        }
+        Map<PropertyName, Object> properties = new LinkedHashMap<>();
+        for (Map.Entry<PropertyName, ValueGenerator> entry : generators.entrySet()) {
+            properties.put(entry.getKey(), entry.getValue().next(random));
+        }
+        return new DataModelReflection(properties);
+    }
+
+    /**
+     * Provides {@link DataModelSink} for individual partitions.
+     * @since 0.10.5
+     */
+    @FunctionalInterface
+    public interface SinkProvider {
+
+        /**
+         * Opens a sink for the partition.
+         * @param partition the partition number (0-origin)
+         * @return the opened sink
+         * @throws IOException if failed to open the sink
+         */
+        DataModelSink open(int partition) throws IOException;
+    }
+}
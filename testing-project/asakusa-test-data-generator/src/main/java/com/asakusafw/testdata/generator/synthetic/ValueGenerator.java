@@ -0,0 +1,280 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdata.generator.synthetic;
+
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Calendar;
+import java.util.Random;
+
+import com.asakusafw.dmdl.model.BasicTypeKind;
+
+/**
+ * Generates property values which follow a {@link PropertyDistribution}.
+ * @since 0.10.5
+ */
+abstract class ValueGenerator {
+
+    static final DateTimeFormatter DATETIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"); //$NON-NLS-1$
+
+    private static final char[] TEXT_CHARACTERS = "0123456789abcdefghijklmnopqrstuvwxyz".toCharArray(); //$NON-NLS-1$
+
+    private static final int DEFAULT_TEXT_LENGTH = 10;
+
+    private static final long FLOATING_STEPS = 1_000_000L;
+
+    private final double nullRatio;
+
+    private final long range;
+
+    private final long cardinality;
+
+    private final long step;
+
+    private final double skew;
+
+    ValueGenerator(PropertyDistribution distribution, long range) {
+        assert range > 0;
+        this.nullRatio = distribution.getNullRatio();
+        this.range = range;
+        this.cardinality = distribution.getCardinality() == 0L ? 0L : Math.min(distribution.getCardinality(), range);
+        this.step = cardinality == 0L ? 1L : range / cardinality;
+        this.skew = distribution.getSkew();
+    }
+
+    /**
+     * Creates a new instance for the property type.
+     * @param kind the property type
+     * @param distribution the value distribution
+     * @return the created instance
+     * @throws IllegalArgumentException if the distribution is not valid for the property type
+     */
+    static ValueGenerator of(BasicTypeKind kind, PropertyDistribution distribution) {
+        switch (kind) {
+        case BOOLEAN:
+            return new ValueGenerator(distribution, 2L) {
+                @Override
+                Object convert(long offset) {
+                    return offset != 0L;
+                }
+            };
+        case BYTE: {
+            long min = parseLong(distribution.getMin(), 0L);
+            long max = parseLong(distribution.getMax(), Byte.MAX_VALUE);
+            checkRange(min, max, Byte.MIN_VALUE, Byte.MAX_VALUE);
+            return new ValueGenerator(distribution, max - min + 1) {
+                @Override
+                Object convert(long offset) {
+                    return (byte) (min + offset);
+                }
+            };
+        }
+        case SHORT: {
+            long min = parseLong(distribution.getMin(), 0L);
+            long max = parseLong(distribution.getMax(), 10_000L);
+            checkRange(min, max, Short.MIN_VALUE, Short.MAX_VALUE);
+            return new ValueGenerator(distribution, max - min + 1) {
+                @Override
+                Object convert(long offset) {
+                    return (short) (min + offset);
+                }
+            };
+        }
+        case INT: {
+            long min = parseLong(distribution.getMin(), 0L);
+            long max = parseLong(distribution.getMax(), 1_000_000L);
+            checkRange(min, max, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            return new ValueGenerator(distribution, max - min + 1) {
+                @Override
+                Object convert(long offset) {
+                    return (int) (min + offset);
+                }
+            };
+        }
+        case LONG: {
+            long min = parseLong(distribution.getMin(), 0L);
+            long max = parseLong(distribution.getMax(), 1_000_000_000L);
+            checkRange(min, max, Long.MIN_VALUE / 2, Long.MAX_VALUE / 2);
+            return new ValueGenerator(distribution, max - min + 1) {
+                @Override
+                Object convert(long offset) {
+                    return min + offset;
+                }
+            };
+        }
+        case DECIMAL: {
+            BigDecimal min = parseDecimal(distribution.getMin(), BigDecimal.ZERO);
+            BigDecimal max = parseDecimal(distribution.getMax(), new BigDecimal("99999.99")); //$NON-NLS-1$
+            int scale = Math.max(Math.max(min.scale(), max.scale()), 0);
+            long unscaledMin = min.setScale(scale).unscaledValue().longValueExact();
+            long unscaledMax = max.setScale(scale).unscaledValue().longValueExact();
+            checkRange(unscaledMin, unscaledMax, Long.MIN_VALUE / 2, Long.MAX_VALUE / 2);
+            return new ValueGenerator(distribution, unscaledMax - unscaledMin + 1) {
+                @Override
+                Object convert(long offset) {
+                    return BigDecimal.valueOf(unscaledMin + offset, scale);
+                }
+            };
+        }
+        case FLOAT:
+        case DOUBLE: {
+            double min = parseDouble(distribution.getMin(), 0.0);
+            double max = parseDouble(distribution.getMax(), 1000.0);
+            if (min > max) {
+                throw new IllegalArgumentException(MessageFormat.format(
+                        Messages.getString("ValueGenerator.errorInvalidRange"), //$NON-NLS-1$
+                        min,
+                        max));
+            }
+            boolean single = kind == BasicTypeKind.FLOAT;
+            return new ValueGenerator(distribution, FLOATING_STEPS) {
+                @Override
+                Object convert(long offset) {
+                    double value = min + (max - min) * offset / (FLOATING_STEPS - 1);
+                    return single ? (Object) (float) value : (Object) value;
+                }
+            };
+        }
+        case DATE: {
+            long min = parseDate(distribution.getMin(), LocalDate.of(2000, 1, 1)).toEpochDay();
+            long max = parseDate(distribution.getMax(), LocalDate.of(2030, 12, 31)).toEpochDay();
+            checkRange(min, max, Long.MIN_VALUE / 2, Long.MAX_VALUE / 2);
+            return new ValueGenerator(distribution, max - min + 1) {
+                @Override
+                Object convert(long offset) {
+                    LocalDate date = LocalDate.ofEpochDay(min + offset);
+                    Calendar calendar = Calendar.getInstance();
+                    calendar.clear();
+                    calendar.set(date.getYear(), date.getMonthValue() - 1, date.getDayOfMonth());
+                    return calendar;
+                }
+            };
+        }
+        case DATETIME: {
+            long min = parseDateTime(distribution.getMin(), LocalDateTime.of(2000, 1, 1, 0, 0, 0))
+                    .toEpochSecond(ZoneOffset.UTC);
+            long max = parseDateTime(distribution.getMax(), LocalDateTime.of(2030, 12, 31, 23, 59, 59))
+                    .toEpochSecond(ZoneOffset.UTC);
+            checkRange(min, max, Long.MIN_VALUE / 2, Long.MAX_VALUE / 2);
+            return new ValueGenerator(distribution, max - min + 1) {
+                @Override
+                Object convert(long offset) {
+                    LocalDateTime datetime = LocalDateTime.ofEpochSecond(min + offset, 0, ZoneOffset.UTC);
+                    Calendar calendar = Calendar.getInstance();
+                    calendar.clear();
+                    calendar.set(
+                            datetime.getYear(), datetime.getMonthValue() - 1, datetime.getDayOfMonth(),
+                            datetime.getHour(), datetime.getMinute(), datetime.getSecond());
+                    return calendar;
+                }
+            };
+        }
+        case TEXT: {
+            int length = distribution.getLength() == 0 ? DEFAULT_TEXT_LENGTH : distribution.getLength();
+            long range = 1L;
+            for (int i = 0; i < length && range <= Long.MAX_VALUE / TEXT_CHARACTERS.length; i++) {
+                range *= TEXT_CHARACTERS.length;
+            }
+            return new ValueGenerator(distribution, range) {
+                @Override
+                Object convert(long offset) {
+                    char[] results = new char[length];
+                    long rest = offset;
+                    for (int i = length - 1; i >= 0; i--) {
+                        results[i] = TEXT_CHARACTERS[(int) (rest % TEXT_CHARACTERS.length)];
+                        rest /= TEXT_CHARACTERS.length;
+                    }
+                    return new String(results);
+                }
+            };
+        }
+        default:
+            throw new IllegalArgumentException(MessageFormat.format(
+                    Messages.getString("ValueGenerator.errorUnsupportedType"), //$NON-NLS-1$
+                    kind));
+        }
+    }
+
+    /**
+     * Returns the next value.
+     * @param random the random number generator
+     * @return the next value, or {@code null}
+     */
+    Object next(Random random) {
+        if (nullRatio > 0.0 && random.nextDouble() < nullRatio) {
+            return null;
+        }
+        long offset;
+        if (cardinality > 0L) {
+            offset = pick(random, cardinality) * step;
+        } else {
+            offset = pick(random, range);
+        }
+        return convert(offset);
+    }
+
+    private long pick(Random random, long bound) {
+        if (skew == 0.0) {
+            return (random.nextLong() >>> 1) % bound;
+        }
+        long index = (long) (bound * Math.pow(random.nextDouble(), 1.0 + skew));
+        return Math.min(index, bound - 1);
+    }
+
+    abstract Object convert(long offset);
+
+    private static void checkRange(long min, long max, long lowerBound, long upperBound) {
+        if (min > max || min < lowerBound || max > upperBound) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    Messages.getString("ValueGenerator.errorInvalidRange"), //$NON-NLS-1$
+                    String.valueOf(min),
+                    String.valueOf(max)));
+        }
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    private static double parseDouble(String value, double defaultValue) {
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    private static BigDecimal parseDecimal(String value, BigDecimal defaultValue) {
+        return value == null ? defaultValue : new BigDecimal(value);
+    }
+
+    private static LocalDate parseDate(String value, LocalDate defaultValue) {
+        try {
+            return value == null ? defaultValue : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private static LocalDateTime parseDateTime(String value, LocalDateTime defaultValue) {
+        try {
+            return value == null ? defaultValue : LocalDateTime.parse(value, DATETIME_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+}
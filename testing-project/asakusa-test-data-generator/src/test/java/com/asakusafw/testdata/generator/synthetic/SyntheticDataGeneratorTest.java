@@ -0,0 +1,251 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdata.generator.synthetic;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+import com.asakusafw.dmdl.semantics.DmdlSemantics;
+import com.asakusafw.dmdl.semantics.ModelDeclaration;
+import com.asakusafw.dmdl.source.DmdlSourceResource;
+import com.asakusafw.dmdl.util.AnalyzeTask;
+import com.asakusafw.testdriver.core.DataModelReflection;
+import com.asakusafw.testdriver.core.DataModelSink;
+import com.asakusafw.testdriver.core.PropertyName;
+
+/**
+ * Test for {@link SyntheticDataGenerator}.
+ */
+public class SyntheticDataGeneratorTest {
+
+    /**
+     * simple case.
+     * @throws Exception if failed
+     */
+    @Test
+    public void simple() throws Exception {
+        ModelDeclaration model = load("simple");
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(model, DistributionSpec.empty(), 0);
+        Map<Integer, List<DataModelReflection>> results = generate(generator, 100, 1, 1);
+        assertThat(results.keySet(), contains(0));
+        List<DataModelReflection> records = results.get(0);
+        assertThat(records, hasSize(100));
+        for (DataModelReflection record : records) {
+            assertThat(record.getValue(name("p_int")), is(instanceOf(Integer.class)));
+            assertThat(record.getValue(name("p_long")), is(instanceOf(Long.class)));
+            assertThat(record.getValue(name("p_byte")), is(instanceOf(Byte.class)));
+            assertThat(record.getValue(name("p_short")), is(instanceOf(Short.class)));
+            assertThat(record.getValue(name("p_decimal")), is(instanceOf(BigDecimal.class)));
+            assertThat(record.getValue(name("p_float")), is(instanceOf(Float.class)));
+            assertThat(record.getValue(name("p_double")), is(instanceOf(Double.class)));
+            assertThat(record.getValue(name("p_text")), is(instanceOf(String.class)));
+            assertThat(record.getValue(name("p_boolean")), is(instanceOf(Boolean.class)));
+            assertThat(record.getValue(name("p_date")), is(instanceOf(Calendar.class)));
+            assertThat(record.getValue(name("p_datetime")), is(instanceOf(Calendar.class)));
+        }
+    }
+
+    /**
+     * generated data is deterministic.
+     * @throws Exception if failed
+     */
+    @Test
+    public void deterministic() throws Exception {
+        ModelDeclaration model = load("simple");
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(model, DistributionSpec.empty(), 12345);
+        Map<Integer, List<DataModelReflection>> r0 = generate(generator, 1000, 4, 1);
+        Map<Integer, List<DataModelReflection>> r1 = generate(generator, 1000, 4, 4);
+        assertThat(r1, is(r0));
+        assertThat(r0.get(0), hasSize(250));
+        assertThat(r0.get(0), is(not(r0.get(1))));
+
+        SyntheticDataGenerator other = new SyntheticDataGenerator(model, DistributionSpec.empty(), 54321);
+        Map<Integer, List<DataModelReflection>> r2 = generate(other, 1000, 4, 4);
+        assertThat(r2, is(not(r0)));
+    }
+
+    /**
+     * with distributions.
+     * @throws Exception if failed
+     */
+    @Test
+    public void distribution() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("*.null", "0.5");
+        properties.setProperty("p_int.null", "0");
+        properties.setProperty("p_int.cardinality", "10");
+        properties.setProperty("p_int.min", "100");
+        properties.setProperty("p_int.max", "199");
+        properties.setProperty("p_long.skew", "3");
+        properties.setProperty("p_long.min", "0");
+        properties.setProperty("p_long.max", "999");
+        properties.setProperty("p_text.null", "0");
+        properties.setProperty("p_text.length", "4");
+        properties.setProperty("p_decimal.min", "-1.5");
+        properties.setProperty("p_decimal.max", "1.5");
+        properties.setProperty("p_date.min", "2017-01-01");
+        properties.setProperty("p_date.max", "2017-01-31");
+        DistributionSpec spec = DistributionSpec.parse(properties);
+
+        ModelDeclaration model = load("simple");
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(model, spec, 0);
+        List<DataModelReflection> records = generate(generator, 10000, 1, 1).get(0);
+
+        Set<Object> ints = new HashSet<>();
+        int longSmall = 0;
+        int nulls = 0;
+        for (DataModelReflection record : records) {
+            Integer p_int = (Integer) record.getValue(name("p_int"));
+            assertThat(p_int, is(both(greaterThanOrEqualTo(100)).and(lessThanOrEqualTo(199))));
+            ints.add(p_int);
+
+            Long p_long = (Long) record.getValue(name("p_long"));
+            if (p_long == null) {
+                nulls++;
+            } else if (p_long < 100) {
+                longSmall++;
+            }
+
+            String p_text = (String) record.getValue(name("p_text"));
+            assertThat(p_text.length(), is(4));
+
+            BigDecimal p_decimal = (BigDecimal) record.getValue(name("p_decimal"));
+            if (p_decimal != null) {
+                assertThat(p_decimal.scale(), is(1));
+                assertThat(p_decimal, is(both(greaterThanOrEqualTo(new BigDecimal("-1.5")))
+                        .and(lessThanOrEqualTo(new BigDecimal("1.5")))));
+            }
+            Calendar p_date = (Calendar) record.getValue(name("p_date"));
+            if (p_date != null) {
+                assertThat(p_date.get(Calendar.YEAR), is(2017));
+                assertThat(p_date.get(Calendar.MONTH), is(Calendar.JANUARY));
+            }
+        }
+        assertThat(ints.size(), is(10));
+        assertThat(nulls, is(both(greaterThan(4000)).and(lessThan(6000))));
+        // skewed: the first 10% range has much more than 10% of values
+        assertThat(longSmall, is(greaterThan((10000 - nulls) / 2)));
+    }
+
+    /**
+     * unknown property in distribution spec.
+     * @throws Exception if failed
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void unknown_property() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("unknown.null", "0.5");
+        new SyntheticDataGenerator(load("simple"), DistributionSpec.parse(properties), 0);
+    }
+
+    /**
+     * invalid distribution spec.
+     * @throws Exception if failed
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void invalid_range() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("p_byte.max", "1000");
+        new SyntheticDataGenerator(load("simple"), DistributionSpec.parse(properties), 0);
+    }
+
+    /**
+     * writes CSV.
+     * @throws Exception if failed
+     */
+    @Test
+    public void csv() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("p_date.min", "2017-01-02");
+        properties.setProperty("p_date.max", "2017-01-02");
+        properties.setProperty("p_text.null", "1");
+        ModelDeclaration model = load("simple");
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(model, DistributionSpec.parse(properties), 0);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DataModelSink sink = new CsvDataModelSink(model, output, "testing", true)) {
+            Random random = new Random(6502);
+            for (int i = 0; i < 10; i++) {
+                sink.put(generator.next(random));
+            }
+        }
+        String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lines.length, is(11));
+        assertThat(lines[0], is("p_int,p_long,p_byte,p_short,p_decimal,p_float,p_double,"
+                + "p_text,p_boolean,p_date,p_datetime"));
+        for (int i = 1; i < lines.length; i++) {
+            String[] fields = lines[i].split(",", -1);
+            assertThat(fields.length, is(11));
+            assertThat(fields[7], is(""));
+            assertThat(fields[9], is("2017-01-02"));
+        }
+    }
+
+    private static PropertyName name(String name) {
+        return SyntheticDataGenerator.toPropertyName(name);
+    }
+
+    private static Map<Integer, List<DataModelReflection>> generate(
+            SyntheticDataGenerator generator,
+            long count, int partitions, int parallelism) throws IOException {
+        Map<Integer, List<DataModelReflection>> results = new ConcurrentHashMap<>();
+        generator.generate(count, partitions, parallelism, partition -> {
+            List<DataModelReflection> list = new ArrayList<>();
+            results.put(partition, list);
+            return new DataModelSink() {
+                @Override
+                public void put(DataModelReflection model) {
+                    list.add(model);
+                }
+                @Override
+                public void close() {
+                    return;
+                }
+            };
+        });
+        return results;
+    }
+
+    private ModelDeclaration load(String name) throws IOException {
+        URL resource = getClass().getResource("basic_type.dmdl");
+        assertThat(resource, is(notNullValue()));
+        DmdlSourceResource repository = new DmdlSourceResource(
+                Collections.singletonList(resource),
+                StandardCharsets.UTF_8);
+        AnalyzeTask task = new AnalyzeTask(getClass().getSimpleName(), getClass().getClassLoader());
+        DmdlSemantics semantics = task.process(repository);
+        ModelDeclaration model = semantics.findModelDeclaration(name);
+        assertThat(model, is(notNullValue()));
+        return model;
+    }
+}
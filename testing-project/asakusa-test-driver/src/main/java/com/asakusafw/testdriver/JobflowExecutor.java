@@ -22,6 +22,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 import org.apache.hadoop.conf.Configuration;
@@ -56,7 +57,7 @@ import com.asakusafw.workflow.model.TaskInfo;
  * Prepares and executes jobflows.
  * Application developers must not use this class directly.
  * @since 0.2.0
- * @version 0.10.0
+ * @version 0.10.5
  */
 class JobflowExecutor {
 
@@ -177,6 +178,7 @@ class JobflowExecutor {
             throw new IllegalArgumentException("inputs must not be null"); //$NON-NLS-1$
         }
         if (driverContext.isSkipPrepareInput() == false) {
+            List<Preparation> preparations = new ArrayList<>();
             for (DriverInputBase<?> input : inputs) {
                 DataModelSourceFactory source = input.getSource();
                 if (source != null) {
@@ -189,9 +191,10 @@ class JobflowExecutor {
                                 name,
                                 jobflow.getId()));
                     }
-                    moderator.prepare(port.getDataType(), port.getDescription(), source);
+                    preparations.add(() -> moderator.prepare(port.getDataType(), port.getDescription(), source));
                 }
             }
+            prepareAll(preparations);
         } else {
             LOG.info(Messages.getString("JobflowExecutor.infoSkipPrepareInput")); //$NON-NLS-1$
         }
@@ -215,6 +218,7 @@ class JobflowExecutor {
             throw new IllegalArgumentException("outputs must not be null"); //$NON-NLS-1$
         }
         if (driverContext.isSkipPrepareOutput() == false) {
+            List<Preparation> preparations = new ArrayList<>();
             for (DriverOutputBase<?> output : outputs) {
                 DataModelSourceFactory source = output.getSource();
                 if (source != null) {
@@ -227,9 +231,10 @@ class JobflowExecutor {
                                 name,
                                 jobflow.getId()));
                     }
-                    moderator.prepare(port.getDataType(), port.getDescription(), source);
+                    preparations.add(() -> moderator.prepare(port.getDataType(), port.getDescription(), source));
                 }
             }
+            prepareAll(preparations);
         } else {
             LOG.info(Messages.getString("JobflowExecutor.infoSkipPrepareOutput")); //$NON-NLS-1$
         }
@@ -248,18 +253,39 @@ class JobflowExecutor {
             throw new IllegalArgumentException("resources must not be null"); //$NON-NLS-1$
         }
         if (driverContext.isSkipPrepareInput() == false) {
+            List<Preparation> preparations = new ArrayList<>();
             for (Map.Entry<? extends ImporterDescription, ? extends DataModelSourceFactory> entry
                     : resources.entrySet()) {
                 ImporterDescription description = entry.getKey();
                 DataModelSourceFactory source = entry.getValue();
                 LOG.debug("preparing external resource: {} ({})", description, source); //$NON-NLS-1$
-                moderator.prepare(description.getModelType(), description, source);
+                preparations.add(() -> moderator.prepare(description.getModelType(), description, source));
             }
+            prepareAll(preparations);
         } else {
             LOG.info(Messages.getString("JobflowExecutor.infoSkipPrepareExtraResource")); //$NON-NLS-1$
         }
     }
 
+    private void prepareAll(List<Preparation> preparations) throws IOException {
+        int parallelism = Math.min(driverContext.getPrepareParallelism(), preparations.size());
+        if (parallelism <= 1) {
+            for (Preparation preparation : preparations) {
+                preparation.perform();
+            }
+            return;
+        }
+        LOG.debug("preparing {} data sets with {} threads", preparations.size(), parallelism); //$NON-NLS-1$
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Preparation preparation : preparations) {
+            tasks.add(() -> {
+                preparation.perform();
+                return null;
+            });
+        }
+        Util.runAll("asakusa-testdriver-prepare", parallelism, tasks); //$NON-NLS-1$
+    }
+
     /**
      * Checks if the given jobflow is valid.
      * @param jobflow the target jobflow
@@ -387,4 +413,10 @@ class JobflowExecutor {
             LOG.info(Messages.getString("JobflowExecutor.infoSkipVerifyResult")); //$NON-NLS-1$
         }
     }
+
+    @FunctionalInterface
+    private interface Preparation {
+
+        void perform() throws IOException;
+    }
 }
@@ -56,7 +56,7 @@ import com.asakusafw.workflow.executor.TaskExecutors;
 /**
  * Represents contextual information for test drivers.
  * @since 0.2.0
- * @version 0.10.0
+ * @version 0.10.5
  */
 public class TestDriverContext implements TestContext {
 
@@ -113,6 +113,13 @@ public class TestDriverContext implements TestContext {
      */
     public static final String KEY_FORCE_EXEC = "asakusa.testdriver.exec.force"; //$NON-NLS-1$
 
+    /**
+     * The system property key of the max number of threads to prepare test data sets.
+     * @see #getPrepareParallelism()
+     * @since 0.10.5
+     */
+    public static final String KEY_PREPARE_PARALLELISM = "asakusa.testdriver.prepare.parallelism"; //$NON-NLS-1$
+
     /**
      * Environmental variable: the framework home path.
      */
@@ -199,6 +206,8 @@ public class TestDriverContext implements TestContext {
 
     private volatile File generatedBatchappsHomePath;
 
+    private volatile int prepareParallelism = getDefaultPrepareParallelism();
+
     /**
      * Creates a new instance.
      * @param contextClass context class (will use to detect test resources)
@@ -790,6 +799,43 @@ public class TestDriverContext implements TestContext {
         this.currentExecutionId = currentExecutionId;
     }
 
+    /**
+     * Returns the max number of threads to prepare individual test data sets (default: {@code 1}).
+     * <p>
+     * This is initialized from the system property {@link #KEY_PREPARE_PARALLELISM}.
+     * </p>
+     * @return the max number of threads
+     * @since 0.10.5
+     */
+    public int getPrepareParallelism() {
+        return prepareParallelism;
+    }
+
+    /**
+     * Sets the max number of threads to prepare individual test data sets.
+     * @param parallelism the max number of threads, or {@code 1} to prepare them sequentially
+     * @since 0.10.5
+     */
+    public void setPrepareParallelism(int parallelism) {
+        this.prepareParallelism = Math.max(parallelism, 1);
+    }
+
+    private static int getDefaultPrepareParallelism() {
+        String value = System.getProperty(KEY_PREPARE_PARALLELISM);
+        if (value == null || value.trim().isEmpty()) {
+            return 1;
+        }
+        try {
+            return Math.max(Integer.parseInt(value.trim()), 1);
+        } catch (NumberFormatException e) {
+            LOG.warn(MessageFormat.format(
+                    Messages.getString("TestDriverContext.warnInvalidPrepareParallelism"), //$NON-NLS-1$
+                    KEY_PREPARE_PARALLELISM,
+                    value), e);
+            return 1;
+        }
+    }
+
     /**
      * Returns whether this test skips to cleanup input data source.
      * @return {@code true} to skip, otherwise {@code false}
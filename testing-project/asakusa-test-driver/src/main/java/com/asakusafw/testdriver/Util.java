@@ -17,6 +17,7 @@ package com.asakusafw.testdriver;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -26,6 +27,12 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,7 +53,7 @@ import com.asakusafw.workflow.model.JobflowInfo;
 /**
  * Utilities for testers.
  * @since 0.8.0
- * @version 0.9.0
+ * @version 0.10.5
  */
 final class Util {
 
@@ -166,6 +173,54 @@ final class Util {
         return Graphs.sortPostOrder(graph);
     }
 
+    /**
+     * Runs the given tasks in parallel, and waits for all of them.
+     * If some tasks were failed, this throws the first failure with the others as its suppressed exceptions.
+     */
+    static void runAll(String prefix, int parallelism, List<? extends Callable<?>> tasks) throws IOException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(Math.min(parallelism, tasks.size()), 1), r -> {
+            Thread thread = new Thread(r, String.format("%s-%d", prefix, counter.incrementAndGet())); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Callable<?> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            Throwable failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                }
+            }
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new IOException(failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (IOException) new InterruptedIOException().initCause(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private static List<File> list(File file) {
         return Optional.ofNullable(file.listFiles())
                 .map(Arrays::asList)
@@ -29,7 +29,9 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import com.asakusafw.runtime.core.BasicSortedGroup;
 import com.asakusafw.runtime.core.GroupView;
+import com.asakusafw.runtime.core.SortedGroupView;
 import com.asakusafw.testdriver.core.DataModelDefinition;
 import com.asakusafw.testdriver.core.DataModelReflection;
 import com.asakusafw.testdriver.core.DataModelSource;
@@ -42,6 +44,7 @@ import com.asakusafw.testdriver.core.TestContext;
  * A basic implementation of {@link GroupLoader}.
  * @param <T> the data type
  * @since 0.9.1
+ * @version 0.10.5
  * @see BasicDataLoader
  */
 public class BasicGroupLoader<T> implements GroupLoader<T> {
@@ -56,6 +59,8 @@ public class BasicGroupLoader<T> implements GroupLoader<T> {
 
     private Comparator<DataModelReflection> refComparator;
 
+    private String[] orderTerms;
+
     BasicGroupLoader(
             TestContext context,
             DataModelDefinition<T> definition,
@@ -75,6 +80,7 @@ public class BasicGroupLoader<T> implements GroupLoader<T> {
             throw new IllegalStateException("order is already defined"); //$NON-NLS-1$
         }
         refComparator = Util.toComparator(definition, terms);
+        orderTerms = terms.clone();
         return this;
     }
 
@@ -104,6 +110,30 @@ public class BasicGroupLoader<T> implements GroupLoader<T> {
         return new MapGroupView<>(definition, grouping, results);
     }
 
+    @Override
+    public SortedGroupView<T> asSortedView() {
+        if (orderTerms == null) {
+            throw new IllegalStateException("sorted view requires the sort key"); //$NON-NLS-1$
+        }
+        PropertyName sortKey = Util.toSortKey(definition, orderTerms);
+        Map<List<Object>, List<DataModelReflection>> map = asRefMap();
+        Map<List<Object>, List<T>> results = new LinkedHashMap<>();
+        Map<List<Object>, SortedGroupView.Group<T>> groups = new LinkedHashMap<>();
+        for (Map.Entry<List<Object>, List<DataModelReflection>> entry : map.entrySet()) {
+            List<Object> key = entry.getKey();
+            List<DataModelReflection> refs = entry.getValue();
+            List<T> resolved = new ArrayList<>(refs.size());
+            List<Object> sortKeys = new ArrayList<>(refs.size());
+            for (DataModelReflection ref : refs) {
+                resolved.add(definition.toObject(ref));
+                sortKeys.add(ref.getValue(sortKey));
+            }
+            results.put(key, resolved);
+            groups.put(key, new BasicSortedGroup<>(resolved, sortKeys, definition::resolveRawValue));
+        }
+        return new MapSortedGroupView<>(definition, grouping, results, groups);
+    }
+
     private Map<List<Object>, List<DataModelReflection>> asRefMap() {
         Map<List<Object>, List<DataModelReflection>> results = new LinkedHashMap<>();
         try (DataModelSource source = factory.createSource(definition, context)) {
@@ -188,40 +218,52 @@ public class BasicGroupLoader<T> implements GroupLoader<T> {
             return entity.getOrDefault(key, Collections.emptyList());
         }
 
-        private List<Object> toKey(Object[] elements) {
-            if (elements.length != types.length) {
+        @Override
+        public GroupView.Cursor<T> newCursor() {
+            return new MapCursor();
+        }
+
+        List<Object> toKey(Object[] elements) {
+            checkArity(elements.length);
+            List<Object> key = new ArrayList<>(elements.length);
+            for (int i = 0; i < elements.length; i++) {
+                key.add(resolve(i, elements[i]));
+            }
+            return key;
+        }
+
+        void checkArity(int arity) {
+            if (arity != types.length) {
                 throw new IllegalArgumentException(MessageFormat.format(
                         "invalid number of key elements: must be ''find({0})''",
                         Arrays.stream(types)
                             .map(it -> nameOf(it))
                             .collect(Collectors.joining(", "))));
             }
-            List<Object> key = new ArrayList<>(elements.length);
-            for (int i = 0; i < elements.length; i++) {
-                Object value;
-                Object input = elements[i];
-                try {
-                    value = definition.resolveRawValue(input);
-                } catch (IllegalArgumentException e) {
-                    throw invalidType(i, input, e);
-                }
-                if (input != null && types[i].getImplementation().isPresent()) {
-                    Class<?> expect = types[i].getImplementation().get();
-                    Class<?> actual = input.getClass();
-                    if (expect.isAssignableFrom(actual) == false) {
-                        throw invalidType(i, input, null);
-                    }
+        }
+
+        Object resolve(int index, Object input) {
+            Object value;
+            try {
+                value = definition.resolveRawValue(input);
+            } catch (IllegalArgumentException e) {
+                throw invalidType(index, input, e);
+            }
+            if (input != null && types[index].getImplementation().isPresent()) {
+                Class<?> expect = types[index].getImplementation().get();
+                Class<?> actual = input.getClass();
+                if (expect.isAssignableFrom(actual) == false) {
+                    throw invalidType(index, input, null);
                 }
-                if (value != null) {
-                    Class<?> expect = types[i].getRepresentation();
-                    Class<?> actual = value.getClass();
-                    if (expect.isAssignableFrom(actual) == false) {
-                        throw invalidType(i, input, null);
-                    }
+            }
+            if (value != null) {
+                Class<?> expect = types[index].getRepresentation();
+                Class<?> actual = value.getClass();
+                if (expect.isAssignableFrom(actual) == false) {
+                    throw invalidType(index, input, null);
                 }
-                key.add(value);
             }
-            return key;
+            return value;
         }
 
         private IllegalArgumentException invalidType(int index, Object value, Exception cause) {
@@ -240,5 +282,177 @@ public class BasicGroupLoader<T> implements GroupLoader<T> {
                     .map(Class::getSimpleName)
                     .orElseGet(() -> type.name());
         }
+
+        /**
+         * A {@link GroupView.Cursor} which reuses its lookup key.
+         */
+        private final class MapCursor implements GroupView.Cursor<T> {
+
+            private final List<Object> key = new ArrayList<>(types.length);
+
+            private List<T> group = Collections.emptyList();
+
+            private int index;
+
+            MapCursor() {
+                return;
+            }
+
+            @Override
+            public GroupView.Cursor<T> find() {
+                checkArity(0);
+                key.clear();
+                return bind();
+            }
+
+            @Override
+            public GroupView.Cursor<T> find(Object k) {
+                checkArity(1);
+                key.clear();
+                key.add(resolve(0, k));
+                return bind();
+            }
+
+            @Override
+            public GroupView.Cursor<T> find(Object a, Object b) {
+                checkArity(2);
+                key.clear();
+                key.add(resolve(0, a));
+                key.add(resolve(1, b));
+                return bind();
+            }
+
+            @Override
+            public GroupView.Cursor<T> find(Object a, Object b, Object c) {
+                checkArity(3);
+                key.clear();
+                key.add(resolve(0, a));
+                key.add(resolve(1, b));
+                key.add(resolve(2, c));
+                return bind();
+            }
+
+            @Override
+            public GroupView.Cursor<T> find(Object a, Object b, Object c, Object d) {
+                checkArity(4);
+                key.clear();
+                key.add(resolve(0, a));
+                key.add(resolve(1, b));
+                key.add(resolve(2, c));
+                key.add(resolve(3, d));
+                return bind();
+            }
+
+            @Override
+            public GroupView.Cursor<T> find(Object... elements) {
+                checkArity(elements.length);
+                key.clear();
+                for (int i = 0; i < elements.length; i++) {
+                    key.add(resolve(i, elements[i]));
+                }
+                return bind();
+            }
+
+            private GroupView.Cursor<T> bind() {
+                group = entity.getOrDefault(key, Collections.emptyList());
+                index = -1;
+                return this;
+            }
+
+            @Override
+            public int size() {
+                return group.size();
+            }
+
+            @Override
+            public boolean next() {
+                if (index + 1 < group.size()) {
+                    index++;
+                    return true;
+                }
+                index = group.size();
+                return false;
+            }
+
+            @Override
+            public T get() {
+                if (index < 0 || index >= group.size()) {
+                    throw new NoSuchElementException();
+                }
+                return group.get(index);
+            }
+        }
+    }
+
+    private static class MapSortedGroupView<T> extends MapGroupView<T> implements SortedGroupView<T> {
+
+        private final Map<List<Object>, SortedGroupView.Group<T>> groups;
+
+        // reuses the lookup key for fixed-arity queries
+        private final List<Object> lookup = new ArrayList<>();
+
+        MapSortedGroupView(
+                DataModelDefinition<T> definition,
+                List<PropertyName> names,
+                Map<List<Object>, List<T>> entity,
+                Map<List<Object>, SortedGroupView.Group<T>> groups) {
+            super(definition, names, entity);
+            this.groups = groups;
+        }
+
+        @Override
+        public synchronized SortedGroupView.Group<T> group() {
+            checkArity(0);
+            lookup.clear();
+            return lookup();
+        }
+
+        @Override
+        public synchronized SortedGroupView.Group<T> group(Object key) {
+            checkArity(1);
+            lookup.clear();
+            lookup.add(resolve(0, key));
+            return lookup();
+        }
+
+        @Override
+        public synchronized SortedGroupView.Group<T> group(Object a, Object b) {
+            checkArity(2);
+            lookup.clear();
+            lookup.add(resolve(0, a));
+            lookup.add(resolve(1, b));
+            return lookup();
+        }
+
+        @Override
+        public synchronized SortedGroupView.Group<T> group(Object a, Object b, Object c) {
+            checkArity(3);
+            lookup.clear();
+            lookup.add(resolve(0, a));
+            lookup.add(resolve(1, b));
+            lookup.add(resolve(2, c));
+            return lookup();
+        }
+
+        @Override
+        public synchronized SortedGroupView.Group<T> group(Object a, Object b, Object c, Object d) {
+            checkArity(4);
+            lookup.clear();
+            lookup.add(resolve(0, a));
+            lookup.add(resolve(1, b));
+            lookup.add(resolve(2, c));
+            lookup.add(resolve(3, d));
+            return lookup();
+        }
+
+        @Override
+        public SortedGroupView.Group<T> group(Object... elements) {
+            List<Object> key = toKey(elements);
+            return groups.getOrDefault(key, BasicSortedGroup.empty());
+        }
+
+        private SortedGroupView.Group<T> lookup() {
+            return groups.getOrDefault(lookup, BasicSortedGroup.empty());
+        }
     }
 }
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdriver.loader;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.asakusafw.runtime.core.BasicSortedGroup;
+import com.asakusafw.runtime.core.GroupView;
+import com.asakusafw.runtime.core.SortedGroupView;
+
+/**
+ * A {@link SortedGroupView} which sorts copies of the groups in a {@link GroupView}.
+ * @param <T> the data type
+ * @since 0.10.5
+ */
+class DerivedSortedGroupView<T> implements SortedGroupView<T> {
+
+    private static final Comparator<Object> KEY_COMPARATOR = DerivedSortedGroupView::compare;
+
+    private final GroupView<T> view;
+
+    private final Function<? super T, ?> sortKey;
+
+    // the groups of the original view are identified by their list object
+    private final Map<List<T>, SortedGroupView.Group<T>> groups = new IdentityHashMap<>();
+
+    DerivedSortedGroupView(GroupView<T> view, Function<? super T, ?> sortKey) {
+        this.view = view;
+        this.sortKey = sortKey;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return view.iterator();
+    }
+
+    @Override
+    public SortedGroupView.Group<T> group() {
+        return sort(view.find());
+    }
+
+    @Override
+    public SortedGroupView.Group<T> group(Object key) {
+        return sort(view.find(key));
+    }
+
+    @Override
+    public SortedGroupView.Group<T> group(Object a, Object b) {
+        return sort(view.find(a, b));
+    }
+
+    @Override
+    public SortedGroupView.Group<T> group(Object a, Object b, Object c) {
+        return sort(view.find(a, b, c));
+    }
+
+    @Override
+    public SortedGroupView.Group<T> group(Object a, Object b, Object c, Object d) {
+        return sort(view.find(a, b, c, d));
+    }
+
+    @Override
+    public SortedGroupView.Group<T> group(Object... elements) {
+        return sort(view.find(elements));
+    }
+
+    private synchronized SortedGroupView.Group<T> sort(List<T> group) {
+        if (group.isEmpty()) {
+            return BasicSortedGroup.empty();
+        }
+        return groups.computeIfAbsent(group, k -> {
+            List<T> elements = new ArrayList<>(k);
+            elements.sort(Comparator.comparing(sortKey, KEY_COMPARATOR));
+            List<Object> keys = new ArrayList<>(elements.size());
+            for (T element : elements) {
+                keys.add(sortKey.apply(element));
+            }
+            return new BasicSortedGroup<>(elements, keys, Function.identity());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object a, Object b) {
+        if (a == null) {
+            return b == null ? 0 : -1;
+        } else if (b == null) {
+            return +1;
+        }
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+}
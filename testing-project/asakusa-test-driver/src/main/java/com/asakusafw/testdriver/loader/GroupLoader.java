@@ -16,14 +16,17 @@
 package com.asakusafw.testdriver.loader;
 
 import java.util.Comparator;
+import java.util.function.Function;
 
 import com.asakusafw.runtime.core.GroupView;
+import com.asakusafw.runtime.core.SortedGroupView;
 import com.asakusafw.vocabulary.model.Key;
 
 /**
  * Loads a dataset and organize a set of groups for operator inputs.
  * @param <T> the data type
  * @since 0.9.1
+ * @version 0.10.5
  */
 public interface GroupLoader<T> {
 
@@ -50,4 +53,33 @@ public interface GroupLoader<T> {
      * @return the organized list
      */
     GroupView<T> asView();
+
+    /**
+     * Returns the loaded data as a sorted group view.
+     * The sort order must be configured by {@link #order(String...)}, and its first term must be ascendant.
+     * <p>
+     * The default implementation does not know the sort key, and always throws {@link IllegalStateException}.
+     * Use {@link #asSortedView(Function)} for such loaders.
+     * </p>
+     * @return the organized view
+     * @throws IllegalStateException if the sort key is not configured
+     * @since 0.10.5
+     */
+    default SortedGroupView<T> asSortedView() {
+        throw new IllegalStateException("sorted view requires the sort key"); //$NON-NLS-1$
+    }
+
+    /**
+     * Returns the loaded data as a sorted group view with the given sort key.
+     * <p>
+     * The default implementation sorts a copy of each group of {@link #asView()} by the sort key,
+     * when the group is looked up at first.
+     * </p>
+     * @param sortKey extracts the sort key from each element, which must be {@link Comparable} or {@code null}
+     * @return the organized view
+     * @since 0.10.5
+     */
+    default SortedGroupView<T> asSortedView(Function<? super T, ?> sortKey) {
+        return new DerivedSortedGroupView<>(asView(), sortKey);
+    }
 }
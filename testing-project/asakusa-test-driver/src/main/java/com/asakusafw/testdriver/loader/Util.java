@@ -127,6 +127,20 @@ final class Util {
         };
     }
 
+    static PropertyName toSortKey(DataModelDefinition<?> definition, String... terms) {
+        if (terms.length == 0) {
+            throw new IllegalStateException("sorted view requires the sort key"); //$NON-NLS-1$
+        }
+        Ordering order = parseOrder(terms[0]);
+        checkProperty(definition, order.propertyName);
+        if (order.direction != Direction.ASCENDANT) {
+            throw new IllegalStateException(MessageFormat.format(
+                    "sort key of sorted view must be ascendant: {0}",
+                    terms[0]));
+        }
+        return order.propertyName;
+    }
+
     static Ordering parseOrder(String expression) {
         Matcher matcher = PATTERN_ORDER.matcher(expression);
         if (matcher.matches() == false) {
@@ -0,0 +1,321 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdriver.tools.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * A report of batch application benchmark.
+ * <p>
+ * The report consists of the measured runs and their summary, which holds the median of each metric.
+ * Reports can be stored as JSON, and compared with a baseline report
+ * by using {@link #compare(BenchmarkReport, double)}.
+ * </p>
+ * @since 0.10.5
+ */
+public class BenchmarkReport {
+
+    @JsonProperty("batchId")
+    private final String batchId;
+
+    @JsonProperty("warmup")
+    private final int warmup;
+
+    @JsonProperty("runs")
+    private final List<Run> runs;
+
+    @JsonProperty("summary")
+    private final Run summary;
+
+    /**
+     * Creates a new instance.
+     * @param batchId the target batch ID
+     * @param warmup the number of warm-up runs, which are not included in this report
+     * @param runs the measured runs
+     */
+    public BenchmarkReport(String batchId, int warmup, List<? extends Run> runs) {
+        this(batchId, warmup, runs, summarize(runs));
+    }
+
+    @JsonCreator
+    BenchmarkReport(
+            @JsonProperty("batchId") String batchId,
+            @JsonProperty("warmup") int warmup,
+            @JsonProperty("runs") List<? extends Run> runs,
+            @JsonProperty("summary") Run summary) {
+        Objects.requireNonNull(batchId);
+        Objects.requireNonNull(runs);
+        Objects.requireNonNull(summary);
+        this.batchId = batchId;
+        this.warmup = warmup;
+        this.runs = Collections.unmodifiableList(new ArrayList<>(runs));
+        this.summary = summary;
+    }
+
+    /**
+     * Loads a report from the given JSON file.
+     * @param file the source file
+     * @return the loaded report
+     * @throws IOException if failed to load the report
+     */
+    public static BenchmarkReport load(File file) throws IOException {
+        return new ObjectMapper().readValue(file, BenchmarkReport.class);
+    }
+
+    /**
+     * Stores this report into the given file as JSON.
+     * @param file the destination file
+     * @throws IOException if failed to store the report
+     */
+    public void store(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && parent.isDirectory() == false && parent.mkdirs() == false) {
+            throw new IOException(MessageFormat.format(
+                    Messages.getString("BenchmarkReport.errorFailedToCreateDirectory"), //$NON-NLS-1$
+                    parent));
+        }
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(file, this);
+    }
+
+    /**
+     * Returns the target batch ID.
+     * @return the batch ID
+     */
+    public String getBatchId() {
+        return batchId;
+    }
+
+    /**
+     * Returns the number of warm-up runs.
+     * @return the number of warm-up runs
+     */
+    public int getWarmup() {
+        return warmup;
+    }
+
+    /**
+     * Returns the measured runs.
+     * @return the measured runs
+     */
+    public List<Run> getRuns() {
+        return runs;
+    }
+
+    /**
+     * Returns the summary of the measured runs.
+     * Each metric in the summary is the median of the corresponding ones in individual runs.
+     * @return the summary
+     */
+    public Run getSummary() {
+        return summary;
+    }
+
+    /**
+     * Compares the elapsed time of this report with the baseline.
+     * The total elapsed time and the elapsed time of each stage are compared,
+     * and stages which do not appear in the both reports are just ignored.
+     * @param baseline the baseline report
+     * @param threshold the acceptable slowdown ratio (e.g. {@code 0.1} accepts up to 10% slower than the baseline)
+     * @return the detected regressions, or an empty list if there are no regressions
+     */
+    public List<Regression> compare(BenchmarkReport baseline, double threshold) {
+        Objects.requireNonNull(baseline);
+        List<Regression> results = new ArrayList<>();
+        Run base = baseline.getSummary();
+        checkRegression(Regression.TOTAL, base.getElapsed(), summary.getElapsed(), threshold)
+                .ifPresent(results::add);
+        Map<String, StageMetrics> current = new LinkedHashMap<>();
+        summary.getStages().forEach(it -> current.put(it.getId(), it));
+        for (StageMetrics stage : base.getStages()) {
+            StageMetrics target = current.get(stage.getId());
+            if (target != null) {
+                checkRegression(stage.getId(), stage.getElapsed(), target.getElapsed(), threshold)
+                        .ifPresent(results::add);
+            }
+        }
+        return results;
+    }
+
+    private static Optional<Regression> checkRegression(String id, long base, long current, double threshold) {
+        if (base <= 0) {
+            return Optional.empty();
+        }
+        double ratio = (double) current / base;
+        if (ratio > 1.0 + threshold) {
+            return Optional.of(new Regression(id, base, current));
+        }
+        return Optional.empty();
+    }
+
+    static Run summarize(List<? extends Run> runs) {
+        Objects.requireNonNull(runs);
+        Map<String, List<StageMetrics>> stages = new LinkedHashMap<>();
+        for (Run run : runs) {
+            for (StageMetrics stage : run.getStages()) {
+                stages.computeIfAbsent(stage.getId(), k -> new ArrayList<>()).add(stage);
+            }
+        }
+        List<StageMetrics> summaries = new ArrayList<>();
+        stages.forEach((id, list) -> summaries.add(new StageMetrics(
+                id,
+                median(list, StageMetrics::getElapsed),
+                median(list, StageMetrics::getGcTime),
+                median(list, StageMetrics::getInputRecords),
+                median(list, StageMetrics::getOutputRecords),
+                median(list, StageMetrics::getOutputBytes),
+                median(list, StageMetrics::getShuffleBytes))));
+        return new Run(median(runs, Run::getElapsed), summaries);
+    }
+
+    static <T> long median(List<? extends T> values, ToLongFunction<? super T> metric) {
+        if (values.isEmpty()) {
+            return StageMetrics.UNKNOWN;
+        }
+        long[] array = values.stream().mapToLong(metric).toArray();
+        Arrays.sort(array);
+        int mid = array.length / 2;
+        if (array.length % 2 == 1) {
+            return array[mid];
+        }
+        return (array[mid - 1] + array[mid]) / 2;
+    }
+
+    /**
+     * Represents a benchmark run.
+     * @since 0.10.5
+     */
+    public static class Run {
+
+        @JsonProperty("elapsed")
+        private final long elapsed;
+
+        @JsonProperty("stages")
+        private final List<StageMetrics> stages;
+
+        /**
+         * Creates a new instance.
+         * @param elapsed the elapsed time of the whole batch in milliseconds
+         * @param stages the metrics of individual stages in execution order
+         */
+        @JsonCreator
+        public Run(
+                @JsonProperty("elapsed") long elapsed,
+                @JsonProperty("stages") List<? extends StageMetrics> stages) {
+            this.elapsed = elapsed;
+            this.stages = stages == null
+                    ? Collections.emptyList()
+                    : Collections.unmodifiableList(new ArrayList<>(stages));
+        }
+
+        /**
+         * Returns the elapsed time of the whole batch.
+         * @return the elapsed time in milliseconds
+         */
+        public long getElapsed() {
+            return elapsed;
+        }
+
+        /**
+         * Returns the metrics of individual stages.
+         * @return the stage metrics in execution order
+         */
+        public List<StageMetrics> getStages() {
+            return stages;
+        }
+    }
+
+    /**
+     * Represents a performance regression.
+     * @since 0.10.5
+     */
+    public static class Regression {
+
+        /**
+         * The ID which represents the whole batch.
+         */
+        public static final String TOTAL = "(total)"; //$NON-NLS-1$
+
+        private final String id;
+
+        private final long baseline;
+
+        private final long current;
+
+        /**
+         * Creates a new instance.
+         * @param id the stage ID, or {@link #TOTAL}
+         * @param baseline the baseline elapsed time in milliseconds
+         * @param current the current elapsed time in milliseconds
+         */
+        public Regression(String id, long baseline, long current) {
+            this.id = id;
+            this.baseline = baseline;
+            this.current = current;
+        }
+
+        /**
+         * Returns the stage ID.
+         * @return the stage ID, or {@link #TOTAL} for the whole batch
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Returns the baseline elapsed time.
+         * @return the baseline elapsed time in milliseconds
+         */
+        public long getBaseline() {
+            return baseline;
+        }
+
+        /**
+         * Returns the current elapsed time.
+         * @return the current elapsed time in milliseconds
+         */
+        public long getCurrent() {
+            return current;
+        }
+
+        @Override
+        public String toString() {
+            return MessageFormat.format(
+                    "{0}: {1}ms -> {2}ms ({3,number,+0.0%;-0.0%})",
+                    id,
+                    String.valueOf(baseline),
+                    String.valueOf(current),
+                    (double) (current - baseline) / baseline);
+        }
+    }
+}
@@ -0,0 +1,559 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdriver.tools.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.asakusafw.testdriver.TestDriverContext;
+import com.asakusafw.testdriver.tools.runner.RunTask;
+import com.asakusafw.workflow.executor.TaskExecutor;
+import com.asakusafw.workflow.executor.TaskExecutors;
+import com.asakusafw.workflow.model.BatchInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The program entry point of Asakusa batch application benchmark.
+ * <p>
+ * This runs the target batch application repeatedly, records metrics of individual stages,
+ * and then emits them as a {@link BenchmarkReport}.
+ * If a baseline report is specified, this fails if the elapsed time of the batch or its stages exceeds
+ * the baseline by more than the regression threshold.
+ * </p>
+ * <p>
+ * Each run uses the same input data sets, so that the batch application must not modify its own inputs,
+ * or clients must restore them for each run via {@link #withSetup(Setup)}.
+ * </p>
+ * <p>
+ * Alternative task executors can be tried via {@link #withTaskExecutor(TaskExecutor)} (or {@code --executor}):
+ * storing the report of a run with the default executors and passing it as the baseline of a run with
+ * the alternative ones compares the per-stage overhead of them.
+ * </p>
+ * @since 0.10.5
+ */
+public final class BenchmarkRunner {
+
+    static final Logger LOG = LoggerFactory.getLogger(BenchmarkRunner.class);
+
+    /**
+     * The default number of measured runs.
+     */
+    public static final int DEFAULT_ITERATIONS = 3;
+
+    /**
+     * The default number of warm-up runs.
+     */
+    public static final int DEFAULT_WARMUP = 1;
+
+    /**
+     * The default regression threshold.
+     */
+    public static final double DEFAULT_THRESHOLD = 0.1;
+
+    static final Option OPT_BATCH_ID;
+    static final Option OPT_ARGUMENT;
+    static final Option OPT_PROPERTY;
+    static final Option OPT_ITERATIONS;
+    static final Option OPT_WARMUP;
+    static final Option OPT_OUTPUT;
+    static final Option OPT_BASELINE;
+    static final Option OPT_THRESHOLD;
+    static final Option OPT_EXECUTOR;
+
+    private static final Options OPTIONS;
+    static {
+        OPT_BATCH_ID = new Option("b", "batch", true, //$NON-NLS-1$ //$NON-NLS-2$
+                Messages.getString("BenchmarkRunner.optBatch")); //$NON-NLS-1$
+        OPT_BATCH_ID.setArgName("batch_id"); //$NON-NLS-1$
+        OPT_BATCH_ID.setRequired(true);
+
+        OPT_ARGUMENT = new Option("A", "argument", true, //$NON-NLS-1$ //$NON-NLS-2$
+                Messages.getString("BenchmarkRunner.optArgument")); //$NON-NLS-1$
+        OPT_ARGUMENT.setArgs(2);
+        OPT_ARGUMENT.setValueSeparator('=');
+        OPT_ARGUMENT.setArgName("name=value"); //$NON-NLS-1$
+        OPT_ARGUMENT.setRequired(false);
+
+        OPT_PROPERTY = new Option("D", "property", true, //$NON-NLS-1$ //$NON-NLS-2$
+                Messages.getString("BenchmarkRunner.optProperty")); //$NON-NLS-1$
+        OPT_PROPERTY.setArgs(2);
+        OPT_PROPERTY.setValueSeparator('=');
+        OPT_PROPERTY.setArgName("name=value"); //$NON-NLS-1$
+        OPT_PROPERTY.setRequired(false);
+
+        OPT_ITERATIONS = new Option("n", "iterations", true, //$NON-NLS-1$ //$NON-NLS-2$
+                Messages.getString("BenchmarkRunner.optIterations")); //$NON-NLS-1$
+        OPT_ITERATIONS.setArgName("count"); //$NON-NLS-1$
+        OPT_ITERATIONS.setRequired(false);
+
+        OPT_WARMUP = new Option("w", "warmup", true, //$NON-NLS-1$ //$NON-NLS-2$
+                Messages.getString("BenchmarkRunner.optWarmup")); //$NON-NLS-1$
+        OPT_WARMUP.setArgName("count"); //$NON-NLS-1$
+        OPT_WARMUP.setRequired(false);
+
+        OPT_OUTPUT = new Option("o", "output", true, //$NON-NLS-1$ //$NON-NLS-2$
+                Messages.getString("BenchmarkRunner.optOutput")); //$NON-NLS-1$
+        OPT_OUTPUT.setArgName("/path/to/report.json"); //$NON-NLS-1$
+        OPT_OUTPUT.setRequired(false);
+
+        OPT_BASELINE = new Option("B", "baseline", true, //$NON-NLS-1$ //$NON-NLS-2$
+                Messages.getString("BenchmarkRunner.optBaseline")); //$NON-NLS-1$
+        OPT_BASELINE.setArgName("/path/to/baseline.json"); //$NON-NLS-1$
+        OPT_BASELINE.setRequired(false);
+
+        OPT_THRESHOLD = new Option("t", "threshold", true, //$NON-NLS-1$ //$NON-NLS-2$
+                Messages.getString("BenchmarkRunner.optThreshold")); //$NON-NLS-1$
+        OPT_THRESHOLD.setArgName("ratio"); //$NON-NLS-1$
+        OPT_THRESHOLD.setRequired(false);
+
+        OPT_EXECUTOR = new Option("x", "executor", true, //$NON-NLS-1$ //$NON-NLS-2$
+                Messages.getString("BenchmarkRunner.optExecutor")); //$NON-NLS-1$
+        OPT_EXECUTOR.setArgName("class_name"); //$NON-NLS-1$
+        OPT_EXECUTOR.setRequired(false);
+
+        OPTIONS = new Options();
+        OPTIONS.addOption(OPT_BATCH_ID);
+        OPTIONS.addOption(OPT_ARGUMENT);
+        OPTIONS.addOption(OPT_PROPERTY);
+        OPTIONS.addOption(OPT_ITERATIONS);
+        OPTIONS.addOption(OPT_WARMUP);
+        OPTIONS.addOption(OPT_OUTPUT);
+        OPTIONS.addOption(OPT_BASELINE);
+        OPTIONS.addOption(OPT_THRESHOLD);
+        OPTIONS.addOption(OPT_EXECUTOR);
+    }
+
+    private final TestDriverContext context;
+
+    private final String batchId;
+
+    private int iterations = DEFAULT_ITERATIONS;
+
+    private int warmup = DEFAULT_WARMUP;
+
+    private File output;
+
+    private File baseline;
+
+    private double threshold = DEFAULT_THRESHOLD;
+
+    private final List<TaskExecutor> taskExecutors = new ArrayList<>();
+
+    private Setup setup = iteration -> {
+        return;
+    };
+
+    /**
+     * Creates a new instance.
+     * @param batchId the target batch ID
+     */
+    public BenchmarkRunner(String batchId) {
+        if (batchId == null) {
+            throw new IllegalArgumentException("batchId must not be null"); //$NON-NLS-1$
+        }
+        this.context = new TestDriverContext(BenchmarkRunner.class);
+        this.batchId = batchId;
+        // NOTE: We must use the system "batchapps" path instead of a temporary location
+        context.useSystemBatchApplicationsInstallationPath(true);
+    }
+
+    /**
+     * Sets the Asakusa Framework installation path.
+     * The default value is {@code $ASAKUSA_HOME}.
+     * @param path the framework installation path
+     * @return this
+     */
+    public BenchmarkRunner withFramework(File path) {
+        context.setFrameworkHomePath(path);
+        return this;
+    }
+
+    /**
+     * Sets the Asakusa batch applications installation path.
+     * The default value is {@code $ASAKUSA_HOME/batchapps}.
+     * @param path the batch applications installation path
+     * @return this
+     */
+    public BenchmarkRunner withApplications(File path) {
+        context.setBatchApplicationsInstallationPath(path);
+        return this;
+    }
+
+    /**
+     * Sets batch arguments for this runner.
+     * @param arguments the arguments name value map
+     * @return this
+     */
+    public BenchmarkRunner withArguments(Map<String, String> arguments) {
+        if (arguments != null) {
+            context.getBatchArgs().putAll(arguments);
+        }
+        return this;
+    }
+
+    /**
+     * Sets Hadoop properties for this runner.
+     * @param properties the properties key value map
+     * @return this
+     */
+    public BenchmarkRunner withProperties(Map<String, String> properties) {
+        if (properties != null) {
+            context.getExtraConfigurations().putAll(properties);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the number of measured runs.
+     * @param count the number of runs
+     * @return this
+     */
+    public BenchmarkRunner withIterations(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    Messages.getString("BenchmarkRunner.errorInvalidIterations"), //$NON-NLS-1$
+                    count));
+        }
+        this.iterations = count;
+        return this;
+    }
+
+    /**
+     * Sets the number of warm-up runs, which are not included in the report.
+     * @param count the number of runs
+     * @return this
+     */
+    public BenchmarkRunner withWarmup(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    Messages.getString("BenchmarkRunner.errorInvalidWarmup"), //$NON-NLS-1$
+                    count));
+        }
+        this.warmup = count;
+        return this;
+    }
+
+    /**
+     * Sets the report output path.
+     * @param file the report file, or {@code null} to just log the report
+     * @return this
+     */
+    public BenchmarkRunner withOutput(File file) {
+        this.output = file;
+        return this;
+    }
+
+    /**
+     * Sets the baseline report path.
+     * @param file the baseline report, or {@code null} to disable regression check
+     * @return this
+     */
+    public BenchmarkRunner withBaseline(File file) {
+        this.baseline = file;
+        return this;
+    }
+
+    /**
+     * Sets the regression threshold.
+     * @param ratio the acceptable slowdown ratio against the baseline (e.g. {@code 0.1} for 10%)
+     * @return this
+     */
+    public BenchmarkRunner withThreshold(double ratio) {
+        if (ratio < 0 || Double.isNaN(ratio)) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    Messages.getString("BenchmarkRunner.errorInvalidThreshold"), //$NON-NLS-1$
+                    ratio));
+        }
+        this.threshold = ratio;
+        return this;
+    }
+
+    /**
+     * Adds a task executor, which takes precedence over the default ones.
+     * @param executor the task executor
+     * @return this
+     */
+    public BenchmarkRunner withTaskExecutor(TaskExecutor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null"); //$NON-NLS-1$
+        }
+        taskExecutors.add(executor);
+        return this;
+    }
+
+    /**
+     * Sets the setup action, which is performed before each run (including warm-up runs).
+     * @param action the setup action
+     * @return this
+     */
+    public BenchmarkRunner withSetup(Setup action) {
+        this.setup = action == null ? iteration -> {
+            return;
+        } : action;
+        return this;
+    }
+
+    /**
+     * Runs the benchmark.
+     * @return the exit code
+     */
+    public int execute() {
+        try {
+            BenchmarkReport report = perform();
+            if (check(report) == false) {
+                return 1;
+            }
+        } catch (AssertionError | Exception e) {
+            LOG.error(MessageFormat.format(
+                    Messages.getString("BenchmarkRunner.errorFailedToExecute"), //$NON-NLS-1$
+                    batchId), e);
+            return 1;
+        } finally {
+            context.cleanUpTemporaryResources();
+        }
+        return 0;
+    }
+
+    /**
+     * Runs the benchmark and returns its report.
+     * Regression check is not performed in this method.
+     * @return the benchmark report
+     * @throws IOException if failed to run the benchmark
+     */
+    public BenchmarkReport perform() throws IOException {
+        BatchInfo script = loadScript();
+        Path workingDirectory = Files.createTempDirectory("asakusa-benchmark-"); //$NON-NLS-1$
+        try {
+            StageRecorder recorder = new StageRecorder(workingDirectory);
+            List<BenchmarkReport.Run> runs = new ArrayList<>();
+            for (int i = 0, n = warmup + iterations; i < n; i++) {
+                boolean measure = i >= warmup;
+                LOG.info(MessageFormat.format(
+                        Messages.getString(measure
+                                ? "BenchmarkRunner.infoStartRun" //$NON-NLS-1$
+                                : "BenchmarkRunner.infoStartWarmup"), //$NON-NLS-1$
+                        batchId,
+                        (measure ? i - warmup : i) + 1,
+                        measure ? iterations : warmup));
+                setup.prepare(i);
+                recorder.reset();
+                RunTask.Configuration configuration =
+                        new RunTask.Configuration(context, script, UUID.randomUUID().toString())
+                        .withTaskExecutors(taskExecutors)
+                        .withTaskExecutorDecorator(recorder::decorate);
+                long start = System.currentTimeMillis();
+                new RunTask(configuration).perform();
+                long elapsed = System.currentTimeMillis() - start;
+                LOG.info(MessageFormat.format(
+                        Messages.getString("BenchmarkRunner.infoFinishRun"), //$NON-NLS-1$
+                        batchId,
+                        elapsed));
+                if (measure) {
+                    runs.add(new BenchmarkReport.Run(elapsed, recorder.getStages()));
+                }
+            }
+            return new BenchmarkReport(batchId, warmup, runs);
+        } finally {
+            deleteQuietly(workingDirectory);
+        }
+    }
+
+    private boolean check(BenchmarkReport report) throws IOException {
+        if (output != null) {
+            report.store(output);
+            LOG.info(MessageFormat.format(
+                    Messages.getString("BenchmarkRunner.infoReport"), //$NON-NLS-1$
+                    output));
+        }
+        for (StageMetrics stage : report.getSummary().getStages()) {
+            LOG.info(MessageFormat.format(
+                    Messages.getString("BenchmarkRunner.infoStage"), //$NON-NLS-1$
+                    stage));
+        }
+        LOG.info(MessageFormat.format(
+                Messages.getString("BenchmarkRunner.infoSummary"), //$NON-NLS-1$
+                batchId,
+                report.getSummary().getElapsed()));
+        if (baseline == null) {
+            return true;
+        }
+        List<BenchmarkReport.Regression> regressions = report.compare(BenchmarkReport.load(baseline), threshold);
+        for (BenchmarkReport.Regression regression : regressions) {
+            LOG.error(MessageFormat.format(
+                    Messages.getString("BenchmarkRunner.errorRegression"), //$NON-NLS-1$
+                    regression,
+                    threshold));
+        }
+        return regressions.isEmpty();
+    }
+
+    private BatchInfo loadScript() {
+        File batchapp = new File(context.getBatchApplicationsInstallationPath(), batchId);
+        File scriptFile = new File(batchapp, TaskExecutors.LOCATION_APPLICATION_WORKFLOW_DEFINITION);
+        LOG.debug("loading workflow info: {}", scriptFile); //$NON-NLS-1$
+        try {
+            return new ObjectMapper().readValue(scriptFile, BatchInfo.class);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    Messages.getString("BenchmarkRunner.errorInvalidWorkflow"), //$NON-NLS-1$
+                    scriptFile), e);
+        }
+    }
+
+    private static void deleteQuietly(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            LOG.warn(MessageFormat.format(
+                    "failed to delete working directory: {0}", //$NON-NLS-1$
+                    directory), e);
+        }
+    }
+
+    /**
+     * Program entry.
+     * @param args program arguments
+     */
+    public static void main(String[] args) {
+        int exitCode = execute(args);
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * Program entry.
+     * @param args program arguments
+     * @return the exit code
+     */
+    public static int execute(String[] args) {
+        BenchmarkRunner runner;
+        try {
+            runner = parseArguments(args);
+        } catch (Exception e) {
+            HelpFormatter formatter = new HelpFormatter();
+            formatter.setWidth(Integer.MAX_VALUE);
+            formatter.printHelp(
+                    MessageFormat.format(
+                            "java -classpath ... {0}", //$NON-NLS-1$
+                            BenchmarkRunner.class.getName()),
+                    OPTIONS,
+                    true);
+            LOG.error(MessageFormat.format(
+                    Messages.getString("BenchmarkRunner.errorInvalidArgument"), //$NON-NLS-1$
+                    Arrays.toString(args)), e);
+            return 1;
+        }
+        return runner.execute();
+    }
+
+    static BenchmarkRunner parseArguments(String[] args) throws ParseException {
+        assert args != null;
+        CommandLineParser parser = new BasicParser();
+        CommandLine cmd = parser.parse(OPTIONS, args);
+
+        String batchId = cmd.getOptionValue(OPT_BATCH_ID.getOpt());
+        LOG.debug("Batch ID: {}", batchId); //$NON-NLS-1$
+
+        Properties arguments = cmd.getOptionProperties(OPT_ARGUMENT.getOpt());
+        LOG.debug("Batch arguments: {}", arguments); //$NON-NLS-1$
+
+        Properties properties = cmd.getOptionProperties(OPT_PROPERTY.getOpt());
+        LOG.debug("Extra properties: {}", properties); //$NON-NLS-1$
+
+        BenchmarkRunner runner = new BenchmarkRunner(batchId)
+                .withArguments(toMap(arguments))
+                .withProperties(toMap(properties));
+        if (cmd.hasOption(OPT_ITERATIONS.getOpt())) {
+            runner.withIterations(Integer.parseInt(cmd.getOptionValue(OPT_ITERATIONS.getOpt())));
+        }
+        if (cmd.hasOption(OPT_WARMUP.getOpt())) {
+            runner.withWarmup(Integer.parseInt(cmd.getOptionValue(OPT_WARMUP.getOpt())));
+        }
+        if (cmd.hasOption(OPT_OUTPUT.getOpt())) {
+            runner.withOutput(new File(cmd.getOptionValue(OPT_OUTPUT.getOpt())));
+        }
+        if (cmd.hasOption(OPT_BASELINE.getOpt())) {
+            runner.withBaseline(new File(cmd.getOptionValue(OPT_BASELINE.getOpt())));
+        }
+        if (cmd.hasOption(OPT_THRESHOLD.getOpt())) {
+            runner.withThreshold(Double.parseDouble(cmd.getOptionValue(OPT_THRESHOLD.getOpt())));
+        }
+        if (cmd.hasOption(OPT_EXECUTOR.getOpt())) {
+            runner.withTaskExecutor(newTaskExecutor(cmd.getOptionValue(OPT_EXECUTOR.getOpt())));
+        }
+        return runner;
+    }
+
+    private static TaskExecutor newTaskExecutor(String className) {
+        try {
+            Class<?> aClass = Class.forName(className, true, BenchmarkRunner.class.getClassLoader());
+            return aClass.asSubclass(TaskExecutor.class).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    Messages.getString("BenchmarkRunner.errorInvalidExecutor"), //$NON-NLS-1$
+                    className), e);
+        }
+    }
+
+    private static Map<String, String> toMap(Properties p) {
+        assert p != null;
+        Map<String, String> results = new TreeMap<>();
+        for (Map.Entry<Object, Object> entry : p.entrySet()) {
+            results.put((String) entry.getKey(), (String) entry.getValue());
+        }
+        return results;
+    }
+
+    /**
+     * An action which is performed before each benchmark run.
+     * @since 0.10.5
+     */
+    @FunctionalInterface
+    public interface Setup {
+
+        /**
+         * Prepares for the next run.
+         * @param iteration the 0-origin run number, including warm-up runs
+         * @throws IOException if failed to prepare
+         */
+        void prepare(int iteration) throws IOException;
+    }
+}
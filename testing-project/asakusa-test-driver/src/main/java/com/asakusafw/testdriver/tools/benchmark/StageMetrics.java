@@ -0,0 +1,159 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdriver.tools.benchmark;
+
+import java.text.MessageFormat;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Metrics of an individual stage (a task in jobflows) in a benchmark run.
+ * <p>
+ * Each metric value is {@code -1} if it is not available.
+ * </p>
+ * @since 0.10.5
+ */
+public class StageMetrics {
+
+    /**
+     * Represents that the metric value is not available.
+     */
+    public static final long UNKNOWN = -1L;
+
+    @JsonProperty("id")
+    private final String id;
+
+    @JsonProperty("elapsed")
+    private final long elapsed;
+
+    @JsonProperty("gcTime")
+    private final long gcTime;
+
+    @JsonProperty("inputRecords")
+    private final long inputRecords;
+
+    @JsonProperty("outputRecords")
+    private final long outputRecords;
+
+    @JsonProperty("outputBytes")
+    private final long outputBytes;
+
+    @JsonProperty("shuffleBytes")
+    private final long shuffleBytes;
+
+    /**
+     * Creates a new instance.
+     * @param id the stage ID
+     * @param elapsed the elapsed wall time in milliseconds
+     * @param gcTime the JVM-wide GC time in milliseconds (see {@link #getGcTime()})
+     * @param inputRecords the number of input records
+     * @param outputRecords the number of output records
+     * @param outputBytes the output size in bytes
+     * @param shuffleBytes the shuffle size in bytes
+     */
+    @JsonCreator
+    public StageMetrics(
+            @JsonProperty("id") String id,
+            @JsonProperty("elapsed") long elapsed,
+            @JsonProperty("gcTime") long gcTime,
+            @JsonProperty("inputRecords") long inputRecords,
+            @JsonProperty("outputRecords") long outputRecords,
+            @JsonProperty("outputBytes") long outputBytes,
+            @JsonProperty("shuffleBytes") long shuffleBytes) {
+        Objects.requireNonNull(id);
+        this.id = id;
+        this.elapsed = elapsed;
+        this.gcTime = gcTime;
+        this.inputRecords = inputRecords;
+        this.outputRecords = outputRecords;
+        this.outputBytes = outputBytes;
+        this.shuffleBytes = shuffleBytes;
+    }
+
+    /**
+     * Returns the stage ID.
+     * @return the stage ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the elapsed wall time.
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Returns the JVM-wide GC time while the stage was running.
+     * This is not scoped to the stage: it includes all collections of the harness JVM during the stage,
+     * including ones caused by other stages running concurrently, and the GC time reported by
+     * the Hadoop task counters.
+     * @return the GC time in milliseconds, or {@link #UNKNOWN}
+     */
+    public long getGcTime() {
+        return gcTime;
+    }
+
+    /**
+     * Returns the number of input records.
+     * @return the number of input records, or {@link #UNKNOWN}
+     */
+    public long getInputRecords() {
+        return inputRecords;
+    }
+
+    /**
+     * Returns the number of records written into Direct I/O outputs.
+     * @return the number of output records, or {@link #UNKNOWN}
+     */
+    public long getOutputRecords() {
+        return outputRecords;
+    }
+
+    /**
+     * Returns the size of data written into Direct I/O outputs.
+     * @return the output size in bytes, or {@link #UNKNOWN}
+     */
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    /**
+     * Returns the shuffle size.
+     * @return the shuffle size in bytes, or {@link #UNKNOWN}
+     */
+    public long getShuffleBytes() {
+        return shuffleBytes;
+    }
+
+    @Override
+    public String toString() {
+        return MessageFormat.format(
+                "Stage(id={0}, elapsed={1}ms, jvm-gc={2}ms, input={3}, output={4}, output-bytes={5}, shuffle={6})",
+                id,
+                String.valueOf(elapsed),
+                String.valueOf(gcTime),
+                String.valueOf(inputRecords),
+                String.valueOf(outputRecords),
+                String.valueOf(outputBytes),
+                String.valueOf(shuffleBytes));
+    }
+}
@@ -0,0 +1,281 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdriver.tools.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+import org.apache.hadoop.mapreduce.TaskCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.asakusafw.runtime.stage.StageConstants;
+import com.asakusafw.workflow.executor.TaskExecutionContext;
+import com.asakusafw.workflow.executor.TaskExecutor;
+import com.asakusafw.workflow.model.CommandTaskInfo;
+import com.asakusafw.workflow.model.HadoopTaskInfo;
+import com.asakusafw.workflow.model.TaskInfo;
+
+/**
+ * Records {@link StageMetrics} of tasks executed by the decorated {@link TaskExecutor}s.
+ * @since 0.10.5
+ */
+class StageRecorder {
+
+    static final Logger LOG = LoggerFactory.getLogger(StageRecorder.class);
+
+    static final String KEY_TASK_INPUT_RECORDS = counter(TaskCounter.MAP_INPUT_RECORDS);
+
+    static final String KEY_TASK_SHUFFLE_BYTES = counter(TaskCounter.REDUCE_SHUFFLE_BYTES);
+
+    static final String KEY_TASK_GC_TIME = counter(TaskCounter.GC_TIME_MILLIS);
+
+    // see com.asakusafw.runtime.stage.directio.Constants
+    static final String PREFIX_DIRECTIO_OUTPUT = "com.asakusafw.directio.output.port.Statistics/"; //$NON-NLS-1$
+
+    static final String SUFFIX_RECORDS = ".records"; //$NON-NLS-1$
+
+    static final String SUFFIX_BYTES = ".bytes"; //$NON-NLS-1$
+
+    private final Path workingDirectory;
+
+    private final List<StageMetrics> stages = new ArrayList<>();
+
+    private final Map<String, Integer> occurrences = new HashMap<>();
+
+    /**
+     * Creates a new instance.
+     * @param workingDirectory the working directory for temporary counter reports
+     */
+    StageRecorder(Path workingDirectory) {
+        this.workingDirectory = workingDirectory;
+    }
+
+    private static String counter(Enum<?> item) {
+        return item.getDeclaringClass().getName() + '/' + item.name();
+    }
+
+    /**
+     * Returns a task executor which records metrics of the tasks executed by the given one.
+     * @param executor the original task executor
+     * @return the decorated task executor
+     */
+    TaskExecutor decorate(TaskExecutor executor) {
+        return new TaskExecutor() {
+            @Override
+            public boolean isSupported(TaskExecutionContext context, TaskInfo task) {
+                return executor.isSupported(context, task);
+            }
+            @Override
+            public void execute(
+                    TaskExecutionContext context, TaskInfo task) throws InterruptedException, IOException {
+                record(executor, context, task);
+            }
+            @Override
+            public void release(TaskExecutionContext context) throws IOException {
+                executor.release(context);
+            }
+            @Override
+            public String toString() {
+                return executor.toString();
+            }
+        };
+    }
+
+    /**
+     * Returns the recorded stages since the last {@link #reset()}.
+     * @return the recorded stages in execution order
+     */
+    synchronized List<StageMetrics> getStages() {
+        return new ArrayList<>(stages);
+    }
+
+    /**
+     * Clears the recorded stages.
+     */
+    synchronized void reset() {
+        stages.clear();
+        occurrences.clear();
+    }
+
+    void record(
+            TaskExecutor executor,
+            TaskExecutionContext context, TaskInfo task) throws InterruptedException, IOException {
+        String id = newStageId(context, task);
+        Path report = Files.createTempFile(workingDirectory, "counters-", ".properties"); //$NON-NLS-1$ //$NON-NLS-2$
+        Files.delete(report);
+        try {
+            TaskExecutionContext decorated = new ContextWithCounterReport(context, report);
+            long gc0 = getGcTime();
+            long start = System.currentTimeMillis();
+            executor.execute(decorated, task);
+            long elapsed = System.currentTimeMillis() - start;
+            long gc = getGcTime() - gc0;
+            StageMetrics metrics = toMetrics(id, elapsed, gc, loadCounters(report));
+            LOG.debug("stage finished: {}", metrics); //$NON-NLS-1$
+            synchronized (this) {
+                stages.add(metrics);
+            }
+        } finally {
+            Files.deleteIfExists(report);
+        }
+    }
+
+    private synchronized String newStageId(TaskExecutionContext context, TaskInfo task) {
+        String base = String.format("%s/%s", context.getFlowId(), getLabel(task)); //$NON-NLS-1$
+        int count = occurrences.merge(base, 1, Integer::sum);
+        if (count == 1) {
+            return base;
+        }
+        return String.format("%s#%d", base, count); //$NON-NLS-1$
+    }
+
+    private static String getLabel(TaskInfo task) {
+        if (task instanceof HadoopTaskInfo) {
+            return ((HadoopTaskInfo) task).getClassName();
+        } else if (task instanceof CommandTaskInfo) {
+            CommandTaskInfo command = (CommandTaskInfo) task;
+            return String.format("%s:%s", command.getModuleName(), command.getCommand()); //$NON-NLS-1$
+        } else {
+            return String.format("%s:%s", task.getModuleName(), task.getClass().getSimpleName()); //$NON-NLS-1$
+        }
+    }
+
+    // JVM-wide: the collectors are shared by all stages running in this JVM
+    private static long getGcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long time = bean.getCollectionTime();
+            if (time > 0) {
+                total += time;
+            }
+        }
+        return total;
+    }
+
+    private static Optional<Map<String, Long>> loadCounters(Path file) {
+        if (Files.isRegularFile(file) == false) {
+            return Optional.empty();
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            LOG.warn(String.format("failed to load job counters: %s", file), e); //$NON-NLS-1$
+            return Optional.empty();
+        }
+        Map<String, Long> results = new LinkedHashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            try {
+                results.put(key, Long.parseLong(properties.getProperty(key)));
+            } catch (NumberFormatException e) {
+                LOG.debug("ignored invalid counter: {}={}", key, properties.getProperty(key)); //$NON-NLS-1$
+            }
+        }
+        return Optional.of(results);
+    }
+
+    static StageMetrics toMetrics(String id, long elapsed, long gcTime, Optional<Map<String, Long>> counters) {
+        if (counters.isPresent() == false) {
+            return new StageMetrics(id, elapsed, gcTime,
+                    StageMetrics.UNKNOWN, StageMetrics.UNKNOWN, StageMetrics.UNKNOWN, StageMetrics.UNKNOWN);
+        }
+        Map<String, Long> values = counters.get();
+        long outputRecords = 0;
+        long outputBytes = 0;
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            String key = entry.getKey();
+            if (key.startsWith(PREFIX_DIRECTIO_OUTPUT) == false) {
+                continue;
+            }
+            if (key.endsWith(SUFFIX_RECORDS)) {
+                outputRecords += entry.getValue();
+            } else if (key.endsWith(SUFFIX_BYTES)) {
+                outputBytes += entry.getValue();
+            }
+        }
+        return new StageMetrics(id, elapsed,
+                gcTime + values.getOrDefault(KEY_TASK_GC_TIME, 0L),
+                values.getOrDefault(KEY_TASK_INPUT_RECORDS, StageMetrics.UNKNOWN),
+                outputRecords,
+                outputBytes,
+                values.getOrDefault(KEY_TASK_SHUFFLE_BYTES, StageMetrics.UNKNOWN));
+    }
+
+    private static final class ContextWithCounterReport implements TaskExecutionContext {
+
+        private final TaskExecutionContext delegate;
+
+        private final Map<String, String> configurations;
+
+        ContextWithCounterReport(TaskExecutionContext delegate, Path report) {
+            this.delegate = delegate;
+            this.configurations = new LinkedHashMap<>(delegate.getConfigurations());
+            this.configurations.put(StageConstants.PROP_COUNTER_REPORT, report.toAbsolutePath().toString());
+        }
+
+        @Override
+        public ClassLoader getClassLoader() {
+            return delegate.getClassLoader();
+        }
+
+        @Override
+        public Map<String, String> getConfigurations() {
+            return configurations;
+        }
+
+        @Override
+        public Map<String, String> getEnvironmentVariables() {
+            return delegate.getEnvironmentVariables();
+        }
+
+        @Override
+        public <T> Optional<T> findResource(Class<T> type) {
+            return delegate.findResource(type);
+        }
+
+        @Override
+        public String getBatchId() {
+            return delegate.getBatchId();
+        }
+
+        @Override
+        public String getFlowId() {
+            return delegate.getFlowId();
+        }
+
+        @Override
+        public String getExecutionId() {
+            return delegate.getExecutionId();
+        }
+
+        @Override
+        public Map<String, String> getBatchArguments() {
+            return delegate.getBatchArguments();
+        }
+    }
+}
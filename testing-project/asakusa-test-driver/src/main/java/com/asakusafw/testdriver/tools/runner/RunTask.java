@@ -17,7 +17,10 @@ package com.asakusafw.testdriver.tools.runner;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,7 +44,7 @@ import com.asakusafw.workflow.model.JobflowInfo;
 /**
  * Runs an Asakusa batch application using test driver facilities.
  * @since 0.6.0
- * @version 0.10.0
+ * @version 0.10.5
  */
 public class RunTask {
 
@@ -66,11 +69,15 @@ public class RunTask {
         TestDriverContext context = configuration.context;
 
         List<TaskExecutor> taskExecutors = new ArrayList<>();
+        taskExecutors.addAll(configuration.taskExecutors);
         taskExecutors.addAll(TaskExecutors.loadDefaults(context.getClassLoader()));
         taskExecutors.add(new DefaultCommandTaskExecutor());
         taskExecutors.add(new DefaultHadoopTaskExecutor());
         taskExecutors.add(configuration.cleanUp ? new DefaultDeleteTaskExecutor() : new VoidDeleteTaskExecutor());
-        BatchExecutor executor = new BasicBatchExecutor(new BasicJobflowExecutor(taskExecutors), this::getExecutionId);
+        List<TaskExecutor> decorated = taskExecutors.stream()
+                .map(configuration.taskExecutorDecorator)
+                .collect(Collectors.toList());
+        BatchExecutor executor = new BasicBatchExecutor(new BasicJobflowExecutor(decorated), this::getExecutionId);
 
         ConfigurationFactory configurations = ConfigurationFactory.getDefault();
         TaskExecutionContext execContext = new TaskExecutorContextAdapter(context, configurations);
@@ -91,7 +98,7 @@ public class RunTask {
     /**
      * Represents a configuration for {@link RunTask}.
      * @since 0.6.0
-     * @version 0.10.0
+     * @version 0.10.5
      */
     public static final class Configuration {
 
@@ -103,6 +110,10 @@ public class RunTask {
 
         boolean cleanUp = true;
 
+        final List<TaskExecutor> taskExecutors = new ArrayList<>();
+
+        UnaryOperator<TaskExecutor> taskExecutorDecorator = UnaryOperator.identity();
+
         /**
          * Creates a new instance.
          * @param context the current test driver context
@@ -125,5 +136,29 @@ public class RunTask {
             this.cleanUp = enable;
             return this;
         }
+
+        /**
+         * Adds task executors, which take precedence over the default ones.
+         * @param executors the task executors
+         * @return this
+         * @since 0.10.5
+         */
+        public Configuration withTaskExecutors(Collection<? extends TaskExecutor> executors) {
+            if (executors != null) {
+                this.taskExecutors.addAll(executors);
+            }
+            return this;
+        }
+
+        /**
+         * Sets the decorator of individual task executors.
+         * @param decorator the decorator, which accepts a task executor and returns a task executor to be used
+         * @return this
+         * @since 0.10.5
+         */
+        public Configuration withTaskExecutorDecorator(UnaryOperator<TaskExecutor> decorator) {
+            this.taskExecutorDecorator = decorator == null ? UnaryOperator.identity() : decorator;
+            return this;
+        }
     }
 }
@@ -19,6 +19,7 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
@@ -26,6 +27,7 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import com.asakusafw.runtime.core.GroupView;
+import com.asakusafw.runtime.core.SortedGroupView;
 import com.asakusafw.runtime.core.View;
 import com.asakusafw.runtime.value.DecimalOption;
 import com.asakusafw.runtime.value.IntOption;
@@ -183,6 +185,144 @@ public class BasicDataLoaderTest {
                 new MockDataModel(2, "D")));
     }
 
+    /**
+     * group - lookup via cursor.
+     */
+    @Test
+    public void group_cursor() {
+        GroupView<MockDataModel> results = loader(
+                new MockDataModel(0, "A"),
+                new MockDataModel(1, "B"),
+                new MockDataModel(1, "C"),
+                new MockDataModel(2, "D"))
+            .group("key")
+            .asView();
+        GroupView.Cursor<MockDataModel> cursor = results.newCursor();
+        assertThat(collect(cursor.find(k(1))), containsInAnyOrder(
+                new MockDataModel(1, "B"),
+                new MockDataModel(1, "C")));
+        assertThat(cursor.size(), is(2));
+
+        IntOption key = new IntOption();
+        key.modify(2);
+        assertThat(collect(cursor.find(key)), contains(new MockDataModel(2, "D")));
+        key.modify(3);
+        assertThat(collect(cursor.find(key)), hasSize(0));
+        assertThat(collect(cursor.find(new Object[] { k(0) })), contains(new MockDataModel(0, "A")));
+
+        fail(() -> cursor.find());
+        fail(() -> cursor.find(k(0), k(1)));
+    }
+
+    /**
+     * group - sorted view.
+     */
+    @Test
+    public void group_sorted() {
+        SortedGroupView<MockDataModel> results = loader(
+                new MockDataModel(0, d(1), "A"),
+                new MockDataModel(0, d(3), "B"),
+                new MockDataModel(0, d(5), "C"),
+                new MockDataModel(1, d(2), "D"))
+            .group("key")
+            .order("+sort")
+            .asSortedView();
+        SortedGroupView.Group<MockDataModel> group = results.group(k(0));
+        assertThat(group.all(), contains(
+                new MockDataModel(0, d(1), "A"),
+                new MockDataModel(0, d(3), "B"),
+                new MockDataModel(0, d(5), "C")));
+        assertThat(group.floor(new DecimalOption(d(4))), is(new MockDataModel(0, d(3), "B")));
+        assertThat(group.floor(new DecimalOption(d(3))), is(new MockDataModel(0, d(3), "B")));
+        assertThat(group.floor(new DecimalOption(d(0))), is(nullValue()));
+        assertThat(group.ceiling(new DecimalOption(d(4))), is(new MockDataModel(0, d(5), "C")));
+        assertThat(group.ceiling(new DecimalOption(d(6))), is(nullValue()));
+        assertThat(group.range(new DecimalOption(d(1)), new DecimalOption(d(5))), contains(
+                new MockDataModel(0, d(1), "A"),
+                new MockDataModel(0, d(3), "B")));
+        assertThat(group.range(new DecimalOption(d(1)), false, null, false), contains(
+                new MockDataModel(0, d(3), "B"),
+                new MockDataModel(0, d(5), "C")));
+        assertThat(results.find(k(1)), contains(new MockDataModel(1, d(2), "D")));
+        assertThat(results.group(k(2)).all(), hasSize(0));
+        assertThat(results.group(k(2)).floor(new DecimalOption(d(0))), is(nullValue()));
+    }
+
+    /**
+     * group - sorted view with fixed-arity lookups.
+     */
+    @Test
+    public void group_sorted_arity() {
+        SortedGroupView<MockDataModel> results = loader(
+                new MockDataModel(0, d(1), "A"),
+                new MockDataModel(0, d(3), "B"),
+                new MockDataModel(1, d(2), "A"))
+            .group("key", "value")
+            .order("+sort")
+            .asSortedView();
+        assertThat(results.group(k(0), new StringOption("A")).all(), contains(new MockDataModel(0, d(1), "A")));
+        assertThat(results.group(k(1), new StringOption("A")).all(), contains(new MockDataModel(1, d(2), "A")));
+        assertThat(results.group(new Object[] { k(0), new StringOption("B") }).all(),
+                contains(new MockDataModel(0, d(3), "B")));
+        assertThat(results.group(k(1), new StringOption("B")).all(), hasSize(0));
+        fail(() -> results.group(k(0)));
+        fail(() -> results.group(k(0), new StringOption("A"), k(0)));
+    }
+
+    /**
+     * group - sorted view derived from the group view.
+     */
+    @Test
+    public void group_sorted_derived() {
+        GroupView<MockDataModel> view = loader(
+                new MockDataModel(0, d(5), "C"),
+                new MockDataModel(0, d(1), "A"),
+                new MockDataModel(0, d(3), "B"),
+                new MockDataModel(1, d(2), "D"))
+            .group("key")
+            .asView();
+        GroupLoader<MockDataModel> loader = new GroupLoader<MockDataModel>() {
+            @Override
+            public GroupLoader<MockDataModel> order(String... terms) {
+                throw new AssertionError();
+            }
+            @Override
+            public GroupLoader<MockDataModel> order(Comparator<? super MockDataModel> comparator) {
+                throw new AssertionError();
+            }
+            @Override
+            public GroupView<MockDataModel> asView() {
+                return view;
+            }
+        };
+        SortedGroupView<MockDataModel> results = loader.asSortedView(MockDataModel::getSortOption);
+        SortedGroupView.Group<MockDataModel> group = results.group(k(0));
+        assertThat(group.all(), contains(
+                new MockDataModel(0, d(1), "A"),
+                new MockDataModel(0, d(3), "B"),
+                new MockDataModel(0, d(5), "C")));
+        assertThat(results.group(k(0)), is(sameInstance(group)));
+        assertThat(group.floor(new DecimalOption(d(4))), is(new MockDataModel(0, d(3), "B")));
+        assertThat(group.ceiling(new DecimalOption(d(4))), is(new MockDataModel(0, d(5), "C")));
+        assertThat(group.range(new DecimalOption(d(1)), new DecimalOption(d(5))), contains(
+                new MockDataModel(0, d(1), "A"),
+                new MockDataModel(0, d(3), "B")));
+        assertThat(results.find(k(1)), contains(new MockDataModel(1, d(2), "D")));
+        assertThat(results.group(k(2)).all(), hasSize(0));
+        fail(() -> loader.asSortedView());
+    }
+
+    /**
+     * group - sorted view without ascendant sort key.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void group_sorted_invalid() {
+        loader(new MockDataModel(0, d(1), "A"))
+            .group("key")
+            .order("-sort")
+            .asSortedView();
+    }
+
     /**
      * group - order by property.
      */
@@ -312,6 +452,14 @@ public class BasicDataLoaderTest {
         return BigDecimal.valueOf(value);
     }
 
+    private static List<MockDataModel> collect(GroupView.Cursor<MockDataModel> cursor) {
+        List<MockDataModel> results = new ArrayList<>();
+        while (cursor.next()) {
+            results.add(cursor.get());
+        }
+        return results;
+    }
+
     private static IntOption k(int value) {
         return new IntOption(value);
     }
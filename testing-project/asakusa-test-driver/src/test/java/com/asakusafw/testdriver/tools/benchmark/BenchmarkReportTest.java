@@ -0,0 +1,124 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdriver.tools.benchmark;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test for {@link BenchmarkReport}.
+ */
+public class BenchmarkReportTest {
+
+    /**
+     * temporary folder.
+     */
+    @Rule
+    public final TemporaryFolder temporary = new TemporaryFolder();
+
+    /**
+     * summary of runs.
+     */
+    @Test
+    public void summary() {
+        BenchmarkReport report = new BenchmarkReport("b", 1, Arrays.asList(
+                run(100, stage("a", 10, 1), stage("b", 50, 5)),
+                run(300, stage("a", 30, 3), stage("b", 70, 7)),
+                run(200, stage("a", 20, 2), stage("b", 90, 9))));
+        BenchmarkReport.Run summary = report.getSummary();
+        assertThat(summary.getElapsed(), is(200L));
+        assertThat(summary.getStages(), hasSize(2));
+        assertThat(summary.getStages().get(0).getId(), is("a"));
+        assertThat(summary.getStages().get(0).getElapsed(), is(20L));
+        assertThat(summary.getStages().get(0).getInputRecords(), is(2L));
+        assertThat(summary.getStages().get(1).getId(), is("b"));
+        assertThat(summary.getStages().get(1).getElapsed(), is(70L));
+    }
+
+    /**
+     * median of even number of values.
+     */
+    @Test
+    public void median_even() {
+        assertThat(BenchmarkReport.median(Arrays.asList(4L, 1L, 3L, 2L), Long::longValue), is(2L));
+        assertThat(BenchmarkReport.median(Collections.<Long>emptyList(), Long::longValue),
+                is(StageMetrics.UNKNOWN));
+    }
+
+    /**
+     * store and load.
+     * @throws Exception if failed
+     */
+    @Test
+    public void store_load() throws Exception {
+        BenchmarkReport report = new BenchmarkReport("b", 2, Arrays.asList(
+                run(100, stage("a", 10, 1)),
+                run(120, stage("a", 12, 1))));
+        File file = new File(temporary.getRoot(), "report/benchmark.json");
+        report.store(file);
+        assertThat(file.isFile(), is(true));
+
+        BenchmarkReport restored = BenchmarkReport.load(file);
+        assertThat(restored.getBatchId(), is("b"));
+        assertThat(restored.getWarmup(), is(2));
+        assertThat(restored.getRuns(), hasSize(2));
+        assertThat(restored.getSummary().getElapsed(), is(110L));
+        StageMetrics stage = restored.getRuns().get(1).getStages().get(0);
+        assertThat(stage.getId(), is("a"));
+        assertThat(stage.getElapsed(), is(12L));
+        assertThat(stage.getGcTime(), is(0L));
+        assertThat(stage.getInputRecords(), is(1L));
+        assertThat(stage.getOutputRecords(), is(StageMetrics.UNKNOWN));
+    }
+
+    /**
+     * compare with baseline.
+     */
+    @Test
+    public void compare() {
+        BenchmarkReport baseline = new BenchmarkReport("b", 0, Arrays.asList(
+                run(100, stage("a", 50, 1), stage("b", 50, 1), stage("c", 50, 1))));
+        BenchmarkReport current = new BenchmarkReport("b", 0, Arrays.asList(
+                run(105, stage("a", 40, 1), stage("b", 54, 1), stage("d", 100, 1))));
+
+        assertThat(current.compare(baseline, 0.1), hasSize(0));
+
+        List<BenchmarkReport.Regression> regressions = current.compare(baseline, 0.01);
+        assertThat(regressions, hasSize(2));
+        assertThat(regressions.get(0).getId(), is(BenchmarkReport.Regression.TOTAL));
+        assertThat(regressions.get(1).getId(), is("b"));
+        assertThat(regressions.get(1).getBaseline(), is(50L));
+        assertThat(regressions.get(1).getCurrent(), is(54L));
+    }
+
+    private static BenchmarkReport.Run run(long elapsed, StageMetrics... stages) {
+        return new BenchmarkReport.Run(elapsed, Arrays.asList(stages));
+    }
+
+    private static StageMetrics stage(String id, long elapsed, long records) {
+        return new StageMetrics(id, elapsed, 0, records,
+                StageMetrics.UNKNOWN, StageMetrics.UNKNOWN, StageMetrics.UNKNOWN);
+    }
+}
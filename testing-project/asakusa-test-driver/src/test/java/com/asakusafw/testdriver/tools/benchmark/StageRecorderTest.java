@@ -0,0 +1,224 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdriver.tools.benchmark;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.asakusafw.runtime.stage.StageConstants;
+import com.asakusafw.workflow.executor.TaskExecutionContext;
+import com.asakusafw.workflow.executor.TaskExecutor;
+import com.asakusafw.workflow.model.TaskInfo;
+import com.asakusafw.workflow.model.basic.BasicHadoopTaskInfo;
+
+/**
+ * Test for {@link StageRecorder}.
+ */
+public class StageRecorderTest {
+
+    /**
+     * temporary folder.
+     */
+    @Rule
+    public final TemporaryFolder temporary = new TemporaryFolder();
+
+    /**
+     * records counters reported by tasks.
+     * @throws Exception if failed
+     */
+    @Test
+    public void counters() throws Exception {
+        StageRecorder recorder = new StageRecorder(temporary.getRoot().toPath());
+        TaskExecutor executor = recorder.decorate(new MockExecutor(conf -> {
+            Properties properties = new Properties();
+            properties.setProperty(StageRecorder.KEY_TASK_INPUT_RECORDS, "100");
+            properties.setProperty(StageRecorder.KEY_TASK_SHUFFLE_BYTES, "2000");
+            properties.setProperty(StageRecorder.KEY_TASK_GC_TIME, "0");
+            properties.setProperty(StageRecorder.PREFIX_DIRECTIO_OUTPUT + "a.records", "10");
+            properties.setProperty(StageRecorder.PREFIX_DIRECTIO_OUTPUT + "a.bytes", "300");
+            properties.setProperty(StageRecorder.PREFIX_DIRECTIO_OUTPUT + "b.records", "20");
+            properties.setProperty(StageRecorder.PREFIX_DIRECTIO_OUTPUT + "b.bytes", "400");
+            Path path = Paths.get(conf.get(StageConstants.PROP_COUNTER_REPORT));
+            try (OutputStream out = Files.newOutputStream(path)) {
+                properties.store(out, null);
+            }
+        }));
+        TaskInfo task = new BasicHadoopTaskInfo("com.example.Stage");
+        executor.execute(new MockContext("f"), task);
+
+        List<StageMetrics> stages = recorder.getStages();
+        assertThat(stages, hasSize(1));
+        StageMetrics stage = stages.get(0);
+        assertThat(stage.getId(), is("f/com.example.Stage"));
+        assertThat(stage.getInputRecords(), is(100L));
+        assertThat(stage.getShuffleBytes(), is(2000L));
+        assertThat(stage.getOutputRecords(), is(30L));
+        assertThat(stage.getOutputBytes(), is(700L));
+        assertThat(stage.getGcTime(), greaterThanOrEqualTo(0L));
+        assertThat(temporary.getRoot().list(), is(new String[0]));
+    }
+
+    /**
+     * tasks without counters.
+     * @throws Exception if failed
+     */
+    @Test
+    public void no_counters() throws Exception {
+        StageRecorder recorder = new StageRecorder(temporary.getRoot().toPath());
+        TaskExecutor executor = recorder.decorate(new MockExecutor(conf -> {
+            return;
+        }));
+        TaskInfo task = new BasicHadoopTaskInfo("com.example.Stage");
+        executor.execute(new MockContext("f"), task);
+        executor.execute(new MockContext("f"), task);
+        executor.execute(new MockContext("g"), task);
+
+        List<StageMetrics> stages = recorder.getStages();
+        assertThat(stages, hasSize(3));
+        assertThat(stages.get(0).getId(), is("f/com.example.Stage"));
+        assertThat(stages.get(1).getId(), is("f/com.example.Stage#2"));
+        assertThat(stages.get(2).getId(), is("g/com.example.Stage"));
+        assertThat(stages.get(0).getInputRecords(), is(StageMetrics.UNKNOWN));
+
+        recorder.reset();
+        assertThat(recorder.getStages(), hasSize(0));
+    }
+
+    /**
+     * decorated executors are released.
+     * @throws Exception if failed
+     */
+    @Test
+    public void release() throws Exception {
+        StageRecorder recorder = new StageRecorder(temporary.getRoot().toPath());
+        MockExecutor mock = new MockExecutor(conf -> {
+            return;
+        });
+        TaskExecutor executor = recorder.decorate(mock);
+        executor.release(new MockContext("f"));
+        assertThat(mock.released, is(1));
+    }
+
+    /**
+     * metrics from counters.
+     */
+    @Test
+    public void toMetrics() {
+        StageMetrics metrics = StageRecorder.toMetrics("a", 10, 1, Optional.of(Collections.singletonMap(
+                StageRecorder.KEY_TASK_GC_TIME, 5L)));
+        assertThat(metrics.getGcTime(), is(6L));
+        assertThat(metrics.getInputRecords(), is(StageMetrics.UNKNOWN));
+        assertThat(metrics.getOutputRecords(), is(0L));
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        void perform(Map<String, String> configurations) throws Exception;
+    }
+
+    private static final class MockExecutor implements TaskExecutor {
+
+        private final Action action;
+
+        int released;
+
+        MockExecutor(Action action) {
+            this.action = action;
+        }
+
+        @Override
+        public boolean isSupported(TaskExecutionContext context, TaskInfo task) {
+            return true;
+        }
+
+        @Override
+        public void execute(TaskExecutionContext context, TaskInfo task) {
+            try {
+                action.perform(context.getConfigurations());
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        @Override
+        public void release(TaskExecutionContext context) {
+            released++;
+        }
+    }
+
+    private static final class MockContext implements TaskExecutionContext {
+
+        private final String flowId;
+
+        MockContext(String flowId) {
+            this.flowId = flowId;
+        }
+
+        @Override
+        public ClassLoader getClassLoader() {
+            return getClass().getClassLoader();
+        }
+
+        @Override
+        public Map<String, String> getConfigurations() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, String> getEnvironmentVariables() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public <T> Optional<T> findResource(Class<T> type) {
+            return Optional.empty();
+        }
+
+        @Override
+        public String getBatchId() {
+            return "b";
+        }
+
+        @Override
+        public String getFlowId() {
+            return flowId;
+        }
+
+        @Override
+        public String getExecutionId() {
+            return "e";
+        }
+
+        @Override
+        public Map<String, String> getBatchArguments() {
+            return Collections.emptyMap();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdriver.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link DataModelSourceProvider} which caches the parsed data model objects in the current JVM.
+ * <p>
+ * This only caches contents of local files (includes entries in local JAR files), and each cache entry is
+ * keyed by its source URI, the target data model class, and the last modified time of the source file.
+ * </p>
+ * @since 0.10.5
+ */
+public class CachedDataModelSourceProvider implements DataModelSourceProvider {
+
+    static final Logger LOG = LoggerFactory.getLogger(CachedDataModelSourceProvider.class);
+
+    /**
+     * The system property key of whether or not the data model source cache is enabled.
+     */
+    public static final String KEY_ENABLED = "asakusa.testdriver.source.cache"; //$NON-NLS-1$
+
+    /**
+     * The system property key of the max number of data model objects in the cache.
+     */
+    public static final String KEY_LIMIT = "asakusa.testdriver.source.cache.limit"; //$NON-NLS-1$
+
+    /**
+     * The default value of {@link #KEY_LIMIT}.
+     */
+    public static final int DEFAULT_LIMIT = 100_000;
+
+    private static final String SCHEME_FILE = "file"; //$NON-NLS-1$
+
+    private static final String SCHEME_JAR = "jar"; //$NON-NLS-1$
+
+    private static final Cache SHARED = new Cache(getLimit());
+
+    private final DataModelSourceProvider delegate;
+
+    private final Cache cache;
+
+    /**
+     * Creates a new instance which uses the JVM global cache.
+     * @param delegate the source provider which actually parses the data model objects
+     * @throws IllegalArgumentException if some parameters were {@code null}
+     */
+    public CachedDataModelSourceProvider(DataModelSourceProvider delegate) {
+        this(delegate, Boolean.parseBoolean(System.getProperty(KEY_ENABLED, String.valueOf(true))) ? SHARED : null);
+    }
+
+    CachedDataModelSourceProvider(DataModelSourceProvider delegate, Cache cache) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate must not be null"); //$NON-NLS-1$
+        }
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    private static int getLimit() {
+        String value = System.getProperty(KEY_LIMIT);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                LOG.warn(MessageFormat.format(
+                        Messages.getString("CachedDataModelSourceProvider.warnInvalidLimit"), //$NON-NLS-1$
+                        KEY_LIMIT,
+                        value), e);
+            }
+        }
+        return DEFAULT_LIMIT;
+    }
+
+    @Override
+    public <T> DataModelSource open(
+            DataModelDefinition<T> definition,
+            URI source,
+            TestContext context) throws IOException {
+        if (cache == null) {
+            return delegate.open(definition, source, context);
+        }
+        long timestamp = getLastModified(source);
+        if (timestamp <= 0L) {
+            return delegate.open(definition, source, context);
+        }
+        Key key = new Key(source, definition.getModelClass(), timestamp);
+        List<DataModelReflection> cached = cache.get(key);
+        if (cached != null) {
+            LOG.debug("reusing cached data model objects: {}", source); //$NON-NLS-1$
+            return new IteratorDataModelSource(cached.iterator());
+        }
+        DataModelSource found = delegate.open(definition, source, context);
+        if (found == null) {
+            return null;
+        }
+        return new Loader(found, key, cache);
+    }
+
+    static long getLastModified(URI uri) {
+        try {
+            String scheme = uri.getScheme();
+            if (SCHEME_FILE.equals(scheme)) {
+                return new File(new URI(scheme, uri.getSchemeSpecificPart(), null)).lastModified();
+            } else if (SCHEME_JAR.equals(scheme)) {
+                URLConnection connection = new URL(uri.getScheme() + ':' + uri.getSchemeSpecificPart())
+                        .openConnection();
+                if (connection instanceof JarURLConnection) {
+                    URL jar = ((JarURLConnection) connection).getJarFileURL();
+                    if (SCHEME_FILE.equals(jar.getProtocol())) {
+                        return new File(jar.toURI()).lastModified();
+                    }
+                }
+            }
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            LOG.debug("failed to detect last modified time: {}", uri, e); //$NON-NLS-1$
+        }
+        return 0L;
+    }
+
+    private static final class Loader implements DataModelSource {
+
+        private final DataModelSource source;
+
+        private final Key key;
+
+        private final Cache cache;
+
+        private List<DataModelReflection> buffer = new ArrayList<>();
+
+        Loader(DataModelSource source, Key key, Cache cache) {
+            this.source = source;
+            this.key = key;
+            this.cache = cache;
+        }
+
+        @Override
+        public DataModelReflection next() throws IOException {
+            DataModelReflection next = source.next();
+            if (buffer != null) {
+                if (next == null) {
+                    cache.put(key, buffer);
+                    buffer = null;
+                } else if (buffer.size() >= cache.limit) {
+                    LOG.debug("data model source is too large to cache: {}", key.uri); //$NON-NLS-1$
+                    buffer = null;
+                } else {
+                    buffer.add(next);
+                }
+            }
+            return next;
+        }
+
+        @Override
+        public void close() throws IOException {
+            buffer = null;
+            source.close();
+        }
+    }
+
+    static final class Cache {
+
+        final int limit;
+
+        private final LinkedHashMap<Key, List<DataModelReflection>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private int size;
+
+        Cache(int limit) {
+            this.limit = limit;
+        }
+
+        synchronized List<DataModelReflection> get(Key key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(Key key, List<DataModelReflection> models) {
+            if (models.size() > limit) {
+                return;
+            }
+            List<DataModelReflection> value = Collections.unmodifiableList(models);
+            List<DataModelReflection> old = entries.put(key, value);
+            if (old != null) {
+                size -= old.size();
+            }
+            size += value.size();
+            for (Iterator<List<DataModelReflection>> iter = entries.values().iterator();
+                    size > limit && iter.hasNext();) {
+                List<DataModelReflection> eldest = iter.next();
+                if (eldest != value) {
+                    size -= eldest.size();
+                    iter.remove();
+                }
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+    }
+
+    static final class Key {
+
+        final URI uri;
+
+        final Class<?> modelClass;
+
+        final long timestamp;
+
+        Key(URI uri, Class<?> modelClass, long timestamp) {
+            this.uri = uri;
+            this.modelClass = modelClass;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + uri.hashCode();
+            result = prime * result + modelClass.hashCode();
+            result = prime * result + Long.hashCode(timestamp);
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return uri.equals(other.uri)
+                    && modelClass.equals(other.modelClass)
+                    && timestamp == other.timestamp;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdriver.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sorts {@link DataModelReflection}s by their key hash, with spilling them into temporary files.
+ * @since 0.10.5
+ */
+final class ExternalDataModelSorter implements Closeable {
+
+    static final Logger LOG = LoggerFactory.getLogger(ExternalDataModelSorter.class);
+
+    static final Comparator<Entry> COMPARATOR = Comparator
+            .comparingInt((Entry entry) -> entry.hash)
+            .thenComparingLong(entry -> entry.sequence);
+
+    private static final String TEMPORARY_FILE_PREFIX = "asakusa-verify-"; //$NON-NLS-1$
+
+    private static final String TEMPORARY_FILE_SUFFIX = ".bin"; //$NON-NLS-1$
+
+    private final int bufferSize;
+
+    private final List<Entry> buffer = new ArrayList<>();
+
+    private final List<Path> runs = new ArrayList<>();
+
+    private boolean sorted;
+
+    /**
+     * Creates a new instance.
+     * @param bufferSize the max number of entries in heap
+     */
+    ExternalDataModelSorter(int bufferSize) {
+        this.bufferSize = Math.max(bufferSize, 1);
+    }
+
+    /**
+     * Adds an entry.
+     * @param hash the key hash
+     * @param sequence the sequence number
+     * @param model the target data model
+     * @throws IOException if I/O error was occurred while spilling entries
+     */
+    void add(int hash, long sequence, DataModelReflection model) throws IOException {
+        if (sorted) {
+            throw new IllegalStateException();
+        }
+        buffer.add(new Entry(hash, sequence, model));
+        if (buffer.size() >= bufferSize) {
+            spill();
+        }
+    }
+
+    private void spill() throws IOException {
+        buffer.sort(COMPARATOR);
+        Path file = Files.createTempFile(TEMPORARY_FILE_PREFIX, TEMPORARY_FILE_SUFFIX);
+        runs.add(file);
+        LOG.debug("spilling verification data: {} ({} entries)", file, buffer.size()); //$NON-NLS-1$
+        try (ObjectOutputStream output = new ObjectOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file)))) {
+            for (Entry entry : buffer) {
+                output.writeBoolean(true);
+                output.writeInt(entry.hash);
+                output.writeLong(entry.sequence);
+                output.writeObject(entry.model);
+                // discards back-references to keep the stream footprint small
+                output.reset();
+            }
+            output.writeBoolean(false);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Sorts the added entries and reports entries which have the same key.
+     * This sorter still accepts more entries after this operation.
+     * @param keys the key function, which must be consistent with the entry hash
+     * @param handler the handler which receives conflicting entries
+     * @throws IOException if I/O error was occurred while sorting entries, or the handler raised it
+     */
+    void checkConflicts(
+            Function<? super DataModelReflection, ?> keys, ConflictHandler handler) throws IOException {
+        if (sorted) {
+            throw new IllegalStateException();
+        }
+        buffer.sort(COMPARATOR);
+        try (Cursor cursor = open()) {
+            checkConflicts(cursor, keys, handler);
+        }
+    }
+
+    private static void checkConflicts(
+            Cursor cursor,
+            Function<? super DataModelReflection, ?> keys, ConflictHandler handler) throws IOException {
+        Map<Object, Entry> group = new HashMap<>();
+        int hash = 0;
+        while (true) {
+            Entry next = cursor.next();
+            if (next == null) {
+                break;
+            }
+            if (group.isEmpty() == false && next.hash != hash) {
+                group.clear();
+            }
+            hash = next.hash;
+            Object key = keys.apply(next.model);
+            Entry old = group.putIfAbsent(key, next);
+            if (old != null) {
+                handler.handle(key, old, next);
+            }
+        }
+    }
+
+    /**
+     * Returns a cursor over the added entries, ordered by {@link #COMPARATOR}.
+     * This sorter will not accept any more entries.
+     * @return the created cursor
+     * @throws IOException if I/O error was occurred while opening the spilled entries
+     */
+    Cursor sort() throws IOException {
+        if (sorted) {
+            throw new IllegalStateException();
+        }
+        sorted = true;
+        buffer.sort(COMPARATOR);
+        return open();
+    }
+
+    private Cursor open() throws IOException {
+        if (runs.isEmpty()) {
+            return new ListCursor(buffer);
+        }
+        List<Cursor> cursors = new ArrayList<>();
+        try {
+            for (Path run : runs) {
+                cursors.add(new RunCursor(run));
+            }
+        } catch (IOException e) {
+            for (Cursor cursor : cursors) {
+                cursor.close();
+            }
+            throw e;
+        }
+        if (buffer.isEmpty() == false) {
+            cursors.add(new ListCursor(buffer));
+        }
+        return new MergeCursor(cursors);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.clear();
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+    }
+
+    /**
+     * An entry of {@link ExternalDataModelSorter}.
+     */
+    static final class Entry {
+
+        final int hash;
+
+        final long sequence;
+
+        final DataModelReflection model;
+
+        Entry(int hash, long sequence, DataModelReflection model) {
+            this.hash = hash;
+            this.sequence = sequence;
+            this.model = model;
+        }
+    }
+
+    /**
+     * Handles entries which have the same key.
+     */
+    @FunctionalInterface
+    interface ConflictHandler {
+
+        /**
+         * Handles the conflicting entries.
+         * @param key the conflicting key
+         * @param first the first entry
+         * @param second the second entry
+         * @throws IOException if the conflict is not acceptable
+         */
+        void handle(Object key, Entry first, Entry second) throws IOException;
+    }
+
+    /**
+     * A cursor over sorted entries.
+     */
+    interface Cursor extends Closeable {
+
+        /**
+         * Returns the next entry without consuming it.
+         * @return the next entry, or {@code null} if there are no more entries
+         * @throws IOException if I/O error was occurred
+         */
+        Entry peek() throws IOException;
+
+        /**
+         * Consumes and returns the next entry.
+         * @return the next entry, or {@code null} if there are no more entries
+         * @throws IOException if I/O error was occurred
+         */
+        Entry next() throws IOException;
+
+        @Override
+        default void close() throws IOException {
+            return;
+        }
+    }
+
+    private static final class ListCursor implements Cursor {
+
+        private final List<Entry> entries;
+
+        private int index;
+
+        ListCursor(List<Entry> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public Entry peek() {
+            return index < entries.size() ? entries.get(index) : null;
+        }
+
+        @Override
+        public Entry next() {
+            return index < entries.size() ? entries.get(index++) : null;
+        }
+    }
+
+    private static final class RunCursor implements Cursor {
+
+        private final ObjectInputStream input;
+
+        private Entry next;
+
+        private boolean sawEof;
+
+        RunCursor(Path file) throws IOException {
+            this.input = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        }
+
+        @Override
+        public Entry peek() throws IOException {
+            if (next == null && sawEof == false) {
+                next = read();
+            }
+            return next;
+        }
+
+        @Override
+        public Entry next() throws IOException {
+            Entry result = peek();
+            next = null;
+            return result;
+        }
+
+        private Entry read() throws IOException {
+            if (input.readBoolean() == false) {
+                sawEof = true;
+                return null;
+            }
+            int hash = input.readInt();
+            long sequence = input.readLong();
+            try {
+                return new Entry(hash, sequence, (DataModelReflection) input.readObject());
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+
+    private static final class MergeCursor implements Cursor {
+
+        private final List<Cursor> cursors;
+
+        private final PriorityQueue<Cursor> queue;
+
+        MergeCursor(List<Cursor> cursors) throws IOException {
+            this.cursors = cursors;
+            this.queue = new PriorityQueue<>(cursors.size(), (a, b) -> {
+                try {
+                    return COMPARATOR.compare(a.peek(), b.peek());
+                } catch (IOException e) {
+                    // never occurs: only cursors which have already peeked their heads are queued
+                    throw new IllegalStateException(e);
+                }
+            });
+            for (Cursor cursor : cursors) {
+                if (cursor.peek() != null) {
+                    queue.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        public Entry peek() throws IOException {
+            Cursor head = queue.peek();
+            return head == null ? null : head.peek();
+        }
+
+        @Override
+        public Entry next() throws IOException {
+            Cursor head = queue.poll();
+            if (head == null) {
+                return null;
+            }
+            Entry result = head.next();
+            if (head.peek() != null) {
+                queue.add(head);
+            }
+            return result;
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException first = null;
+            for (Cursor cursor : cursors) {
+                try {
+                    cursor.close();
+                } catch (IOException e) {
+                    if (first == null) {
+                        first = e;
+                    } else {
+                        first.addSuppressed(e);
+                    }
+                }
+            }
+            if (first != null) {
+                throw first;
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdriver.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.asakusafw.testdriver.core.ExternalDataModelSorter.Cursor;
+import com.asakusafw.testdriver.core.ExternalDataModelSorter.Entry;
+
+/**
+ * A {@link VerifyEngine} which verifies model objects by sort-merge join.
+ * <p>
+ * This engine sorts both the expected and actual data model objects by hash code of their
+ * {@link VerifyRule#getKey(DataModelReflection) keys}, with spilling them into temporary files, and then
+ * compares them in a single merge pass.
+ * Therefore, this only keeps a bounded number of data model objects in heap.
+ * The data model objects must be serializable.
+ * </p>
+ * <p>
+ * The resulting differences are same as {@link VerifyEngine}.
+ * Conflicts in the expected data set are reported when {@link #addExpected(DataModelSource) adding} them,
+ * after sorting the whole expected data set.
+ * </p>
+ * @since 0.10.5
+ */
+public class SortMergeVerifyEngine extends VerifyEngine {
+
+    /**
+     * The system property key of the max number of data model objects to keep in heap for each sort buffer.
+     */
+    public static final String KEY_BUFFER_SIZE = "asakusa.testdriver.verify.buffer"; //$NON-NLS-1$
+
+    /**
+     * The default value of {@link #KEY_BUFFER_SIZE}.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 100_000;
+
+    private final VerifyRule rule;
+
+    private final int bufferSize;
+
+    private ExternalDataModelSorter expectedRest;
+
+    private ExternalDataModelSorter sawActual;
+
+    private long expectedCount;
+
+    private long actualCount;
+
+    /**
+     * Creates a new instance.
+     * @param rule the verification strategy
+     * @throws IllegalArgumentException if some parameters were {@code null}
+     * @see #KEY_BUFFER_SIZE
+     */
+    public SortMergeVerifyEngine(VerifyRule rule) {
+        this(rule, getDefaultBufferSize());
+    }
+
+    /**
+     * Creates a new instance.
+     * @param rule the verification strategy
+     * @param bufferSize the max number of data model objects to keep in heap for each sort buffer
+     * @throws IllegalArgumentException if some parameters were {@code null}
+     */
+    public SortMergeVerifyEngine(VerifyRule rule, int bufferSize) {
+        super(rule);
+        this.rule = rule;
+        this.bufferSize = bufferSize;
+        this.expectedRest = new ExternalDataModelSorter(bufferSize);
+        this.sawActual = new ExternalDataModelSorter(bufferSize);
+    }
+
+    private static int getDefaultBufferSize() {
+        String value = System.getProperty(KEY_BUFFER_SIZE);
+        if (value == null || value.trim().isEmpty()) {
+            return DEFAULT_BUFFER_SIZE;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException(MessageFormat.format(
+                    Messages.getString("SortMergeVerifyEngine.errorInvalidBufferSize"), //$NON-NLS-1$
+                    KEY_BUFFER_SIZE,
+                    value), e);
+        }
+    }
+
+    @Override
+    public VerifyEngine addExpected(DataModelSource expected) throws IOException {
+        if (expected == null) {
+            throw new IllegalArgumentException("expected must not be null"); //$NON-NLS-1$
+        }
+        try {
+            while (true) {
+                DataModelReflection next = expected.next();
+                if (next == null) {
+                    break;
+                }
+                expectedRest.add(rule.getKey(next).hashCode(), expectedCount++, next);
+            }
+            expectedRest.checkConflicts(rule::getKey, (key, first, second) -> {
+                throw new IOException(MessageFormat.format(
+                        Messages.getString("VerifyEngine.errorConflictExpectedDataKey"), //$NON-NLS-1$
+                        key,
+                        first.model,
+                        second.model));
+            });
+        } finally {
+            expected.close();
+        }
+        return this;
+    }
+
+    @Override
+    public List<Difference> inspectInput(DataModelSource input) throws IOException {
+        if (input == null) {
+            throw new IllegalArgumentException("input must not be null"); //$NON-NLS-1$
+        }
+        List<Result> results = new ArrayList<>();
+        try (ExternalDataModelSorter actual = new ExternalDataModelSorter(bufferSize)) {
+            try {
+                while (true) {
+                    DataModelReflection next = input.next();
+                    if (next == null) {
+                        break;
+                    }
+                    actual.add(rule.getKey(next).hashCode(), actualCount++, next);
+                }
+            } finally {
+                input.close();
+            }
+            ExternalDataModelSorter nextExpected = new ExternalDataModelSorter(bufferSize);
+            ExternalDataModelSorter nextActual = new ExternalDataModelSorter(bufferSize);
+            boolean success = false;
+            try (Cursor expectedCursor = expectedRest.sort();
+                    Cursor sawCursor = sawActual.sort();
+                    Cursor actualCursor = actual.sort()) {
+                while (true) {
+                    Entry head = min(min(expectedCursor.peek(), sawCursor.peek()), actualCursor.peek());
+                    if (head == null) {
+                        break;
+                    }
+                    int hash = head.hash;
+                    Map<Object, Entry> expectedGroup = expectedGroup(expectedCursor, hash);
+                    Map<Object, Entry> sawGroup = new LinkedHashMap<>();
+                    for (Entry entry : group(sawCursor, hash)) {
+                        sawGroup.put(rule.getKey(entry.model), entry);
+                    }
+                    for (Entry entry : group(actualCursor, hash)) {
+                        Object key = rule.getKey(entry.model);
+                        Entry saw = sawGroup.get(key);
+                        if (saw != null) {
+                            results.add(new Result(entry.sequence, new Difference(entry.model, null,
+                                    MessageFormat.format(
+                                            Messages.getString("VerifyEngine.errorConflictActualDataKey"), //$NON-NLS-1$
+                                            key,
+                                            saw.model,
+                                            entry.model))));
+                        } else {
+                            sawGroup.put(key, entry);
+                            Entry expected = expectedGroup.remove(key);
+                            Difference diff = verify(key, expected == null ? null : expected.model, entry.model);
+                            if (diff != null) {
+                                results.add(new Result(entry.sequence, diff));
+                            }
+                        }
+                    }
+                    for (Entry entry : expectedGroup.values()) {
+                        nextExpected.add(entry.hash, entry.sequence, entry.model);
+                    }
+                    for (Entry entry : sawGroup.values()) {
+                        nextActual.add(entry.hash, entry.sequence, entry.model);
+                    }
+                }
+                success = true;
+            } finally {
+                if (success) {
+                    expectedRest.close();
+                    sawActual.close();
+                    expectedRest = nextExpected;
+                    sawActual = nextActual;
+                } else {
+                    nextExpected.close();
+                    nextActual.close();
+                }
+            }
+        }
+        return toDifferences(results);
+    }
+
+    @Override
+    public List<Difference> inspectRest() {
+        List<Result> results = new ArrayList<>();
+        try {
+            try (Cursor cursor = expectedRest.sort()) {
+                while (cursor.peek() != null) {
+                    Map<Object, Entry> group = expectedGroup(cursor, cursor.peek().hash);
+                    for (Map.Entry<Object, Entry> entry : group.entrySet()) {
+                        Entry expected = entry.getValue();
+                        Difference diff = verify(entry.getKey(), expected.model, null);
+                        if (diff != null) {
+                            results.add(new Result(expected.sequence, diff));
+                        }
+                    }
+                }
+            }
+            expectedRest.close();
+            sawActual.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.expectedRest = new ExternalDataModelSorter(bufferSize);
+        this.sawActual = new ExternalDataModelSorter(bufferSize);
+        return toDifferences(results);
+    }
+
+    @Override
+    public void close() throws IOException {
+        expectedRest.close();
+        sawActual.close();
+    }
+
+    private Map<Object, Entry> expectedGroup(Cursor cursor, int hash) throws IOException {
+        Map<Object, Entry> results = new LinkedHashMap<>();
+        for (Entry entry : group(cursor, hash)) {
+            Object key = rule.getKey(entry.model);
+            Entry old = results.put(key, entry);
+            if (old != null) {
+                throw new IOException(MessageFormat.format(
+                        Messages.getString("VerifyEngine.errorConflictExpectedDataKey"), //$NON-NLS-1$
+                        key,
+                        old.model,
+                        entry.model));
+            }
+        }
+        return results;
+    }
+
+    private static List<Entry> group(Cursor cursor, int hash) throws IOException {
+        List<Entry> results = new ArrayList<>();
+        while (true) {
+            Entry next = cursor.peek();
+            if (next == null || next.hash != hash) {
+                break;
+            }
+            results.add(cursor.next());
+        }
+        return results;
+    }
+
+    private static Entry min(Entry a, Entry b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        }
+        return a.hash <= b.hash ? a : b;
+    }
+
+    private static List<Difference> toDifferences(List<Result> results) {
+        // reorders differences as same as the original input order
+        return results.stream()
+                .sorted(Comparator.comparingLong(result -> result.sequence))
+                .map(result -> result.difference)
+                .collect(Collectors.toList());
+    }
+
+    private static final class Result {
+
+        final long sequence;
+
+        final Difference difference;
+
+        Result(long sequence, Difference difference) {
+            this.sequence = sequence;
+            this.difference = difference;
+        }
+    }
+}
@@ -30,6 +30,7 @@ import com.asakusafw.vocabulary.external.ExporterDescription;
 /**
  * Inspects each test result.
  * @since 0.2.0
+ * @version 0.10.5
  * @deprecated Use {@link TestModerator} instead
  */
 @Deprecated
@@ -229,9 +230,10 @@ public class TestResultInspector {
         }
         DataModelDefinition<?> definition = findDefinition(modelClass);
         DataModelSource expectedDesc = findSource(definition, expected);
-        VerifyEngine engine = buildVerifier(definition, rule, expectedDesc);
-        List<Difference> results = inspect(definition, description, engine);
-        return results;
+        try (VerifyEngine engine = buildVerifier(definition, rule, expectedDesc)) {
+            List<Difference> results = inspect(definition, description, engine);
+            return results;
+        }
     }
 
     private <T> DataModelDefinition<T> findDefinition(Class<T> modelClass) throws IOException {
@@ -266,9 +268,17 @@ public class TestResultInspector {
             DataModelSource expected) throws IOException {
         assert definition != null;
         assert rule != null;
-        VerifyEngine engine = new VerifyEngine(rule);
-        engine.addExpected(expected);
-        return engine;
+        VerifyEngine engine = VerifyEngine.newInstance(rule);
+        boolean success = false;
+        try {
+            engine.addExpected(expected);
+            success = true;
+            return engine;
+        } finally {
+            if (success == false) {
+                engine.close();
+            }
+        }
     }
 
     private DataModelSource findSource(DataModelDefinition<?> definition, URI uri) throws IOException {
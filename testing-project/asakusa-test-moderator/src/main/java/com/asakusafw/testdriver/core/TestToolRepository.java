@@ -26,7 +26,7 @@ import com.asakusafw.vocabulary.external.ImporterDescription;
 /**
  * Load tools via SPI.
  * @since 0.2.3
- * @version 0.6.0
+ * @version 0.10.5
  */
 public class TestToolRepository extends AbstractTestDataToolProvider {
 
@@ -56,7 +56,8 @@ public class TestToolRepository extends AbstractTestDataToolProvider {
         this.dataModelAdapter = new SpiDataModelAdapter(classLoader);
         this.importerPreparator = new SpiImporterPreparator(classLoader);
         this.exporterRetriever = new SpiExporterRetriever(classLoader);
-        this.dataModelSourceProvider = new SpiDataModelSourceProvider(classLoader);
+        this.dataModelSourceProvider = new CachedDataModelSourceProvider(
+                new SpiDataModelSourceProvider(classLoader));
         this.dataModelSinkProvider = new SpiDataModelSinkProvider(classLoader);
         this.differenceSinkProvider = new SpiDifferenceSinkProvider(classLoader);
         this.verifyRuleProvider = new SpiVerifyRuleProvider(classLoader);
@@ -15,6 +15,7 @@
  */
 package com.asakusafw.testdriver.core;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
@@ -26,8 +27,16 @@ import java.util.Map;
 /**
  * Verifies model objects using {@link VerifyRule} and expected data set.
  * @since 0.2.0
+ * @version 0.10.5
  */
-public class VerifyEngine {
+public class VerifyEngine implements Closeable {
+
+    /**
+     * The system property key of whether or not {@link #newInstance(VerifyRule)} creates
+     * a {@link SortMergeVerifyEngine} instead of this in-memory engine.
+     * @since 0.10.5
+     */
+    public static final String KEY_SORT_MERGE = "asakusa.testdriver.verify.sortmerge"; //$NON-NLS-1$
 
     private final VerifyRule rule;
 
@@ -49,6 +58,25 @@ public class VerifyEngine {
         this.sawActual = new HashMap<>();
     }
 
+    /**
+     * Creates a new instance for the current environment.
+     * <p>
+     * This returns a {@link SortMergeVerifyEngine} if the system property {@link #KEY_SORT_MERGE} is
+     * {@code true}, or an in-memory {@link VerifyEngine} otherwise.
+     * Clients should {@link #close() close} the created engine after use.
+     * </p>
+     * @param rule the verification strategy
+     * @return the created instance
+     * @throws IllegalArgumentException if some parameters were {@code null}
+     * @since 0.10.5
+     */
+    public static VerifyEngine newInstance(VerifyRule rule) {
+        if (Boolean.getBoolean(KEY_SORT_MERGE)) {
+            return new SortMergeVerifyEngine(rule);
+        }
+        return new VerifyEngine(rule);
+    }
+
     /**
      * Appends the expected data model objects.
      * <p>
@@ -175,7 +203,17 @@ public class VerifyEngine {
         return results;
     }
 
-    private Difference verify(Object key, DataModelReflection expected, DataModelReflection actual) {
+    /**
+     * Releases resources held by this engine.
+     * @throws IOException if failed to release resources
+     * @since 0.10.5
+     */
+    @Override
+    public void close() throws IOException {
+        return;
+    }
+
+    Difference verify(Object key, DataModelReflection expected, DataModelReflection actual) {
         assert key != null;
         assert expected != null || actual != null;
         Object result = rule.verify(expected, actual);
@@ -22,7 +22,7 @@ import java.util.List;
 /**
  * Rule based {@link Verifier}.
  * @since 0.2.3
- * @version 0.7.0
+ * @version 0.10.5
  */
 public class VerifyRuleVerifier implements Verifier, Verifier.Validatable {
 
@@ -49,25 +49,27 @@ public class VerifyRuleVerifier implements Verifier, Verifier.Validatable {
 
     @Override
     public List<Difference> verify(DataModelSource results) throws IOException {
-        VerifyEngine engine = new VerifyEngine(rule);
-        try {
-            engine.addExpected(expected);
-        } finally {
-            expected.close();
+        try (VerifyEngine engine = VerifyEngine.newInstance(rule)) {
+            try {
+                engine.addExpected(expected);
+            } finally {
+                expected.close();
+            }
+            List<Difference> differences = new ArrayList<>();
+            differences.addAll(engine.inspectInput(results));
+            differences.addAll(engine.inspectRest());
+            return differences;
         }
-        List<Difference> differences = new ArrayList<>();
-        differences.addAll(engine.inspectInput(results));
-        differences.addAll(engine.inspectRest());
-        return differences;
     }
 
     @Override
     public void validate() throws IOException {
-        VerifyEngine engine = new VerifyEngine(rule);
-        try {
-            engine.addExpected(expected);
-        } finally {
-            expected.close();
+        try (VerifyEngine engine = VerifyEngine.newInstance(rule)) {
+            try {
+                engine.addExpected(expected);
+            } finally {
+                expected.close();
+            }
         }
     }
 
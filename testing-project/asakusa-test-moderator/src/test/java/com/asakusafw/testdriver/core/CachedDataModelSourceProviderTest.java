@@ -0,0 +1,191 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdriver.core;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.asakusafw.testdriver.core.CachedDataModelSourceProvider.Cache;
+
+/**
+ * Test for {@link CachedDataModelSourceProvider}.
+ */
+public class CachedDataModelSourceProviderTest {
+
+    /**
+     * temporary folder.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * reuses parsed objects.
+     * @throws Exception if failed
+     */
+    @Test
+    public void cached() throws Exception {
+        File file = write("a", "b", "c");
+        LineProvider delegate = new LineProvider();
+        CachedDataModelSourceProvider target = new CachedDataModelSourceProvider(delegate, new Cache(100));
+
+        assertThat(read(target, file.toURI()), contains("a", "b", "c"));
+        assertThat(read(target, file.toURI()), contains("a", "b", "c"));
+        assertThat(delegate.count.get(), is(1));
+    }
+
+    /**
+     * source file is modified.
+     * @throws Exception if failed
+     */
+    @Test
+    public void modified() throws Exception {
+        File file = write("a", "b", "c");
+        LineProvider delegate = new LineProvider();
+        CachedDataModelSourceProvider target = new CachedDataModelSourceProvider(delegate, new Cache(100));
+
+        assertThat(read(target, file.toURI()), contains("a", "b", "c"));
+        Files.write(file.toPath(), Arrays.asList("d", "e"), StandardCharsets.UTF_8);
+        assertThat(file.setLastModified(file.lastModified() + 10_000), is(true));
+        assertThat(read(target, file.toURI()), contains("d", "e"));
+        assertThat(delegate.count.get(), is(2));
+    }
+
+    /**
+     * source is not read fully.
+     * @throws Exception if failed
+     */
+    @Test
+    public void partial() throws Exception {
+        File file = write("a", "b", "c");
+        LineProvider delegate = new LineProvider();
+        CachedDataModelSourceProvider target = new CachedDataModelSourceProvider(delegate, new Cache(100));
+
+        try (DataModelSource source = target.open(ValueDefinition.of(String.class), file.toURI(), null)) {
+            assertThat(source.next(), is(notNullValue()));
+        }
+        assertThat(read(target, file.toURI()), contains("a", "b", "c"));
+        assertThat(delegate.count.get(), is(2));
+    }
+
+    /**
+     * source is too large.
+     * @throws Exception if failed
+     */
+    @Test
+    public void too_large() throws Exception {
+        File file = write("a", "b", "c");
+        LineProvider delegate = new LineProvider();
+        CachedDataModelSourceProvider target = new CachedDataModelSourceProvider(delegate, new Cache(2));
+
+        assertThat(read(target, file.toURI()), contains("a", "b", "c"));
+        assertThat(read(target, file.toURI()), contains("a", "b", "c"));
+        assertThat(delegate.count.get(), is(2));
+    }
+
+    /**
+     * evicts older entries.
+     * @throws Exception if failed
+     */
+    @Test
+    public void evict() throws Exception {
+        File f1 = write("a", "b");
+        File f2 = write("c", "d");
+        LineProvider delegate = new LineProvider();
+        Cache cache = new Cache(3);
+        CachedDataModelSourceProvider target = new CachedDataModelSourceProvider(delegate, cache);
+
+        assertThat(read(target, f1.toURI()), contains("a", "b"));
+        assertThat(read(target, f2.toURI()), contains("c", "d"));
+        assertThat(cache.size(), is(2));
+        assertThat(read(target, f2.toURI()), contains("c", "d"));
+        assertThat(delegate.count.get(), is(2));
+        assertThat(read(target, f1.toURI()), contains("a", "b"));
+        assertThat(delegate.count.get(), is(3));
+    }
+
+    /**
+     * not a local file.
+     * @throws Exception if failed
+     */
+    @Test
+    public void not_file() throws Exception {
+        LineProvider delegate = new LineProvider();
+        CachedDataModelSourceProvider target = new CachedDataModelSourceProvider(delegate, new Cache(100));
+
+        URI uri = new URI("testing:dummy");
+        assertThat(target.open(ValueDefinition.of(String.class), uri, null), is(nullValue()));
+        assertThat(target.open(ValueDefinition.of(String.class), uri, null), is(nullValue()));
+        assertThat(delegate.count.get(), is(2));
+    }
+
+    private File write(String... lines) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String> read(DataModelSourceProvider provider, URI uri) throws IOException {
+        DataModelDefinition<String> definition = ValueDefinition.of(String.class);
+        List<String> results = new ArrayList<>();
+        try (DataModelSource source = provider.open(definition, uri, null)) {
+            assertThat(source, is(notNullValue()));
+            while (true) {
+                DataModelReflection next = source.next();
+                if (next == null) {
+                    break;
+                }
+                results.add(definition.toObject(next));
+            }
+        }
+        return results;
+    }
+
+    private static class LineProvider implements DataModelSourceProvider {
+
+        final AtomicInteger count = new AtomicInteger();
+
+        LineProvider() {
+            return;
+        }
+
+        @Override
+        public <T> DataModelSource open(
+                DataModelDefinition<T> definition,
+                URI source,
+                TestContext context) throws IOException {
+            count.incrementAndGet();
+            if (source.getScheme().equals("file") == false) {
+                return null;
+            }
+            List<String> lines = Files.readAllLines(new File(source).toPath(), StandardCharsets.UTF_8);
+            return new IteratorDataModelSource(ValueDefinition.of(String.class), lines.iterator());
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.testdriver.core;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.asakusafw.testdriver.core.VerifyEngineTest.CalendarRule;
+import com.asakusafw.testdriver.core.VerifyEngineTest.Rule;
+
+/**
+ * Test for {@link SortMergeVerifyEngine}.
+ */
+public class SortMergeVerifyEngineTest {
+
+    /**
+     * single perfectmatch.
+     * @throws Exception if failed
+     */
+    @Test
+    public void single() throws Exception {
+        try (VerifyEngine engine = new SortMergeVerifyEngine(new Rule())) {
+            engine.addExpected(source("hello:world"));
+
+            List<Difference> d1 = engine.inspectInput(source("hello:world"));
+            assertThat(d1.size(), is(0));
+
+            List<Difference> d2 = engine.inspectRest();
+            assertThat(d2.size(), is(0));
+        }
+    }
+
+    /**
+     * single value mismatch.
+     * @throws Exception if failed
+     */
+    @Test
+    public void mismatch_value() throws Exception {
+        try (VerifyEngine engine = new SortMergeVerifyEngine(new Rule())) {
+            engine.addExpected(source("hello:world!"));
+
+            List<Difference> d1 = engine.inspectInput(source("hello:world"));
+            assertThat(d1.size(), is(1));
+
+            List<Difference> d2 = engine.inspectRest();
+            assertThat(d2.size(), is(0));
+        }
+    }
+
+    /**
+     * single key mismatch.
+     * @throws Exception if failed
+     */
+    @Test
+    public void mismatch_key() throws Exception {
+        try (VerifyEngine engine = new SortMergeVerifyEngine(new Rule())) {
+            engine.addExpected(source("hello!:world"));
+
+            List<Difference> d1 = engine.inspectInput(source("hello:world"));
+            assertThat(d1.size(), is(1));
+
+            List<Difference> d2 = engine.inspectRest();
+            assertThat(d2.size(), is(1));
+        }
+    }
+
+    /**
+     * duplicated.
+     * @throws Exception if failed
+     */
+    @Test
+    public void duplicate() throws Exception {
+        try (VerifyEngine engine = new SortMergeVerifyEngine(new Rule())) {
+            engine.addExpected(source("hello:world"));
+
+            List<Difference> d1 = engine.inspectInput(source("hello:world1", "hello:world2"));
+            assertThat(d1.size(), is(greaterThan(0)));
+
+            List<Difference> d2 = engine.inspectRest();
+            assertThat(d2.size(), is(0));
+        }
+    }
+
+    /**
+     * duplicated.
+     * @throws Exception if failed
+     */
+    @Test
+    public void duplicate_calendar() throws Exception {
+        try (VerifyEngine engine = new SortMergeVerifyEngine(new CalendarRule())) {
+            engine.addExpected(CalendarRule.calendars("2013-01-01"));
+
+            List<Difference> d1 = engine.inspectInput(CalendarRule.calendars("2013-01-01", "2013-01-02"));
+            assertThat(d1.size(), is(greaterThan(0)));
+
+            List<Difference> d2 = engine.inspectRest();
+            assertThat(d2.size(), is(0));
+        }
+    }
+
+    /**
+     * duplicated across multiple inputs.
+     * @throws Exception if failed
+     */
+    @Test
+    public void duplicate_inputs() throws Exception {
+        try (VerifyEngine engine = new SortMergeVerifyEngine(new Rule(), 1)) {
+            engine.addExpected(source("hello:world", "other:world"));
+
+            List<Difference> d1 = engine.inspectInput(source("hello:world"));
+            assertThat(d1.size(), is(0));
+
+            List<Difference> d2 = engine.inspectInput(source("hello:world"));
+            assertThat(d2.size(), is(1));
+
+            List<Difference> d3 = engine.inspectRest();
+            assertThat(d3.size(), is(1));
+        }
+    }
+
+    /**
+     * duplicated expected data.
+     * @throws Exception if failed
+     */
+    @Test(expected = IOException.class)
+    public void duplicate_expected() throws Exception {
+        try (VerifyEngine engine = new SortMergeVerifyEngine(new Rule())) {
+            engine.addExpected(source("hello:world1", "hello:world2"));
+        }
+    }
+
+    /**
+     * duplicated expected data in spilled files.
+     * @throws Exception if failed
+     */
+    @Test(expected = IOException.class)
+    public void duplicate_expected_spill() throws Exception {
+        try (VerifyEngine engine = new SortMergeVerifyEngine(new Rule(), 2)) {
+            engine.addExpected(source("a:1", "hello:world1", "b:2", "c:3", "hello:world2", "d:4"));
+        }
+    }
+
+    /**
+     * duplicated expected data over multiple inputs.
+     * @throws Exception if failed
+     */
+    @Test(expected = IOException.class)
+    public void duplicate_expected_multiple() throws Exception {
+        try (VerifyEngine engine = new SortMergeVerifyEngine(new Rule(), 2)) {
+            engine.addExpected(source("a:1", "hello:world1", "b:2"));
+            engine.addExpected(source("c:3", "hello:world2"));
+        }
+    }
+
+    /**
+     * validates duplicated expected data.
+     * @throws Exception if failed
+     */
+    @Test(expected = IOException.class)
+    public void duplicate_expected_validate() throws Exception {
+        String saved = System.getProperty(VerifyEngine.KEY_SORT_MERGE);
+        System.setProperty(VerifyEngine.KEY_SORT_MERGE, "true");
+        try {
+            VerifyRuleVerifier verifier = new VerifyRuleVerifier(source("hello:world1", "hello:world2"), new Rule());
+            verifier.validate();
+        } finally {
+            if (saved == null) {
+                System.clearProperty(VerifyEngine.KEY_SORT_MERGE);
+            } else {
+                System.setProperty(VerifyEngine.KEY_SORT_MERGE, saved);
+            }
+        }
+    }
+
+    /**
+     * keys with conflicting hash codes.
+     * @throws Exception if failed
+     */
+    @Test
+    public void hash_collision() throws Exception {
+        assertThat("Aa".hashCode(), is("BB".hashCode()));
+        try (VerifyEngine engine = new SortMergeVerifyEngine(new Rule())) {
+            engine.addExpected(source("Aa:1", "BB:2", "AaBB:3", "BBAa:4"));
+
+            List<Difference> d1 = engine.inspectInput(source("BB:2", "Aa:1", "AaAa:3"));
+            assertThat(d1.size(), is(1));
+
+            List<Difference> d2 = engine.inspectRest();
+            assertThat(d2.size(), is(2));
+        }
+    }
+
+    /**
+     * large data set which is spilled to files.
+     * @throws Exception if failed
+     */
+    @Test
+    public void large() throws Exception {
+        Random random = new Random(6502);
+        List<String> expected = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String key = String.valueOf(random.nextInt(50_000));
+            if (random.nextInt(10) != 0) {
+                expected.add(key + ":" + i);
+            }
+            if (random.nextInt(10) != 0) {
+                actual.add(key + ":" + (random.nextInt(20) == 0 ? -i : i));
+            }
+        }
+        expected = expected.stream()
+                .collect(Collectors.toMap(s -> s.split(":")[0], s -> s, (a, b) -> a))
+                .values().stream()
+                .collect(Collectors.toList());
+        Collections.shuffle(expected, random);
+
+        List<String> d0;
+        try (VerifyEngine engine = new VerifyEngine(new Rule())) {
+            engine.addExpected(source(expected));
+            d0 = messages(engine.inspectInput(source(actual)));
+            d0.addAll(messages(engine.inspectRest()));
+        }
+        List<String> d1;
+        try (VerifyEngine engine = new SortMergeVerifyEngine(new Rule(), 100)) {
+            engine.addExpected(source(expected));
+            d1 = messages(engine.inspectInput(source(actual)));
+            d1.addAll(messages(engine.inspectRest()));
+        }
+        assertThat(d0, is(not(empty())));
+        assertThat(d1, is(d0));
+    }
+
+    private static List<String> messages(List<Difference> differences) {
+        return differences.stream()
+                .map(Difference::toString)
+                .collect(Collectors.toList());
+    }
+
+    static DataModelSource source(String... values) {
+        return source(Arrays.asList(values));
+    }
+
+    static DataModelSource source(List<String> values) {
+        return new IteratorDataModelSource(
+                ValueDefinition.of(String.class),
+                values.iterator());
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.windgate.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.asakusafw.windgate.core.process.ProcessProfile;
+import com.asakusafw.windgate.core.process.ProcessProvider;
+import com.asakusafw.windgate.core.resource.ResourceProfile;
+import com.asakusafw.windgate.core.resource.ResourceProvider;
+import com.asakusafw.windgate.core.session.SessionProfile;
+import com.asakusafw.windgate.core.session.SessionProvider;
+
+/**
+ * Providers and worker threads for {@link GateTask}.
+ * <p>
+ * A runtime can be shared between multiple gate tasks on the same profile,
+ * so that the providers and thread pool are not re-initialized for each task.
+ * Providers which implement {@link Closeable} (e.g. ones which pool their connections) are closed
+ * together with this runtime.
+ * Note that the session providers must take care of locking sessions,
+ * because individual tasks on the shared runtime may run concurrently.
+ * </p>
+ * @since 0.10.5
+ */
+public class GateRuntime implements Closeable {
+
+    static final Logger LOG = LoggerFactory.getLogger(GateRuntime.class);
+
+    private final GateProfile profile;
+
+    private final SessionProvider sessionProvider;
+
+    private final List<ResourceProvider> resourceProviders;
+
+    private final Map<String, ProcessProvider> processProviders;
+
+    private final ExecutorService executor;
+
+    /**
+     * Creates a new instance.
+     * @param profile the gate profile
+     * @throws IOException if failed to initialize the providers
+     * @throws IllegalArgumentException if any parameter is {@code null}
+     */
+    public GateRuntime(GateProfile profile) throws IOException {
+        if (profile == null) {
+            throw new IllegalArgumentException("profile must not be null"); //$NON-NLS-1$
+        }
+        this.profile = profile;
+        this.sessionProvider = loadSessionProvider(profile.getSession());
+        this.resourceProviders = loadResourceProviders(profile.getResources());
+        this.processProviders = loadProcessProviders(profile.getProcesses());
+        this.executor = Executors.newFixedThreadPool(profile.getCore().getMaxProcesses(), new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, String.format("WindGate-%d", counter.incrementAndGet()));
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    private static SessionProvider loadSessionProvider(SessionProfile session) throws IOException {
+        assert session != null;
+        LOG.debug("Loading session provider: {}",
+                session.getProviderClass().getName());
+        SessionProvider result = session.createProvider();
+        return result;
+    }
+
+    private static List<ResourceProvider> loadResourceProviders(
+            List<ResourceProfile> resources) throws IOException {
+        assert resources != null;
+        List<ResourceProvider> results = new ArrayList<>();
+        for (ResourceProfile resourceProfile : resources) {
+            LOG.debug("Loading resource provider \"{}\": {}",
+                    resourceProfile.getName(),
+                    resourceProfile.getProviderClass().getName());
+            ResourceProvider provider = resourceProfile.createProvider();
+            results.add(provider);
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    private static Map<String, ProcessProvider> loadProcessProviders(
+            List<ProcessProfile> processes) throws IOException {
+        assert processes != null;
+        Map<String, ProcessProvider> results = new TreeMap<>();
+        for (ProcessProfile processProfile : processes) {
+            LOG.debug("Loading process provider \"{}\": {}",
+                    processProfile.getName(),
+                    processProfile.getProviderClass().getName());
+            assert results.containsKey(processProfile.getName()) == false;
+            ProcessProvider provider = processProfile.createProvider();
+            results.put(processProfile.getName(), provider);
+        }
+        return Collections.unmodifiableMap(results);
+    }
+
+    /**
+     * Returns the gate profile.
+     * @return the gate profile
+     */
+    public GateProfile getProfile() {
+        return profile;
+    }
+
+    SessionProvider getSessionProvider() {
+        return sessionProvider;
+    }
+
+    List<ResourceProvider> getResourceProviders() {
+        return resourceProviders;
+    }
+
+    Map<String, ProcessProvider> getProcessProviders() {
+        return processProviders;
+    }
+
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        List<BaseProvider<?>> providers = new ArrayList<>();
+        providers.add(sessionProvider);
+        providers.addAll(resourceProviders);
+        providers.addAll(processProviders.values());
+        for (BaseProvider<?> provider : providers) {
+            if (provider instanceof Closeable) {
+                try {
+                    ((Closeable) provider).close();
+                } catch (IOException e) {
+                    LOG.warn("Failed to close provider: {}",
+                            provider.getClass().getName(), e);
+                }
+            }
+        }
+    }
+}
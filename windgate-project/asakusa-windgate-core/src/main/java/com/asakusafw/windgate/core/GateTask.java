@@ -22,37 +22,30 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.asakusafw.runtime.core.context.RuntimeContext;
 import com.asakusafw.runtime.core.context.SimulationSupport;
-import com.asakusafw.windgate.core.process.ProcessProfile;
 import com.asakusafw.windgate.core.process.ProcessProvider;
 import com.asakusafw.windgate.core.resource.DriverRepository;
 import com.asakusafw.windgate.core.resource.ResourceMirror;
-import com.asakusafw.windgate.core.resource.ResourceProfile;
 import com.asakusafw.windgate.core.resource.ResourceProvider;
 import com.asakusafw.windgate.core.session.SessionMirror;
-import com.asakusafw.windgate.core.session.SessionProfile;
 import com.asakusafw.windgate.core.session.SessionProvider;
 import com.asakusafw.windgate.core.util.SafeCloser;
 
 /**
  * Executes WindGate.
  * @since 0.2.2
- * @version 0.4.0
+ * @version 0.10.5
  */
 @SimulationSupport
 public class GateTask implements Closeable {
@@ -61,6 +54,10 @@ public class GateTask implements Closeable {
 
     static final Logger LOG = LoggerFactory.getLogger(GateTask.class);
 
+    private final GateRuntime runtime;
+
+    private final boolean ownsRuntime;
+
     private final ExecutorService executor;
 
     private final SessionProvider sessionProvider;
@@ -99,8 +96,42 @@ public class GateTask implements Closeable {
             boolean createSession,
             boolean completeSession,
             ParameterList arguments) throws IOException {
-        if (profile == null) {
-            throw new IllegalArgumentException("profile must not be null"); //$NON-NLS-1$
+        this(new GateRuntime(checkProfile(profile)), true,
+                script, sessionId, createSession, completeSession, arguments);
+    }
+
+    /**
+     * Creates a new instance on the shared runtime.
+     * Closing this task does not close the given runtime.
+     * @param runtime the shared gate runtime
+     * @param script the gate script
+     * @param sessionId current session ID
+     * @param createSession {@code true} to create a new session, otherwise {@code false}
+     * @param completeSession {@code true} to complete the session, otherwise {@code false}
+     * @param arguments execution arguments (argument name =&gt; value)
+     * @throws IllegalArgumentException if any parameter is {@code null}
+     * @since 0.10.5
+     */
+    public GateTask(
+            GateRuntime runtime,
+            GateScript script,
+            String sessionId,
+            boolean createSession,
+            boolean completeSession,
+            ParameterList arguments) {
+        this(runtime, false, script, sessionId, createSession, completeSession, arguments);
+    }
+
+    private GateTask(
+            GateRuntime runtime,
+            boolean ownsRuntime,
+            GateScript script,
+            String sessionId,
+            boolean createSession,
+            boolean completeSession,
+            ParameterList arguments) {
+        if (runtime == null) {
+            throw new IllegalArgumentException("runtime must not be null"); //$NON-NLS-1$
         }
         if (script == null) {
             throw new IllegalArgumentException("kind must not be null"); //$NON-NLS-1$
@@ -111,61 +142,25 @@ public class GateTask implements Closeable {
         if (arguments == null) {
             throw new IllegalArgumentException("arguments must not be null"); //$NON-NLS-1$
         }
-        this.profile = profile;
+        this.runtime = runtime;
+        this.ownsRuntime = ownsRuntime;
+        this.profile = runtime.getProfile();
         this.script = script;
         this.sessionId = sessionId;
         this.createSession = createSession;
         this.completeSession = completeSession;
         this.arguments = arguments;
-        this.sessionProvider = loadSessionProvider(profile.getSession());
-        this.resourceProviders = loadResourceProviders(profile.getResources());
-        this.processProviders = loadProcessProviders(profile.getProcesses());
-        this.executor = Executors.newFixedThreadPool(profile.getCore().getMaxProcesses(), new ThreadFactory() {
-            private final AtomicInteger counter = new AtomicInteger();
-            @Override
-            public Thread newThread(Runnable r) {
-                Thread t = new Thread(r, String.format("WindGate-%d", counter.incrementAndGet()));
-                t.setDaemon(true);
-                return t;
-            }
-        });
-    }
-
-    private SessionProvider loadSessionProvider(SessionProfile session) throws IOException {
-        assert session != null;
-        LOG.debug("Loading session provider: {}",
-                session.getProviderClass().getName());
-        SessionProvider result = session.createProvider();
-        return result;
+        this.sessionProvider = runtime.getSessionProvider();
+        this.resourceProviders = runtime.getResourceProviders();
+        this.processProviders = runtime.getProcessProviders();
+        this.executor = runtime.getExecutor();
     }
 
-    private List<ResourceProvider> loadResourceProviders(
-            List<ResourceProfile> resources) throws IOException {
-        assert resources != null;
-        List<ResourceProvider> results = new ArrayList<>();
-        for (ResourceProfile resourceProfile : resources) {
-            LOG.debug("Loading resource provider \"{}\": {}",
-                    resourceProfile.getName(),
-                    resourceProfile.getProviderClass().getName());
-            ResourceProvider provider = resourceProfile.createProvider();
-            results.add(provider);
-        }
-        return results;
-    }
-
-    private Map<String, ProcessProvider> loadProcessProviders(
-            List<ProcessProfile> processes) throws IOException {
-        assert processes != null;
-        Map<String, ProcessProvider> results = new TreeMap<>();
-        for (ProcessProfile processProfile : processes) {
-            LOG.debug("Loading process provider \"{}\": {}",
-                    processProfile.getName(),
-                    processProfile.getProviderClass().getName());
-            assert results.containsKey(processProfile.getName()) == false;
-            ProcessProvider provider = processProfile.createProvider();
-            results.put(processProfile.getName(), provider);
+    private static GateProfile checkProfile(GateProfile profile) {
+        if (profile == null) {
+            throw new IllegalArgumentException("profile must not be null"); //$NON-NLS-1$
         }
-        return results;
+        return profile;
     }
 
     /**
@@ -515,6 +510,8 @@ public class GateTask implements Closeable {
 
     @Override
     public void close() {
-        executor.shutdown();
+        if (ownsRuntime) {
+            runtime.close();
+        }
     }
 }
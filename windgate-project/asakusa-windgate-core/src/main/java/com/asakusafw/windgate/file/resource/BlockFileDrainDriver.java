@@ -0,0 +1,174 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.windgate.file.resource;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import com.asakusafw.windgate.core.resource.DrainDriver;
+
+/**
+ * An implementation for {@link DrainDriver} using the block file format.
+ * @param <T> the type of target data
+ * @since 0.10.5
+ * @see BlockFileFormat
+ */
+class BlockFileDrainDriver<T> implements DrainDriver<T> {
+
+    private final Class<T> type;
+
+    private final File file;
+
+    private final int blockSize;
+
+    private final BlockFileFormat.RecordOutputBuffer records = new BlockFileFormat.RecordOutputBuffer();
+
+    private final DataOutputStream output = new DataOutputStream(records);
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+    private ByteBuffer buffer;
+
+    private long[] offsets = new long[16];
+
+    private int blockCount;
+
+    private int recordCount;
+
+    private BlockFileFormat.Serialization<T> serialization;
+
+    private FileChannel channel;
+
+    /**
+     * Creates a new instance.
+     * @param type the type of target data, must provide {@code Writable} methods
+     * @param file the target file
+     * @param blockSize the max uncompressed block size in bytes
+     * @throws IllegalArgumentException if any parameter is {@code null}
+     */
+    BlockFileDrainDriver(Class<T> type, File file, int blockSize) {
+        if (type == null) {
+            throw new IllegalArgumentException("type must not be null"); //$NON-NLS-1$
+        }
+        if (file == null) {
+            throw new IllegalArgumentException("file must not be null"); //$NON-NLS-1$
+        }
+        this.type = type;
+        this.file = file;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public void prepare() throws IOException {
+        this.serialization = BlockFileFormat.Serialization.of(type);
+        if (file.exists() && file.delete() == false) {
+            throw new IOException(MessageFormat.format(
+                    "Failed to delete {0}",
+                    file));
+        }
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        // a heap buffer, so that the deflater can write into its backing array directly
+        this.buffer = ByteBuffer.allocate(Math.max(
+                BlockFileFormat.BLOCK_HEADER_SIZE + 1024,
+                BlockFileFormat.FOOTER_SIZE));
+        buffer.clear();
+        buffer.putInt(BlockFileFormat.MAGIC);
+        buffer.flip();
+        BlockFileFormat.writeFully(channel, buffer);
+    }
+
+    @Override
+    public void put(T object) throws IOException {
+        serialization.write(object, output);
+        recordCount++;
+        if (records.getLength() >= blockSize) {
+            flushBlock();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (recordCount == 0) {
+            return;
+        }
+        int rawSize = records.getLength();
+        deflater.reset();
+        deflater.setInput(records.getData(), 0, rawSize);
+        deflater.finish();
+        int compressedSize = 0;
+        while (deflater.finished() == false) {
+            int limit = BlockFileFormat.BLOCK_HEADER_SIZE + compressedSize;
+            if (limit == buffer.capacity()) {
+                ensureBuffer(limit + 1);
+            }
+            compressedSize += deflater.deflate(
+                    buffer.array(),
+                    buffer.arrayOffset() + limit,
+                    buffer.capacity() - limit);
+        }
+        if (blockCount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[blockCount++] = channel.position();
+        buffer.clear();
+        buffer.putInt(rawSize);
+        buffer.putInt(compressedSize);
+        buffer.putInt(recordCount);
+        buffer.position(0);
+        buffer.limit(BlockFileFormat.BLOCK_HEADER_SIZE + compressedSize);
+        BlockFileFormat.writeFully(channel, buffer);
+        records.reset();
+        recordCount = 0;
+    }
+
+    private void ensureBuffer(int size) {
+        if (buffer.capacity() < size) {
+            // keeps the current contents, which may contain the compressed block
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+            System.arraycopy(buffer.array(), buffer.arrayOffset(), grown.array(), grown.arrayOffset(),
+                    buffer.capacity());
+            buffer = grown;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            try {
+                flushBlock();
+                ensureBuffer(blockCount * Long.BYTES + BlockFileFormat.FOOTER_SIZE);
+                buffer.clear();
+                for (int i = 0; i < blockCount; i++) {
+                    buffer.putLong(offsets[i]);
+                }
+                buffer.putInt(blockCount);
+                buffer.putInt(BlockFileFormat.MAGIC);
+                buffer.flip();
+                BlockFileFormat.writeFully(channel, buffer);
+            } finally {
+                channel.close();
+                deflater.end();
+            }
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,242 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.windgate.file.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+
+/**
+ * Common definitions of the block file format.
+ * <p>
+ * A block file consists of:
+ * </p>
+ * <pre><code>
+ * file:
+ *     int MAGIC
+ *     block*
+ *     long[] block_offsets
+ *     int block_count
+ *     int MAGIC
+ * block:
+ *     int raw_size
+ *     int compressed_size
+ *     int record_count
+ *     byte[compressed_size] deflated_records
+ * </code></pre>
+ * <p>
+ * Each record is serialized by {@code write(DataOutput)} and {@code readFields(DataInput)} of the data model
+ * objects, that is, their {@code Writable} serialization.
+ * These methods are looked up by their signatures, so that this format does not depend on Hadoop.
+ * The reader locates the individual blocks by the trailing block offsets.
+ * </p>
+ * @since 0.10.5
+ */
+final class BlockFileFormat {
+
+    /**
+     * The magic number of block files ({@code "WGB1"}).
+     */
+    static final int MAGIC = 0x57474231;
+
+    static final int HEADER_SIZE = Integer.BYTES;
+
+    static final int BLOCK_HEADER_SIZE = Integer.BYTES * 3;
+
+    static final int FOOTER_SIZE = Integer.BYTES * 2;
+
+    /**
+     * The default size of uncompressed block contents in bytes.
+     */
+    static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private BlockFileFormat() {
+        return;
+    }
+
+    /**
+     * Returns whether or not the file is in the block file format.
+     * @param file the target file
+     * @return {@code true} if it is a block file, otherwise {@code false}
+     * @throws IOException if failed to read the file
+     */
+    static boolean isBlockFile(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE + FOOTER_SIZE) {
+                return false;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, buffer, 0);
+            return buffer.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Returns the offsets of individual blocks in the file.
+     * @param channel the target file channel
+     * @param file the target file (for diagnostics)
+     * @return the block offsets
+     * @throws IOException if failed to read the file, or it is not a valid block file
+     */
+    static long[] getBlockOffsets(FileChannel channel, File file) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE + FOOTER_SIZE) {
+            throw new IOException(MessageFormat.format(
+                    "invalid block file (too short): {0}",
+                    file));
+        }
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+        readFully(channel, footer, size - FOOTER_SIZE);
+        int count = footer.getInt(0);
+        if (footer.getInt(Integer.BYTES) != MAGIC
+                || count < 0
+                || HEADER_SIZE + (long) count * Long.BYTES + FOOTER_SIZE > size) {
+            throw new IOException(MessageFormat.format(
+                    "invalid block file (broken footer): {0}",
+                    file));
+        }
+        ByteBuffer index = ByteBuffer.allocate(count * Long.BYTES);
+        readFully(channel, index, size - FOOTER_SIZE - index.capacity());
+        long[] results = new long[count];
+        for (int i = 0; i < count; i++) {
+            results[i] = index.getLong(i * Long.BYTES);
+        }
+        return results;
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException(MessageFormat.format(
+                        "unexpected end of block file (position={0})",
+                        offset));
+            }
+            offset += read;
+        }
+        buffer.flip();
+    }
+
+    static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Serializes data model objects by using their {@code Writable} methods.
+     * @param <T> the data model type
+     */
+    static final class Serialization<T> {
+
+        private final MethodHandle writer;
+
+        private final MethodHandle reader;
+
+        private Serialization(MethodHandle writer, MethodHandle reader) {
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        /**
+         * Returns the serialization of the data model type.
+         * @param <T> the data model type
+         * @param type the data model type
+         * @return the serialization
+         * @throws IOException if the data model type does not have {@code Writable} methods
+         */
+        static <T> Serialization<T> of(Class<T> type) throws IOException {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            try {
+                return new Serialization<>(
+                        lookup.findVirtual(type, "write", //$NON-NLS-1$
+                                MethodType.methodType(void.class, DataOutput.class)),
+                        lookup.findVirtual(type, "readFields", //$NON-NLS-1$
+                                MethodType.methodType(void.class, DataInput.class)));
+            } catch (ReflectiveOperationException e) {
+                throw new IOException(MessageFormat.format(
+                        "block file format requires Writable data model: {0}",
+                        type.getName()), e);
+            }
+        }
+
+        void write(T object, DataOutput output) throws IOException {
+            try {
+                writer.invoke(object, output);
+            } catch (IOException | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IOException(t);
+            }
+        }
+
+        void read(T object, DataInput input) throws IOException {
+            try {
+                reader.invoke(object, input);
+            } catch (IOException | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IOException(t);
+            }
+        }
+    }
+
+    /**
+     * A growable buffer of serialized records.
+     */
+    static final class RecordOutputBuffer extends ByteArrayOutputStream {
+
+        RecordOutputBuffer() {
+            super(1024);
+        }
+
+        byte[] getData() {
+            return buf;
+        }
+
+        int getLength() {
+            return count;
+        }
+    }
+
+    /**
+     * A reusable reader of serialized records.
+     */
+    static final class RecordInputBuffer extends ByteArrayInputStream {
+
+        RecordInputBuffer() {
+            super(new byte[0]);
+        }
+
+        void reset(byte[] data, int length) {
+            this.buf = data;
+            this.pos = 0;
+            this.count = length;
+            this.mark = 0;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.windgate.file.resource;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.asakusafw.windgate.core.resource.SourceDriver;
+
+/**
+ * An implementation for {@link SourceDriver} using the block file format.
+ * This driver reuses a single data model object, and {@link #get()} returns the same object for each record.
+ * @param <T> the type of target data
+ * @since 0.10.5
+ * @see BlockFileFormat
+ */
+class BlockFileSourceDriver<T> implements SourceDriver<T> {
+
+    private final Class<T> type;
+
+    private final File file;
+
+    private final BlockFileFormat.RecordInputBuffer records = new BlockFileFormat.RecordInputBuffer();
+
+    private final DataInputStream input = new DataInputStream(records);
+
+    private final Inflater inflater = new Inflater();
+
+    private BlockFileFormat.Serialization<T> serialization;
+
+    private FileChannel channel;
+
+    private long[] offsets;
+
+    private int nextBlock;
+
+    private int restRecords;
+
+    private ByteBuffer buffer;
+
+    private byte[] raw = new byte[0];
+
+    private T object;
+
+    private boolean canGet;
+
+    /**
+     * Creates a new instance.
+     * @param type the type of target data, must provide {@code Writable} methods
+     * @param file the target file
+     * @throws IllegalArgumentException if any parameter is {@code null}
+     */
+    BlockFileSourceDriver(Class<T> type, File file) {
+        if (type == null) {
+            throw new IllegalArgumentException("type must not be null"); //$NON-NLS-1$
+        }
+        if (file == null) {
+            throw new IllegalArgumentException("file must not be null"); //$NON-NLS-1$
+        }
+        this.type = type;
+        this.file = file;
+    }
+
+    @Override
+    public void prepare() throws IOException {
+        this.serialization = BlockFileFormat.Serialization.of(type);
+        try {
+            this.object = type.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IOException(MessageFormat.format(
+                    "failed to create data model object: {0}",
+                    type.getName()), e);
+        }
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.offsets = BlockFileFormat.getBlockOffsets(channel, file);
+        // a heap buffer, so that the inflater can read its backing array directly
+        this.buffer = ByteBuffer.allocate(BlockFileFormat.BLOCK_HEADER_SIZE);
+        this.nextBlock = 0;
+        this.restRecords = 0;
+        this.canGet = false;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        while (restRecords == 0) {
+            if (nextBlock >= offsets.length) {
+                canGet = false;
+                return false;
+            }
+            readBlock(offsets[nextBlock++]);
+        }
+        serialization.read(object, input);
+        restRecords--;
+        canGet = true;
+        return true;
+    }
+
+    private void readBlock(long offset) throws IOException {
+        buffer.clear();
+        buffer.limit(BlockFileFormat.BLOCK_HEADER_SIZE);
+        BlockFileFormat.readFully(channel, buffer, offset);
+        int rawSize = buffer.getInt();
+        int compressedSize = buffer.getInt();
+        int recordCount = buffer.getInt();
+        if (rawSize < 0 || compressedSize < 0 || recordCount < 0) {
+            throw new IOException(MessageFormat.format(
+                    "invalid block file (broken block header at {1}): {0}",
+                    file,
+                    offset));
+        }
+        if (buffer.capacity() < compressedSize) {
+            buffer = ByteBuffer.allocate(Math.max(compressedSize, buffer.capacity() * 2));
+        }
+        buffer.clear();
+        buffer.limit(compressedSize);
+        BlockFileFormat.readFully(channel, buffer, offset + BlockFileFormat.BLOCK_HEADER_SIZE);
+        if (raw.length < rawSize) {
+            raw = new byte[rawSize];
+        }
+        inflater.reset();
+        inflater.setInput(buffer.array(), buffer.arrayOffset(), compressedSize);
+        try {
+            int size = 0;
+            while (size < rawSize) {
+                int inflated = inflater.inflate(raw, size, rawSize - size);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                size += inflated;
+            }
+            if (size != rawSize) {
+                throw new IOException(MessageFormat.format(
+                        "invalid block file (truncated block at {1}): {0}",
+                        file,
+                        offset));
+            }
+        } catch (DataFormatException e) {
+            throw new IOException(MessageFormat.format(
+                    "invalid block file (broken block at {1}): {0}",
+                    file,
+                    offset), e);
+        }
+        records.reset(raw, rawSize);
+        restRecords = recordCount;
+    }
+
+    @Override
+    public T get() throws IOException {
+        if (canGet) {
+            return object;
+        }
+        throw new IOException();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            inflater.end();
+        }
+        channel = null;
+    }
+}
@@ -28,21 +28,36 @@ import com.asakusafw.windgate.core.resource.SourceDriver;
 /**
  * {@link ResourceManipulator} corresponded to {@link FileResourceMirror}.
  * @since 0.2.2
+ * @version 0.10.5
  */
 public class FileResourceManipulator extends ResourceManipulator {
 
     private final String name;
 
+    private final boolean blockFormat;
+
     /**
      * Creates a new instance.
      * @param name the resource name
      * @throws IllegalArgumentException if any parameter is {@code null}
      */
     public FileResourceManipulator(String name) {
+        this(name, false);
+    }
+
+    /**
+     * Creates a new instance.
+     * @param name the resource name
+     * @param blockFormat {@code true} to write files in the block file format, otherwise {@code false}
+     * @throws IllegalArgumentException if any parameter is {@code null}
+     * @since 0.10.5
+     */
+    public FileResourceManipulator(String name, boolean blockFormat) {
         if (name == null) {
             throw new IllegalArgumentException("name must not be null"); //$NON-NLS-1$
         }
         this.name = name;
+        this.blockFormat = blockFormat;
     }
 
     @Override
@@ -83,7 +98,7 @@ public class FileResourceManipulator extends ResourceManipulator {
     @Override
     public <T> DrainDriver<T> createDrainForSource(ProcessScript<T> script) throws IOException {
         File file = FileResourceMirror.getPath(script, DriverScript.Kind.SOURCE);
-        return new FileDrainDriver<>(script.getDataClass(), file);
+        return FileResourceMirror.createDrain(script.getDataClass(), file, blockFormat);
     }
 
     @Override
@@ -95,6 +110,6 @@ public class FileResourceManipulator extends ResourceManipulator {
     @Override
     public <T> DrainDriver<T> createDrainForDrain(ProcessScript<T> script) throws IOException {
         File file = FileResourceMirror.getPath(script, DriverScript.Kind.DRAIN);
-        return new FileDrainDriver<>(script.getDataClass(), file);
+        return FileResourceMirror.createDrain(script.getDataClass(), file, blockFormat);
     }
 }
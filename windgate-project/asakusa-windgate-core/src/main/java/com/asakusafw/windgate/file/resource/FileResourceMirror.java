@@ -30,22 +30,37 @@ import com.asakusafw.windgate.core.vocabulary.FileProcess;
 /**
  * {@link ResourceMirror} using files.
  * @since 0.2.2
+ * @version 0.10.5
  * @see FileProcess
  */
 public class FileResourceMirror extends ResourceMirror {
 
     private final String name;
 
+    private final boolean blockFormat;
+
     /**
      * Creates a new instance.
      * @param name the resource name
      * @throws IllegalArgumentException if any parameter is {@code null}
      */
     public FileResourceMirror(String name) {
+        this(name, false);
+    }
+
+    /**
+     * Creates a new instance.
+     * @param name the resource name
+     * @param blockFormat {@code true} to write files in the block file format, otherwise {@code false}
+     * @throws IllegalArgumentException if any parameter is {@code null}
+     * @since 0.10.5
+     */
+    public FileResourceMirror(String name, boolean blockFormat) {
         if (name == null) {
             throw new IllegalArgumentException("name must not be null"); //$NON-NLS-1$
         }
         this.name = name;
+        this.blockFormat = blockFormat;
     }
 
     @Override
@@ -67,7 +82,7 @@ public class FileResourceMirror extends ResourceMirror {
     @Override
     public <T> DrainDriver<T> createDrain(ProcessScript<T> script) throws IOException {
         File file = getPath(script, DriverScript.Kind.DRAIN);
-        return new FileDrainDriver<>(script.getDataClass(), file);
+        return createDrain(script.getDataClass(), file, blockFormat);
     }
 
     @Override
@@ -75,6 +90,13 @@ public class FileResourceMirror extends ResourceMirror {
         return;
     }
 
+    static <T> DrainDriver<T> createDrain(Class<T> type, File file, boolean blockFormat) {
+        if (blockFormat) {
+            return new BlockFileDrainDriver<>(type, file, BlockFileFormat.DEFAULT_BLOCK_SIZE);
+        }
+        return new FileDrainDriver<>(type, file);
+    }
+
     static File getPath(ProcessScript<?> script, DriverScript.Kind kind) throws IOException {
         assert script != null;
         assert kind != null;
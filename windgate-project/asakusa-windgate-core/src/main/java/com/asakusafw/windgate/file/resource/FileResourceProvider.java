@@ -16,6 +16,7 @@
 package com.asakusafw.windgate.file.resource;
 
 import java.io.IOException;
+import java.text.MessageFormat;
 
 import com.asakusafw.windgate.core.ParameterList;
 import com.asakusafw.windgate.core.resource.ResourceManipulator;
@@ -26,23 +27,61 @@ import com.asakusafw.windgate.core.resource.ResourceProvider;
 /**
  * An implementation {@link ResourceProvider} using file system.
  * @since 0.2.2
+ * @version 0.10.5
  */
 public class FileResourceProvider extends ResourceProvider {
 
+    /**
+     * The profile key of the output file format.
+     * @see #FORMAT_OBJECT
+     * @see #FORMAT_BLOCK
+     * @since 0.10.5
+     */
+    public static final String KEY_FORMAT = "format"; //$NON-NLS-1$
+
+    /**
+     * The format name which uses Java object serialization (default).
+     * @since 0.10.5
+     */
+    public static final String FORMAT_OBJECT = "object"; //$NON-NLS-1$
+
+    /**
+     * The format name which uses {@code Writable} serialization in compressed blocks.
+     * This format requires that the data models implement {@code Writable}.
+     * @since 0.10.5
+     */
+    public static final String FORMAT_BLOCK = "block"; //$NON-NLS-1$
+
     private volatile String name;
 
+    private volatile boolean blockFormat;
+
     @Override
     protected void configure(ResourceProfile profile) throws IOException {
         this.name = profile.getName();
+        String format = profile.getConfiguration().getOrDefault(KEY_FORMAT, FORMAT_OBJECT).trim();
+        if (format.equals(FORMAT_OBJECT)) {
+            this.blockFormat = false;
+        } else if (format.equals(FORMAT_BLOCK)) {
+            this.blockFormat = true;
+        } else {
+            throw new IOException(MessageFormat.format(
+                    "Unknown file format \"{0}\" (resource.{1}.{2}), must be one of {3} or {4}",
+                    format,
+                    profile.getName(),
+                    KEY_FORMAT,
+                    FORMAT_OBJECT,
+                    FORMAT_BLOCK));
+        }
     }
 
     @Override
     public ResourceMirror create(String sessionId, ParameterList arguments) throws IOException {
-        return new FileResourceMirror(name);
+        return new FileResourceMirror(name, blockFormat);
     }
 
     @Override
     public ResourceManipulator createManipulator(ParameterList arguments) throws IOException {
-        return new FileResourceManipulator(name);
+        return new FileResourceManipulator(name, blockFormat);
     }
 }
@@ -26,8 +26,10 @@ import com.asakusafw.windgate.core.resource.SourceDriver;
 
 /**
  * An implementation for {@link SourceDriver} using {@link ObjectInputStream}.
+ * If the target file is in the block file format, this reads it by using {@link BlockFileSourceDriver} instead.
  * @param <T> the type of target data
  * @since 0.2.2
+ * @version 0.10.5
  */
 class FileSourceDriver<T> implements SourceDriver<T> {
 
@@ -37,6 +39,8 @@ class FileSourceDriver<T> implements SourceDriver<T> {
 
     private ObjectInputStream input;
 
+    private SourceDriver<T> blocks;
+
     private boolean canGet;
 
     private T next;
@@ -60,6 +64,11 @@ class FileSourceDriver<T> implements SourceDriver<T> {
 
     @Override
     public void prepare() throws IOException {
+        if (BlockFileFormat.isBlockFile(file)) {
+            this.blocks = new BlockFileSourceDriver<>(type, file);
+            blocks.prepare();
+            return;
+        }
         boolean green = false;
         FileInputStream in = new FileInputStream(file);
         try {
@@ -76,6 +85,9 @@ class FileSourceDriver<T> implements SourceDriver<T> {
 
     @Override
     public boolean next() throws IOException {
+        if (blocks != null) {
+            return blocks.next();
+        }
         try {
             Object object = input.readObject();
             next = type.cast(object);
@@ -99,6 +111,9 @@ class FileSourceDriver<T> implements SourceDriver<T> {
 
     @Override
     public T get() throws IOException {
+        if (blocks != null) {
+            return blocks.get();
+        }
         if (canGet) {
             return next;
         }
@@ -107,6 +122,10 @@ class FileSourceDriver<T> implements SourceDriver<T> {
 
     @Override
     public void close() throws IOException {
+        if (blocks != null) {
+            blocks.close();
+        }
+        blocks = null;
         if (input != null) {
             input.close();
         }
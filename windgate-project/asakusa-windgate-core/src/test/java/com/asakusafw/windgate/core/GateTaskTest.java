@@ -155,6 +155,45 @@ public class GateTaskTest {
         assertThat(results, is(Arrays.asList("aaa", "bbb", "ccc")));
     }
 
+    /**
+     * Executes tasks on the shared runtime.
+     * @throws Exception if failed
+     */
+    @Test
+    public void execute_shared_runtime() throws Exception {
+        File in = folder.newFile("in");
+        File temp = folder.newFile("temp");
+        File out = folder.newFile("out");
+        put(in, "aaa", "bbb", "ccc");
+
+        try (GateRuntime runtime = new GateRuntime(profile())) {
+            GateScript importer = script(p("testing", "fs1", in, "fs2", temp));
+            try (GateTask task = new GateTask(
+                    runtime,
+                    importer,
+                    "testing",
+                    true,
+                    false,
+                    new ParameterList())) {
+                task.execute();
+            }
+
+            GateScript exporter = script(p("testing", "fs2", temp, "fs1", out));
+            try (GateTask task = new GateTask(
+                    runtime,
+                    exporter,
+                    "testing",
+                    false,
+                    true,
+                    new ParameterList())) {
+                task.execute();
+            }
+        }
+
+        List<String> results = get(out);
+        assertThat(results, is(Arrays.asList("aaa", "bbb", "ccc")));
+    }
+
     /**
      * Failed to open a session.
      * @throws Exception if failed
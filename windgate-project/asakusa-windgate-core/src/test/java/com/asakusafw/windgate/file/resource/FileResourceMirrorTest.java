@@ -18,12 +18,17 @@ package com.asakusafw.windgate.file.resource;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -126,6 +131,113 @@ public class FileResourceMirrorTest {
         }
     }
 
+    /**
+     * Test method for {@link FileResourceMirror#createDrain(com.asakusafw.windgate.core.ProcessScript)}
+     * with the block file format.
+     * @throws Exception if failed
+     */
+    @Test
+    public void createDrain_block() throws Exception {
+        File source = folder.newFile("source");
+        File drain = folder.newFile("drain");
+        try (FileResourceMirror resource = new FileResourceMirror("testing", true)) {
+            ProcessScript<Text> script = text(source, drain);
+            ProcessScript<Text> opposite = text(drain, source);
+            resource.prepare(gate(script, opposite));
+
+            try (DrainDriver<Text> driver = resource.createDrain(script)) {
+                driver.prepare();
+                driver.put(new Text("Hello"));
+                driver.put(new Text("World!"));
+            }
+            assertThat(BlockFileFormat.isBlockFile(drain), is(true));
+
+            try (SourceDriver<Text> verifier = resource.createSource(opposite)) {
+                verifier.prepare();
+                assertThat(verifier.next(), is(true));
+                assertThat(verifier.get(), is(new Text("Hello")));
+                assertThat(verifier.next(), is(true));
+                assertThat(verifier.get(), is(new Text("World!")));
+                assertThat(verifier.next(), is(false));
+            }
+        }
+    }
+
+    /**
+     * Reads block files which consist of multiple blocks.
+     * @throws Exception if failed
+     */
+    @Test
+    public void block_multiple() throws Exception {
+        File file = folder.newFile("blocks");
+        try (DrainDriver<Text> driver = new BlockFileDrainDriver<>(Text.class, file, 100)) {
+            driver.prepare();
+            for (int i = 0; i < 1000; i++) {
+                driver.put(new Text(String.valueOf(i)));
+            }
+        }
+        List<String> results = new ArrayList<>();
+        try (SourceDriver<Text> driver = new BlockFileSourceDriver<>(Text.class, file)) {
+            driver.prepare();
+            while (driver.next()) {
+                results.add(driver.get().toString());
+            }
+        }
+        assertThat(results, hasSize(1000));
+        for (int i = 0; i < 1000; i++) {
+            assertThat(results.get(i), is(String.valueOf(i)));
+        }
+    }
+
+    /**
+     * Reads block files which consist of large blocks.
+     * @throws Exception if failed
+     */
+    @Test
+    public void block_large() throws Exception {
+        File file = folder.newFile("blocks");
+        Random random = new Random(6502);
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            values.add(Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()));
+        }
+        try (DrainDriver<Text> driver = new BlockFileDrainDriver<>(Text.class, file, 64 * 1024)) {
+            driver.prepare();
+            for (String value : values) {
+                driver.put(new Text(value));
+            }
+        }
+        List<String> results = new ArrayList<>();
+        try (SourceDriver<Text> driver = new BlockFileSourceDriver<>(Text.class, file)) {
+            driver.prepare();
+            while (driver.next()) {
+                results.add(driver.get().toString());
+            }
+        }
+        assertThat(results, is(values));
+    }
+
+    /**
+     * Block files require {@code Writable} methods.
+     * @throws Exception if failed
+     */
+    @Test(expected = IOException.class)
+    public void block_not_writable() throws Exception {
+        File file = folder.newFile("blocks");
+        try (DrainDriver<String> driver = new BlockFileDrainDriver<>(String.class, file, 100)) {
+            driver.prepare();
+        }
+    }
+
+    private ProcessScript<Text> text(File source, File drain) {
+        return new ProcessScript<>(
+                "example",
+                "plain",
+                Text.class,
+                new DriverScript("fs", Collections.singletonMap(FileProcess.FILE.key(), source.getPath())),
+                new DriverScript("fs", Collections.singletonMap(FileProcess.FILE.key(), drain.getPath())));
+    }
+
     private GateScript gate(ProcessScript<?>... scripts) {
         return new GateScript("testing", Arrays.asList(scripts));
     }
@@ -147,4 +259,56 @@ public class FileResourceMirrorTest {
             }
         }
     }
+
+    /**
+     * A data model which provides {@code Writable} methods.
+     */
+    public static final class Text {
+
+        private String value;
+
+        /**
+         * Creates a new instance.
+         */
+        public Text() {
+            this("");
+        }
+
+        Text(String value) {
+            this.value = value;
+        }
+
+        /**
+         * Serializes this object.
+         * @param out the target output
+         * @throws IOException if failed
+         */
+        public void write(DataOutput out) throws IOException {
+            out.writeUTF(value);
+        }
+
+        /**
+         * Deserializes into this object.
+         * @param in the source input
+         * @throws IOException if failed
+         */
+        public void readFields(DataInput in) throws IOException {
+            value = in.readUTF();
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Text && ((Text) obj).value.equals(value);
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
 }
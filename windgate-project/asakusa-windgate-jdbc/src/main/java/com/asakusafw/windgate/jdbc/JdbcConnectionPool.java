@@ -0,0 +1,214 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.windgate.jdbc;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of idle JDBC connections of {@link JdbcProfile}.
+ * <p>
+ * Leased connections are returned into this pool when they are closed, after their current transaction is
+ * rolled back. Idle connections are validated before they are leased again.
+ * </p>
+ * @since 0.10.5
+ */
+final class JdbcConnectionPool implements Closeable {
+
+    static final Logger LOG = LoggerFactory.getLogger(JdbcConnectionPool.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final String url;
+
+    private final Deque<Connection> idle = new ArrayDeque<>();
+
+    private boolean closed;
+
+    /**
+     * Creates a new instance.
+     * @param url the database URL (for logging)
+     */
+    JdbcConnectionPool(String url) {
+        this.url = url;
+    }
+
+    /**
+     * Leases an idle connection in this pool.
+     * @param capacity the max number of idle connections in this pool
+     * @return the leased connection, or {@code null} if there are no available connections
+     */
+    Connection lease(int capacity) {
+        while (true) {
+            Connection physical;
+            synchronized (this) {
+                if (closed || idle.isEmpty()) {
+                    return null;
+                }
+                physical = idle.removeFirst();
+            }
+            if (isValid(physical)) {
+                LOG.debug("Reusing JDBC connection: {}", url); //$NON-NLS-1$
+                return wrap(physical, capacity);
+            }
+            dispose(physical);
+        }
+    }
+
+    /**
+     * Returns a connection which will be returned into this pool when it is closed.
+     * @param physical the physical connection
+     * @param capacity the max number of idle connections in this pool
+     * @return the leased connection
+     */
+    Connection wrap(Connection physical, int capacity) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new Lease(physical, capacity));
+    }
+
+    /**
+     * Returns the number of idle connections in this pool.
+     * @return the number of idle connections
+     */
+    synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    private void release(Connection physical, int capacity) {
+        if (reset(physical)) {
+            synchronized (this) {
+                if (closed == false && idle.size() < capacity) {
+                    idle.addFirst(physical);
+                    return;
+                }
+            }
+        }
+        dispose(physical);
+    }
+
+    private boolean isValid(Connection physical) {
+        try {
+            return physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            LOG.debug("Failed to validate JDBC connection: {}", url, e); //$NON-NLS-1$
+            return false;
+        }
+    }
+
+    private boolean reset(Connection physical) {
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (physical.getAutoCommit()) {
+                physical.setAutoCommit(false);
+            } else {
+                physical.rollback();
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            LOG.debug("Failed to reset JDBC connection: {}", url, e); //$NON-NLS-1$
+            return false;
+        }
+    }
+
+    private void dispose(Connection physical) {
+        LOG.debug("Disposing JDBC connection: {}", url); //$NON-NLS-1$
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            LOG.debug("Failed to close JDBC connection: {}", url, e); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Closes the idle connections in this pool.
+     * Connections which are currently leased will be closed when they are released.
+     */
+    @Override
+    public void close() {
+        List<Connection> connections;
+        synchronized (this) {
+            closed = true;
+            connections = new ArrayList<>(idle);
+            idle.clear();
+        }
+        connections.forEach(this::dispose);
+    }
+
+    private final class Lease implements InvocationHandler {
+
+        private final Connection physical;
+
+        private final int capacity;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Lease(Connection physical, int capacity) {
+            this.physical = physical;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (method.getDeclaringClass() == Object.class) {
+                switch (name) {
+                case "equals": //$NON-NLS-1$
+                    return proxy == args[0];
+                case "hashCode": //$NON-NLS-1$
+                    return System.identityHashCode(proxy);
+                case "toString": //$NON-NLS-1$
+                    return String.format("Leased(%s)", physical); //$NON-NLS-1$
+                default:
+                    break;
+                }
+            } else if (name.equals("close") && method.getParameterCount() == 0) { //$NON-NLS-1$
+                if (released.compareAndSet(false, true)) {
+                    release(physical, capacity);
+                }
+                return null;
+            } else if (name.equals("isClosed") && method.getParameterCount() == 0) { //$NON-NLS-1$
+                if (released.get()) {
+                    return true;
+                }
+            } else if (released.get()) {
+                throw new SQLException("Connection is already closed");
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -42,6 +42,7 @@ import com.asakusafw.windgate.core.util.PropertiesUtil;
  * A structured profile for {@link JdbcResourceMirror}.
  * @since 0.2.2
  * @since 0.9.0
+ * @version 0.10.5
  */
 public class JdbcProfile {
 
@@ -92,6 +93,12 @@ public class JdbcProfile {
      */
     public static final String KEY_CONNECT_RETRY_INTERVAL = "connect.retryInterval";
 
+    /**
+     * The profile key of {@link #getConnectPoolSize()}.
+     * @since 0.10.5
+     */
+    public static final String KEY_CONNECT_POOL_SIZE = "connect.poolSize";
+
     /**
      * The profile key of {@link #getTruncateStatement(String)}.
      * @since 0.2.4
@@ -134,6 +141,12 @@ public class JdbcProfile {
      */
     public static final int DEFAULT_CONNECT_RETRY_INTERVAL = 10;
 
+    /**
+     * The default value of {@link #KEY_CONNECT_POOL_SIZE}.
+     * @since 0.10.5
+     */
+    public static final int DEFAULT_CONNECT_POOL_SIZE = 0;
+
     /**
      * The default value of {@link #KEY_TRUNCATE_STATEMENT}.
      * @since 0.2.4
@@ -164,8 +177,12 @@ public class JdbcProfile {
 
     private volatile int connectRetryInterval = DEFAULT_CONNECT_RETRY_INTERVAL;
 
+    private volatile int connectPoolSize = DEFAULT_CONNECT_POOL_SIZE;
+
     private volatile String truncateStatement = DEFAULT_TRUNCATE_STATEMENT;
 
+    private final JdbcConnectionPool pool;
+
     /**
      * Creates a new instance.
      * @param resourceName the target resource name
@@ -228,6 +245,7 @@ public class JdbcProfile {
         this.user = user;
         this.password = password;
         this.connectionProperties = Collections.unmodifiableMap(connectionProperties);
+        this.pool = new JdbcConnectionPool(url);
     }
 
     /**
@@ -255,6 +273,7 @@ public class JdbcProfile {
         long batchPutUnit = extractLong(profile, KEY_BATCH_PUT_UNIT, 1, DEFAULT_BATCH_PUT_UNIT);
         int connectRetryCount = extractInt(profile, KEY_CONNECT_RETRY_COUNT, 0, DEFAULT_CONNECT_RETRY_COUNT);
         int connectRetryInterval = extractInt(profile, KEY_CONNECT_RETRY_INTERVAL, 1, DEFAULT_CONNECT_RETRY_INTERVAL);
+        int connectPoolSize = extractInt(profile, KEY_CONNECT_POOL_SIZE, 0, DEFAULT_CONNECT_POOL_SIZE);
         String truncateStatement = extract(profile, KEY_TRUNCATE_STATEMENT, false);
         if (truncateStatement == null) {
             truncateStatement = DEFAULT_TRUNCATE_STATEMENT;
@@ -278,6 +297,7 @@ public class JdbcProfile {
         result.setBatchPutUnit(batchPutUnit);
         result.setConnectRetryCount(connectRetryCount);
         result.setConnectRetryInterval(connectRetryInterval);
+        result.setConnectPoolSize(connectPoolSize);
         result.setTruncateStatement(truncateStatement);
         result.setOptimizations(optimizations);
         return result;
@@ -439,10 +459,44 @@ public class JdbcProfile {
 
     /**
      * Creates a new connection using this configuration.
+     * If {@link #getConnectPoolSize() connection pooling} is enabled, this may return a connection which was
+     * previously closed on this profile: closing it returns the connection into the pool instead of closing it
+     * physically, after its current transaction is rolled back.
      * @return the created connection
      * @throws IOException if failed to create a new connection
+     * @see #closeConnections()
      */
     public Connection openConnection() throws IOException {
+        int capacity = getConnectPoolSize();
+        if (capacity <= 0) {
+            return openPhysicalConnection();
+        }
+        Connection leased = pool.lease(capacity);
+        if (leased != null) {
+            return leased;
+        }
+        return pool.wrap(openPhysicalConnection(), capacity);
+    }
+
+    /**
+     * Closes the idle connections which are pooled in this profile.
+     * Connections which are currently in use will be closed physically when they are closed,
+     * and further connections are never pooled.
+     * @since 0.10.5
+     */
+    public void closeConnections() {
+        pool.close();
+    }
+
+    /**
+     * Returns the number of idle connections which are pooled in this profile.
+     * @return the number of idle connections
+     */
+    int getIdleConnectionCount() {
+        return pool.getIdleCount();
+    }
+
+    private Connection openPhysicalConnection() throws IOException {
         LOG.debug("Opening JDBC connection: {}",
                 url);
 
@@ -630,6 +684,28 @@ public class JdbcProfile {
         this.connectRetryInterval = value;
     }
 
+    /**
+     * Returns the max number of idle connections which are kept for reuse.
+     * @return the max number of idle connections, or {@code 0} if connection pooling is disabled
+     * @since 0.10.5
+     */
+    public int getConnectPoolSize() {
+        return connectPoolSize;
+    }
+
+    /**
+     * Configures {@link #KEY_CONNECT_POOL_SIZE}.
+     * @param value to set
+     * @throws IllegalArgumentException if {@code < 0}
+     * @since 0.10.5
+     */
+    public void setConnectPoolSize(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("connectPoolSize must be >= 0"); //$NON-NLS-1$
+        }
+        this.connectPoolSize = value;
+    }
+
     /**
      * Returns the truncate statement.
      * @param tableName target table name
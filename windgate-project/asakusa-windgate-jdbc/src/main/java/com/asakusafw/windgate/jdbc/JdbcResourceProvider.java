@@ -15,6 +15,7 @@
  */
 package com.asakusafw.windgate.jdbc;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.text.MessageFormat;
 
@@ -29,9 +30,14 @@ import com.asakusafw.windgate.core.resource.ResourceProvider;
 
 /**
  * An implementation of {@link ResourceProvider} using JDBC.
+ * <p>
+ * If {@link JdbcProfile#KEY_CONNECT_POOL_SIZE} is set, the connections are pooled in this provider,
+ * and they can be reused between sessions while the provider is shared, until this provider is closed.
+ * </p>
  * @since 0.2.2
+ * @version 0.10.5
  */
-public class JdbcResourceProvider extends ResourceProvider {
+public class JdbcResourceProvider extends ResourceProvider implements Closeable {
 
     static final Logger LOG = LoggerFactory.getLogger(JdbcResourceProvider.class);
 
@@ -67,4 +73,18 @@ public class JdbcResourceProvider extends ResourceProvider {
                 jdbcProfile.getResourceName());
         return new JdbcResourceManipulator(jdbcProfile, arguments);
     }
+
+    /**
+     * Closes the pooled connections of this provider.
+     * @since 0.10.5
+     */
+    @Override
+    public void close() {
+        JdbcProfile profile = jdbcProfile;
+        if (profile != null) {
+            LOG.debug("Closing JDBC resource provider {}",
+                    profile.getResourceName());
+            profile.closeConnections();
+        }
+    }
 }
@@ -19,6 +19,7 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Collections;
 import java.util.HashMap;
@@ -202,6 +203,70 @@ public class JdbcProfileTest {
         JdbcProfile.convert(toProfile(map));
     }
 
+    /**
+     * Reuses pooled connections.
+     * @throws Exception if failed
+     */
+    @Test
+    public void openConnection_pooled() throws Exception {
+        Map<String, String> map = new HashMap<>();
+        map.put(JdbcProfile.KEY_DRIVER, org.h2.Driver.class.getName());
+        map.put(JdbcProfile.KEY_URL, h2.getJdbcUrl());
+        map.put(JdbcProfile.KEY_CONNECT_POOL_SIZE, "1");
+        JdbcProfile profile = JdbcProfile.convert(toProfile(map));
+        assertThat(profile.getConnectPoolSize(), is(1));
+
+        Connection first;
+        try (Connection conn = profile.openConnection()) {
+            first = conn.unwrap(Connection.class);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("INSERT INTO SIMPLE (VALUE) VALUES ('Hello, world!')");
+            }
+            // closes without commit
+        }
+        assertThat(profile.getIdleConnectionCount(), is(1));
+        assertThat(h2.count("SIMPLE"), is(0));
+
+        try (Connection c1 = profile.openConnection();
+                Connection c2 = profile.openConnection()) {
+            assertThat(c1.unwrap(Connection.class), is(sameInstance(first)));
+            assertThat(c2.unwrap(Connection.class), is(not(sameInstance(first))));
+            assertThat(c1.getAutoCommit(), is(false));
+        }
+        assertThat(profile.getIdleConnectionCount(), is(1));
+
+        profile.closeConnections();
+        assertThat(profile.getIdleConnectionCount(), is(0));
+        assertThat(first.isClosed(), is(true));
+        try (Connection conn = profile.openConnection()) {
+            assertThat(conn.unwrap(Connection.class), is(not(sameInstance(first))));
+        }
+        assertThat(profile.getIdleConnectionCount(), is(0));
+    }
+
+    /**
+     * Closed leases are not available.
+     * @throws Exception if failed
+     */
+    @Test
+    public void openConnection_pooled_closed() throws Exception {
+        Map<String, String> map = new HashMap<>();
+        map.put(JdbcProfile.KEY_DRIVER, org.h2.Driver.class.getName());
+        map.put(JdbcProfile.KEY_URL, h2.getJdbcUrl());
+        map.put(JdbcProfile.KEY_CONNECT_POOL_SIZE, "1");
+        JdbcProfile profile = JdbcProfile.convert(toProfile(map));
+        Connection conn = profile.openConnection();
+        conn.close();
+        assertThat(conn.isClosed(), is(true));
+        try {
+            conn.createStatement();
+            fail();
+        } catch (SQLException e) {
+            // ok.
+        }
+        profile.closeConnections();
+    }
+
     /**
      * Attempts to open connection with invalid driver.
      * @throws Exception if failed
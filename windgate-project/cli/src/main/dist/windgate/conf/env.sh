@@ -17,3 +17,10 @@
 # Set your Hadoop installation path (optional)
 #export HADOOP_CMD="/usr/bin/hadoop"
 export HADOOP_USER_CLASSPATH_FIRST=true
+
+# Set the port number of the running WindGate daemon (optional)
+#export WINDGATE_DAEMON_PORT=15871
+
+# Set the token file path of the running WindGate daemon (optional)
+# (default: $HOME/.asakusa/windgate/daemon-$WINDGATE_DAEMON_PORT.token)
+#export WINDGATE_DAEMON_TOKEN="$HOME/.asakusa/windgate/daemon.token"
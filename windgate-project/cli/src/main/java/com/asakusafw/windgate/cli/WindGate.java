@@ -16,11 +16,17 @@
 package com.asakusafw.windgate.cli;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.text.MessageFormat;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.stream.Collectors;
 
 import org.apache.commons.cli.BasicParser;
 import org.apache.commons.cli.CommandLine;
@@ -31,6 +37,7 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 import com.asakusafw.runtime.core.context.RuntimeContext;
 import com.asakusafw.windgate.core.GateProfile;
@@ -43,6 +50,8 @@ import com.asakusafw.windgate.core.util.SafeCloser;
 
 /**
  * A WindGate main entry point.
+ * @since 0.2.2
+ * @version 0.10.5
  */
 public final class WindGate {
 
@@ -56,6 +65,8 @@ public final class WindGate {
     static final Option OPT_SESSION_ID;
     static final Option OPT_PLUGIN;
     static final Option OPT_ARGUMENTS;
+    static final Option OPT_DAEMON;
+    static final Option OPT_DAEMON_TOKEN;
 
     private static final Options OPTIONS;
     static {
@@ -92,6 +103,14 @@ public final class WindGate {
         OPT_ARGUMENTS.setArgName("key1=val1,key2=val2");
         OPT_ARGUMENTS.setRequired(false);
 
+        OPT_DAEMON = new Option("daemon", true, "port number of the running WindGate daemon");
+        OPT_DAEMON.setArgName("port-number");
+        OPT_DAEMON.setRequired(false);
+
+        OPT_DAEMON_TOKEN = new Option("daemonToken", true, "path to the token file of the running WindGate daemon");
+        OPT_DAEMON_TOKEN.setArgName("/path/to/token");
+        OPT_DAEMON_TOKEN.setRequired(false);
+
         OPTIONS = new Options();
         OPTIONS.addOption(OPT_MODE);
         OPTIONS.addOption(OPT_PROFILE);
@@ -99,6 +118,8 @@ public final class WindGate {
         OPTIONS.addOption(OPT_SESSION_ID);
         OPTIONS.addOption(OPT_PLUGIN);
         OPTIONS.addOption(OPT_ARGUMENTS);
+        OPTIONS.addOption(OPT_DAEMON);
+        OPTIONS.addOption(OPT_DAEMON_TOKEN);
     }
 
     private WindGate() {
@@ -123,6 +144,10 @@ public final class WindGate {
     }
 
     static int execute(String[] args) {
+        Integer forwarded = forward(args);
+        if (forwarded != null) {
+            return forwarded;
+        }
         try (SafeCloser<GateTask> closer = new SafeCloser<>()) {
             try {
                 Configuration conf = parseConfiguration(args);
@@ -164,6 +189,70 @@ public final class WindGate {
         }
     }
 
+    private static Integer forward(String[] args) {
+        WindGateDaemon.Request request;
+        int port;
+        File tokenFile;
+        try {
+            CommandLine cmd = new BasicParser().parse(OPTIONS, args);
+            String daemon = cmd.getOptionValue(OPT_DAEMON.getOpt());
+            if (daemon == null || daemon.isEmpty()) {
+                return null;
+            }
+            LOG.debug("WindGate daemon: {}", daemon);
+            port = Integer.parseInt(daemon);
+            String token = cmd.getOptionValue(OPT_DAEMON_TOKEN.getOpt());
+            tokenFile = token == null || token.isEmpty() ? WindGateDaemon.getDefaultTokenFile(port) : new File(token);
+            List<String> plugins = CommandLineUtil.parseFileList(cmd.getOptionValue(OPT_PLUGIN.getOpt())).stream()
+                    .map(File::getAbsolutePath)
+                    .collect(Collectors.toList());
+            request = new WindGateDaemon.Request(
+                    cmd.getOptionValue(OPT_MODE.getOpt()),
+                    toAbsolute(cmd.getOptionValue(OPT_PROFILE.getOpt())),
+                    toAbsolute(cmd.getOptionValue(OPT_SCRIPT.getOpt())),
+                    cmd.getOptionValue(OPT_SESSION_ID.getOpt()),
+                    cmd.getOptionValue(OPT_ARGUMENTS.getOpt()),
+                    plugins,
+                    RuntimeContext.get().unapply(),
+                    getLogContext());
+        } catch (ParseException | URISyntaxException | RuntimeException e) {
+            // continues without the daemon, and then reports the error
+            LOG.debug("invalid WindGate daemon request", e);
+            return null;
+        }
+        String token;
+        try {
+            token = WindGateDaemon.readToken(tokenFile);
+        } catch (IOException e) {
+            // the daemon is not running, or the current user is not allowed to use it
+            WGLOG.warn(e, "W02002", port);
+            return null;
+        }
+        try {
+            return WindGateDaemon.submit(port, token, request);
+        } catch (ConnectException e) {
+            WGLOG.warn(e, "W02002", port);
+            return null;
+        } catch (IOException e) {
+            // the request may be already running on the daemon
+            WGLOG.error(e, "E00002");
+            return 1;
+        }
+    }
+
+    private static String toAbsolute(String path) throws URISyntaxException {
+        URI uri = CommandLineUtil.toUri(path);
+        if (uri.getScheme() != null) {
+            return path;
+        }
+        return new File(path).getAbsoluteFile().toURI().toString();
+    }
+
+    private static Map<String, String> getLogContext() {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return context == null ? Collections.emptyMap() : context;
+    }
+
     static Configuration parseConfiguration(String[] args) throws ParseException {
         assert args != null;
         LOG.debug("Analyzing WindGate bootstrap arguments: {}", Arrays.toString(args));
@@ -0,0 +1,733 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.windgate.cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import com.asakusafw.runtime.core.context.RuntimeContext;
+import com.asakusafw.windgate.core.GateProfile;
+import com.asakusafw.windgate.core.GateRuntime;
+import com.asakusafw.windgate.core.GateScript;
+import com.asakusafw.windgate.core.GateTask;
+import com.asakusafw.windgate.core.ProfileContext;
+import com.asakusafw.windgate.core.WindGateLogger;
+
+/**
+ * A resident WindGate process which accepts gate scripts from {@link WindGate} via a local socket.
+ * <p>
+ * This keeps loaded profiles, their providers and worker threads between individual requests.
+ * JDBC resources also reuse their connections between requests if {@code connect.poolSize} is set in the profile.
+ * Other resource connections (e.g. SSH) are still opened for each request, because they are remote commands
+ * bound to the individual transfer and cannot be reused.
+ * Each request still attaches its session through the session provider,
+ * so that the session locking and aborting the session from {@link WindGateAbort} work as usual.
+ * If the requesting client is disconnected, the corresponding request will be interrupted.
+ * </p>
+ * <p>
+ * Clients must present the token which this daemon writes into its token file on start-up,
+ * and the token file is only readable from the daemon owner.
+ * Each request carries the client runtime context, plug-ins, and profile path:
+ * requests on different runtime contexts never run at the same time, and
+ * the cached profile is reloaded if its contents have been changed since the last request.
+ * </p>
+ * @since 0.10.5
+ */
+public final class WindGateDaemon implements Closeable {
+
+    static final WindGateLogger WGLOG = new WindGateCliLogger(WindGateDaemon.class);
+
+    static final Logger LOG = LoggerFactory.getLogger(WindGateDaemon.class);
+
+    static final int MAGIC = 0x57474431; // 'WGD1'
+
+    static final int TOKEN_BYTES = 32;
+
+    static final Option OPT_PORT;
+    static final Option OPT_PLUGIN;
+    static final Option OPT_TOKEN;
+
+    private static final Options OPTIONS;
+    static {
+        OPT_PORT = new Option("port", true, "listening port on the loop-back address");
+        OPT_PORT.setArgName("port-number");
+        OPT_PORT.setRequired(true);
+
+        OPT_PLUGIN = new Option("plugin", true, "WindGate plug-ins");
+        OPT_PLUGIN.setArgName("plugin-1.jar" + File.pathSeparatorChar + "plugin-2.jar");
+        OPT_PLUGIN.setRequired(false);
+
+        OPT_TOKEN = new Option("token", true, "path to the token file");
+        OPT_TOKEN.setArgName("/path/to/token");
+        OPT_TOKEN.setRequired(false);
+
+        OPTIONS = new Options();
+        OPTIONS.addOption(OPT_PORT);
+        OPTIONS.addOption(OPT_PLUGIN);
+        OPTIONS.addOption(OPT_TOKEN);
+    }
+
+    private final ServerSocket server;
+
+    private final ClassLoader loader;
+
+    private final File tokenFile;
+
+    private final byte[] token;
+
+    private final Map<List<String>, ClassLoader> loaders = new HashMap<>();
+
+    private final Map<String, RuntimeEntry> runtimes = new HashMap<>();
+
+    private final ContextGate contexts = new ContextGate();
+
+    private final ExecutorService workers;
+
+    /**
+     * Creates a new instance.
+     * @param port the listening port on the loop-back address, or {@code 0} to use an ephemeral port
+     * @param loader the class loader to load profiles and scripts
+     * @param tokenFile the token file, or {@code null} to use the {@link #getDefaultTokenFile(int) default one}
+     * @throws IOException if failed to open the server socket or to create the token file
+     */
+    public WindGateDaemon(int port, ClassLoader loader, File tokenFile) throws IOException {
+        this.server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        this.loader = loader;
+        this.tokenFile = tokenFile == null ? getDefaultTokenFile(server.getLocalPort()) : tokenFile;
+        this.token = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(token);
+        try {
+            writeToken(this.tokenFile, token);
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+        this.workers = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, String.format("WindGateDaemon-%d", counter.incrementAndGet()));
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Returns the default token file of the daemon on the target port.
+     * @param port the daemon port on the loop-back address
+     * @return the default token file
+     */
+    public static File getDefaultTokenFile(int port) {
+        File home = new File(System.getProperty("user.home")); //$NON-NLS-1$
+        return new File(home, String.format(".asakusa/windgate/daemon-%d.token", port)); //$NON-NLS-1$
+    }
+
+    private static void writeToken(File file, byte[] token) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent.mkdirs() == false && parent.isDirectory() == false) {
+            throw new IOException(MessageFormat.format(
+                    "Failed to create the token directory: {0}",
+                    parent));
+        }
+        Files.deleteIfExists(file.toPath());
+        Files.createFile(file.toPath());
+        try {
+            Files.setPosixFilePermissions(file.toPath(), PosixFilePermissions.fromString("rw-------")); //$NON-NLS-1$
+        } catch (UnsupportedOperationException e) {
+            LOG.debug("file system does not support POSIX permissions: {}", file, e);
+            if ((file.setReadable(false, false) && file.setReadable(true, true)) == false) {
+                LOG.warn(MessageFormat.format(
+                        "failed to restrict the token file permissions: {0}",
+                        file));
+            }
+        }
+        Files.write(file.toPath(), toHex(token).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Reads the token from the token file.
+     * @param file the token file
+     * @return the token
+     * @throws IOException if failed to read the token file
+     */
+    static String readToken(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII).trim();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder buf = new StringBuilder();
+        for (byte b : bytes) {
+            buf.append(String.format("%02x", b & 0xff)); //$NON-NLS-1$
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Program entry.
+     * @param args program arguments
+     */
+    public static void main(String... args) {
+        CommandLineUtil.prepareLogContext();
+        CommandLineUtil.prepareRuntimeContext();
+        WindGateDaemon daemon;
+        try {
+            daemon = parseConfiguration(args);
+        } catch (Exception e) {
+            HelpFormatter formatter = new HelpFormatter();
+            formatter.setWidth(Integer.MAX_VALUE);
+            formatter.printHelp(
+                    MessageFormat.format(
+                            "java -classpath ... {0}",
+                            WindGateDaemon.class.getName()),
+                    OPTIONS,
+                    true);
+            WGLOG.error(e, "E02001");
+            System.exit(1);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::close));
+        WGLOG.info("I02000", daemon.getAddress(), daemon.tokenFile);
+        daemon.run();
+        WGLOG.info("I02999");
+    }
+
+    static WindGateDaemon parseConfiguration(String[] args) throws ParseException, IOException {
+        assert args != null;
+        LOG.debug("Analyzing WindGateDaemon bootstrap arguments: {}", Arrays.toString(args));
+
+        CommandLineParser parser = new BasicParser();
+        CommandLine cmd = parser.parse(OPTIONS, args);
+
+        String port = cmd.getOptionValue(OPT_PORT.getOpt());
+        LOG.debug("WindGate daemon port: {}", port);
+        String plugins = cmd.getOptionValue(OPT_PLUGIN.getOpt());
+        LOG.debug("WindGate plugin: {}", plugins);
+        String token = cmd.getOptionValue(OPT_TOKEN.getOpt());
+        LOG.debug("WindGate daemon token file: {}", token);
+
+        int portNumber;
+        try {
+            portNumber = Integer.parseInt(port);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Invalid port number \"{0}\".",
+                    port), e);
+        }
+        LOG.debug("Loading plugins: {}", plugins);
+        List<File> pluginFiles = CommandLineUtil.parseFileList(plugins);
+        ClassLoader loader = CommandLineUtil.buildPluginLoader(WindGateDaemon.class.getClassLoader(), pluginFiles);
+        return new WindGateDaemon(portNumber, loader, token == null || token.isEmpty() ? null : new File(token));
+    }
+
+    /**
+     * Returns the listening address.
+     * @return the listening address
+     */
+    public InetSocketAddress getAddress() {
+        return (InetSocketAddress) server.getLocalSocketAddress();
+    }
+
+    /**
+     * Returns the token file.
+     * @return the token file
+     */
+    public File getTokenFile() {
+        return tokenFile;
+    }
+
+    /**
+     * Accepts requests until this daemon is closed.
+     */
+    public void run() {
+        while (server.isClosed() == false) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                if (server.isClosed() == false) {
+                    LOG.warn("failed to accept WindGate request", e);
+                }
+                continue;
+            }
+            workers.execute(() -> handle(socket));
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket) {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            int magic = input.readInt();
+            if (magic != MAGIC) {
+                throw new SocketException(MessageFormat.format(
+                        "invalid WindGate request header: {0}",
+                        Integer.toHexString(magic)));
+            }
+            byte[] presented = input.readUTF().getBytes(StandardCharsets.US_ASCII);
+            if (MessageDigest.isEqual(presented, toHex(token).getBytes(StandardCharsets.US_ASCII)) == false) {
+                WGLOG.warn("W02003", s.getRemoteSocketAddress());
+                return;
+            }
+            Request request = Request.read(input);
+            int status = execute(request, s.getInputStream());
+            output.writeInt(status);
+            output.flush();
+        } catch (IOException e) {
+            LOG.warn("failed to process WindGate request", e);
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    private int execute(Request request, InputStream disconnection) {
+        request.context.forEach(MDC::put);
+        WGLOG.info("I02001",
+                request.mode,
+                request.profile,
+                request.script,
+                request.sessionId);
+        long start = System.currentTimeMillis();
+        int status;
+        Thread current = Thread.currentThread();
+        Object lock = new Object();
+        boolean[] finished = new boolean[1];
+        Thread watcher = new Thread(() -> {
+            try {
+                // clients never send any more bytes: only returns on disconnection
+                disconnection.read();
+            } catch (IOException e) {
+                LOG.trace("client connection is closed", e);
+            }
+            synchronized (lock) {
+                if (finished[0] == false) {
+                    WGLOG.warn("W02001", request.sessionId);
+                    current.interrupt();
+                }
+            }
+        }, String.format("WindGateDaemon-watcher-%s", request.sessionId)); //$NON-NLS-1$
+        watcher.setDaemon(true);
+        watcher.start();
+        try {
+            status = execute(request);
+        } finally {
+            synchronized (lock) {
+                finished[0] = true;
+                Thread.interrupted();
+            }
+        }
+        long end = System.currentTimeMillis();
+        WGLOG.info("I02002",
+                status,
+                end - start,
+                request.sessionId);
+        return status;
+    }
+
+    int execute(Request request) {
+        ExecutionKind mode = ExecutionKind.parse(request.mode);
+        RuntimeContext context = RuntimeContext.DEFAULT.apply(request.runtime);
+        LOG.debug("Runtime context: {}", context);
+        try {
+            contexts.acquire(context);
+        } catch (InterruptedException e) {
+            WGLOG.error(e, "E02002", request.sessionId);
+            return 1;
+        }
+        try (RuntimeLease lease = acquireRuntime(request);
+                GateTask task = createTask(request, mode, lease.entry.runtime, lease.entry.loader)) {
+            if (context.canExecute(task)) {
+                task.execute();
+            }
+            return 0;
+        } catch (Exception e) {
+            WGLOG.error(e, "E02002", request.sessionId);
+            return 1;
+        } finally {
+            contexts.release();
+        }
+    }
+
+    private GateTask createTask(
+            Request request, ExecutionKind mode,
+            GateRuntime runtime, ClassLoader scriptLoader) throws IOException {
+        if (mode == null) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Invalid mode \"{0}\". The mode must be one of {1}",
+                    request.mode,
+                    Arrays.toString(ExecutionKind.values())));
+        }
+        if (request.sessionId.isEmpty()) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Invalid session ID \"{0}\". The session ID must not be empty.",
+                    request.sessionId));
+        }
+        GateScript script;
+        LOG.debug("Loading script: {}", request.script);
+        try {
+            URI uri = CommandLineUtil.toUri(request.script);
+            Properties properties = CommandLineUtil.loadProperties(uri, scriptLoader);
+            script = GateScript.loadFrom(CommandLineUtil.toName(uri), properties, scriptLoader);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Invalid script \"{0}\".",
+                    request.script), e);
+        }
+        return new GateTask(
+                runtime,
+                script,
+                request.sessionId,
+                mode.createsSession,
+                mode.completesSession,
+                CommandLineUtil.parseArguments(request.arguments));
+    }
+
+    private ClassLoader getLoader(List<String> plugins) {
+        if (plugins.isEmpty()) {
+            return loader;
+        }
+        synchronized (loaders) {
+            return loaders.computeIfAbsent(plugins, k -> {
+                LOG.debug("Loading plugins: {}", k);
+                List<File> files = k.stream()
+                        .map(File::new)
+                        .collect(Collectors.toList());
+                return CommandLineUtil.buildPluginLoader(loader, files);
+            });
+        }
+    }
+
+    private RuntimeLease acquireRuntime(Request request) throws IOException {
+        ClassLoader profileLoader = getLoader(request.plugins);
+        LOG.debug("Loading profile: {}", request.profile);
+        URI uri;
+        Properties properties;
+        try {
+            uri = CommandLineUtil.toUri(request.profile);
+            properties = CommandLineUtil.loadProperties(uri, profileLoader);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Invalid profile \"{0}\".",
+                    request.profile), e);
+        }
+        String key = request.profile + File.pathSeparator + String.join(File.pathSeparator, request.plugins);
+        RuntimeEntry created = null;
+        try {
+            while (true) {
+                RuntimeLease lease = null;
+                RuntimeEntry stale = null;
+                synchronized (runtimes) {
+                    RuntimeEntry cached = runtimes.get(key);
+                    if (cached != null && cached.properties.equals(properties)) {
+                        cached.users++;
+                        lease = new RuntimeLease(cached);
+                    } else if (created != null) {
+                        if (cached != null) {
+                            WGLOG.info("I02003", request.profile);
+                            cached.stale = true;
+                            if (cached.users == 0) {
+                                stale = cached;
+                            }
+                        }
+                        created.users++;
+                        runtimes.put(key, created);
+                        lease = new RuntimeLease(created);
+                        created = null;
+                    }
+                }
+                if (stale != null) {
+                    stale.runtime.close();
+                }
+                if (lease != null) {
+                    return lease;
+                }
+                // builds the runtime without locking the others, and then publishes it only if it is still absent
+                GateRuntime runtime = createRuntime(request, uri, properties, profileLoader);
+                created = new RuntimeEntry(properties, runtime, profileLoader);
+            }
+        } finally {
+            if (created != null) {
+                created.runtime.close();
+            }
+        }
+    }
+
+    private static GateRuntime createRuntime(
+            Request request, URI uri, Properties properties, ClassLoader profileLoader) throws IOException {
+        GateProfile profile;
+        try {
+            ProfileContext context = ProfileContext.system(profileLoader);
+            profile = GateProfile.loadFrom(CommandLineUtil.toName(uri), properties, context);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Invalid profile \"{0}\".",
+                    request.profile), e);
+        }
+        return new GateRuntime(profile);
+    }
+
+    void releaseRuntime(RuntimeEntry entry) {
+        boolean close;
+        synchronized (runtimes) {
+            entry.users--;
+            close = entry.stale && entry.users == 0;
+        }
+        if (close) {
+            entry.runtime.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            server.close();
+        } catch (IOException e) {
+            LOG.debug("failed to close server socket", e);
+        }
+        workers.shutdownNow();
+        synchronized (runtimes) {
+            runtimes.values().forEach(it -> it.runtime.close());
+            runtimes.clear();
+        }
+        synchronized (loaders) {
+            for (ClassLoader l : loaders.values()) {
+                if (l instanceof Closeable) {
+                    try {
+                        ((Closeable) l).close();
+                    } catch (IOException e) {
+                        LOG.debug("failed to close plugin class loader", e);
+                    }
+                }
+            }
+            loaders.clear();
+        }
+        try {
+            Files.deleteIfExists(tokenFile.toPath());
+        } catch (IOException e) {
+            LOG.debug("failed to delete token file: {}", tokenFile, e);
+        }
+    }
+
+    /**
+     * Submits a request to the running daemon.
+     * @param port the daemon port on the loop-back address
+     * @param token the token of the daemon
+     * @param request the request
+     * @return the exit status
+     * @throws IOException if failed to communicate with the daemon
+     */
+    static int submit(int port, String token, Request request) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            output.writeInt(MAGIC);
+            output.writeUTF(token);
+            request.write(output);
+            output.flush();
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            return input.readInt();
+        }
+    }
+
+    /**
+     * A WindGate request.
+     */
+    static final class Request {
+
+        final String mode;
+
+        final String profile;
+
+        final String script;
+
+        final String sessionId;
+
+        final String arguments;
+
+        final List<String> plugins;
+
+        final Map<String, String> runtime;
+
+        final Map<String, String> context;
+
+        Request(String mode, String profile, String script, String sessionId, String arguments,
+                List<String> plugins, Map<String, String> runtime, Map<String, String> context) {
+            this.mode = mode;
+            this.profile = profile;
+            this.script = script;
+            this.sessionId = sessionId;
+            this.arguments = arguments == null ? "" : arguments;
+            this.plugins = Collections.unmodifiableList(new ArrayList<>(plugins));
+            this.runtime = new TreeMap<>(runtime);
+            this.context = new TreeMap<>(context);
+        }
+
+        void write(DataOutputStream output) throws IOException {
+            output.writeUTF(mode);
+            output.writeUTF(profile);
+            output.writeUTF(script);
+            output.writeUTF(sessionId);
+            output.writeUTF(arguments);
+            output.writeInt(plugins.size());
+            for (String plugin : plugins) {
+                output.writeUTF(plugin);
+            }
+            writeMap(output, runtime);
+            writeMap(output, context);
+        }
+
+        private static void writeMap(DataOutputStream output, Map<String, String> map) throws IOException {
+            output.writeInt(map.size());
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeUTF(entry.getValue());
+            }
+        }
+
+        static Request read(DataInputStream input) throws IOException {
+            String mode = input.readUTF();
+            String profile = input.readUTF();
+            String script = input.readUTF();
+            String sessionId = input.readUTF();
+            String arguments = input.readUTF();
+            int size = input.readInt();
+            List<String> plugins = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                plugins.add(input.readUTF());
+            }
+            Map<String, String> runtime = readMap(input);
+            Map<String, String> context = readMap(input);
+            return new Request(mode, profile, script, sessionId, arguments, plugins, runtime, context);
+        }
+
+        private static Map<String, String> readMap(DataInputStream input) throws IOException {
+            int size = input.readInt();
+            Map<String, String> results = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                results.put(input.readUTF(), input.readUTF());
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Switches the global runtime context between requests.
+     * Requests on the same runtime context can run concurrently.
+     */
+    private static final class ContextGate {
+
+        private RuntimeContext active;
+
+        private int running;
+
+        ContextGate() {
+            return;
+        }
+
+        synchronized void acquire(RuntimeContext context) throws InterruptedException {
+            while (running > 0 && context.equals(active) == false) {
+                wait();
+            }
+            if (running == 0) {
+                RuntimeContext.set(context);
+                active = context;
+            }
+            running++;
+        }
+
+        synchronized void release() {
+            running--;
+            if (running == 0) {
+                notifyAll();
+            }
+        }
+    }
+
+    private static final class RuntimeEntry {
+
+        final Properties properties;
+
+        final GateRuntime runtime;
+
+        final ClassLoader loader;
+
+        int users;
+
+        boolean stale;
+
+        RuntimeEntry(Properties properties, GateRuntime runtime, ClassLoader loader) {
+            this.properties = properties;
+            this.runtime = runtime;
+            this.loader = loader;
+        }
+    }
+
+    private final class RuntimeLease implements AutoCloseable {
+
+        final RuntimeEntry entry;
+
+        RuntimeLease(RuntimeEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public void close() {
+            releaseRuntime(entry);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.windgate.cli;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.asakusafw.runtime.core.context.RuntimeContext;
+import com.asakusafw.runtime.core.context.RuntimeContext.ExecutionMode;
+import com.asakusafw.windgate.core.process.BasicProcessProvider;
+import com.asakusafw.windgate.file.resource.FileResourceProvider;
+import com.asakusafw.windgate.file.session.FileSessionProvider;
+
+/**
+ * Test for {@link WindGateDaemon}.
+ */
+public class WindGateDaemonTest {
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private WindGateDaemon daemon;
+
+    private Thread thread;
+
+    /**
+     * Starts the daemon.
+     * @throws Exception if failed
+     */
+    @Before
+    public void setUp() throws Exception {
+        daemon = new WindGateDaemon(0, getClass().getClassLoader(), new File(folder.getRoot(), "daemon.token"));
+        thread = new Thread(daemon::run);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the daemon.
+     * @throws Exception if failed
+     */
+    @After
+    public void tearDown() throws Exception {
+        daemon.close();
+        thread.join(10000);
+        RuntimeContext.set(RuntimeContext.DEFAULT);
+    }
+
+    /**
+     * Simple execution.
+     * @throws Exception if failed
+     */
+    @Test
+    public void simple() throws Exception {
+        File profile = profile();
+        File in = put(folder.newFile(), "aaa", "bbb", "ccc");
+        File out = folder.newFile();
+
+        int status = submit(profile, "oneshot", script(in, out), "testing");
+        assertThat(status, is(0));
+        assertThat(get(out), is(Arrays.asList("aaa", "bbb", "ccc")));
+    }
+
+    /**
+     * Executions share the same session.
+     * @throws Exception if failed
+     */
+    @Test
+    public void session() throws Exception {
+        File profile = profile();
+        File in = put(folder.newFile(), "aaa", "bbb", "ccc");
+        File temp = folder.newFile();
+        File out = folder.newFile();
+
+        assertThat(submit(profile, "begin", script(in, temp), "testing"), is(0));
+
+        // the session is already created
+        assertThat(submit(profile, "begin", script(temp, out), "testing"), is(not(0)));
+
+        assertThat(submit(profile, "end", script(temp, out), "testing"), is(0));
+        assertThat(get(out), is(Arrays.asList("aaa", "bbb", "ccc")));
+
+        // the session is already completed
+        assertThat(submit(profile, "end", script(temp, out), "testing"), is(not(0)));
+    }
+
+    /**
+     * Invalid requests.
+     * @throws Exception if failed
+     */
+    @Test
+    public void invalid() throws Exception {
+        File profile = profile();
+        File in = put(folder.newFile(), "aaa", "bbb", "ccc");
+        File out = folder.newFile();
+
+        assertThat(submit(profile, "UNKNOWN", script(in, out), "testing"), is(not(0)));
+        assertThat(submit(profile, "oneshot", script(in, out), ""), is(not(0)));
+        assertThat(submit(folder.newFile(), "oneshot", script(in, out), "testing"), is(not(0)));
+    }
+
+    /**
+     * Requests without the valid token are rejected.
+     * @throws Exception if failed
+     */
+    @Test
+    public void invalid_token() throws Exception {
+        File profile = profile();
+        File in = put(folder.newFile(), "aaa", "bbb", "ccc");
+        File out = folder.newFile();
+
+        assertThat(daemon.getTokenFile().canRead(), is(true));
+        try {
+            WindGateDaemon.submit(daemon.getAddress().getPort(), "INVALID", request(
+                    profile.toURI().toString(), "oneshot", script(in, out).toURI().toString(), "testing",
+                    Collections.emptyList(), Collections.emptyMap()));
+            fail();
+        } catch (IOException e) {
+            // ok.
+        }
+        assertThat(out.length(), is(0L));
+    }
+
+    /**
+     * Requests run on the client runtime context.
+     * @throws Exception if failed
+     */
+    @Test
+    public void runtime_context() throws Exception {
+        File profile = profile();
+        File in = put(folder.newFile(), "aaa", "bbb", "ccc");
+        File out = folder.newFile();
+
+        Map<String, String> runtime = RuntimeContext.DEFAULT.mode(ExecutionMode.SIMULATION).unapply();
+        int status = submit(request(
+                profile.toURI().toString(), "oneshot", script(in, out).toURI().toString(), "testing",
+                Collections.emptyList(), runtime));
+        assertThat(status, is(0));
+
+        // simulation mode does not move any data
+        assertThat(out.length(), is(0L));
+    }
+
+    /**
+     * Scripts are loaded from the client plug-ins.
+     * @throws Exception if failed
+     */
+    @Test
+    public void plugin() throws Exception {
+        File profile = profile();
+        File in = put(folder.newFile(), "aaa", "bbb", "ccc");
+        File out = folder.newFile();
+        File plugin = folder.newFolder();
+        File script = script(in, out);
+        Files.copy(script.toPath(), new File(plugin, "testing-script.properties").toPath());
+
+        int status = submit(request(
+                profile.toURI().toString(), "oneshot", "classpath:testing-script.properties", "testing",
+                Collections.singletonList(plugin.getAbsolutePath()), Collections.emptyMap()));
+        assertThat(status, is(0));
+        assertThat(get(out), is(Arrays.asList("aaa", "bbb", "ccc")));
+    }
+
+    /**
+     * Modified profiles are reloaded.
+     * @throws Exception if failed
+     */
+    @Test
+    public void reload() throws Exception {
+        File profile = profile();
+        File in = put(folder.newFile(), "aaa", "bbb", "ccc");
+        File temp = folder.newFile();
+
+        assertThat(submit(profile, "begin", script(in, temp), "testing"), is(0));
+        assertThat(submit(profile, "begin", script(in, temp), "testing"), is(not(0)));
+
+        // changes the session directory
+        Properties properties = new Properties();
+        try (InputStream input = new FileInputStream(profile)) {
+            properties.load(input);
+        }
+        properties.setProperty("session." + FileSessionProvider.KEY_DIRECTORY,
+                folder.newFolder().getAbsolutePath());
+        try (OutputStream output = new FileOutputStream(profile)) {
+            properties.store(output, null);
+        }
+        assertThat(submit(profile, "begin", script(in, temp), "testing"), is(0));
+    }
+
+    private int submit(File profile, String mode, File script, String sessionId) throws IOException {
+        return submit(request(
+                profile.toURI().toString(), mode, script.toURI().toString(), sessionId,
+                Collections.emptyList(), Collections.emptyMap()));
+    }
+
+    private int submit(WindGateDaemon.Request request) throws IOException {
+        return WindGateDaemon.submit(
+                daemon.getAddress().getPort(),
+                WindGateDaemon.readToken(daemon.getTokenFile()),
+                request);
+    }
+
+    private static WindGateDaemon.Request request(
+            String profile, String mode, String script, String sessionId,
+            List<String> plugins, Map<String, String> runtime) {
+        return new WindGateDaemon.Request(
+                mode,
+                profile,
+                script,
+                sessionId,
+                null,
+                plugins,
+                runtime,
+                Collections.emptyMap());
+    }
+
+    private File profile() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("core.maxProcesses", "1");
+        properties.setProperty("session", FileSessionProvider.class.getName());
+        properties.setProperty("session." + FileSessionProvider.KEY_DIRECTORY,
+                folder.newFolder().getAbsolutePath());
+        properties.setProperty("process.basic", BasicProcessProvider.class.getName());
+        properties.setProperty("resource.fs1", FileResourceProvider.class.getName());
+        properties.setProperty("resource.fs2", FileResourceProvider.class.getName());
+        return store(properties);
+    }
+
+    private File script(File source, File drain) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("testing.process", "basic");
+        properties.setProperty("testing.class", String.class.getName());
+        properties.setProperty("testing.source", "fs1");
+        properties.setProperty("testing.source.file", source.getAbsolutePath());
+        properties.setProperty("testing.drain", "fs2");
+        properties.setProperty("testing.drain.file", drain.getAbsolutePath());
+        return store(properties);
+    }
+
+    private File store(Properties properties) throws IOException {
+        File file = folder.newFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            properties.store(out, null);
+        }
+        return file;
+    }
+
+    private File put(File file, String... values) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file);
+                ObjectOutputStream output = new ObjectOutputStream(out)) {
+            for (String string : values) {
+                output.writeObject(string);
+            }
+        }
+        return file;
+    }
+
+    private List<String> get(File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file);
+                ObjectInputStream input = new ObjectInputStream(in)) {
+            List<String> results = new ArrayList<>();
+            while (true) {
+                try {
+                    results.add((String) input.readObject());
+                } catch (ClassNotFoundException e) {
+                    throw new AssertionError(e);
+                } catch (EOFException e) {
+                    return results;
+                }
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ import com.asakusafw.workflow.executor.basic.BasicCommandTaskExecutor;
 import com.asakusafw.workflow.executor.basic.BasicJobflowExecutor;
 import com.asakusafw.workflow.hadoop.BridgeDeleteTaskExecutor;
 import com.asakusafw.workflow.hadoop.BridgeHadoopTaskExecutor;
+import com.asakusafw.workflow.hadoop.ResidentHadoopTaskExecutor;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 
@@ -58,6 +59,20 @@ public class ExecutorParameter {
     )
     boolean skipParameterCheck = false;
 
+    @Parameter(
+            names = { "--jobflow-parallelism" },
+            descriptionKey = "parameter.jobflow-parallelism",
+            required = false
+    )
+    int jobflowParallelism = 1;
+
+    @Parameter(
+            names = { "--resident-hadoop" },
+            descriptionKey = "parameter.resident-hadoop",
+            required = false
+    )
+    boolean residentHadoop = false;
+
     /**
      * Returns the task executors.
      * @param context the current context
@@ -67,6 +82,9 @@ public class ExecutorParameter {
         List<TaskExecutor> results = new ArrayList<>();
         results.addAll(TaskExecutors.loadDefaults(context.getClassLoader()));
         results.add(new BasicCommandTaskExecutor(this::getCommandLauncher));
+        if (residentHadoop) {
+            results.add(new ResidentHadoopTaskExecutor());
+        }
         results.add(new BridgeHadoopTaskExecutor(this::getCommandLauncher));
         results.add(new BridgeDeleteTaskExecutor(this::getCommandLauncher));
         return results;
@@ -100,6 +118,7 @@ public class ExecutorParameter {
      */
     public BatchExecutor getBatchExecutor(ExecutionContext context) {
         return new BasicBatchExecutor(getJobflowExecutor(context))
-                .withValidateParameters(skipParameterCheck == false);
+                .withValidateParameters(skipParameterCheck == false)
+                .withParallelism(jobflowParallelism);
     }
 }
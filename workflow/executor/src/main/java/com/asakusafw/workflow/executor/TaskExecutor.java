@@ -22,6 +22,7 @@ import com.asakusafw.workflow.model.TaskInfo;
 /**
  * Executes a {@link TaskInfo}.
  * @since 0.10.0
+ * @version 0.10.5
  */
 public interface TaskExecutor {
 
@@ -41,4 +42,15 @@ public interface TaskExecutor {
      * @throws IOException if task execution was failed
      */
     void execute(TaskExecutionContext context, TaskInfo task) throws InterruptedException, IOException;
+
+    /**
+     * Releases the resources which were acquired for the jobflow execution of the given context.
+     * This is invoked after the jobflow execution was finished, even if it was failed.
+     * @param context the finished context
+     * @throws IOException if failed to release the resources
+     * @since 0.10.5
+     */
+    default void release(TaskExecutionContext context) throws IOException {
+        return;
+    }
 }
@@ -18,12 +18,22 @@ package com.asakusafw.workflow.executor.basic;
 import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
@@ -52,12 +62,16 @@ public class BasicBatchExecutor implements BatchExecutor {
 
     private static final boolean DEFAULT_VALIDATE_PARAMETERS = true;
 
+    private static final int DEFAULT_PARALLELISM = 1;
+
     private final JobflowExecutor jobflowExecutor;
 
     private final Function<JobflowInfo, String> executionIds;
 
     private boolean validateParameters = DEFAULT_VALIDATE_PARAMETERS;
 
+    private int parallelism = DEFAULT_PARALLELISM;
+
     /**
      * Creates a new instance.
      * @param jobflowExecutor the jobflow executor
@@ -97,6 +111,24 @@ public class BasicBatchExecutor implements BatchExecutor {
         return this;
     }
 
+    /**
+     * Sets the max number of jobflows which can run concurrently.
+     * Jobflows are started as soon as all of their blockers have been completed.
+     * If this is {@code 1}, jobflows are executed one by one in their topological order.
+     * @param count the max number of concurrent jobflows, must be {@code >= 1}
+     * @return this
+     * @since 0.10.5
+     */
+    public BasicBatchExecutor withParallelism(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "parallelism must be >= 1: {0}",
+                    count));
+        }
+        this.parallelism = count;
+        return this;
+    }
+
     @Override
     public void execute(
             ExecutionContext context,
@@ -109,6 +141,17 @@ public class BasicBatchExecutor implements BatchExecutor {
         if (LOG.isDebugEnabled()) {
             LOG.debug("starting jobflow graph: {} ({} jobflows)", batch.getId(), batch.getElements().size());
         }
+        if (parallelism <= 1 || batch.getElements().size() <= 1) {
+            executeSerial(context, batch, arguments);
+        } else {
+            executeParallel(context, batch, arguments);
+        }
+        LOG.info("finish batch: {} ({})", batch.getId(), arguments);
+    }
+
+    private void executeSerial(
+            ExecutionContext context,
+            BatchInfo batch, Map<String, String> arguments) throws IOException, InterruptedException {
         int count = 0;
         for (JobflowInfo jobflow : Util.sort(batch.getElements())) {
             if (LOG.isDebugEnabled()) {
@@ -116,7 +159,94 @@ public class BasicBatchExecutor implements BatchExecutor {
             }
             executeJobflow(context, batch, jobflow, arguments);
         }
-        LOG.info("finish batch: {} ({})", batch.getId(), arguments);
+    }
+
+    private void executeParallel(
+            ExecutionContext context,
+            BatchInfo batch, Map<String, String> arguments) throws IOException, InterruptedException {
+        LOG.debug("running jobflows concurrently: {} (parallelism={})", batch.getId(), parallelism);
+        List<JobflowInfo> rest = new LinkedList<>(Util.sort(batch.getElements()));
+        Set<JobflowInfo> done = new HashSet<>();
+        Map<Future<JobflowInfo>, JobflowInfo> running = new LinkedHashMap<>();
+        ExecutorService executor = createExecutor(batch.getId());
+        CompletionService<JobflowInfo> completion = new ExecutorCompletionService<>(executor);
+        int count = 0;
+        try {
+            while (rest.isEmpty() == false || running.isEmpty() == false) {
+                for (Iterator<JobflowInfo> iter = rest.iterator();
+                        iter.hasNext() && running.size() < parallelism;) {
+                    JobflowInfo jobflow = iter.next();
+                    if (done.containsAll(jobflow.getBlockers()) == false) {
+                        continue;
+                    }
+                    iter.remove();
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("preparing jobflow: {} ({}/{})",
+                                jobflow.getId(), ++count, batch.getElements().size());
+                    }
+                    Future<JobflowInfo> future = completion.submit(() -> {
+                        executeJobflow(context, batch, jobflow, arguments);
+                        return jobflow;
+                    });
+                    running.put(future, jobflow);
+                }
+                if (running.isEmpty()) {
+                    throw new IllegalStateException(MessageFormat.format(
+                            "jobflow dependencies are not satisfiable: {0}",
+                            rest));
+                }
+                Future<JobflowInfo> finished;
+                try {
+                    finished = completion.take();
+                } catch (InterruptedException e) {
+                    cancel(executor, running.keySet(), e);
+                    throw e;
+                }
+                JobflowInfo jobflow = running.remove(finished);
+                try {
+                    finished.get();
+                } catch (ExecutionException e) {
+                    LOG.error(MessageFormat.format(
+                            "jobflow \"{0}\" was failed. we cancel other running jobflows: {1}",
+                            jobflow.getId(),
+                            running.values().stream()
+                                    .map(JobflowInfo::getId)
+                                    .collect(Collectors.toList())), e.getCause());
+                    Throwable cause = e.getCause();
+                    cancel(executor, running.keySet(), cause);
+                    running.clear();
+                    throw Util.rethrow(cause);
+                }
+                done.add(jobflow);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ExecutorService createExecutor(String batchId) {
+        return Executors.newFixedThreadPool(parallelism, Util.newThreadFactory(String.format(
+                "JobflowExecutor-%s", //$NON-NLS-1$
+                batchId)));
+    }
+
+    private static void cancel(
+            ExecutorService executor,
+            Iterable<Future<JobflowInfo>> siblings, Throwable cause) throws InterruptedException {
+        // interrupts the running siblings, and then waits for their finalize/cleanup phases
+        executor.shutdownNow();
+        while (executor.awaitTermination(1, TimeUnit.SECONDS) == false) {
+            LOG.debug("waiting for cancelled jobflows");
+        }
+        for (Future<JobflowInfo> future : siblings) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof InterruptedException == false) {
+                    cause.addSuppressed(e.getCause());
+                }
+            }
+        }
     }
 
     private static void validateParameters(
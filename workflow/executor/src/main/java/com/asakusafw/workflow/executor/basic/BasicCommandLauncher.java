@@ -32,7 +32,6 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -102,12 +101,7 @@ public class BasicCommandLauncher implements CommandLauncher {
     }
 
     private int handle(Process process, String label) throws InterruptedException {
-        AtomicInteger counter = new AtomicInteger();
-        ExecutorService executor = Executors.newFixedThreadPool(2, r -> {
-            Thread thread = new Thread(r, String.format("%s-%d", label, counter.incrementAndGet())); //$NON-NLS-1$
-            thread.setDaemon(true);
-            return thread;
-        });
+        ExecutorService executor = Executors.newFixedThreadPool(2, Util.newThreadFactory(label));
         try (ReaderRedirector stdOut = redirect(process.getInputStream(), label,
                     OutputChannel.STANDARD_OUTPUT);
                 ReaderRedirector stdErr = redirect(process.getErrorStream(), label,
@@ -38,6 +38,7 @@ import com.asakusafw.workflow.model.TaskInfo;
 /**
  * Executes jobflows.
  * @since 0.10.0
+ * @version 0.10.5
  */
 public class BasicJobflowExecutor implements JobflowExecutor {
 
@@ -66,6 +67,16 @@ public class BasicJobflowExecutor implements JobflowExecutor {
     @Override
     public void execute(TaskExecutionContext context, JobflowInfo jobflow) throws IOException, InterruptedException {
         LOG.info("start jobflow: {} - {}", context.getBatchId(), context.getFlowId());
+        try {
+            executeBody(context, jobflow);
+        } finally {
+            release(context);
+        }
+        LOG.info("finish jobflow: {} - {}", context.getBatchId(), context.getFlowId());
+    }
+
+    private void executeBody(
+            TaskExecutionContext context, JobflowInfo jobflow) throws IOException, InterruptedException {
         boolean finalized = false;
         try {
             for (TaskInfo.Phase phase : EnumSet.complementOf(BODY)) {
@@ -96,7 +107,19 @@ public class BasicJobflowExecutor implements JobflowExecutor {
                     "error occurred while runnning cleanup of batch \"{0}\".",
                     context.getBatchId()), e);
         }
-        LOG.info("finish jobflow: {} - {}", context.getBatchId(), context.getFlowId());
+    }
+
+    private void release(TaskExecutionContext context) {
+        for (TaskExecutor executor : taskExecutors) {
+            try {
+                executor.release(context);
+            } catch (IOException | RuntimeException e) {
+                LOG.warn(MessageFormat.format(
+                        "error occurred while releasing task executor \"{0}\" of jobflow \"{1}\".",
+                        executor,
+                        context.getFlowId()), e);
+            }
+        }
     }
 
     private void executePhase(
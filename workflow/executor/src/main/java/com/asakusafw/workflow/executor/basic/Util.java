@@ -15,6 +15,7 @@
  */
 package com.asakusafw.workflow.executor.basic;
 
+import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -22,6 +23,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.asakusafw.workflow.model.GraphElement;
 
@@ -47,4 +50,26 @@ final class Util {
         return results;
     }
 
+    static ThreadFactory newThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, String.format("%s-%d", prefix, counter.incrementAndGet())); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    static IOException rethrow(Throwable cause) throws InterruptedException {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        } else if (cause instanceof InterruptedException) {
+            throw (InterruptedException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        } else {
+            return new IOException(cause);
+        }
+    }
 }
@@ -33,6 +33,8 @@ public class MockExecutor implements TaskExecutor {
 
     private final List<String> values = new ArrayList<>();
 
+    private final List<String> released = new ArrayList<>();
+
     /**
      * Creates a new instance.
      * @param predicate predicate of supported tasks
@@ -51,6 +53,11 @@ public class MockExecutor implements TaskExecutor {
         values.add(((MockTaskInfo) task).getValue());
     }
 
+    @Override
+    public void release(TaskExecutionContext context) {
+        released.add(context.getFlowId());
+    }
+
     /**
      * Returns the values.
      * @return the values
@@ -58,4 +65,12 @@ public class MockExecutor implements TaskExecutor {
     public List<String> getValues() {
         return values;
     }
+
+    /**
+     * Returns the released flow IDs.
+     * @return the released flow IDs
+     */
+    public List<String> getReleased() {
+        return released;
+    }
 }
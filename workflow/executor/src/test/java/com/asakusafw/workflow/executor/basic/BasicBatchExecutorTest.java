@@ -18,10 +18,14 @@ package com.asakusafw.workflow.executor.basic;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Test;
@@ -92,4 +96,91 @@ public class BasicBatchExecutorTest {
         assertThat(flowIds, contains("C", "B", "A"));
         assertThat(execIds.stream().distinct().count(), is(3L));
     }
+
+    /**
+     * independent jobflows run concurrently.
+     * @throws Exception if failed
+     */
+    @Test(timeout = 10_000L)
+    public void parallel() throws Exception {
+        BasicJobflowInfo a = new BasicJobflowInfo("A");
+        BasicJobflowInfo b = new BasicJobflowInfo("B");
+        BasicJobflowInfo c = new BasicJobflowInfo("C");
+        BasicJobflowInfo d = new BasicJobflowInfo("D");
+        b.addBlocker(a);
+        c.addBlocker(a);
+        d.addBlocker(b);
+        d.addBlocker(c);
+
+        BasicBatchInfo batch = new BasicBatchInfo("b");
+        batch.addElement(a);
+        batch.addElement(b);
+        batch.addElement(c);
+        batch.addElement(d);
+
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        List<String> flowIds = Collections.synchronizedList(new ArrayList<>());
+        BatchExecutor executor = new BasicBatchExecutor((ctxt, jobflow) -> {
+            if (jobflow == b || jobflow == c) {
+                try {
+                    // B and C must be running at the same time
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            }
+            flowIds.add(ctxt.getFlowId());
+        }).withParallelism(2);
+        executor.execute(context, batch);
+
+        assertThat(flowIds, hasSize(4));
+        assertThat(flowIds.get(0), is("A"));
+        assertThat(flowIds.subList(1, 3), containsInAnyOrder("B", "C"));
+        assertThat(flowIds.get(3), is("D"));
+    }
+
+    /**
+     * failed jobflow cancels its running siblings.
+     * @throws Exception if failed
+     */
+    @Test(timeout = 10_000L)
+    public void parallel_failure() throws Exception {
+        BasicJobflowInfo a = new BasicJobflowInfo("A");
+        BasicJobflowInfo b = new BasicJobflowInfo("B");
+        BasicJobflowInfo c = new BasicJobflowInfo("C");
+        c.addBlocker(a);
+
+        BasicBatchInfo batch = new BasicBatchInfo("b");
+        batch.addElement(a);
+        batch.addElement(b);
+        batch.addElement(c);
+
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        AtomicBoolean reached = new AtomicBoolean(false);
+        BatchExecutor executor = new BasicBatchExecutor((ctxt, jobflow) -> {
+            if (jobflow == a) {
+                started.countDown();
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+                } catch (InterruptedException e) {
+                    cancelled.set(true);
+                    throw e;
+                }
+            } else if (jobflow == b) {
+                started.await();
+                throw new IOException("testing");
+            } else {
+                reached.set(true);
+            }
+        }).withParallelism(2);
+        try {
+            executor.execute(context, batch);
+            fail();
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("testing"));
+        }
+        assertThat(cancelled.get(), is(true));
+        assertThat(reached.get(), is(false));
+    }
 }
@@ -137,4 +137,41 @@ public class BasicJobflowExecutorTest {
         JobflowExecutor executor = new BasicJobflowExecutor(e0);
         executor.execute(context, jobflow);
     }
+
+    /**
+     * executors are released after the jobflow.
+     * @throws Exception if failed
+     */
+    @Test
+    public void release() throws Exception {
+        BasicJobflowInfo jobflow = new BasicJobflowInfo(context.getFlowId());
+        jobflow.addTask(TaskInfo.Phase.MAIN, new MockTaskInfo("A"));
+
+        MockExecutor e0 = new MockExecutor(t -> true);
+        MockExecutor e1 = new MockExecutor(t -> false);
+        JobflowExecutor executor = new BasicJobflowExecutor(e0, e1);
+        executor.execute(context, jobflow);
+
+        assertThat(e0.getReleased(), contains("f"));
+        assertThat(e1.getReleased(), contains("f"));
+    }
+
+    /**
+     * executors are released even if the jobflow was failed.
+     * @throws Exception if failed
+     */
+    @Test
+    public void release_failure() throws Exception {
+        BasicJobflowInfo jobflow = new BasicJobflowInfo(context.getFlowId());
+        jobflow.addTask(TaskInfo.Phase.MAIN, new MockTaskInfo("A"));
+        MockExecutor e0 = new MockExecutor(t -> false);
+        JobflowExecutor executor = new BasicJobflowExecutor(e0);
+        try {
+            executor.execute(context, jobflow);
+            fail();
+        } catch (Exception e) {
+            // ok.
+        }
+        assertThat(e0.getReleased(), contains("f"));
+    }
 }
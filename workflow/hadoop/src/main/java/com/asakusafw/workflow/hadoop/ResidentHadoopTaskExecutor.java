@@ -0,0 +1,337 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.workflow.hadoop;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.asakusafw.runtime.stage.launcher.LauncherOptionsParser;
+import com.asakusafw.workflow.executor.TaskExecutionContext;
+import com.asakusafw.workflow.executor.TaskExecutor;
+import com.asakusafw.workflow.executor.TaskExecutors;
+import com.asakusafw.workflow.model.HadoopTaskInfo;
+import com.asakusafw.workflow.model.TaskInfo;
+
+/**
+ * Executes hadoop tasks in the current JVM.
+ * <p>
+ * Unlike {@link BridgeHadoopTaskExecutor}, this never launches any processes for individual Hadoop tasks.
+ * Instead, this builds an isolated class loader and a base Hadoop configuration only once per jobflow execution,
+ * and then runs each task on them. The launcher of each task also reuses the isolated class loader instead of
+ * building one for {@code -libjars}, and they are released after the jobflow execution was finished.
+ * </p>
+ * <p>
+ * To compare the per-stage overhead with the process-launch path, run the benchmark runner of the test driver
+ * ({@code com.asakusafw.testdriver.tools.benchmark.BenchmarkRunner}) twice for the same batch, with and without
+ * {@code --executor com.asakusafw.workflow.hadoop.ResidentHadoopTaskExecutor}, and pass the report of
+ * the former run as {@code --baseline} of the latter.
+ * </p>
+ * @since 0.10.5
+ */
+public class ResidentHadoopTaskExecutor implements TaskExecutor {
+
+    static final Logger LOG = LoggerFactory.getLogger(ResidentHadoopTaskExecutor.class);
+
+    static final String CLASS_CONFIGURATION = "org.apache.hadoop.conf.Configuration"; //$NON-NLS-1$
+
+    static final String PATH_HADOOP_LOGGING_LIBRARIES = "hadoop/lib/logging"; //$NON-NLS-1$
+
+    private static final int DEFAULT_MAX_SESSIONS = 4;
+
+    private final ClassLoader parent;
+
+    private final boolean embedded;
+
+    private final int maxSessions;
+
+    private final Map<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Creates a new instance.
+     * Each task will run on the embedded Hadoop libraries in the framework installation.
+     */
+    public ResidentHadoopTaskExecutor() {
+        this(getIsolatedParent(), true, DEFAULT_MAX_SESSIONS);
+    }
+
+    /**
+     * Creates a new instance.
+     * @param parent the parent class loader, which must provide Hadoop and Asakusa runtime libraries
+     *     if {@code embedded} is {@code false}
+     * @param embedded {@code true} to load the embedded Hadoop libraries in the framework installation,
+     *     otherwise {@code false}
+     * @param maxSessions the max number of jobflow sessions to keep
+     */
+    public ResidentHadoopTaskExecutor(ClassLoader parent, boolean embedded, int maxSessions) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "max sessions must be >= 1: {0}",
+                    maxSessions));
+        }
+        this.parent = parent;
+        this.embedded = embedded;
+        this.maxSessions = maxSessions;
+    }
+
+    private static ClassLoader getIsolatedParent() {
+        // the platform class loader: isolates the libraries on this application class path
+        return ClassLoader.getSystemClassLoader().getParent();
+    }
+
+    @Override
+    public boolean isSupported(TaskExecutionContext context, TaskInfo task) {
+        return task instanceof HadoopTaskInfo
+                && getLauncherLibrary(context).isPresent()
+                && (embedded == false || TaskExecutors.findHadoopEmbeddedLibraries(context).isEmpty() == false);
+    }
+
+    @Override
+    public void execute(TaskExecutionContext context, TaskInfo task) throws IOException, InterruptedException {
+        HadoopTaskInfo mirror = (HadoopTaskInfo) task;
+        Session session = getSession(context);
+
+        List<String> arguments = new ArrayList<>();
+        arguments.add(mirror.getClassName());
+        arguments.add("-libjars");
+        arguments.add(getJobflowLibraries(context).stream()
+                .map(Path::toAbsolutePath)
+                .map(Path::toString)
+                .collect(Collectors.joining(",")));
+
+        LOG.info("starting Hadoop task: {}", mirror.getClassName());
+        int exit = session.launch(BridgeHadoopTaskExecutor.getHadoopProperties(context), arguments);
+        if (exit != 0) {
+            throw new IOException(MessageFormat.format(
+                    "failed to execute Hadoop task: class={0}, exit={1}",
+                    mirror.getClassName(),
+                    exit));
+        }
+    }
+
+    @Override
+    public void release(TaskExecutionContext context) throws IOException {
+        Session session;
+        synchronized (sessions) {
+            session = sessions.remove(getSessionKey(context));
+        }
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    private Session getSession(TaskExecutionContext context) throws IOException {
+        String key = getSessionKey(context);
+        List<Session> evicted = new ArrayList<>();
+        Session session;
+        synchronized (sessions) {
+            session = sessions.get(key);
+            if (session == null) {
+                session = createSession(context, key);
+                sessions.put(key, session);
+                for (Iterator<Session> iter = sessions.values().iterator();
+                        iter.hasNext() && sessions.size() > maxSessions;) {
+                    evicted.add(iter.next());
+                    iter.remove();
+                }
+            }
+        }
+        for (Session s : evicted) {
+            s.close();
+        }
+        return session;
+    }
+
+    private static String getSessionKey(TaskExecutionContext context) {
+        return String.join("/", context.getBatchId(), context.getFlowId(), context.getExecutionId());
+    }
+
+    private Session createSession(TaskExecutionContext context, String label) throws IOException {
+        LOG.debug("preparing Hadoop session: {}", label);
+        List<Path> libraries = new ArrayList<>();
+        getLauncherLibrary(context).ifPresent(libraries::add);
+        if (embedded) {
+            libraries.addAll(TaskExecutors.findHadoopEmbeddedLibraries(context));
+            libraries.addAll(TaskExecutors.findFrameworkLibraries(context, PATH_HADOOP_LOGGING_LIBRARIES));
+        }
+        libraries.addAll(getJobflowLibraries(context));
+        URLClassLoader classLoader = createClassLoader(libraries, parent);
+        boolean success = false;
+        try {
+            Session session = new Session(label, classLoader, TaskExecutors.findCoreConfigurationUrl(context));
+            success = true;
+            return session;
+        } finally {
+            if (success == false) {
+                classLoader.close();
+            }
+        }
+    }
+
+    private static URLClassLoader createClassLoader(List<Path> libraries, ClassLoader parent) {
+        URL[] urls = libraries.stream()
+                .distinct()
+                .map(Path::toUri)
+                .flatMap(uri -> {
+                    try {
+                        return Stream.of(uri.toURL());
+                    } catch (MalformedURLException e) {
+                        LOG.warn("failed to convert URI: {}", uri, e);
+                        return Stream.empty();
+                    }
+                })
+                .toArray(URL[]::new);
+        return AccessController.doPrivileged((PrivilegedAction<URLClassLoader>) () ->
+                new URLClassLoader(urls, parent));
+    }
+
+    private static Optional<Path> getLauncherLibrary(TaskExecutionContext context) {
+        return TaskExecutors.findFrameworkFile(context, Constants.PATH_LAUNCHER_LIBRARY)
+                .filter(Files::isRegularFile);
+    }
+
+    private static List<Path> getJobflowLibraries(TaskExecutionContext context) {
+        List<Path> results = new ArrayList<>();
+        TaskExecutors.findJobflowLibrary(context).ifPresent(results::add);
+        TaskExecutors.findAttachedLibraries(context).forEach(results::add);
+        TaskExecutors.findExtensionLibraries(context).forEach(results::add);
+        TaskExecutors.findCoreLibraries(context).forEach(results::add);
+        return results.stream()
+                .filter(Files::isRegularFile)
+                .collect(Collectors.toList());
+    }
+
+    static ClassLoader switchContextClassLoader(ClassLoader classLoader) {
+        return AccessController.doPrivileged((PrivilegedAction<ClassLoader>) () -> {
+            ClassLoader old = Thread.currentThread().getContextClassLoader();
+            Thread.currentThread().setContextClassLoader(classLoader);
+            return old;
+        });
+    }
+
+    /**
+     * A Hadoop execution session for each jobflow.
+     * Hadoop classes are only accessible via reflection, because they are loaded in the isolated class loader.
+     */
+    private static final class Session implements Closeable {
+
+        final String label;
+
+        private final URLClassLoader classLoader;
+
+        private final Object configuration;
+
+        private final Constructor<?> copier;
+
+        private final Method setter;
+
+        private final Method launcher;
+
+        private final Method disposer;
+
+        Session(String label, URLClassLoader classLoader, Optional<URL> resource) throws IOException {
+            this.label = label;
+            this.classLoader = classLoader;
+            ClassLoader escaped = switchContextClassLoader(classLoader);
+            try {
+                Class<?> configurationClass = Class.forName(CLASS_CONFIGURATION, true, classLoader);
+                Class<?> launcherClass = Class.forName(BridgeHadoopTaskExecutor.LAUNCHER_CLASS, true, classLoader);
+                this.copier = configurationClass.getConstructor(configurationClass);
+                this.setter = configurationClass.getMethod("set", String.class, String.class); //$NON-NLS-1$
+                this.launcher = launcherClass.getMethod("exec", configurationClass, String[].class); //$NON-NLS-1$
+                this.disposer = launcherClass.getMethod("disposeClassLoader", ClassLoader.class); //$NON-NLS-1$
+                this.configuration = configurationClass.getConstructor().newInstance();
+                configurationClass.getMethod("setClassLoader", ClassLoader.class) //$NON-NLS-1$
+                        .invoke(configuration, classLoader);
+                // the launcher must not build and dispose its own class loader for each task
+                setter.invoke(configuration, LauncherOptionsParser.KEY_SHARED_CLASS_LOADER, String.valueOf(true));
+                if (resource.isPresent()) {
+                    configurationClass.getMethod("addResource", URL.class) //$NON-NLS-1$
+                            .invoke(configuration, resource.get());
+                }
+                // loads the base configuration resources only once
+                configurationClass.getMethod("size").invoke(configuration); //$NON-NLS-1$
+            } catch (ReflectiveOperationException e) {
+                throw new IOException(MessageFormat.format(
+                        "failed to prepare Hadoop session: {0}",
+                        label), e);
+            } finally {
+                switchContextClassLoader(escaped);
+            }
+        }
+
+        int launch(Map<String, String> properties, List<String> arguments) throws IOException {
+            ClassLoader escaped = switchContextClassLoader(classLoader);
+            try {
+                Object conf = copier.newInstance(configuration);
+                for (Map.Entry<String, String> entry : properties.entrySet()) {
+                    setter.invoke(conf, entry.getKey(), entry.getValue());
+                }
+                Object exit = launcher.invoke(null, conf, arguments.toArray(new String[arguments.size()]));
+                return (Integer) exit;
+            } catch (InvocationTargetException e) {
+                throw new IOException(MessageFormat.format(
+                        "error occurred while running Hadoop task: {0} ({1})",
+                        arguments.get(0),
+                        label), e.getCause());
+            } catch (ReflectiveOperationException e) {
+                throw new IOException(MessageFormat.format(
+                        "failed to launch Hadoop task: {0} ({1})",
+                        arguments.get(0),
+                        label), e);
+            } finally {
+                switchContextClassLoader(escaped);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            LOG.debug("releasing Hadoop session: {}", label);
+            ClassLoader escaped = switchContextClassLoader(classLoader);
+            try {
+                disposer.invoke(null, classLoader);
+            } catch (ReflectiveOperationException e) {
+                LOG.warn(MessageFormat.format(
+                        "failed to dispose Hadoop session: {0}",
+                        label), e);
+            } finally {
+                switchContextClassLoader(escaped);
+                classLoader.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.workflow.hadoop;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.util.Tool;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.asakusafw.runtime.stage.StageConstants;
+import com.asakusafw.runtime.stage.launcher.LauncherOptionsParser;
+import com.asakusafw.workflow.executor.TaskExecutionContext;
+import com.asakusafw.workflow.executor.TaskExecutor;
+import com.asakusafw.workflow.executor.TaskExecutors;
+import com.asakusafw.workflow.executor.basic.BasicExecutionContext;
+import com.asakusafw.workflow.executor.basic.BasicTaskExecutionContext;
+import com.asakusafw.workflow.model.TaskInfo;
+import com.asakusafw.workflow.model.basic.BasicHadoopTaskInfo;
+
+/**
+ * Test for {@link ResidentHadoopTaskExecutor}.
+ */
+public class ResidentHadoopTaskExecutorTest {
+
+    static final List<ClassLoader> SESSIONS = Collections.synchronizedList(new ArrayList<>());
+
+    static final List<String> FLOW_IDS = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * temporary folder.
+     */
+    @Rule
+    public final TemporaryFolder temporary = new TemporaryFolder();
+
+    private BasicExecutionContext parent;
+
+    /**
+     * set up.
+     * @throws Exception if failed
+     */
+    @Before
+    public void setUp() throws Exception {
+        SESSIONS.clear();
+        FLOW_IDS.clear();
+        File home = temporary.newFolder();
+        File launcher = new File(home, Constants.PATH_LAUNCHER_LIBRARY);
+        launcher.getParentFile().mkdirs();
+        try (OutputStream output = new JarOutputStream(new FileOutputStream(launcher))) {
+            output.flush();
+        }
+        parent = new BasicExecutionContext()
+                .withEnvironmentVariables(m -> m.putAll(System.getenv()))
+                .withEnvironmentVariables(m -> m.put(TaskExecutors.ENV_FRAMEWORK_PATH, home.getAbsolutePath()))
+                .withConfigurations(m -> m.put(LauncherOptionsParser.KEY_CACHE_ENABLED, String.valueOf(false)));
+    }
+
+    /**
+     * simple case.
+     * @throws Exception if failed
+     */
+    @Test
+    public void simple() throws Exception {
+        TaskInfo task = new BasicHadoopTaskInfo("testing", MockTool.class.getName());
+        TaskExecutor executor = new ResidentHadoopTaskExecutor(getClass().getClassLoader(), false, 1);
+        TaskExecutionContext context = context("f", "e");
+        assertThat(executor.isSupported(context, task), is(true));
+        executor.execute(context, task);
+        assertThat(FLOW_IDS, contains("f"));
+    }
+
+    /**
+     * class loaders are reused in the same jobflow execution.
+     * @throws Exception if failed
+     */
+    @Test
+    public void reuse_session() throws Exception {
+        TaskInfo task = new BasicHadoopTaskInfo("testing", MockTool.class.getName());
+        TaskExecutor executor = new ResidentHadoopTaskExecutor(getClass().getClassLoader(), false, 1);
+        executor.execute(context("f0", "e0"), task);
+        executor.execute(context("f0", "e0"), task);
+        executor.execute(context("f1", "e1"), task);
+
+        assertThat(FLOW_IDS, contains("f0", "f0", "f1"));
+        assertThat(SESSIONS, hasSize(3));
+        assertThat(SESSIONS.get(0), is(sameInstance(SESSIONS.get(1))));
+        assertThat(SESSIONS.get(0), is(not(sameInstance(SESSIONS.get(2)))));
+    }
+
+    /**
+     * class loaders are released after the jobflow execution.
+     * @throws Exception if failed
+     */
+    @Test
+    public void release_session() throws Exception {
+        TaskInfo task = new BasicHadoopTaskInfo("testing", MockTool.class.getName());
+        TaskExecutor executor = new ResidentHadoopTaskExecutor(getClass().getClassLoader(), false, 1);
+        TaskExecutionContext context = context("f0", "e0");
+        executor.execute(context, task);
+        executor.release(context);
+        executor.execute(context, task);
+
+        assertThat(SESSIONS, hasSize(2));
+        assertThat(SESSIONS.get(0), is(not(sameInstance(SESSIONS.get(1)))));
+    }
+
+    /**
+     * evicted class loaders are not reused.
+     * @throws Exception if failed
+     */
+    @Test
+    public void evict_session() throws Exception {
+        TaskInfo task = new BasicHadoopTaskInfo("testing", MockTool.class.getName());
+        TaskExecutor executor = new ResidentHadoopTaskExecutor(getClass().getClassLoader(), false, 1);
+        executor.execute(context("f0", "e0"), task);
+        executor.execute(context("f1", "e1"), task);
+        executor.execute(context("f0", "e0"), task);
+
+        assertThat(SESSIONS, hasSize(3));
+        assertThat(SESSIONS.get(0), is(not(sameInstance(SESSIONS.get(2)))));
+    }
+
+    /**
+     * task was failed.
+     * @throws Exception if failed
+     */
+    @Test(expected = IOException.class)
+    public void failure() throws Exception {
+        TaskInfo task = new BasicHadoopTaskInfo("testing", MockTool.class.getName() + "__MISSING__");
+        TaskExecutor executor = new ResidentHadoopTaskExecutor(getClass().getClassLoader(), false, 1);
+        executor.execute(context("f", "e"), task);
+    }
+
+    /**
+     * not supported if the launcher library is missing.
+     */
+    @Test
+    public void not_supported() {
+        TaskInfo task = new BasicHadoopTaskInfo("testing", MockTool.class.getName());
+        TaskExecutor executor = new ResidentHadoopTaskExecutor(getClass().getClassLoader(), false, 1);
+        TaskExecutionContext context = new BasicTaskExecutionContext(
+                new BasicExecutionContext(),
+                "b", "f", "e",
+                Collections.emptyMap());
+        assertThat(executor.isSupported(context, task), is(false));
+    }
+
+    private TaskExecutionContext context(String flowId, String executionId) {
+        return new BasicTaskExecutionContext(
+                parent,
+                "b", flowId, executionId,
+                Collections.singletonMap("testing", "OK"));
+    }
+
+    /**
+     * Mock tool.
+     */
+    public static class MockTool extends Configured implements Tool {
+
+        @Override
+        public int run(String[] args) {
+            SESSIONS.add(getConf().getClassLoader());
+            FLOW_IDS.add(getConf().get(StageConstants.PROP_FLOW_ID));
+            return 0;
+        }
+    }
+}
@@ -47,6 +47,10 @@ public class JobClientProfile {
 
     static final String KEY_POLLING_INTERVAL = "pollingInterval";
 
+    static final String KEY_MAX_POLLING_INTERVAL = "maxPollingInterval";
+
+    static final String KEY_WATCH_TIMEOUT = "watchTimeout";
+
     static final Pattern PATTERN_COMPONENT = Pattern.compile("\\d+");
 
     static final String KEY_URL = "url";
@@ -59,6 +63,8 @@ public class JobClientProfile {
 
     static final long DEFAULT_POLLING_INTERVAL = 1000;
 
+    static final long DEFAULT_WATCH_TIMEOUT = 0;
+
     private final String prefix;
 
     private final List<JobClient> clients;
@@ -67,6 +73,10 @@ public class JobClientProfile {
 
     private final long pollingInterval;
 
+    private final long maxPollingInterval;
+
+    private final long watchTimeout;
+
     /**
      * Creates a new instance.
      * @param prefix the profile namespace
@@ -76,6 +86,23 @@ public class JobClientProfile {
      * @throws IllegalArgumentException if some parameters were {@code null}
      */
     public JobClientProfile(String prefix, List<? extends JobClient> clients, long timeout, long pollingInterval) {
+        this(prefix, clients, timeout, pollingInterval, pollingInterval, DEFAULT_WATCH_TIMEOUT);
+    }
+
+    /**
+     * Creates a new instance.
+     * @param prefix the profile namespace
+     * @param clients clients
+     * @param timeout timeout duration (ms)
+     * @param pollingInterval polling interval (ms)
+     * @param maxPollingInterval the max polling interval while job status is not changed (ms)
+     * @param watchTimeout long-polling timeout (ms), or {@code 0} to disable long-polling
+     * @throws IllegalArgumentException if some parameters were {@code null}
+     * @since 0.10.5
+     */
+    public JobClientProfile(
+            String prefix, List<? extends JobClient> clients,
+            long timeout, long pollingInterval, long maxPollingInterval, long watchTimeout) {
         if (prefix == null) {
             throw new IllegalArgumentException("prefix must not be null"); //$NON-NLS-1$
         }
@@ -91,10 +118,18 @@ public class JobClientProfile {
         if (pollingInterval <= 0) {
             throw new IllegalArgumentException("pollingInterval must be >= 0"); //$NON-NLS-1$
         }
+        if (maxPollingInterval < pollingInterval) {
+            throw new IllegalArgumentException("maxPollingInterval must be >= pollingInterval"); //$NON-NLS-1$
+        }
+        if (watchTimeout < 0) {
+            throw new IllegalArgumentException("watchTimeout must be >= 0"); //$NON-NLS-1$
+        }
         this.prefix = prefix;
         this.clients = Collections.unmodifiableList(new ArrayList<>(clients));
         this.timeout = timeout;
         this.pollingInterval = pollingInterval;
+        this.maxPollingInterval = maxPollingInterval;
+        this.watchTimeout = watchTimeout;
     }
 
     /**
@@ -129,6 +164,25 @@ public class JobClientProfile {
         return pollingInterval;
     }
 
+    /**
+     * Returns the max polling interval.
+     * The polling interval will be extended up to this while the job status is not changed.
+     * @return the max polling interval (ms)
+     * @since 0.10.5
+     */
+    public long getMaxPollingInterval() {
+        return maxPollingInterval;
+    }
+
+    /**
+     * Returns the long-polling timeout.
+     * @return the long-polling timeout (ms), or {@code 0} if long-polling is disabled
+     * @since 0.10.5
+     */
+    public long getWatchTimeout() {
+        return watchTimeout;
+    }
+
     /**
      * Converts general profile into the corresponded this profile.
      * @param profile general profile
@@ -158,13 +212,32 @@ public class JobClientProfile {
                     KEY_TIMEOUT,
                     pollingInterval));
         }
+        long maxPollingInterval = extractLong(profile, conf, KEY_MAX_POLLING_INTERVAL, pollingInterval);
+        if (maxPollingInterval < pollingInterval) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Max status polling interval must be >= {3} ({0}.{1}={2})",
+                    profile.getPrefix(),
+                    KEY_MAX_POLLING_INTERVAL,
+                    maxPollingInterval,
+                    pollingInterval));
+        }
+        long watchTimeout = extractLong(profile, conf, KEY_WATCH_TIMEOUT, DEFAULT_WATCH_TIMEOUT);
+        if (watchTimeout < 0) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                    "Status watch timeout must be >= 0 ({0}.{1}={2})",
+                    profile.getPrefix(),
+                    KEY_WATCH_TIMEOUT,
+                    watchTimeout));
+        }
         List<JobClient> clients = extractClients(profile, conf);
         if (clients.isEmpty()) {
             throw new IllegalArgumentException(MessageFormat.format(
                     "There must be one or more job clients ({0}.<n>)",
                     profile.getPrefix()));
         }
-        return new JobClientProfile(profile.getPrefix(), clients, timeout, pollingInterval);
+        return new JobClientProfile(
+                profile.getPrefix(), clients,
+                timeout, pollingInterval, maxPollingInterval, watchTimeout);
     }
 
     private static long extractLong(
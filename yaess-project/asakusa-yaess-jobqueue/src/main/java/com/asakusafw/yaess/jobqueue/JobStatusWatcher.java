@@ -0,0 +1,330 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.yaess.jobqueue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.asakusafw.yaess.jobqueue.client.JobClient;
+import com.asakusafw.yaess.jobqueue.client.JobId;
+import com.asakusafw.yaess.jobqueue.client.JobStatus;
+
+/**
+ * Watches status of jobs on a {@link JobClient}.
+ * <p>
+ * If long-polling is enabled, this multiplexes all watching jobs into a single status request per client,
+ * by using {@link JobClient#waitForStatus(Map, long)}.
+ * Otherwise, or if the client does not support long-polling, each job polls its status with
+ * adaptive back-off intervals: they are extended while the job status is not changed.
+ * </p>
+ * <p>
+ * This owns the target client: {@link #close() closing} this watcher also closes the client and stops
+ * the long-polling thread.
+ * </p>
+ * @since 0.10.5
+ */
+public class JobStatusWatcher implements Closeable {
+
+    static final Logger LOG = LoggerFactory.getLogger(JobStatusWatcher.class);
+
+    private final JobClient client;
+
+    private final long pollingInterval;
+
+    private final long maxPollingInterval;
+
+    private final long watchTimeout;
+
+    private final Object lock = new Object();
+
+    private final Map<JobId, Watch> watches = new LinkedHashMap<>();
+
+    private boolean longPolling;
+
+    private Thread watcher;
+
+    private boolean closed;
+
+    /**
+     * Creates a new instance.
+     * @param client the target client
+     * @param pollingInterval the initial polling interval (ms)
+     * @param maxPollingInterval the max polling interval (ms)
+     * @param watchTimeout the long-polling timeout (ms), or {@code 0} to disable long-polling
+     */
+    public JobStatusWatcher(JobClient client, long pollingInterval, long maxPollingInterval, long watchTimeout) {
+        if (client == null) {
+            throw new IllegalArgumentException("client must not be null"); //$NON-NLS-1$
+        }
+        this.client = client;
+        this.pollingInterval = pollingInterval;
+        this.maxPollingInterval = Math.max(pollingInterval, maxPollingInterval);
+        this.watchTimeout = watchTimeout;
+        this.longPolling = watchTimeout > 0;
+    }
+
+    /**
+     * Returns whether or not this watcher is using long-polling.
+     * @return {@code true} if this is using long-polling, otherwise {@code false}
+     */
+    public boolean isLongPolling() {
+        synchronized (lock) {
+            return longPolling;
+        }
+    }
+
+    /**
+     * Waits for the next status of the job.
+     * This may return the same status as the last one, if the status is not changed in the current interval.
+     * @param id the target job ID
+     * @param last the last known status kind
+     * @return the current job status
+     * @throws IOException if failed to obtain the job status
+     * @throws InterruptedException if interrupted while waiting for the status
+     */
+    public JobStatus next(JobId id, JobStatus.Kind last) throws IOException, InterruptedException {
+        Watch watch;
+        synchronized (lock) {
+            checkOpen();
+            watch = watches.computeIfAbsent(id, k -> new Watch(last));
+            if (longPolling) {
+                JobStatus status = await(watch, last);
+                if (status != null) {
+                    return status;
+                }
+            }
+        }
+        return poll(id, watch, last);
+    }
+
+    /**
+     * Releases the watching job.
+     * @param id the target job ID
+     */
+    public void release(JobId id) {
+        synchronized (lock) {
+            watches.remove(id);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Closes this watcher and the target client.
+     * This also stops the long-polling thread, and the running {@link #next(JobId, JobStatus.Kind)} will fail.
+     * @throws IOException if failed to close the client
+     */
+    @Override
+    public void close() throws IOException {
+        Thread thread;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            longPolling = false;
+            thread = watcher;
+            lock.notifyAll();
+        }
+        try {
+            // aborts the running long-polling request
+            client.close();
+        } finally {
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    private JobStatus await(Watch watch, JobStatus.Kind last) throws IOException, InterruptedException {
+        assert Thread.holdsLock(lock);
+        watch.known = last;
+        if (watcher == null) {
+            watcher = new Thread(this::watch, String.format("job-watcher-%s", client)); //$NON-NLS-1$
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+        lock.notifyAll();
+        if (watch.subscribed == false && isChanged(watch.status, last) == false) {
+            // the running long-polling request does not contain this job yet
+            return null;
+        }
+        long deadline = System.currentTimeMillis() + maxPollingInterval;
+        while (longPolling && watch.exception == null && isChanged(watch.status, last) == false) {
+            long rest = deadline - System.currentTimeMillis();
+            if (rest <= 0) {
+                break;
+            }
+            lock.wait(rest);
+        }
+        checkOpen();
+        if (watch.exception != null) {
+            IOException exception = watch.exception;
+            watch.exception = null;
+            throw exception;
+        }
+        if (isChanged(watch.status, last)) {
+            return watch.status;
+        }
+        if (longPolling) {
+            JobStatus status = new JobStatus();
+            status.setKind(last);
+            status.setJobId(watch.status == null ? null : watch.status.getJobId());
+            return status;
+        }
+        return null;
+    }
+
+    private void watch() {
+        LOG.debug("start watching job status: {}", client);
+        try {
+            while (true) {
+                Map<JobId, JobStatus.Kind> targets;
+                synchronized (lock) {
+                    while (closed == false && watches.isEmpty()) {
+                        lock.wait();
+                    }
+                    if (closed) {
+                        break;
+                    }
+                    targets = new LinkedHashMap<>();
+                    for (Map.Entry<JobId, Watch> entry : watches.entrySet()) {
+                        targets.put(entry.getKey(), entry.getValue().known);
+                        entry.getValue().subscribed = true;
+                    }
+                }
+                List<JobStatus> changed;
+                try {
+                    changed = client.waitForStatus(targets, watchTimeout);
+                } catch (IOException e) {
+                    synchronized (lock) {
+                        if (closed) {
+                            break;
+                        }
+                        for (JobId id : targets.keySet()) {
+                            Watch watch = watches.get(id);
+                            if (watch != null) {
+                                watch.exception = e;
+                            }
+                        }
+                        lock.notifyAll();
+                    }
+                    Thread.sleep(pollingInterval);
+                    continue;
+                }
+                synchronized (lock) {
+                    Map<String, JobStatus> map = new HashMap<>();
+                    changed.forEach(it -> map.put(it.getJobId(), it));
+                    for (Map.Entry<JobId, Watch> entry : watches.entrySet()) {
+                        JobStatus status = map.get(entry.getKey().getToken());
+                        if (status != null) {
+                            entry.getValue().status = status;
+                            entry.getValue().known = status.getKind();
+                        }
+                    }
+                    lock.notifyAll();
+                }
+            }
+        } catch (UnsupportedOperationException e) {
+            LOG.info(MessageFormat.format(
+                    "job client does not support status watching, switching to polling: {0}",
+                    client), e);
+        } catch (InterruptedException e) {
+            LOG.debug("job status watcher is interrupted: {}", client, e);
+        } catch (RuntimeException e) {
+            if (isClosed()) {
+                LOG.debug("job status watcher is closed: {}", client, e);
+            } else {
+                LOG.warn(MessageFormat.format(
+                        "error occurred while watching job status, switching to polling: {0}",
+                        client), e);
+            }
+        } finally {
+            synchronized (lock) {
+                longPolling = false;
+                watcher = null;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        assert Thread.holdsLock(lock);
+        if (closed) {
+            throw new IOException(MessageFormat.format(
+                    "job status watcher is already closed: {0}",
+                    client));
+        }
+    }
+
+    private boolean isClosed() {
+        synchronized (lock) {
+            return closed;
+        }
+    }
+
+    private JobStatus poll(JobId id, Watch watch, JobStatus.Kind last) throws IOException, InterruptedException {
+        long interval;
+        synchronized (lock) {
+            interval = watch.interval;
+        }
+        Thread.sleep(interval);
+        JobStatus status = client.getStatus(id);
+        synchronized (lock) {
+            if (isChanged(status, last)) {
+                watch.interval = pollingInterval;
+            } else {
+                watch.interval = Math.min(maxPollingInterval, watch.interval * 2);
+            }
+        }
+        return status;
+    }
+
+    private static boolean isChanged(JobStatus status, JobStatus.Kind last) {
+        return status != null && status.getKind() != last;
+    }
+
+    @Override
+    public String toString() {
+        return MessageFormat.format(
+                "JobStatusWatcher({0})",
+                client);
+    }
+
+    private final class Watch {
+
+        JobStatus.Kind known;
+
+        JobStatus status;
+
+        IOException exception;
+
+        boolean subscribed;
+
+        long interval = pollingInterval;
+
+        Watch(JobStatus.Kind known) {
+            this.known = known;
+        }
+    }
+}
@@ -52,6 +52,7 @@ import com.asakusafw.yaess.jobqueue.client.JobStatus;
 /**
  * An implementation of {@link HadoopScript} using Job Queue client.
  * @since 0.2.6
+ * @version 0.10.5
  */
 public class QueueHadoopScriptHandler extends ExecutionScriptHandlerBase implements HadoopScriptHandler {
 
@@ -78,7 +79,7 @@ public class QueueHadoopScriptHandler extends ExecutionScriptHandlerBase impleme
 
     private volatile long timeout;
 
-    private volatile long pollingInterval;
+    private volatile Map<JobClient, JobStatusWatcher> watchers;
 
     @Override
     protected void doConfigure(
@@ -108,8 +109,27 @@ public class QueueHadoopScriptHandler extends ExecutionScriptHandlerBase impleme
 
     void doConfigure(JobClientProfile p) {
         this.timeout = p.getTimeout();
-        this.pollingInterval = p.getPollingInterval();
         this.clients = new JobClientProvider(p.getClients());
+        Map<JobClient, JobStatusWatcher> map = new HashMap<>();
+        for (JobClient client : p.getClients()) {
+            map.put(client, new JobStatusWatcher(
+                    client, p.getPollingInterval(), p.getMaxPollingInterval(), p.getWatchTimeout()));
+        }
+        Map<JobClient, JobStatusWatcher> previous = this.watchers;
+        this.watchers = map;
+        if (previous != null) {
+            // stops the long-polling threads of the discarded clients
+            for (Map.Entry<JobClient, JobStatusWatcher> entry : previous.entrySet()) {
+                if (map.containsKey(entry.getKey())) {
+                    continue;
+                }
+                try {
+                    entry.getValue().close();
+                } catch (IOException e) {
+                    LOG.debug("failed to close job status watcher: {}", entry.getValue(), e);
+                }
+            }
+        }
     }
 
     @Override
@@ -160,10 +180,11 @@ public class QueueHadoopScriptHandler extends ExecutionScriptHandlerBase impleme
                     info.client,
                     info.id);
             long start = System.currentTimeMillis();
+            JobStatusWatcher watcher = watchers.get(info.client);
             try {
                 JobStatus.Kind lastKind = JobStatus.Kind.INITIALIZED;
+                JobStatus status = poll(context, info);
                 while (true) {
-                    JobStatus status = poll(context, info);
                     JobStatus.Kind currentKind = status.getKind();
                     if (lastKind.compareTo(currentKind) < 0) {
                         // progressed
@@ -190,9 +211,10 @@ public class QueueHadoopScriptHandler extends ExecutionScriptHandlerBase impleme
                     }
                     lastKind = currentKind;
                     monitor.checkCancelled();
-                    Thread.sleep(pollingInterval);
+                    status = watch(context, info, watcher, lastKind);
                 }
             } finally {
+                watcher.release(info.id);
                 long end = System.currentTimeMillis();
                 YSLOG.info("I01006",
                         info.script.getBatchId(),
@@ -393,6 +415,28 @@ public class QueueHadoopScriptHandler extends ExecutionScriptHandlerBase impleme
         }
     }
 
+    private JobStatus watch(
+            ExecutionContext context, JobInfo info,
+            JobStatusWatcher watcher, JobStatus.Kind last) throws IOException, InterruptedException {
+        assert context != null;
+        assert info != null;
+        assert watcher != null;
+        assert last != null;
+        try {
+            return watcher.next(info.id, last);
+        } catch (IOException e) {
+            YSLOG.error(e, "E01003",
+                    info.script.getBatchId(),
+                    info.script.getFlowId(),
+                    info.script.getPhase(),
+                    info.script.getExecutionId(),
+                    info.script.getStageId(),
+                    info.client,
+                    info.id);
+            throw e;
+        }
+    }
+
     private void checkError(ExecutionContext context, JobInfo info, JobStatus status) throws IOException {
         assert context != null;
         assert info != null;
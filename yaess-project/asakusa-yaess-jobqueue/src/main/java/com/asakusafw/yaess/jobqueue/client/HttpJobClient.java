@@ -30,6 +30,9 @@ import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.net.ssl.SSLContext;
@@ -52,11 +55,15 @@ import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.asakusafw.yaess.core.ExecutionPhase;
+import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
@@ -70,7 +77,9 @@ import com.google.gson.annotations.SerializedName;
 
 /**
  * An implementation of {@link JobClient} via HTTP(S) connections.
+ * Long-polling requests use their own connections, so that they never block the other requests.
  * @since 0.2.6
+ * @version 0.10.5
  */
 public class HttpJobClient implements JobClient {
 
@@ -94,8 +103,14 @@ public class HttpJobClient implements JobClient {
 
     private final String user;
 
+    static final long DEFAULT_WATCH_TIMEOUT_MARGIN = 10_000L;
+
     private final HttpClient http;
 
+    private final HttpClient watchHttp;
+
+    long watchTimeoutMargin = DEFAULT_WATCH_TIMEOUT_MARGIN;
+
     /**
      * Creates a new instance.
      * @param baseUri the target base URL
@@ -107,7 +122,8 @@ public class HttpJobClient implements JobClient {
         }
         this.baseUri = normalize(baseUri);
         this.user = null;
-        this.http = createClient();
+        this.http = createClient(null, null);
+        this.watchHttp = createClient(null, null);
     }
 
     /**
@@ -129,17 +145,21 @@ public class HttpJobClient implements JobClient {
         }
         this.baseUri = normalize(baseUri);
         this.user = user;
-        DefaultHttpClient client = createClient();
-        client.getCredentialsProvider().setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(user, password));
-        this.http = client;
+        this.http = createClient(user, password);
+        this.watchHttp = createClient(user, password);
     }
 
-    private DefaultHttpClient createClient() {
+    private DefaultHttpClient createClient(String clientUser, String clientPassword) {
         try {
             DefaultHttpClient client = new DefaultHttpClient(new PoolingClientConnectionManager());
             SSLSocketFactory socketFactory = TrustedSSLSocketFactory.create();
             Scheme sch = new Scheme("https", 443, socketFactory);
             client.getConnectionManager().getSchemeRegistry().register(sch);
+            if (clientUser != null) {
+                client.getCredentialsProvider().setCredentials(
+                        AuthScope.ANY,
+                        new UsernamePasswordCredentials(clientUser, clientPassword));
+            }
             return client;
         } catch (GeneralSecurityException e) {
             throw new IllegalStateException(MessageFormat.format(
@@ -186,7 +206,7 @@ public class HttpJobClient implements JobClient {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Registering a job: method=post, uri={}, script={}", uri, script);
         }
-        HttpResponse response = http.execute(request);
+        HttpResponse response = execute(http, request);
         if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
             JobStatus status = extractJobStatus(request, response);
             if (status.getKind() == JobStatus.Kind.ERROR) {
@@ -215,7 +235,7 @@ public class HttpJobClient implements JobClient {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Obtaining information about job: method=get, uri={}", uri);
         }
-        HttpResponse response = http.execute(request);
+        HttpResponse response = execute(http, request);
         if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
             JobStatus status = extractJobStatus(request, response);
             return status;
@@ -227,6 +247,79 @@ public class HttpJobClient implements JobClient {
         }
     }
 
+    @Override
+    public List<JobStatus> waitForStatus(
+            Map<JobId, JobStatus.Kind> jobs, long timeout) throws IOException, InterruptedException {
+        if (jobs == null) {
+            throw new IllegalArgumentException("jobs must not be null"); //$NON-NLS-1$
+        }
+        HttpPost request = new HttpPost();
+        URI uri = createUri("jobs/status");
+        request.setURI(uri);
+        JsonArray targets = new JsonArray();
+        jobs.forEach((id, kind) -> {
+            JsonObject target = new JsonObject();
+            target.addProperty("jrid", id.getToken());
+            target.addProperty("status", kind.getSymbol());
+            targets.add(target);
+        });
+        JsonObject content = new JsonObject();
+        content.addProperty("timeout", timeout);
+        content.add("jobs", targets);
+        request.setEntity(new StringEntity(content.toString(), CONTENT_TYPE));
+        // the server may hold the request until timeout, but must not hold it forever
+        long socketTimeout = Math.max(timeout, 0L) + watchTimeoutMargin;
+        HttpConnectionParams.setSoTimeout(request.getParams(), (int) Math.min(socketTimeout, Integer.MAX_VALUE));
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Waiting for job status: method=post, uri={}, jobs={}", uri, jobs.size());
+        }
+        HttpResponse response = execute(watchHttp, request);
+        int code = response.getStatusLine().getStatusCode();
+        if (code == HttpStatus.SC_OK) {
+            JsonObject object = extractContent(JsonObject.class, request, response);
+            JsonElement changed = object.get("jobs");
+            if (changed == null || changed.isJsonArray() == false) {
+                throw new IOException(MessageFormat.format(
+                        "job status list was not specified: {0}",
+                        request.getURI()));
+            }
+            Gson gson = GSON_BUILDER.create();
+            List<JobStatus> results = new ArrayList<>();
+            for (JsonElement element : changed.getAsJsonArray()) {
+                JobStatus status;
+                try {
+                    status = gson.fromJson(element, JobStatus.class);
+                } catch (RuntimeException e) {
+                    throw new IOException(MessageFormat.format(
+                            "Response message was invalid (not a job status): {0} ({1})",
+                            request.getURI(),
+                            element), e);
+                }
+                validateJobStatus(request, status);
+                if (status.getJobId() == null) {
+                    throw new IOException(MessageFormat.format(
+                            "job request ID was not specified: {0}",
+                            request.getURI()));
+                }
+                results.add(status);
+            }
+            return results;
+        } else if (code == HttpStatus.SC_NOT_FOUND
+                || code == HttpStatus.SC_METHOD_NOT_ALLOWED
+                || code == HttpStatus.SC_NOT_IMPLEMENTED) {
+            EntityUtils.consume(response.getEntity());
+            throw new UnsupportedOperationException(MessageFormat.format(
+                    "Job status watching is not supported: {0} ({1})",
+                    request.getURI(),
+                    response.getStatusLine()));
+        } else {
+            throw toException(request, response, MessageFormat.format(
+                    "Failed to wait for the job status: {0}",
+                    request.getURI()));
+        }
+    }
+
     @Override
     public void submit(JobId id) throws IOException, InterruptedException {
         if (id == null) {
@@ -239,7 +332,7 @@ public class HttpJobClient implements JobClient {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Submitting job: method=put, uri={}", uri);
         }
-        HttpResponse response = http.execute(request);
+        HttpResponse response = execute(http, request);
         if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
             JobStatus status = extractJobStatus(request, response);
             if (status.getKind() == JobStatus.Kind.ERROR) {
@@ -256,6 +349,24 @@ public class HttpJobClient implements JobClient {
         }
     }
 
+    @Override
+    public void close() {
+        http.getConnectionManager().shutdown();
+        watchHttp.getConnectionManager().shutdown();
+    }
+
+    private HttpResponse execute(HttpClient client, HttpUriRequest request) throws IOException {
+        try {
+            return client.execute(request);
+        } catch (IllegalStateException e) {
+            // the connection manager was shut down
+            throw new IOException(MessageFormat.format(
+                    "Job client is already closed: {0} ({1})",
+                    this,
+                    request.getURI()), e);
+        }
+    }
+
     private URI createUri(String path) {
         return URI.create(baseUri + path);
     }
@@ -264,6 +375,11 @@ public class HttpJobClient implements JobClient {
         assert request != null;
         assert response != null;
         JobStatus status = extractContent(JobStatus.class, request, response);
+        validateJobStatus(request, status);
+        return status;
+    }
+
+    private static void validateJobStatus(HttpUriRequest request, JobStatus status) throws IOException {
         if (status.getKind() == null) {
             throw new IOException(MessageFormat.format(
                     "status was not specified: {0}",
@@ -279,7 +395,6 @@ public class HttpJobClient implements JobClient {
                     "exit code was not specified: {0}",
                     request.getURI()));
         }
-        return status;
     }
 
     private <T> T extractContent(Class<T> type, HttpUriRequest request, HttpResponse response) throws IOException {
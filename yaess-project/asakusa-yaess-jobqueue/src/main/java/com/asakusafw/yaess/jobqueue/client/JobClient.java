@@ -15,13 +15,17 @@
  */
 package com.asakusafw.yaess.jobqueue.client;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
 /**
  * An abstract interface of job queue client.
  * @since 0.2.6
+ * @version 0.10.5
  */
-public interface JobClient {
+public interface JobClient extends Closeable {
 
     /**
      * Creates a new job.
@@ -51,4 +55,31 @@ public interface JobClient {
      * @throws IllegalArgumentException if some parameters were {@code null}
      */
     JobStatus getStatus(JobId id) throws IOException, InterruptedException;
+
+    /**
+     * Waits until the status of any the given jobs is changed (a.k.a. long-polling).
+     * Clients which support this can watch a lot of jobs over only one connection.
+     * @param jobs the target job IDs and their last known status
+     * @param timeout the max waiting time (ms)
+     * @return the status of the changed jobs, or an empty list if no jobs are changed until timeout
+     * @throws IOException if failed to obtain the information
+     * @throws InterruptedException if interrupted
+     * @throws UnsupportedOperationException if this client or its server does not support long-polling
+     * @throws IllegalArgumentException if some parameters were {@code null}
+     * @since 0.10.5
+     */
+    default List<JobStatus> waitForStatus(
+            Map<JobId, JobStatus.Kind> jobs, long timeout) throws IOException, InterruptedException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Closes this client and aborts the running requests.
+     * @throws IOException if failed to close this client
+     * @since 0.10.5
+     */
+    @Override
+    default void close() throws IOException {
+        return;
+    }
 }
@@ -54,6 +54,8 @@ public class JobClientProfileTest {
         assertThat(profile.getPrefix(), is("testing"));
         assertThat(profile.getTimeout(), is(JobClientProfile.DEFAULT_TIMEOUT));
         assertThat(profile.getPollingInterval(), is(JobClientProfile.DEFAULT_POLLING_INTERVAL));
+        assertThat(profile.getMaxPollingInterval(), is(JobClientProfile.DEFAULT_POLLING_INTERVAL));
+        assertThat(profile.getWatchTimeout(), is(JobClientProfile.DEFAULT_WATCH_TIMEOUT));
         List<JobClient> clients = profile.getClients();
         assertThat(clients.size(), is(1));
         assertThat(clients.get(0), instanceOf(HttpJobClient.class));
@@ -77,6 +79,9 @@ public class JobClientProfileTest {
                         String.valueOf(JobClientProfile.DEFAULT_TIMEOUT + 1),
                         JobClientProfile.KEY_POLLING_INTERVAL,
                         String.valueOf(JobClientProfile.DEFAULT_POLLING_INTERVAL + 2),
+                        JobClientProfile.KEY_MAX_POLLING_INTERVAL,
+                        String.valueOf(JobClientProfile.DEFAULT_POLLING_INTERVAL + 3),
+                        JobClientProfile.KEY_WATCH_TIMEOUT, "30000",
                         "1.url", "http://www.example.com/jobqueue/1",
                         "2.url", "http://www.example.com/jobqueue/2",
                         "2.user", "u2",
@@ -88,6 +93,8 @@ public class JobClientProfileTest {
         assertThat(profile.getPrefix(), is("testing"));
         assertThat(profile.getTimeout(), is(JobClientProfile.DEFAULT_TIMEOUT + 1));
         assertThat(profile.getPollingInterval(), is(JobClientProfile.DEFAULT_POLLING_INTERVAL + 2));
+        assertThat(profile.getMaxPollingInterval(), is(JobClientProfile.DEFAULT_POLLING_INTERVAL + 3));
+        assertThat(profile.getWatchTimeout(), is(30000L));
         List<JobClient> clients = profile.getClients();
         assertThat(clients.size(), is(2));
         assertThat(clients.get(0), instanceOf(HttpJobClient.class));
@@ -0,0 +1,283 @@
+/**
+ * Copyright 2011-2019 Asakusa Framework Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.asakusafw.yaess.jobqueue;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.localserver.LocalTestServer;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestHandler;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.asakusafw.yaess.jobqueue.client.HttpJobClient;
+import com.asakusafw.yaess.jobqueue.client.JobClient;
+import com.asakusafw.yaess.jobqueue.client.JobId;
+import com.asakusafw.yaess.jobqueue.client.JobScript;
+import com.asakusafw.yaess.jobqueue.client.JobStatus;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Test for {@link JobStatusWatcher}.
+ */
+public class JobStatusWatcherTest {
+
+    private LocalTestServer server;
+
+    private String baseUrl;
+
+    /**
+     * Initializes the test.
+     * @throws Exception if some errors were occurred
+     */
+    @Before
+    public void setUp() throws Exception {
+        server = new LocalTestServer(null, null);
+        server.start();
+        InetSocketAddress address = server.getServiceAddress();
+        baseUrl = new URL("http", address.getHostName(), address.getPort(), "/").toExternalForm();
+    }
+
+    /**
+     * Cleans up the test.
+     * @throws Exception if some errors were occurred
+     */
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    /**
+     * watches job status via long-polling.
+     * @throws Exception if failed
+     */
+    @Test(timeout = 10_000L)
+    public void long_polling() throws Exception {
+        StatusHandler polling = new StatusHandler("waiting");
+        WatchHandler watching = new WatchHandler();
+        server.register("/jobs/a", polling);
+        server.register("/jobs/status", watching);
+
+        JobStatusWatcher watcher = new JobStatusWatcher(new HttpJobClient(baseUrl), 10, 10, 1000);
+        JobId id = new JobId("a");
+        JobStatus.Kind last = JobStatus.Kind.INITIALIZED;
+        while (last != JobStatus.Kind.COMPLETED) {
+            JobStatus status = watcher.next(id, last);
+            assertThat(status.getKind(), greaterThanOrEqualTo(last));
+            last = status.getKind();
+        }
+        watcher.release(id);
+
+        assertThat(watcher.isLongPolling(), is(true));
+        assertThat(watching.count.get(), is(greaterThan(0)));
+        assertThat(polling.count.get(), is(lessThanOrEqualTo(1)));
+    }
+
+    /**
+     * falls back to polling if long-polling is not supported.
+     * @throws Exception if failed
+     */
+    @Test(timeout = 10_000L)
+    public void fallback() throws Exception {
+        StatusHandler polling = new StatusHandler("completed");
+        server.register("/jobs/a", polling);
+
+        JobStatusWatcher watcher = new JobStatusWatcher(new HttpJobClient(baseUrl), 10, 10, 1000);
+        JobId id = new JobId("a");
+        JobStatus.Kind last = JobStatus.Kind.INITIALIZED;
+        while (last != JobStatus.Kind.COMPLETED) {
+            JobStatus status = watcher.next(id, last);
+            last = status.getKind();
+        }
+        watcher.release(id);
+
+        assertThat(polling.count.get(), is(greaterThan(0)));
+    }
+
+    /**
+     * polling intervals are extended while job status is not changed.
+     * @throws Exception if failed
+     */
+    @Test(timeout = 10_000L)
+    public void backoff() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        JobClient client = new JobClient() {
+            @Override
+            public JobId register(JobScript script) {
+                throw new UnsupportedOperationException();
+            }
+            @Override
+            public void submit(JobId id) {
+                throw new UnsupportedOperationException();
+            }
+            @Override
+            public JobStatus getStatus(JobId id) {
+                count.incrementAndGet();
+                JobStatus status = new JobStatus();
+                status.setKind(JobStatus.Kind.RUNNING);
+                status.setJobId(id.getToken());
+                return status;
+            }
+        };
+        JobStatusWatcher watcher = new JobStatusWatcher(client, 10, 80, 0);
+        JobId id = new JobId("a");
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            watcher.next(id, JobStatus.Kind.RUNNING);
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        watcher.release(id);
+
+        assertThat(count.get(), is(5));
+        assertThat(watcher.isLongPolling(), is(false));
+        // 10 + 20 + 40 + 80 + 80
+        assertThat(elapsed, is(greaterThanOrEqualTo(230L)));
+    }
+
+    /**
+     * closing the watcher stops the long-polling thread.
+     * @throws Exception if failed
+     */
+    @Test(timeout = 10_000L)
+    public void close() throws Exception {
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        CountDownLatch watching = new CountDownLatch(1);
+        server.register("/jobs/status", (request, response, context) -> {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            response.setStatusCode(404);
+        });
+        JobClient client = new HttpJobClient(baseUrl) {
+            @Override
+            public List<JobStatus> waitForStatus(
+                    Map<JobId, JobStatus.Kind> jobs, long timeout) throws IOException, InterruptedException {
+                thread.set(Thread.currentThread());
+                watching.countDown();
+                return super.waitForStatus(jobs, timeout);
+            }
+        };
+        JobStatusWatcher watcher = new JobStatusWatcher(client, 10, 10, 5000);
+        JobId id = new JobId("a");
+        AtomicReference<Throwable> result = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                while (true) {
+                    watcher.next(id, JobStatus.Kind.WAITING);
+                }
+            } catch (Throwable t) {
+                result.set(t);
+            }
+        });
+        waiter.setDaemon(true);
+        waiter.start();
+        watching.await();
+
+        watcher.close();
+        thread.get().join();
+        waiter.join();
+        assertThat(watcher.isLongPolling(), is(false));
+        assertThat(result.get(), is(instanceOf(IOException.class)));
+    }
+
+    static JsonObject status(String id, String kind) {
+        JsonObject result = new JsonObject();
+        result.addProperty("status", kind);
+        result.addProperty("jrid", id);
+        result.addProperty("exitCode", 0);
+        return result;
+    }
+
+    private static class StatusHandler implements HttpRequestHandler {
+
+        final AtomicInteger count = new AtomicInteger();
+
+        private final String kind;
+
+        StatusHandler(String kind) {
+            this.kind = kind;
+        }
+
+        @Override
+        public void handle(
+                HttpRequest request, HttpResponse response, HttpContext context) throws HttpException, IOException {
+            count.incrementAndGet();
+            response.setStatusCode(200);
+            response.setEntity(new StringEntity(status("a", kind).toString(), "UTF-8"));
+        }
+    }
+
+    private static class WatchHandler implements HttpRequestHandler {
+
+        final AtomicInteger count = new AtomicInteger();
+
+        WatchHandler() {
+            return;
+        }
+
+        @Override
+        public void handle(
+                HttpRequest request, HttpResponse response, HttpContext context) throws HttpException, IOException {
+            count.incrementAndGet();
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            JsonElement element = new JsonParser().parse(EntityUtils.toString(entity, "UTF-8"));
+            JsonArray changed = new JsonArray();
+            for (JsonElement job : element.getAsJsonObject().get("jobs").getAsJsonArray()) {
+                String id = job.getAsJsonObject().get("jrid").getAsString();
+                String known = job.getAsJsonObject().get("status").getAsString();
+                // advances the job status for each request
+                switch (known) {
+                case "initialized":
+                case "waiting":
+                    changed.add(status(id, "running"));
+                    break;
+                case "running":
+                    changed.add(status(id, "completed"));
+                    break;
+                default:
+                    break;
+                }
+            }
+            JsonObject result = new JsonObject();
+            result.add("jobs", changed);
+            response.setStatusCode(200);
+            response.setEntity(new StringEntity(result.toString(), "UTF-8"));
+        }
+    }
+}
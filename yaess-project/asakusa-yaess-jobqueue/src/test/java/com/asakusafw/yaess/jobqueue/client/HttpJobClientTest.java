@@ -21,7 +21,13 @@ import static org.junit.Assert.*;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpEntityEnclosingRequest;
@@ -49,6 +55,7 @@ import org.slf4j.LoggerFactory;
 
 import com.asakusafw.yaess.core.ExecutionPhase;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -462,6 +469,130 @@ public class HttpJobClientTest {
         assertThat(handler.requestElement, is(nullValue()));
     }
 
+    /**
+     * wait for status.
+     * @throws Exception if failed
+     */
+    @Test
+    public void waitForStatus() throws Exception {
+        JsonObject changed = new JsonObject();
+        changed.addProperty("status", "running");
+        changed.addProperty("jrid", "a");
+        JsonArray jobs = new JsonArray();
+        jobs.add(changed);
+        JsonObject result = new JsonObject();
+        result.add("jobs", jobs);
+        JsonHandler handler = new JsonHandler(result);
+        server.register("/jobs/status", handler);
+
+        HttpJobClient client = new HttpJobClient(baseUrl);
+        Map<JobId, JobStatus.Kind> targets = new LinkedHashMap<>();
+        targets.put(new JobId("a"), JobStatus.Kind.WAITING);
+        targets.put(new JobId("b"), JobStatus.Kind.RUNNING);
+        List<JobStatus> status = client.waitForStatus(targets, 1000);
+        assertThat(status, hasSize(1));
+        assertThat(status.get(0).getJobId(), is("a"));
+        assertThat(status.get(0).getKind(), is(JobStatus.Kind.RUNNING));
+
+        JsonObject request = handler.requestElement;
+        assertThat(request, is(notNullValue()));
+        assertThat(request.get("timeout").getAsLong(), is(1000L));
+        JsonArray requestJobs = request.get("jobs").getAsJsonArray();
+        assertThat(requestJobs.size(), is(2));
+        assertThat(requestJobs.get(0).getAsJsonObject().get("jrid").getAsString(), is("a"));
+        assertThat(requestJobs.get(0).getAsJsonObject().get("status").getAsString(), is("waiting"));
+        assertThat(requestJobs.get(1).getAsJsonObject().get("jrid").getAsString(), is("b"));
+        assertThat(requestJobs.get(1).getAsJsonObject().get("status").getAsString(), is("running"));
+    }
+
+    /**
+     * wait for status - not supported.
+     * @throws Exception if failed
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void waitForStatus_unsupported() throws Exception {
+        server.register("/jobs/status", new ErrorHandler(404, null));
+        HttpJobClient client = new HttpJobClient(baseUrl);
+        client.waitForStatus(Collections.singletonMap(new JobId("a"), JobStatus.Kind.WAITING), 1000);
+    }
+
+    /**
+     * wait for status - the server does not respond in the timeout.
+     * @throws Exception if failed
+     */
+    @Test(timeout = 10000)
+    public void waitForStatus_timeout() throws Exception {
+        server.register("/jobs/status", new SleepHandler(5000));
+        HttpJobClient client = new HttpJobClient(baseUrl);
+        client.watchTimeoutMargin = 100;
+        try {
+            client.waitForStatus(Collections.singletonMap(new JobId("a"), JobStatus.Kind.WAITING), 100);
+            fail();
+        } catch (IOException e) {
+            // ok.
+        } finally {
+            client.close();
+        }
+    }
+
+    /**
+     * wait for status - long-polls do not block other requests.
+     * @throws Exception if failed
+     */
+    @Test(timeout = 10000)
+    public void waitForStatus_concurrent() throws Exception {
+        server.register("/jobs/status", new SleepHandler(5000));
+        JsonObject object = new JsonObject();
+        object.addProperty("status", "running");
+        object.addProperty("jrid", "testing");
+        server.register("/jobs/testing", new JsonHandler(object));
+        HttpJobClient client = new HttpJobClient(baseUrl);
+        try {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        client.waitForStatus(Collections.singletonMap(new JobId("a"), JobStatus.Kind.WAITING), 5000);
+                    } catch (IOException | InterruptedException e) {
+                        LOG.debug("aborted", e);
+                    }
+                });
+                thread.setDaemon(true);
+                thread.start();
+                threads.add(thread);
+            }
+            Thread.sleep(500);
+            JobStatus status = client.getStatus(new JobId("testing"));
+            assertThat(status.getKind(), is(JobStatus.Kind.RUNNING));
+        } finally {
+            client.close();
+        }
+    }
+
+    /**
+     * wait for status - aborted by closing the client.
+     * @throws Exception if failed
+     */
+    @Test(timeout = 10000)
+    public void waitForStatus_close() throws Exception {
+        server.register("/jobs/status", new SleepHandler(5000));
+        HttpJobClient client = new HttpJobClient(baseUrl);
+        AtomicReference<Throwable> result = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                client.waitForStatus(Collections.singletonMap(new JobId("a"), JobStatus.Kind.WAITING), 5000);
+            } catch (Throwable t) {
+                result.set(t);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        Thread.sleep(500);
+        client.close();
+        thread.join();
+        assertThat(result.get(), is(notNullValue()));
+    }
+
     static JsonElement parse(String content) {
         return new JsonParser().parse(content);
     }
@@ -492,6 +623,25 @@ public class HttpJobClientTest {
         }
     }
 
+    private static class SleepHandler implements HttpRequestHandler {
+
+        final long millis;
+
+        SleepHandler(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public void handle(HttpRequest request, HttpResponse response, HttpContext context) throws HttpException, IOException {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            response.setStatusCode(HttpStatus.SC_NOT_FOUND);
+        }
+    }
+
     private static class AuthHandler implements HttpRequestHandler {
 
         private final HttpRequestHandler delegate;